@@ -131,31 +131,22 @@ public class InvItemController extends BaseController {
         String itemName = null;
 
         try {
-            // 1. 先透過條碼或QR碼查找物品
-            InvItem item = invItemService.scanItemByCode(scanCode, scanType);
+            // 1. 透過條碼或QR碼查找物品與庫存資訊（掃描碼對照有快取）
+            InvItemWithStockDTO itemWithStock = invItemService.scanItemWithStock(scanCode, scanType);
 
-            if (item == null) {
+            if (itemWithStock == null) {
                 // 記錄掃描失敗
                 saveScanLog(scanCode, scanType, null, null, ScanResult.FAILURE.getCode(), "未找到對應的物品");
                 return error("未找到對應的物品");
             }
 
-            itemId = item.getItemId();
-            itemName = item.getItemName();
+            itemId = itemWithStock.getItemId();
+            itemName = itemWithStock.getItemName();
 
-            // 2. 查詢包含庫存信息的完整資料
-            InvItemWithStockDTO itemWithStock = invItemMapper.selectItemWithStockByItemId(item.getItemId());
-
-            // 3. 計算庫存狀態和價值
-            if (itemWithStock != null) {
-                itemWithStock.calculateStockStatus();
-                itemWithStock.calculateStockValue();
-            }
-
-            // 4. 記錄掃描成功
+            // 2. 記錄掃描成功（寫回緩衝批次寫入，不佔用掃描回應時間）
             saveScanLog(scanCode, scanType, itemId, itemName, ScanResult.SUCCESS.getCode(), null);
 
-            return success(itemWithStock != null ? itemWithStock : item);
+            return success(itemWithStock);
 
         } catch (Exception e) {
             // 記錄掃描失敗
@@ -164,6 +155,15 @@ public class InvItemController extends BaseController {
         }
     }
 
+    /**
+     * 查詢掃描碼快取狀態（筆數、命中、未命中）
+     */
+    @PreAuthorize("@ss.hasPermi('" + PermConstants.Inventory.Item.QUERY + "')")
+    @GetMapping("/scan/cache/stats")
+    public AjaxResult getScanCacheStats() {
+        return success(invItemService.getScanCacheStats());
+    }
+
     /**
      * 儲存掃描記錄
      */
@@ -182,7 +182,7 @@ public class InvItemController extends BaseController {
             scanLog.setUserAgent(ServletUtils.getRequest().getHeader(HttpHeaders.USER_AGENT));
             scanLog.setErrorMsg(errorMsg != null ? errorMsg : "");
 
-            invScanLogService.insertInvScanLog(scanLog);
+            invScanLogService.submitInvScanLog(scanLog);
         } catch (Exception e) {
             log.warn("寫入掃描記錄失敗: {}", e.getMessage());
             // 不中斷主流程
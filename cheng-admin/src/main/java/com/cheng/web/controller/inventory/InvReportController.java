@@ -3,8 +3,6 @@ package com.cheng.web.controller.inventory;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
-import java.time.LocalDate;
-import java.time.ZoneId;
 
 import com.cheng.common.core.page.TableDataInfo;
 import jakarta.servlet.http.HttpServletResponse;
@@ -19,10 +17,6 @@ import com.cheng.common.annotation.Log;
 import com.cheng.common.core.controller.BaseController;
 import com.cheng.common.core.domain.AjaxResult;
 import com.cheng.common.enums.BusinessType;
-import com.cheng.common.enums.ScanResult;
-import com.cheng.common.enums.ScanType;
-import com.cheng.system.domain.enums.BorrowStatus;
-import com.cheng.system.domain.enums.StockRecordType;
 import com.cheng.system.domain.InvStock;
 import com.cheng.system.domain.InvBorrow;
 import com.cheng.system.domain.InvStockRecord;
@@ -31,6 +25,7 @@ import com.cheng.system.service.IInvStockService;
 import com.cheng.system.service.IInvBorrowService;
 import com.cheng.system.service.IInvStockRecordService;
 import com.cheng.system.service.IInvScanLogService;
+import com.cheng.system.service.IInvReportService;
 import com.cheng.common.utils.poi.ExcelUtil;
 
 /**
@@ -48,6 +43,7 @@ public class InvReportController extends BaseController {
     private final IInvBorrowService invBorrowService;
     private final IInvStockRecordService invStockRecordService;
     private final IInvScanLogService invScanLogService;
+    private final IInvReportService invReportService;
 
     /**
      * 取得庫存報表資料
@@ -58,22 +54,8 @@ public class InvReportController extends BaseController {
         startPage();
         List<InvStock> list = invStockService.selectInvStockList(invStock);
 
-        // 統計資料（使用全部資料）
-        List<InvStock> allList = invStockService.selectInvStockList(new InvStock());
-        Map<String, Object> statistics = new HashMap<>();
-        statistics.put("totalItems", allList.size());
-        statistics.put("totalQuantity", allList.stream().mapToInt(InvStock::getTotalQuantity).sum());
-        long lowStockItems = allList.stream()
-                .filter(s -> s.getTotalQuantity() > 0 && s.getTotalQuantity() <= s.getMinStock())
-                .count();
-        long outOfStockItems = allList.stream()
-                .filter(s -> s.getTotalQuantity() <= 0)
-                .count();
-        statistics.put("lowStockItems", lowStockItems);
-        statistics.put("outOfStockItems", outOfStockItems);
-
         TableDataInfo dataInfo = getDataTable(list);
-        dataInfo.put("statistics", statistics);
+        dataInfo.put("statistics", invReportService.getStockStatistics());
         return dataInfo;
     }
 
@@ -86,17 +68,8 @@ public class InvReportController extends BaseController {
         startPage();
         List<InvBorrow> list = invBorrowService.selectInvBorrowList(invBorrow);
 
-        // 統計資料（使用全部資料）
-        List<InvBorrow> allList = invBorrowService.selectInvBorrowList(new InvBorrow());
-        Map<String, Object> statistics = new HashMap<>();
-        statistics.put("totalBorrows", allList.size());
-        statistics.put("pendingBorrows", allList.stream().filter(b -> BorrowStatus.PENDING.getCode().equals(b.getStatus())).count());
-        statistics.put("approvedBorrows", allList.stream().filter(b -> BorrowStatus.BORROWED.getCode().equals(b.getStatus())).count());
-        statistics.put("returnedBorrows", allList.stream().filter(b -> BorrowStatus.RETURNED.getCode().equals(b.getStatus())).count());
-        statistics.put("overdueBorrows", invBorrowService.selectOverdueBorrowList(null).size());
-
         TableDataInfo dataInfo = getDataTable(list);
-        dataInfo.put("statistics", statistics);
+        dataInfo.put("statistics", invReportService.getBorrowStatistics());
         return dataInfo;
     }
 
@@ -109,16 +82,8 @@ public class InvReportController extends BaseController {
         startPage();
         List<InvStockRecord> list = invStockRecordService.selectInvStockRecordList(invStockRecord);
 
-        // 統計資料（使用全部資料）
-        List<InvStockRecord> allList = invStockRecordService.selectInvStockRecordList(new InvStockRecord());
-        Map<String, Object> statistics = new HashMap<>();
-        statistics.put("totalRecords", allList.size());
-        statistics.put("inRecords", allList.stream().filter(r -> StockRecordType.IN.getCode().equals(r.getRecordType())).count());
-        statistics.put("outRecords", allList.stream().filter(r -> StockRecordType.OUT.getCode().equals(r.getRecordType())).count());
-        statistics.put("checkRecords", allList.stream().filter(r -> StockRecordType.CHECK.getCode().equals(r.getRecordType())).count());
-
         TableDataInfo dataInfo = getDataTable(list);
-        dataInfo.put("statistics", statistics);
+        dataInfo.put("statistics", invReportService.getMovementStatistics());
         return dataInfo;
     }
 
@@ -130,9 +95,8 @@ public class InvReportController extends BaseController {
     @Log(title = "庫存報表", businessType = BusinessType.EXPORT)
     @PostMapping("/stock/export")
     public void exportStockReport(HttpServletResponse response, InvStock invStock) {
-        List<InvStock> list = invStockService.selectInvStockList(invStock);
         ExcelUtil<InvStock> util = new ExcelUtil<InvStock>(InvStock.class);
-        util.exportExcel(response, list, "庫存報表資料");
+        util.exportExcelStream(response, "庫存報表資料", writer -> invStockService.streamInvStockList(invStock, writer));
     }
 
     /**
@@ -142,9 +106,8 @@ public class InvReportController extends BaseController {
     @Log(title = "借出報表", businessType = BusinessType.EXPORT)
     @PostMapping("/borrow/export")
     public void exportBorrowReport(HttpServletResponse response, InvBorrow invBorrow) {
-        List<InvBorrow> list = invBorrowService.selectInvBorrowList(invBorrow);
         ExcelUtil<InvBorrow> util = new ExcelUtil<InvBorrow>(InvBorrow.class);
-        util.exportExcel(response, list, "借出報表資料");
+        util.exportExcelStream(response, "借出報表資料", writer -> invBorrowService.streamInvBorrowList(invBorrow, writer));
     }
 
     /**
@@ -154,9 +117,8 @@ public class InvReportController extends BaseController {
     @Log(title = "異動報表", businessType = BusinessType.EXPORT)
     @PostMapping("/movement/export")
     public void exportMovementReport(HttpServletResponse response, InvStockRecord invStockRecord) {
-        List<InvStockRecord> list = invStockRecordService.selectInvStockRecordList(invStockRecord);
         ExcelUtil<InvStockRecord> util = new ExcelUtil<InvStockRecord>(InvStockRecord.class);
-        util.exportExcel(response, list, "異動報表資料");
+        util.exportExcelStream(response, "異動報表資料", writer -> invStockRecordService.streamInvStockRecordList(invStockRecord, writer));
     }
 
     /**
@@ -168,17 +130,8 @@ public class InvReportController extends BaseController {
         startPage();
         List<InvScanLog> list = invScanLogService.selectInvScanLogList(invScanLog);
 
-        // 統計資料（使用全部資料）
-        List<InvScanLog> allList = invScanLogService.selectInvScanLogList(new InvScanLog());
-        Map<String, Object> statistics = new HashMap<>();
-        statistics.put("totalScans", allList.size());
-        statistics.put("successScans", allList.stream().filter(s -> ScanResult.SUCCESS.getCode().equals(s.getScanResult())).count());
-        statistics.put("failedScans", allList.stream().filter(s -> ScanResult.FAILURE.getCode().equals(s.getScanResult())).count());
-        statistics.put("barcodeScans", allList.stream().filter(s -> ScanType.BARCODE.getCode().equals(s.getScanType())).count());
-        statistics.put("qrcodeScans", allList.stream().filter(s -> ScanType.QRCODE.getCode().equals(s.getScanType())).count());
-
         TableDataInfo dataInfo = getDataTable(list);
-        dataInfo.put("statistics", statistics);
+        dataInfo.put("statistics", invReportService.getScanStatistics());
         return dataInfo;
     }
 
@@ -189,9 +142,8 @@ public class InvReportController extends BaseController {
     @Log(title = "掃描報表", businessType = BusinessType.EXPORT)
     @PostMapping("/scan/export")
     public void exportScanReport(HttpServletResponse response, InvScanLog invScanLog) {
-        List<InvScanLog> list = invScanLogService.selectInvScanLogList(invScanLog);
         ExcelUtil<InvScanLog> util = new ExcelUtil<InvScanLog>(InvScanLog.class);
-        util.exportExcel(response, list, "掃描報表資料");
+        util.exportExcelStream(response, "掃描報表資料", writer -> invScanLogService.streamInvScanLogList(invScanLog, writer));
     }
 
 
@@ -204,24 +156,21 @@ public class InvReportController extends BaseController {
         Map<String, Object> dashboard = new HashMap<>();
 
         // 庫存統計
-        List<InvStock> stockList = invStockService.selectInvStockList(new InvStock());
-        dashboard.put("totalItems", stockList.size());
-        dashboard.put("totalQuantity", stockList.stream().mapToInt(InvStock::getTotalQuantity).sum());
-        dashboard.put("availableQuantity", stockList.stream().mapToInt(InvStock::getAvailableQty).sum());
+        Map<String, Object> stock = invReportService.getStockStatistics();
+        dashboard.put("totalItems", stock.get("totalItems"));
+        dashboard.put("totalQuantity", stock.get("totalQuantity"));
+        dashboard.put("availableQuantity", stock.get("availableQuantity"));
 
         // 借出統計
-        List<InvBorrow> borrowList = invBorrowService.selectInvBorrowList(new InvBorrow());
-        dashboard.put("totalBorrows", borrowList.size());
-        dashboard.put("pendingBorrows", borrowList.stream().filter(b -> BorrowStatus.PENDING.getCode().equals(b.getStatus())).count());
-        dashboard.put("overdueBorrows", invBorrowService.selectOverdueBorrowList(null).size());
+        Map<String, Object> borrow = invReportService.getBorrowStatistics();
+        dashboard.put("totalBorrows", borrow.get("totalBorrows"));
+        dashboard.put("pendingBorrows", borrow.get("pendingBorrows"));
+        dashboard.put("overdueBorrows", borrow.get("overdueBorrows"));
 
         // 異動統計
-        List<InvStockRecord> recordList = invStockRecordService.selectInvStockRecordList(new InvStockRecord());
-        dashboard.put("totalRecords", recordList.size());
-        dashboard.put("todayRecords", recordList.stream().filter(r ->
-                r.getRecordTime() != null &&
-                        r.getRecordTime().toInstant().atZone(ZoneId.systemDefault()).toLocalDate().equals(LocalDate.now())
-        ).count());
+        Map<String, Object> movement = invReportService.getMovementStatistics();
+        dashboard.put("totalRecords", movement.get("totalRecords"));
+        dashboard.put("todayRecords", movement.get("todayRecords"));
 
         return success(dashboard);
     }
@@ -164,7 +164,7 @@ public class InvScanController extends BaseController {
             scanLog.setUserAgent(ServletUtils.getRequest().getHeader(HttpHeaders.USER_AGENT));
             scanLog.setErrorMsg(errorMsg != null ? errorMsg : "");
 
-            invScanLogService.insertInvScanLog(scanLog);
+            invScanLogService.submitInvScanLog(scanLog);
         } catch (Exception e) {
             log.warn("寫入掃描記錄失敗: {}", e.getMessage());
             // 不中斷主流程
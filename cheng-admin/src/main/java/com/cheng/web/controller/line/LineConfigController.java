@@ -12,6 +12,7 @@ import com.cheng.line.dto.WebhookTestDTO;
 import com.cheng.line.service.ILineConfigService;
 import com.cheng.line.vo.ConnectionTestVO;
 import com.cheng.line.vo.WebhookTestVO;
+import com.cheng.line.webhook.LineWebhookDispatcher;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -34,6 +35,9 @@ public class LineConfigController extends BaseController {
     @Autowired
     private ILineConfigService lineConfigService;
 
+    @Autowired
+    private LineWebhookDispatcher lineWebhookDispatcher;
+
     /**
      * 查詢 LINE 頻道設定列表
      */
@@ -253,6 +257,24 @@ public class LineConfigController extends BaseController {
         }
     }
 
+    /**
+     * 查詢 Webhook 事件佇列狀態（入列、重複、拒收、處理數與佇列深度）
+     */
+    @PreAuthorize("@ss.hasPermi('" + PermConstants.Line.Config.QUERY + "')")
+    @GetMapping("/webhook/stats")
+    public AjaxResult getWebhookStats() {
+        return success(lineWebhookDispatcher.getStats());
+    }
+
+    /**
+     * 查詢頻道設定快取狀態（命中、未命中、移除次數）
+     */
+    @PreAuthorize("@ss.hasPermi('" + PermConstants.Line.Config.QUERY + "')")
+    @GetMapping("/cache/stats")
+    public AjaxResult getConfigCacheStats() {
+        return success(lineConfigService.getConfigCacheStats());
+    }
+
     /**
      * 取得系統預設的 Webhook 基礎 URL
      *
@@ -9,14 +9,16 @@ import com.cheng.line.domain.LineUser;
 import com.cheng.line.enums.FollowStatus;
 import com.cheng.line.service.ILineConfigService;
 import com.cheng.line.service.ILineUserService;
-import com.linecorp.bot.parser.LineSignatureValidator;
+import com.cheng.line.webhook.LineWebhookDispatcher;
 import com.linecorp.bot.parser.WebhookParser;
 import com.linecorp.bot.spring.boot.handler.annotation.EventMapping;
 import com.linecorp.bot.spring.boot.handler.annotation.LineMessageHandler;
 import com.linecorp.bot.webhook.model.*;
 import jakarta.annotation.Resource;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.web.bind.annotation.*;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
@@ -31,6 +33,8 @@ import java.util.List;
  * <p>
  * 注意：由於是多頻道架構，使用自定義 endpoint + @EventMapping 手動分發
  * <p>
+ * 事件於驗簽後交由 {@link LineWebhookDispatcher} 非同步處理，請求本身只做驗簽與入列
+ * <p>
  *
  * @author cheng
  */
@@ -47,52 +51,48 @@ public class LineWebhookController extends BaseController {
     @Resource
     private ILineConfigService lineConfigService;
 
+    @Resource
+    private LineWebhookDispatcher lineWebhookDispatcher;
+
     /**
-     * 當前請求的 Bot Basic ID
-     * 用於識別是哪個頻道的 Webhook
+     * 當前處理事件的 Bot Basic ID
+     * 用於識別是哪個頻道的 Webhook（於事件處理執行緒設定）
      */
     private final ThreadLocal<String> currentBotBasicId = new ThreadLocal<>();
 
     /**
      * LINE Webhook 接收端點
-     * 接收 LINE Platform 發送的 Webhook 事件
+     * 驗證簽名後將事件交由背景執行緒處理，立即回應 200，避免 LINE 平台逾時重送
      *
      * @param botBasicId Bot Basic ID
      * @param signature  LINE 簽名 (X-Line-Signature header)
      * @param payload    Webhook 請求內容（原始 JSON 字串）
+     * @param response   HTTP 回應（佇列已滿時設定 503）
      * @return 處理結果
      */
     @PostMapping("/{botBasicId}")
     public AjaxResult handleWebhook(
             @PathVariable("botBasicId") String botBasicId,
             @RequestHeader(value = "X-Line-Signature", required = false) String signature,
-            @RequestBody String payload) {
+            @RequestBody String payload,
+            HttpServletResponse response) {
 
-        log.info("==================== 收到 LINE Webhook 請求 ====================");
         log.debug("[Webhook] Bot Basic ID (原始): {}", botBasicId);
         log.debug("[Webhook] 是否包含簽名: {}", signature != null && !signature.isEmpty());
         log.debug("[Webhook] Payload 長度: {} bytes", payload != null ? payload.length() : 0);
 
         // 正規化 Bot Basic ID（確保有 @ 前綴）
         String normalizedBotBasicId = botBasicId.startsWith("@") ? botBasicId : "@" + botBasicId;
-        log.debug("[Webhook] Bot Basic ID (正規化): {}", normalizedBotBasicId);
-
-        // 設定當前請求的 Bot Basic ID
-        currentBotBasicId.set(normalizedBotBasicId);
 
         try {
             // 1. 驗證頻道是否存在且啟用
-            log.debug("[Stop1] 開始驗證頻道配置...");
             LineConfig config = lineConfigService.selectLineConfigByBotBasicId(normalizedBotBasicId);
             if (config == null) {
                 log.error("[錯誤] Bot Basic ID 不存在: {}", botBasicId);
                 return notFound("頻道設定不存在");
             }
-            log.debug("[Stop1] 頻道驗證成功: {} ({})", config.getChannelName(), config.getBotBasicId());
 
             // 2. 解析並驗證 Webhook 事件
-            log.debug("[Stop2] 開始解析並驗證 Webhook 事件...");
-
             // 檢查是否有簽名
             if (signature == null || signature.isEmpty()) {
                 log.error("[錯誤] 請求缺少 X-Line-Signature header");
@@ -103,68 +103,77 @@ public class LineWebhookController extends BaseController {
             CallbackRequest callbackRequest;
             try {
                 // WebhookParser 會自動驗證簽名並解析事件
-                callbackRequest = parseAndValidateWebhook(config.getChannelSecret(), signature, payload);
-                log.debug("[Stop2] 簽名驗證成功");
+                callbackRequest = parseAndValidateWebhook(normalizedBotBasicId, signature, payload);
             } catch (Exception e) {
                 log.error("[錯誤] 簽名驗證失敗或解析錯誤: {}", e.getMessage());
                 return unauthorized("簽名驗證失敗或解析錯誤");
             }
 
             List<Event> events = callbackRequest.events();
-            log.debug("[Stop2] 解析成功，共 {} 個事件", events.size());
-
-            // 3. 處理每個事件
-            if (!events.isEmpty()) {
-                log.debug("[Stop3] 開始處理事件...");
+            if (events.isEmpty()) {
+                return success();
             }
 
-            for (int i = 0; i < events.size(); i++) {
-                Event event = events.get(i);
-                String eventType = event.getClass().getSimpleName();
-                log.info("[事件 {}/{}] 類型: {}", i + 1, events.size(), eventType);
-                log.debug("[事件 {}/{}] 時間戳: {}", i + 1, events.size(), event.timestamp());
+            // 3. 事件入列，由背景執行緒依使用者順序處理
+            LineWebhookDispatcher.DispatchResult result = lineWebhookDispatcher.dispatch(
+                    normalizedBotBasicId, events, event -> processEvent(normalizedBotBasicId, event));
+            log.info("[Webhook] {} 收到 {} 個事件，入列 {}，重複 {}，拒收 {}", normalizedBotBasicId,
+                    events.size(), result.accepted(), result.duplicate(), result.rejected());
 
-                processEvent(event);
-                log.debug("[事件 {}/{}] 處理完成", i + 1, events.size());
+            if (result.rejected() > 0) {
+                // 回應非 2xx，讓 LINE 重送；已入列的事件會因 webhookEventId 去重而不重複處理
+                response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                return error("事件佇列已滿，請稍後重送");
             }
-
-            log.info("==================== Webhook 請求處理完成 ====================");
             return success();
 
         } catch (Exception e) {
             log.error("==================== Webhook 處理失敗 ====================", e);
             log.error("[錯誤詳情] {}", e.getMessage());
             return error(e.getMessage());
-        } finally {
-            // 清理 ThreadLocal
-            currentBotBasicId.remove();
         }
     }
 
     /**
      * 驗證 LINE 簽名並解析 Webhook 請求
+     * 解析器（含簽名驗證器）與頻道設定一同快取，不需每次請求重建
      *
-     * @param channelSecret 頻道密鑰
-     * @param signature     請求簽名
-     * @param payload       請求內容
+     * @param botBasicId Bot Basic ID
+     * @param signature  請求簽名
+     * @param payload    請求內容
      * @return CallbackRequest 物件
      */
-    private CallbackRequest parseAndValidateWebhook(String channelSecret, String signature, String payload) {
+    private CallbackRequest parseAndValidateWebhook(String botBasicId, String signature, String payload) {
         try {
-            // 建立簽名驗證器
-            LineSignatureValidator validator = new LineSignatureValidator(channelSecret.getBytes());
-
-            // 建立 Webhook 解析器（需要傳入驗證器）
-            WebhookParser parser = new WebhookParser(validator);
+            WebhookParser parser = lineConfigService.getWebhookParser(botBasicId);
+            if (parser == null) {
+                throw new IllegalStateException("頻道未設定 Channel Secret");
+            }
 
             // 解析並驗證（需要傳入 signature 和 payload bytes）
-            return parser.handle(signature, payload.getBytes());
+            return parser.handle(signature, payload.getBytes(StandardCharsets.UTF_8));
         } catch (Exception e) {
             log.error("[Webhook 解析] 解析或驗證失敗", e);
             throw new RuntimeException("Webhook 解析失敗: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * 於背景執行緒處理單個事件，期間設定當前頻道
+     *
+     * @param botBasicId Bot Basic ID
+     * @param event      事件物件
+     */
+    private void processEvent(String botBasicId, Event event) {
+        currentBotBasicId.set(botBasicId);
+        try {
+            log.info("[事件] {} 類型: {}", botBasicId, event.getClass().getSimpleName());
+            processEvent(event);
+        } finally {
+            currentBotBasicId.remove();
+        }
+    }
+
     /**
      * 處理單個事件
      * 使用 LINE SDK 的事件分發機制，將事件路由到對應的 @EventMapping 方法
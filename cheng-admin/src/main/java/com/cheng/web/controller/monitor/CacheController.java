@@ -2,7 +2,9 @@ package com.cheng.web.controller.monitor;
 
 import com.cheng.common.constant.CacheConstants;
 import com.cheng.common.constant.PermConstants;
+import com.cheng.common.core.cache.CacheInvalidationBus;
 import com.cheng.common.core.domain.AjaxResult;
+import com.cheng.common.core.redis.RedisCache;
 import com.cheng.common.utils.StringUtils;
 import com.cheng.system.domain.SysCache;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,6 +27,12 @@ public class CacheController {
     @Autowired
     private RedisTemplate<String, String> redisTemplate;
 
+    @Autowired
+    private RedisCache redisCache;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
     private final static List<SysCache> CACHES = new ArrayList<>();
 
     {
@@ -70,7 +78,7 @@ public class CacheController {
     @PreAuthorize("@ss.hasPermi('" + PermConstants.Monitor.Cache.LIST + "')")
     @GetMapping("/getKeys/{cacheName}")
     public AjaxResult getCacheKeys(@PathVariable String cacheName) {
-        Set<String> cacheKeys = redisTemplate.keys(cacheName + "*");
+        Set<String> cacheKeys = redisCache.scanKeys(cacheName + "*");
         return AjaxResult.success(new TreeSet<>(cacheKeys));
     }
 
@@ -85,8 +93,8 @@ public class CacheController {
     @PreAuthorize("@ss.hasPermi('" + PermConstants.Monitor.Cache.LIST + "')")
     @DeleteMapping("/clearCacheName/{cacheName}")
     public AjaxResult clearCacheName(@PathVariable String cacheName) {
-        Collection<String> cacheKeys = redisTemplate.keys(cacheName + "*");
-        redisTemplate.delete(cacheKeys);
+        redisCache.deleteByPattern(cacheName + "*");
+        cacheInvalidationBus.invalidateAll(cacheName);
         return AjaxResult.success();
     }
 
@@ -94,14 +102,15 @@ public class CacheController {
     @DeleteMapping("/clearCacheKey/{cacheKey}")
     public AjaxResult clearCacheKey(@PathVariable String cacheKey) {
         redisTemplate.delete(cacheKey);
+        cacheInvalidationBus.invalidateKey(cacheKey);
         return AjaxResult.success();
     }
 
     @PreAuthorize("@ss.hasPermi('" + PermConstants.Monitor.Cache.LIST + "')")
     @DeleteMapping("/clearCacheAll")
     public AjaxResult clearCacheAll() {
-        Collection<String> cacheKeys = redisTemplate.keys("*");
-        redisTemplate.delete(cacheKeys);
+        redisCache.deleteByPattern("*");
+        cacheInvalidationBus.invalidateEverything();
         return AjaxResult.success();
     }
 }
@@ -1,15 +1,16 @@
 package com.cheng.web.controller.monitor;
 
 import com.cheng.common.annotation.Log;
-import com.cheng.common.constant.CacheConstants;
 import com.cheng.common.constant.PermConstants;
 import com.cheng.common.core.controller.BaseController;
 import com.cheng.common.core.domain.AjaxResult;
 import com.cheng.common.core.domain.model.LoginUser;
+import com.cheng.common.core.page.PageDomain;
 import com.cheng.common.core.page.TableDataInfo;
-import com.cheng.common.core.redis.RedisCache;
+import com.cheng.common.core.page.TableSupport;
 import com.cheng.common.enums.BusinessType;
 import com.cheng.common.utils.StringUtils;
+import com.cheng.framework.web.service.TokenService;
 import com.cheng.system.domain.SysUserOnline;
 import com.cheng.system.service.ISysUserOnlineService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,8 +18,6 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
 
 /**
@@ -29,32 +28,80 @@ import java.util.List;
 @RestController
 @RequestMapping("/monitor/online")
 public class SysUserOnlineController extends BaseController {
+    /**
+     * 有篩選條件時每批讀取的 token 數
+     */
+    private static final int FILTER_BATCH_SIZE = 500;
+
     @Autowired
     private ISysUserOnlineService userOnlineService;
 
     @Autowired
-    private RedisCache redisCache;
+    private TokenService tokenService;
 
+    /**
+     * 線上使用者列表
+     * <p>
+     * 以 TokenService 維護的線上索引（有序集合）分頁，只讀取當頁的 token；
+     * 有篩選條件時依索引分批讀取並過濾，皆不需走訪整個 Redis 鍵空間
+     */
     @PreAuthorize("@ss.hasPermi('" + PermConstants.Monitor.Online.LIST + "')")
     @GetMapping("/list")
     public TableDataInfo list(String ipaddr, String userName) {
-        Collection<String> keys = redisCache.keys(CacheConstants.LOGIN_TOKEN_KEY + "*");
-        List<SysUserOnline> userOnlineList = new ArrayList<SysUserOnline>();
-        for (String key : keys) {
-            LoginUser user = redisCache.getCacheObject(key);
-            if (StringUtils.isNotEmpty(ipaddr) && StringUtils.isNotEmpty(userName)) {
-                userOnlineList.add(userOnlineService.selectOnlineByInfo(ipaddr, userName, user));
-            } else if (StringUtils.isNotEmpty(ipaddr)) {
-                userOnlineList.add(userOnlineService.selectOnlineByIpaddr(ipaddr, user));
-            } else if (StringUtils.isNotEmpty(userName) && StringUtils.isNotNull(user.getUser())) {
-                userOnlineList.add(userOnlineService.selectOnlineByUserName(userName, user));
-            } else {
-                userOnlineList.add(userOnlineService.loginUserToUserOnline(user));
+        PageDomain pageDomain = TableSupport.buildPageRequest();
+        int pageSize = Math.max(1, pageDomain.getPageSize());
+        long offset = (long) (Math.max(1, pageDomain.getPageNum()) - 1) * pageSize;
+
+        if (StringUtils.isEmpty(ipaddr) && StringUtils.isEmpty(userName)) {
+            long total = tokenService.getOnlineTokenCount();
+            List<String> tokens = tokenService.getOnlineTokens(offset, offset + pageSize - 1);
+            List<SysUserOnline> rows = new ArrayList<>();
+            for (LoginUser user : tokenService.getLoginUsers(tokens)) {
+                addIfPresent(rows, userOnlineService.loginUserToUserOnline(user));
             }
+            TableDataInfo dataTable = getDataTable(rows);
+            dataTable.setTotal(total);
+            return dataTable;
+        }
+
+        List<String> tokens = tokenService.getOnlineTokens(0, -1);
+        List<SysUserOnline> matched = new ArrayList<>();
+        for (int from = 0; from < tokens.size(); from += FILTER_BATCH_SIZE) {
+            List<String> batch = tokens.subList(from, Math.min(from + FILTER_BATCH_SIZE, tokens.size()));
+            for (LoginUser user : tokenService.getLoginUsers(batch)) {
+                addIfPresent(matched, toUserOnline(ipaddr, userName, user));
+            }
+        }
+        int fromIndex = (int) Math.min(offset, matched.size());
+        TableDataInfo dataTable = getDataTable(matched.subList(fromIndex, Math.min(fromIndex + pageSize, matched.size())));
+        dataTable.setTotal(matched.size());
+        return dataTable;
+    }
+
+    private SysUserOnline toUserOnline(String ipaddr, String userName, LoginUser user) {
+        if (StringUtils.isNotEmpty(ipaddr) && StringUtils.isNotEmpty(userName)) {
+            return userOnlineService.selectOnlineByInfo(ipaddr, userName, user);
+        } else if (StringUtils.isNotEmpty(ipaddr)) {
+            return userOnlineService.selectOnlineByIpaddr(ipaddr, user);
+        } else if (StringUtils.isNotNull(user.getUser())) {
+            return userOnlineService.selectOnlineByUserName(userName, user);
+        }
+        return null;
+    }
+
+    private static void addIfPresent(List<SysUserOnline> list, SysUserOnline userOnline) {
+        if (userOnline != null) {
+            list.add(userOnline);
         }
-        Collections.reverse(userOnlineList);
-        userOnlineList.removeAll(Collections.singleton(null));
-        return getDataTable(userOnlineList);
+    }
+
+    /**
+     * 查詢登入使用者本機快取狀態（命中、未命中、清除次數）
+     */
+    @PreAuthorize("@ss.hasPermi('" + PermConstants.Monitor.Online.LIST + "')")
+    @GetMapping("/cache/stats")
+    public AjaxResult getLoginUserCacheStats() {
+        return success(tokenService.getLoginUserCacheStats());
     }
 
     /**
@@ -64,7 +111,7 @@ public class SysUserOnlineController extends BaseController {
     @Log(title = "線上使用者", businessType = BusinessType.FORCE)
     @DeleteMapping("/{tokenId}")
     public AjaxResult forceLogout(@PathVariable String tokenId) {
-        redisCache.deleteObject(CacheConstants.LOGIN_TOKEN_KEY + tokenId);
+        tokenService.delLoginUser(tokenId);
         return success();
     }
 }
@@ -46,10 +46,11 @@ public class LineTagController extends BaseController {
         // 設定平台範圍為 LINE
         sysTag.setPlatformScope(SysTag.SCOPE_LINE);
         List<SysTag> list = sysTagService.selectSysTagList(sysTag);
-        // 填充每個標籤的使用者數量
+        // 填充每個標籤的使用者數量（單次批次統計）
+        Map<Long, Integer> userCounts = lineUserTagRelationService.countUsersByTagIds(
+                list.stream().map(SysTag::getTagId).toList());
         for (SysTag tag : list) {
-            int userCount = lineUserTagRelationService.countUsersByTagId(tag.getTagId());
-            tag.setUserCount(userCount);
+            tag.setUserCount(userCounts.getOrDefault(tag.getTagId(), 0));
         }
         return getDataTable(list);
     }
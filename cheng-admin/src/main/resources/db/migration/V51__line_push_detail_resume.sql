@@ -0,0 +1,17 @@
+-- LINE 標籤推播可續傳：推播明細作為持久化進度，訊息記錄的 update_time 作為任務心跳
+-- 1. 清除重複明細（保留最新一筆）
+DELETE d1
+FROM line_push_detail d1
+         JOIN line_push_detail d2
+              ON d1.message_id = d2.message_id
+                  AND d1.line_user_id = d2.line_user_id
+                  AND d1.detail_id < d2.detail_id;
+
+-- 2. 以 (message_id, line_user_id) 唯一索引取代 message_id 單欄索引
+ALTER TABLE line_push_detail
+    ADD UNIQUE KEY uk_push_detail_message_user (message_id, line_user_id),
+    DROP INDEX idx_push_detail_message_id;
+
+-- 3. 訊息記錄新增更新時間，發送中的標籤推播任務以此作為心跳，逾時視為中斷並續傳
+ALTER TABLE line_message_log
+    ADD COLUMN update_time DATETIME DEFAULT NULL COMMENT '更新時間（發送中任務的心跳）' AFTER create_time;
@@ -0,0 +1,13 @@
+-- 庫存報表統計改由 GROUP BY 彙總查詢取得
+-- 掃描記錄依 (scan_type, scan_result) 分組計數，建立複合索引讓統計只需掃描索引
+SET @index_exists = (SELECT COUNT(*)
+                     FROM INFORMATION_SCHEMA.STATISTICS
+                     WHERE TABLE_SCHEMA = DATABASE()
+                       AND TABLE_NAME = 'inv_scan_log'
+                       AND INDEX_NAME = 'idx_scan_type_result');
+SET @sql = IF(@index_exists = 0,
+              'CREATE INDEX idx_scan_type_result ON inv_scan_log(scan_type, scan_result)',
+              'SELECT ''Index idx_scan_type_result already exists''');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
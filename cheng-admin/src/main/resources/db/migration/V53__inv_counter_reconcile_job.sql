@@ -0,0 +1,32 @@
+-- =============================================
+-- 庫存統計計數校正排程任務
+-- 每日 03:00 由資料庫重新彙總報表計數，禁止併發
+-- =============================================
+
+INSERT INTO sys_job (job_name,
+                     job_group,
+                     invoke_target,
+                     task_type_code,
+                     cron_expression,
+                     misfire_policy,
+                     concurrent,
+                     status,
+                     create_by,
+                     create_time,
+                     remark)
+SELECT '庫存統計計數校正',
+       'DEFAULT',
+       'invCounterTask.reconcile',
+       'inv_counter_reconcile',
+       '0 0 3 * * ?',
+       '3',
+       '1',
+       '0',
+       'admin',
+       NOW(),
+       '每日由資料庫重新彙總庫存報表計數'
+FROM DUAL
+WHERE NOT EXISTS (SELECT 1
+                  FROM sys_job
+                  WHERE invoke_target = 'invCounterTask.reconcile'
+                    AND job_group = 'DEFAULT');
@@ -0,0 +1,17 @@
+-- 物品關鍵字搜尋改走 ngram 全文索引，取代 like '%keyword%' 全表掃描（中文品名同樣以 2-gram 切詞）
+-- ngram 會排除含停用詞的分詞（預設停用詞含 a、i、is 等），建立索引前於本連線關閉停用詞
+SET SESSION innodb_ft_enable_stopword = OFF;
+
+SET @index_exists = (SELECT COUNT(*)
+                     FROM INFORMATION_SCHEMA.STATISTICS
+                     WHERE TABLE_SCHEMA = DATABASE()
+                       AND TABLE_NAME = 'inv_item'
+                       AND INDEX_NAME = 'ft_inv_item_keyword');
+SET @sql = IF(@index_exists = 0,
+              'ALTER TABLE inv_item ADD FULLTEXT INDEX ft_inv_item_keyword (item_name, item_code, barcode, brand, model, supplier) WITH PARSER ngram',
+              'SELECT ''Index ft_inv_item_keyword already exists''');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET SESSION innodb_ft_enable_stopword = ON;
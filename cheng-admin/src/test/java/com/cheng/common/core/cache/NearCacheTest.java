@@ -0,0 +1,93 @@
+package com.cheng.common.core.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 本機近端快取
+ *
+ * @author cheng
+ */
+class NearCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    @DisplayName("命中時不呼叫 loader，null 不快取")
+    void cachesLoadedValues() {
+        NearCache<String> cache = new NearCache<>(10, 60, TimeUnit.SECONDS);
+
+        assertThat(cache.get("a", this::load)).isEqualTo("v-a");
+        assertThat(cache.get("a", this::load)).isEqualTo("v-a");
+        assertThat(cache.get("missing", key -> null)).isNull();
+        assertThat(cache.get("missing", this::load)).isEqualTo("v-missing");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("清除單一鍵、條件清除與全部清除")
+    void invalidates() {
+        NearCache<String> cache = new NearCache<>(10, 60, TimeUnit.SECONDS);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("c", "3");
+
+        cache.invalidate("a");
+        cache.invalidateIf("2"::equals);
+
+        assertThat(cache.get("a", this::load)).isEqualTo("v-a");
+        assertThat(cache.get("b", this::load)).isEqualTo("v-b");
+        assertThat(cache.get("c", this::load)).isEqualTo("3");
+
+        cache.invalidate(null);
+        assertThat(cache.getStats()).containsEntry("size", 0);
+    }
+
+    @Test
+    @DisplayName("載入期間發生清除時，不把舊值寫回快取")
+    void staleLoadIsNotCached() {
+        NearCache<String> cache = new NearCache<>(10, 60, TimeUnit.SECONDS);
+
+        assertThat(cache.get("a", key -> {
+            cache.invalidate(key);
+            return "stale";
+        })).isEqualTo("stale");
+
+        assertThat(cache.get("a", this::load)).isEqualTo("v-a");
+    }
+
+    @Test
+    @DisplayName("TTL 為 0 時停用，每次都呼叫 loader")
+    void disabledWhenTtlIsZero() {
+        NearCache<String> cache = new NearCache<>(10, 0, TimeUnit.SECONDS);
+
+        cache.get("a", this::load);
+        cache.get("a", this::load);
+        cache.put("b", "1");
+
+        assertThat(loads).hasValue(2);
+        assertThat(cache.getStats()).containsEntry("enabled", false).containsEntry("size", 0);
+    }
+
+    @Test
+    @DisplayName("達到筆數上限時不超過上限")
+    void boundedSize() {
+        NearCache<String> cache = new NearCache<>(3, 60, TimeUnit.SECONDS);
+        for (int i = 0; i < 10; i++) {
+            cache.put("k" + i, "v" + i);
+        }
+
+        assertThat((int) cache.getStats().get("size")).isLessThanOrEqualTo(3);
+        assertThat(cache.get("k9", this::load)).isEqualTo("v9");
+    }
+
+    private String load(String key) {
+        loads.incrementAndGet();
+        return "v-" + key;
+    }
+}
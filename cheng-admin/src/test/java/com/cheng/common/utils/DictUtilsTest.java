@@ -0,0 +1,110 @@
+package com.cheng.common.utils;
+
+import com.alibaba.fastjson2.JSONArray;
+import com.cheng.common.core.cache.CacheInvalidationBus;
+import com.cheng.common.core.domain.entity.SysDictData;
+import com.cheng.common.core.redis.RedisCache;
+import com.cheng.common.utils.spring.SpringUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 字典工具類本機登錄表
+ *
+ * @author cheng
+ */
+class DictUtilsTest {
+
+    private RedisCache redisCache;
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    /**
+     * 本機登錄表為靜態共用，每個測試使用不同的字典類型
+     */
+    private String dictType;
+
+    @BeforeEach
+    void setUp() {
+        redisCache = mock(RedisCache.class);
+        cacheInvalidationBus = mock(CacheInvalidationBus.class);
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("redisCache", redisCache);
+        beanFactory.registerSingleton("cacheInvalidationBus", cacheInvalidationBus);
+        new SpringUtils().postProcessBeanFactory(beanFactory);
+        dictType = "test_" + UUID.randomUUID();
+    }
+
+    @Test
+    @DisplayName("單一值與多值轉換結果與逐筆比對相同，只讀取一次 Redis")
+    void convertsFromLocalRegistry() {
+        givenRedisDict(dict("男", "0"), dict("女", "1"), dict("未知", "2"));
+
+        assertThat(DictUtils.getDictLabel(dictType, "1")).isEqualTo("女");
+        assertThat(DictUtils.getDictValue(dictType, "未知")).isEqualTo("2");
+        assertThat(DictUtils.getDictLabel(dictType, "2,0")).isEqualTo("男,未知");
+        assertThat(DictUtils.getDictValue(dictType, "女,男")).isEqualTo("0,1");
+        assertThat(DictUtils.getDictLabel(dictType, "9")).isEmpty();
+        assertThat(DictUtils.getDictValues(dictType)).isEqualTo("0,1,2");
+        assertThat(DictUtils.getDictLabels(dictType)).isEqualTo("男,女,未知");
+
+        verify(redisCache, times(1)).getCacheObject(DictUtils.getCacheKey(dictType));
+    }
+
+    @Test
+    @DisplayName("Redis 中沒有的字典類型回傳空字串，且不重複查詢")
+    void missingDictType() {
+        assertThat(DictUtils.getDictLabel(dictType, "1")).isEmpty();
+        assertThat(DictUtils.getDictLabels(dictType)).isEmpty();
+        assertThat(DictUtils.getDictCache(dictType)).isNull();
+
+        verify(redisCache, times(1)).getCacheObject(DictUtils.getCacheKey(dictType));
+    }
+
+    @Test
+    @DisplayName("收到失效通知後從 Redis 重新載入")
+    void reloadsAfterEviction() {
+        givenRedisDict(dict("啟用", "0"));
+        assertThat(DictUtils.getDictLabel(dictType, "0")).isEqualTo("啟用");
+
+        givenRedisDict(dict("正常", "0"));
+        assertThat(DictUtils.getDictLabel(dictType, "0")).isEqualTo("啟用");
+
+        DictUtils.evictLocalDictCache(dictType);
+        assertThat(DictUtils.getDictLabel(dictType, "0")).isEqualTo("正常");
+    }
+
+    @Test
+    @DisplayName("寫入字典時更新本機登錄表並通知其他節點")
+    void setDictCachesPublishesInvalidation() {
+        DictUtils.setDictCaches(Map.of(dictType, List.of(dict("是", "Y"), dict("否", "N"))));
+
+        assertThat(DictUtils.getDictValue(dictType, "否")).isEqualTo("N");
+        verify(cacheInvalidationBus).invalidateAll("sys_dict:");
+        verify(redisCache, times(0)).getCacheObject(DictUtils.getCacheKey(dictType));
+    }
+
+    private void givenRedisDict(SysDictData... datas) {
+        JSONArray array = new JSONArray();
+        array.addAll(List.of(datas));
+        when(redisCache.<JSONArray>getCacheObject(DictUtils.getCacheKey(dictType))).thenReturn(array);
+    }
+
+    private static SysDictData dict(String label, String value) {
+        SysDictData data = new SysDictData();
+        data.setDictLabel(label);
+        data.setDictValue(value);
+        return data;
+    }
+}
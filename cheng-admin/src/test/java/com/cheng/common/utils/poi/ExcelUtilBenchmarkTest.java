@@ -0,0 +1,214 @@
+package com.cheng.common.utils.poi;
+
+import com.cheng.common.core.domain.entity.SysDept;
+import com.cheng.common.core.domain.entity.SysUser;
+import com.cheng.system.dto.InvItemWithStockDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ExcelUtil 匯出 / 匯入吞吐量
+ *
+ * <p>正確性測試隨一般測試執行；吞吐量比較需指定系統參數才會執行，
+ * 於修改前後的版本各執行一次即可比較：</p>
+ * <pre>
+ * mvn -pl cheng-admin test -Dtest=ExcelUtilBenchmarkTest -Dbenchmark.excel=true [-Dbenchmark.excel.rows=50000]
+ * </pre>
+ *
+ * @author cheng
+ */
+class ExcelUtilBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ExcelUtilBenchmarkTest.class);
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURE_ROUNDS = 5;
+
+    @Test
+    @DisplayName("物品資料匯出後可完整匯入")
+    void itemRoundTrip() throws Exception {
+        List<InvItemWithStockDTO> items = items(20);
+
+        List<InvItemWithStockDTO> imported = importBytes(InvItemWithStockDTO.class, export(InvItemWithStockDTO.class, items));
+
+        assertThat(imported).hasSize(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            InvItemWithStockDTO expected = items.get(i);
+            InvItemWithStockDTO actual = imported.get(i);
+            assertThat(actual.getItemCode()).isEqualTo(expected.getItemCode());
+            assertThat(actual.getItemName()).isEqualTo(expected.getItemName());
+            assertThat(actual.getMinStock()).isEqualTo(expected.getMinStock());
+            assertThat(actual.getTotalQuantity()).isEqualTo(expected.getTotalQuantity());
+            assertThat(actual.getPurchasePrice()).isEqualByComparingTo(expected.getPurchasePrice());
+        }
+    }
+
+    @Test
+    @DisplayName("使用者資料匯出時轉換 readConverterExp 與 targetAttr，匯入時反查")
+    void userRoundTrip() throws Exception {
+        List<SysUser> users = users(20);
+
+        List<SysUser> imported = importBytes(SysUser.class, export(SysUser.class, users));
+
+        assertThat(imported).hasSize(users.size());
+        for (int i = 0; i < users.size(); i++) {
+            assertThat(imported.get(i).getUserName()).isEqualTo(users.get(i).getUserName());
+            assertThat(imported.get(i).getSex()).isEqualTo(users.get(i).getSex());
+            assertThat(imported.get(i).getStatus()).isEqualTo(users.get(i).getStatus());
+        }
+    }
+
+    @Test
+    @DisplayName("串流匯入分批回呼，結果與一次性匯入一致")
+    void streamImportMatchesWorkbookImport() throws Exception {
+        byte[] bytes = export(InvItemWithStockDTO.class, items(25));
+
+        List<InvItemWithStockDTO> expected = importBytes(InvItemWithStockDTO.class, bytes);
+        List<InvItemWithStockDTO> streamed = new ArrayList<>();
+        List<Integer> chunkSizes = new ArrayList<>();
+        int total = new ExcelUtil<>(InvItemWithStockDTO.class).importExcelStream(new ByteArrayInputStream(bytes), 0, 10,
+                chunk -> {
+                    chunkSizes.add(chunk.size());
+                    streamed.addAll(chunk);
+                });
+
+        assertThat(total).isEqualTo(25);
+        assertThat(chunkSizes).containsExactly(10, 10, 5);
+        assertThat(streamed).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    @DisplayName("逐列讀取原始儲存格值，第 0 列為表頭")
+    void readRawRows() throws Exception {
+        byte[] bytes = export(SysUser.class, users(3));
+        List<Object[]> rows = new ArrayList<>();
+
+        ExcelUtil.readRows(new ByteArrayInputStream(bytes), (rowNum, cells) -> rows.add(cells));
+
+        assertThat(rows).hasSize(4);
+        assertThat(rows.get(0)[0]).isEqualTo("使用者序號");
+        assertThat(rows.get(1)[0]).isEqualTo("0");
+        assertThat(rows.get(3)[1]).isEqualTo("user2");
+    }
+
+    @Test
+    @DisplayName("InvItemWithStockDTO / SysUser 匯出與匯入吞吐量")
+    @EnabledIfSystemProperty(named = "benchmark.excel", matches = "true")
+    void benchmarkThroughput() throws Exception {
+        int rows = Integer.getInteger("benchmark.excel.rows", 50_000);
+        measure("InvItemWithStockDTO", InvItemWithStockDTO.class, items(rows));
+        measure("SysUser", SysUser.class, users(rows));
+    }
+
+    private <T> void measure(String name, Class<T> clazz, List<T> data) throws Exception {
+        byte[] bytes = null;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            bytes = export(clazz, data);
+            importBytes(clazz, bytes);
+        }
+
+        long exportNanos = 0;
+        long importNanos = 0;
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            long start = System.nanoTime();
+            bytes = export(clazz, data);
+            exportNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            List<T> imported = importBytes(clazz, bytes);
+            importNanos += System.nanoTime() - start;
+            assertThat(imported).hasSize(data.size());
+        }
+
+        log.info("[{}] {} 筆：匯出 {} 筆/秒，匯入 {} 筆/秒", name, data.size(),
+                rowsPerSecond(data.size(), exportNanos), rowsPerSecond(data.size(), importNanos));
+    }
+
+    private static long rowsPerSecond(int rows, long totalNanos) {
+        return Math.round(rows * (double) MEASURE_ROUNDS / (totalNanos / 1_000_000_000.0));
+    }
+
+    private static <T> byte[] export(Class<T> clazz, List<T> data) throws Exception {
+        ExcelUtil<T> util = new ExcelUtil<>(clazz);
+        util.startStream("benchmark", "", 0);
+        for (T row : data) {
+            util.writeRow(row);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        util.finishStream(out);
+        return out.toByteArray();
+    }
+
+    private static <T> List<T> importBytes(Class<T> clazz, byte[] bytes) {
+        return new ExcelUtil<>(clazz).importExcel(new ByteArrayInputStream(bytes));
+    }
+
+    private static List<InvItemWithStockDTO> items(int count) {
+        List<InvItemWithStockDTO> items = new ArrayList<>(count);
+        Date now = new Date();
+        for (int i = 0; i < count; i++) {
+            InvItemWithStockDTO item = new InvItemWithStockDTO();
+            item.setItemCode(String.format("ITEM%06d", i));
+            item.setItemName("物品 " + i);
+            item.setCategoryName("分類 " + (i % 10));
+            item.setBarcode(String.valueOf(4710000000000L + i));
+            item.setSpecification("規格 " + (i % 5));
+            item.setUnit("個");
+            item.setBrand("品牌");
+            item.setModel("M-" + i);
+            item.setPurchasePrice(BigDecimal.valueOf(100 + i % 50));
+            item.setCurrentPrice(BigDecimal.valueOf(150 + i % 50));
+            item.setSupplier("供應商 " + (i % 3));
+            item.setMinStock(i % 10);
+            item.setMaxStock(100);
+            item.setLocation("A-" + (i % 20));
+            item.setTotalQuantity(i % 100);
+            item.setAvailableQty(i % 80);
+            item.setBorrowedQty(i % 20);
+            item.setReservedQty(0);
+            item.setDamagedQty(0);
+            item.setLostQty(0);
+            item.setLastInTime(now);
+            item.setLastOutTime(now);
+            item.calculateStockStatus();
+            item.calculateStockValue();
+            items.add(item);
+        }
+        return items;
+    }
+
+    private static List<SysUser> users(int count) {
+        List<SysUser> users = new ArrayList<>(count);
+        Date now = new Date();
+        for (int i = 0; i < count; i++) {
+            SysUser user = new SysUser();
+            user.setUserId((long) i);
+            user.setUserName("user" + i);
+            user.setNickName("使用者 " + i);
+            user.setEmail("user" + i + "@example.com");
+            user.setPhonenumber(String.format("09%08d", i));
+            user.setSex(String.valueOf(i % 3));
+            user.setStatus(String.valueOf(i % 2));
+            user.setLoginIp("127.0.0.1");
+            user.setLoginDate(now);
+            SysDept dept = new SysDept();
+            dept.setDeptName("部門 " + (i % 5));
+            dept.setLeader("負責人");
+            user.setDept(dept);
+            users.add(user);
+        }
+        return users;
+    }
+}
@@ -0,0 +1,156 @@
+package com.cheng.system.service.impl;
+
+import com.cheng.common.utils.sql.SqlUtil;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 物品關鍵字搜尋：ngram 全文索引 vs like 全表掃描
+ *
+ * <p>片語轉換測試不需資料庫；效能比較需指定 MySQL 連線才會執行：</p>
+ * <pre>
+ * mvn -pl cheng-admin test -Dtest=InvItemKeywordSearchBenchmarkTest \
+ *     -Dbenchmark.jdbc.url="jdbc:mysql://localhost:3306/cool_apps?rewriteBatchedStatements=true" \
+ *     -Dbenchmark.jdbc.user=root -Dbenchmark.jdbc.password=xxx
+ * </pre>
+ *
+ * @author cheng
+ */
+class InvItemKeywordSearchBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(InvItemKeywordSearchBenchmarkTest.class);
+
+    /**
+     * InnoDB 暫存表不支援全文索引，改用一般資料表並於結束時刪除
+     */
+    private static final String TABLE = "bench_inv_item_keyword";
+    private static final int ITEM_COUNT = 200_000;
+    private static final int ROUNDS = 5;
+
+    private static final String[] ADJECTIVES = {"黑色", "藍色", "無線", "大型", "攜帶型", "防水", "迷你", "工業用"};
+    private static final String[] NOUNS = {"原子筆", "筆記本", "螺絲起子", "延長線", "滑鼠", "鍵盤", "螢幕", "印表機", "電池", "膠帶"};
+    private static final String[] BRANDS = {"Pilot", "Sony", "Asus", "Logitech", "3M", "Panasonic", "Uni", "Acer"};
+    private static final String[] SUPPLIERS = {"大同文具行", "光華電子", "永豐五金", "台北辦公用品", "新竹資訊"};
+
+    private static final String LIKE_WHERE = "(item_name like concat('%', ?, '%')"
+            + " or item_code like concat('%', ?, '%')"
+            + " or barcode like concat('%', ?, '%')"
+            + " or brand like concat('%', ?, '%')"
+            + " or model like concat('%', ?, '%')"
+            + " or supplier like concat('%', ?, '%'))";
+
+    @Test
+    @DisplayName("取最長的字母 / 數字片段包成片語")
+    void phraseUsesLongestSegment() {
+        assertThat(SqlUtil.toFulltextPhrase("無線滑鼠")).isEqualTo("\"無線滑鼠\"");
+        assertThat(SqlUtil.toFulltextPhrase("ITM-0012345")).isEqualTo("\"0012345\"");
+        assertThat(SqlUtil.toFulltextPhrase("  Pilot \"筆\" ")).isEqualTo("\"Pilot\"");
+        assertThat(SqlUtil.toFulltextPhrase("ab%cd_efg")).isEqualTo("\"efg\"");
+    }
+
+    @Test
+    @DisplayName("片段不足一個 ngram 分詞時回傳 null，改用 like")
+    void phraseTooShortFallsBackToLike() {
+        assertThat(SqlUtil.toFulltextPhrase(null)).isNull();
+        assertThat(SqlUtil.toFulltextPhrase("  ")).isNull();
+        assertThat(SqlUtil.toFulltextPhrase("筆")).isNull();
+        assertThat(SqlUtil.toFulltextPhrase("a-b c")).isNull();
+        assertThat(SqlUtil.toFulltextPhrase("+*\"")).isNull();
+    }
+
+    @Test
+    @DisplayName("二十萬筆物品：全文索引與 like 結果一致並輸出耗時")
+    @EnabledIfSystemProperty(named = "benchmark.jdbc.url", matches = ".+")
+    void benchmarkFulltextAgainstLike() {
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(
+                System.getProperty("benchmark.jdbc.url"),
+                System.getProperty("benchmark.jdbc.user", "root"),
+                System.getProperty("benchmark.jdbc.password", ""),
+                true);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        try {
+            prepareData(jdbcTemplate);
+
+            for (String keyword : List.of("無線滑鼠", "螺絲", "ITM-0123", "Logitech", "4710000123", "光華電子")) {
+                String phrase = SqlUtil.toFulltextPhrase(keyword);
+                Object[] likeArgs = {keyword, keyword, keyword, keyword, keyword, keyword};
+                Object[] fulltextArgs = new Object[likeArgs.length + 1];
+                fulltextArgs[0] = phrase;
+                System.arraycopy(likeArgs, 0, fulltextArgs, 1, likeArgs.length);
+
+                String likeSql = "SELECT COUNT(*) FROM " + TABLE + " WHERE " + LIKE_WHERE;
+                String fulltextSql = "SELECT COUNT(*) FROM " + TABLE
+                        + " WHERE match(item_name, item_code, barcode, brand, model, supplier)"
+                        + " against(? in boolean mode) and " + LIKE_WHERE;
+
+                Integer likeCount = jdbcTemplate.queryForObject(likeSql, Integer.class, likeArgs);
+                Integer fulltextCount = jdbcTemplate.queryForObject(fulltextSql, Integer.class, fulltextArgs);
+                long likeMillis = measure(jdbcTemplate, likeSql, likeArgs);
+                long fulltextMillis = measure(jdbcTemplate, fulltextSql, fulltextArgs);
+
+                log.info("[{}] like {} ms，全文索引 {} ms，符合 {} 筆", keyword, likeMillis, fulltextMillis, likeCount);
+                assertThat(fulltextCount).isEqualTo(likeCount);
+            }
+        } finally {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + TABLE);
+            dataSource.destroy();
+        }
+    }
+
+    /**
+     * 建立測試表並寫入 ITEM_COUNT 筆物品，寫入完成後才建立 ngram 全文索引
+     */
+    private void prepareData(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + TABLE);
+        jdbcTemplate.execute("CREATE TABLE " + TABLE + " ("
+                + "item_id BIGINT NOT NULL PRIMARY KEY, item_code VARCHAR(50) NOT NULL, item_name VARCHAR(100) NOT NULL, "
+                + "barcode VARCHAR(100) DEFAULT '', brand VARCHAR(50) DEFAULT '', model VARCHAR(50) DEFAULT '', "
+                + "supplier VARCHAR(100) DEFAULT '') DEFAULT CHARSET = utf8mb4");
+
+        Random random = new Random(42);
+        List<Object[]> batch = new ArrayList<>(10_000);
+        String sql = "INSERT INTO " + TABLE
+                + " (item_id, item_code, item_name, barcode, brand, model, supplier) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            batch.add(new Object[]{
+                    (long) i,
+                    String.format("ITM-%07d", i),
+                    ADJECTIVES[random.nextInt(ADJECTIVES.length)] + NOUNS[random.nextInt(NOUNS.length)],
+                    String.format("471%010d", i),
+                    BRANDS[random.nextInt(BRANDS.length)],
+                    "M" + random.nextInt(10_000),
+                    SUPPLIERS[random.nextInt(SUPPLIERS.length)]});
+            if (batch.size() >= 10_000) {
+                jdbcTemplate.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, batch);
+        }
+
+        jdbcTemplate.execute("SET SESSION innodb_ft_enable_stopword = OFF");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD FULLTEXT INDEX ft_keyword"
+                + " (item_name, item_code, barcode, brand, model, supplier) WITH PARSER ngram");
+        jdbcTemplate.execute("SET SESSION innodb_ft_enable_stopword = ON");
+    }
+
+    private static long measure(JdbcTemplate jdbcTemplate, String sql, Object[] args) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            jdbcTemplate.queryForObject(sql, Integer.class, args);
+        }
+        return (System.nanoTime() - start) / 1_000_000 / ROUNDS;
+    }
+}
@@ -0,0 +1,91 @@
+package com.cheng.system.service.impl;
+
+import com.cheng.common.enums.ScanType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 掃描碼快取
+ *
+ * @author cheng
+ */
+class InvScanCodeCacheTest {
+
+    private InvScanCodeCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cache = new InvScanCodeCache();
+        ReflectionTestUtils.setField(cache, "maxSize", 3);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 600L);
+        ReflectionTestUtils.setField(cache, "negativeTtlSeconds", 600L);
+        cache.init();
+    }
+
+    @Test
+    @DisplayName("命中與負向快取都不再查詢資料庫")
+    void cachesHitsAndMisses() {
+        assertThat(resolve(ScanType.BARCODE, "471001", 1L)).isEqualTo(1L);
+        assertThat(resolve(ScanType.BARCODE, "471001", 99L)).isEqualTo(1L);
+        assertThat(resolve(ScanType.BARCODE, "unknown", null)).isNull();
+        assertThat(resolve(ScanType.BARCODE, "unknown", 2L)).isNull();
+        assertThat(loads).hasValue(2);
+
+        // 條碼與 QR碼分開快取
+        assertThat(resolve(ScanType.QRCODE, "471001", 3L)).isEqualTo(3L);
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    @DisplayName("物品異動時清除該物品對照與所有負向快取，其他物品保留")
+    void invalidateItemAndNegatives() {
+        resolve(ScanType.BARCODE, "A", 1L);
+        resolve(ScanType.BARCODE, "B", 2L);
+        resolve(ScanType.BARCODE, "C", null);
+
+        cache.invalidate(1L);
+
+        assertThat(resolve(ScanType.BARCODE, "A", 10L)).isEqualTo(10L);
+        assertThat(resolve(ScanType.BARCODE, "B", 20L)).isEqualTo(2L);
+        assertThat(resolve(ScanType.BARCODE, "C", 30L)).isEqualTo(30L);
+    }
+
+    @Test
+    @DisplayName("查詢期間發生清除時，不把舊結果寫回快取")
+    void staleLoadIsNotCached() {
+        assertThat(cache.resolve(ScanType.BARCODE, "A", () -> {
+            cache.invalidate(1L);
+            return 1L;
+        })).isEqualTo(1L);
+
+        assertThat(resolve(ScanType.BARCODE, "A", 2L)).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("超過上限時淘汰最久未使用的項目")
+    void evictsLeastRecentlyUsed() {
+        resolve(ScanType.BARCODE, "A", 1L);
+        resolve(ScanType.BARCODE, "B", 2L);
+        resolve(ScanType.BARCODE, "C", 3L);
+        resolve(ScanType.BARCODE, "A", 0L);
+        resolve(ScanType.BARCODE, "D", 4L);
+
+        assertThat(cache.getStats()).containsEntry("size", 3);
+        assertThat(resolve(ScanType.BARCODE, "A", 0L)).isEqualTo(1L);
+        assertThat(resolve(ScanType.BARCODE, "B", 20L)).isEqualTo(20L);
+    }
+
+    private Long resolve(ScanType type, String code, Long itemId) {
+        return cache.resolve(type, code, () -> {
+            loads.incrementAndGet();
+            return itemId;
+        });
+    }
+}
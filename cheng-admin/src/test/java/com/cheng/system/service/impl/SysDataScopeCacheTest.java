@@ -0,0 +1,71 @@
+package com.cheng.system.service.impl;
+
+import com.cheng.common.core.domain.entity.SysDept;
+import com.cheng.system.domain.SysRoleDept;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 數據權限快取的部門子樹與角色部門計算
+ *
+ * @author cheng
+ */
+class SysDataScopeCacheTest {
+
+    @Test
+    @DisplayName("部門子樹包含本部門及所有下級部門，與 find_in_set 結果相同")
+    void buildsDeptTree() {
+        Map<Long, long[]> tree = SysDataScopeCache.buildDeptTree(List.of(
+                dept(100L, "0"),
+                dept(101L, "0,100"),
+                dept(103L, "0,100,101"),
+                dept(105L, "0,100,101"),
+                dept(102L, "0,100"),
+                dept(108L, "0,100,102")));
+
+        assertThat(tree.get(100L)).containsExactly(100L, 101L, 102L, 103L, 105L, 108L);
+        assertThat(tree.get(101L)).containsExactly(101L, 103L, 105L);
+        assertThat(tree.get(108L)).containsExactly(108L);
+        assertThat(tree).doesNotContainKey(999L);
+    }
+
+    @Test
+    @DisplayName("祖級列表為空或含非數字時只略過該段")
+    void ignoresInvalidAncestors() {
+        Map<Long, long[]> tree = SysDataScopeCache.buildDeptTree(List.of(
+                dept(100L, null),
+                dept(101L, "0, 100,,x")));
+
+        assertThat(tree.get(100L)).containsExactly(100L, 101L);
+        assertThat(tree.get(101L)).containsExactly(101L);
+    }
+
+    @Test
+    @DisplayName("角色自定部門依角色分組並排序")
+    void buildsRoleDepts() {
+        Map<Long, long[]> roleDepts = SysDataScopeCache.buildRoleDepts(List.of(
+                roleDept(2L, 105L), roleDept(2L, 100L), roleDept(3L, 101L)));
+
+        assertThat(roleDepts.get(2L)).containsExactly(100L, 105L);
+        assertThat(roleDepts.get(3L)).containsExactly(101L);
+    }
+
+    private static SysDept dept(Long deptId, String ancestors) {
+        SysDept dept = new SysDept();
+        dept.setDeptId(deptId);
+        dept.setAncestors(ancestors);
+        return dept;
+    }
+
+    private static SysRoleDept roleDept(Long roleId, Long deptId) {
+        SysRoleDept roleDept = new SysRoleDept();
+        roleDept.setRoleId(roleId);
+        roleDept.setDeptId(deptId);
+        return roleDept;
+    }
+}
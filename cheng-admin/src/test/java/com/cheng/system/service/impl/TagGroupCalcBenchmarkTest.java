@@ -0,0 +1,195 @@
+package com.cheng.system.service.impl;
+
+import com.cheng.system.domain.SysTagGroup;
+import com.cheng.system.domain.SysTagGroupDetail;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 標籤群組運算：SQL 下推 vs Java 逐筆比對
+ *
+ * <p>編譯器測試不需資料庫；效能比較需指定 MySQL 連線才會執行：</p>
+ * <pre>
+ * mvn -pl cheng-admin test -Dtest=TagGroupCalcBenchmarkTest \
+ *     -Dbenchmark.jdbc.url="jdbc:mysql://localhost:3306/cool_apps?rewriteBatchedStatements=true" \
+ *     -Dbenchmark.jdbc.user=root -Dbenchmark.jdbc.password=xxx
+ * </pre>
+ *
+ * @author cheng
+ */
+class TagGroupCalcBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(TagGroupCalcBenchmarkTest.class);
+
+    private static final String TABLE = "bench_user_tag_relation";
+    private static final int USER_COUNT = 200_000;
+    private static final int TAG_COUNT = 20;
+    private static final int TAGS_PER_USER = 5;
+
+    @Test
+    @DisplayName("LEFT_TO_RIGHT 依序巢狀編譯為 HAVING 運算式")
+    void compileLeftToRight() {
+        List<SysTagGroupDetail> details = List.of(
+                detail(1, 10L, null), detail(2, 20L, "AND"), detail(3, 30L, "OR"));
+
+        TagGroupSqlCompiler.CompiledQuery query = TagGroupSqlCompiler
+                .compileCount("line_user_tag_relation", "line_user_id", details, SysTagGroup.CALC_MODE_LEFT_TO_RIGHT)
+                .orElseThrow();
+
+        assertThat(query.sql()).isEqualTo("SELECT COUNT(*) FROM (SELECT line_user_id FROM line_user_tag_relation"
+                + " WHERE tag_id IN (?, ?, ?) GROUP BY line_user_id"
+                + " HAVING ((SUM(tag_id = ?) > 0 AND SUM(tag_id = ?) > 0) OR SUM(tag_id = ?) > 0)) t");
+        assertThat(query.args()).containsExactly(10L, 20L, 30L, 10L, 20L, 30L);
+    }
+
+    @Test
+    @DisplayName("OR_OF_AND 以 OR 切段編譯，並附加排序與筆數上限")
+    void compileOrOfAndMatch() {
+        List<SysTagGroupDetail> details = List.of(
+                detail(2, 20L, "AND"), detail(1, 10L, null), detail(3, 30L, "OR"), detail(4, 10L, "AND"));
+
+        TagGroupSqlCompiler.CompiledQuery query = TagGroupSqlCompiler
+                .compileMatch("inv_item_tag_relation", "item_id", details, SysTagGroup.CALC_MODE_OR_OF_AND, 50)
+                .orElseThrow();
+
+        assertThat(query.sql()).isEqualTo("SELECT item_id FROM inv_item_tag_relation"
+                + " WHERE tag_id IN (?, ?, ?) GROUP BY item_id"
+                + " HAVING (SUM(tag_id = ?) > 0 AND SUM(tag_id = ?) > 0) OR (SUM(tag_id = ?) > 0 AND SUM(tag_id = ?) > 0)"
+                + " ORDER BY item_id LIMIT ?");
+        assertThat(query.args()).containsExactly(10L, 20L, 30L, 10L, 20L, 30L, 10L, 50);
+    }
+
+    @Test
+    @DisplayName("無法下推的規則回傳 empty")
+    void compileRejectsUnsupportedRules() {
+        List<SysTagGroupDetail> badOperator = List.of(detail(1, 10L, null), detail(2, 20L, "XOR"));
+        List<SysTagGroupDetail> nullTag = List.of(detail(1, null, null));
+
+        assertThat(TagGroupSqlCompiler.compileCount(TABLE, "line_user_id", badOperator,
+                SysTagGroup.CALC_MODE_LEFT_TO_RIGHT)).isEmpty();
+        assertThat(TagGroupSqlCompiler.compileCount(TABLE, "line_user_id", nullTag,
+                SysTagGroup.CALC_MODE_LEFT_TO_RIGHT)).isEmpty();
+        assertThat(TagGroupSqlCompiler.compileCount(TABLE, "line_user_id", List.of(detail(1, 10L, null)),
+                "UNKNOWN")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("百萬筆關聯：SQL 下推與 Java 比對結果一致並輸出耗時")
+    @EnabledIfSystemProperty(named = "benchmark.jdbc.url", matches = ".+")
+    void benchmarkSqlPushdownAgainstJavaScan() {
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(
+                System.getProperty("benchmark.jdbc.url"),
+                System.getProperty("benchmark.jdbc.user", "root"),
+                System.getProperty("benchmark.jdbc.password", ""),
+                true);
+        try {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            prepareData(jdbcTemplate);
+
+            List<SysTagGroupDetail> details = List.of(
+                    detail(1, 1L, null), detail(2, 2L, "AND"), detail(3, 3L, "OR"),
+                    detail(4, 4L, "AND"), detail(5, 5L, "OR"));
+            for (String calcMode : List.of(SysTagGroup.CALC_MODE_LEFT_TO_RIGHT, SysTagGroup.CALC_MODE_OR_OF_AND)) {
+                TagGroupSqlCompiler.CompiledQuery query = TagGroupSqlCompiler
+                        .compileCount(TABLE, "line_user_id", details, calcMode)
+                        .orElseThrow();
+
+                long start = System.nanoTime();
+                Integer sqlCount = jdbcTemplate.queryForObject(query.sql(), Integer.class, query.args().toArray());
+                long sqlMillis = (System.nanoTime() - start) / 1_000_000;
+
+                start = System.nanoTime();
+                int javaCount = javaScanCount(jdbcTemplate, details, calcMode);
+                long javaMillis = (System.nanoTime() - start) / 1_000_000;
+
+                log.info("[{}] SQL 下推 {} ms，Java 比對 {} ms，符合 {} 人", calcMode, sqlMillis, javaMillis, sqlCount);
+                assertThat(sqlCount).isEqualTo(javaCount);
+            }
+        } finally {
+            dataSource.destroy();
+        }
+    }
+
+    /**
+     * 建立暫存表並寫入 USER_COUNT * TAGS_PER_USER 筆關聯
+     */
+    private void prepareData(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute("DROP TEMPORARY TABLE IF EXISTS " + TABLE);
+        jdbcTemplate.execute("CREATE TEMPORARY TABLE " + TABLE + " ("
+                + "line_user_id VARCHAR(64) NOT NULL, tag_id BIGINT NOT NULL, "
+                + "PRIMARY KEY (line_user_id, tag_id), KEY idx_tag_id (tag_id))");
+
+        Random random = new Random(42);
+        List<Object[]> batch = new ArrayList<>(10_000);
+        for (int u = 0; u < USER_COUNT; u++) {
+            String userId = String.format("U%010d", u);
+            Set<Long> tags = new HashSet<>();
+            while (tags.size() < TAGS_PER_USER) {
+                tags.add((long) random.nextInt(TAG_COUNT) + 1);
+            }
+            for (Long tagId : tags) {
+                batch.add(new Object[]{userId, tagId});
+            }
+            if (batch.size() >= 10_000) {
+                jdbcTemplate.batchUpdate("INSERT INTO " + TABLE + " (line_user_id, tag_id) VALUES (?, ?)", batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO " + TABLE + " (line_user_id, tag_id) VALUES (?, ?)", batch);
+        }
+    }
+
+    /**
+     * Java 路徑：依成員 ID 排序串流讀取關聯，逐一成員以 isGroupMatched 求值
+     */
+    private int javaScanCount(JdbcTemplate jdbcTemplate, List<SysTagGroupDetail> details, String calcMode) {
+        List<Long> tagIds = details.stream().map(SysTagGroupDetail::getTagId).distinct().toList();
+        String placeholders = String.join(", ", tagIds.stream().map(id -> "?").toList());
+        String sql = "SELECT line_user_id, tag_id FROM " + TABLE
+                + " WHERE tag_id IN (" + placeholders + ") ORDER BY line_user_id";
+
+        int[] count = {0};
+        String[] currentUser = {null};
+        Set<Long> currentTags = new HashSet<>();
+        jdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+        jdbcTemplate.query(sql, rs -> {
+            String userId = rs.getString(1);
+            if (!userId.equals(currentUser[0])) {
+                if (currentUser[0] != null && TagGroupCalcService.isGroupMatched(currentTags, details, calcMode)) {
+                    count[0]++;
+                }
+                currentUser[0] = userId;
+                currentTags.clear();
+            }
+            currentTags.add(rs.getLong(2));
+        }, tagIds.toArray());
+        jdbcTemplate.setFetchSize(-1);
+
+        if (currentUser[0] != null && TagGroupCalcService.isGroupMatched(currentTags, details, calcMode)) {
+            count[0]++;
+        }
+        return count[0];
+    }
+
+    private static SysTagGroupDetail detail(int groupIndex, Long tagId, String operator) {
+        SysTagGroupDetail detail = new SysTagGroupDetail();
+        detail.setGroupIndex(groupIndex);
+        detail.setTagId(tagId);
+        detail.setOperator(operator);
+        return detail;
+    }
+}
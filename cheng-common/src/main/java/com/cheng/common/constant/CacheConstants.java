@@ -16,6 +16,16 @@ public class CacheConstants {
      */
     public static final String MEMBER_LOGIN_TOKEN_KEY = "member_login_tokens:";
 
+    /**
+     * 登入使用者線上索引 redis key（有序集合，成員為 token，分數為到期時間）
+     */
+    public static final String LOGIN_TOKEN_INDEX_KEY = "login_token_index";
+
+    /**
+     * 商城會員線上索引 redis key（有序集合，成員為 token，分數為到期時間）
+     */
+    public static final String MEMBER_LOGIN_TOKEN_INDEX_KEY = "member_login_token_index";
+
     /**
      * 驗證碼 redis key
      */
@@ -31,6 +41,16 @@ public class CacheConstants {
      */
     public static final String SYS_DICT_KEY = "sys_dict:";
 
+    /**
+     * 數據權限快取失效通知前綴（角色、部門異動時經 Redis pub/sub 通知各節點，本身不存放資料）
+     */
+    public static final String DATA_SCOPE_KEY = "data_scope:";
+
+    /**
+     * 標籤點陣圖索引異動通知前綴（貼標 / 移除標籤時經 Redis pub/sub 通知各節點，本身不存放資料）
+     */
+    public static final String TAG_BITMAP_KEY = "tag_bitmap:";
+
     /**
      * 防重提交 redis key
      */
@@ -85,4 +105,14 @@ public class CacheConstants {
      * OAuth state CSRF 防護 redis key（TTL 5 分鐘）
      */
     public static final String OAUTH_STATE_KEY = "oauth_state:";
+
+    /**
+     * LINE Webhook 事件去重 redis key（以 webhookEventId 為鍵）
+     */
+    public static final String LINE_WEBHOOK_EVENT_KEY = "line_webhook_event:";
+
+    /**
+     * 庫存統計計數 redis key
+     */
+    public static final String INV_COUNTER_KEY = "inv_counters";
 }
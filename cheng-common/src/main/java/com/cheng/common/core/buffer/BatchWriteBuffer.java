@@ -0,0 +1,214 @@
+package com.cheng.common.core.buffer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 批次寫回緩衝基底類別
+ * <p>
+ * 資料先收集於有界佇列，再依批次大小寫入資料庫：
+ * - 觸發時機：累積達批次大小、定時、服務停止（ShutdownManager 呼叫 {@link #flush()}）
+ * - 佇列滿載時由寫入端同步排空（背壓），確保記憶體用量有界
+ * - 批次寫入失敗時指數退避重試；仍失敗則保留該批並停止本次排空，下次寫入時優先重試，不捨棄資料
+ * <p>
+ * 子類別實作 {@link #writeBatch(List)}，並提供批次大小與重試設定。
+ *
+ * @param <T> 緩衝資料型別
+ * @author cheng
+ */
+@Slf4j
+public abstract class BatchWriteBuffer<T> implements FlushableBuffer {
+
+    /**
+     * 待寫入的資料
+     */
+    private BlockingQueue<T> queue;
+
+    /**
+     * 寫入鎖，確保同一時間僅一個執行緒排空緩衝
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * 上次寫入失敗而保留的批次，下次寫入時優先重試（僅於持有 flushLock 時存取）
+     */
+    private List<T> pending = new ArrayList<>();
+
+    /**
+     * 建立佇列並排程定時寫入，由子類別初始化時呼叫
+     *
+     * @param capacity            佇列容量上限
+     * @param flushIntervalMillis 定時寫入間隔（毫秒）
+     * @param scheduler           排程執行緒池
+     */
+    protected void start(int capacity, long flushIntervalMillis, ScheduledExecutorService scheduler) {
+        queue = new LinkedBlockingQueue<>(Math.max(1, capacity));
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 每批寫入筆數
+     */
+    protected abstract int getBatchSize();
+
+    /**
+     * 批次寫入失敗時的重試次數
+     */
+    protected abstract int getRetryTimes();
+
+    /**
+     * 重試基準延遲（毫秒），第 n 次重試延遲為 base * 2^(n-1)
+     */
+    protected abstract long getRetryBaseDelayMillis();
+
+    /**
+     * 寫入一批資料，失敗時拋出例外
+     *
+     * @param chunk 資料批次
+     */
+    protected abstract void writeBatch(List<T> chunk);
+
+    /**
+     * 批次寫入成功後的處理（例如累加統計），預設不處理
+     *
+     * @param chunk 已寫入的資料批次
+     */
+    protected void afterWrite(List<T> chunk) {
+    }
+
+    /**
+     * 排空佇列以外的其他緩衝資料（於持有寫入鎖時呼叫），預設無
+     *
+     * @return 本次寫入的筆數
+     */
+    protected int flushOthers() {
+        return 0;
+    }
+
+    /**
+     * 加入一筆資料，緩衝已滿時由呼叫端同步排空
+     *
+     * @param item 資料
+     */
+    protected void enqueue(T item) {
+        try {
+            while (!queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                // 緩衝已滿，由寫入端同步排空（背壓）
+                flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("{} 加入資料時被中斷，直接寫入", getName());
+            writeChunk(List.of(item));
+            return;
+        }
+        if (queue.size() >= getBatchSize()) {
+            tryFlush();
+        }
+    }
+
+    @Override
+    public int flush() {
+        flushLock.lock();
+        try {
+            return flushQueue() + flushOthers();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 若無其他執行緒正在寫入則排空，否則直接返回
+     */
+    private void tryFlush() {
+        if (flushLock.tryLock()) {
+            try {
+                flushQueue();
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("{} 定時寫入失敗", getName(), e);
+        }
+    }
+
+    private int flushQueue() {
+        int written = 0;
+        if (!pending.isEmpty()) {
+            if (!writeChunk(pending)) {
+                return written;
+            }
+            written += pending.size();
+            pending.clear();
+        }
+        int batchSize = getBatchSize();
+        List<T> chunk = new ArrayList<>(batchSize);
+        while (queue.drainTo(chunk, batchSize) > 0) {
+            if (!writeChunk(chunk)) {
+                // 保留失敗的批次，其餘資料留在佇列，待下次寫入
+                pending = chunk;
+                return written;
+            }
+            written += chunk.size();
+            chunk.clear();
+        }
+        return written;
+    }
+
+    private boolean writeChunk(List<T> chunk) {
+        if (!writeWithRetry(getName(), () -> writeBatch(chunk))) {
+            log.error("{} 批次寫入失敗，保留 {} 筆待下次寫入", getName(), chunk.size());
+            return false;
+        }
+        try {
+            afterWrite(chunk);
+        } catch (Exception e) {
+            // 資料已寫入，後續處理失敗不重新寫入
+            log.warn("{} 寫入後處理失敗: {}", getName(), e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * 執行批次寫入，失敗時依設定次數指數退避重試
+     *
+     * @param name  寫入項目名稱（用於日誌）
+     * @param write 寫入動作
+     * @return 是否寫入成功
+     */
+    protected boolean writeWithRetry(String name, Runnable write) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                write.run();
+                return true;
+            } catch (Exception e) {
+                if (attempt >= getRetryTimes()) {
+                    log.error("{} 批次寫入失敗，已重試 {} 次", name, attempt, e);
+                    return false;
+                }
+                long delay = getRetryBaseDelayMillis() << attempt;
+                log.warn("{} 批次寫入失敗，{} 毫秒後第 {} 次重試: {}", name, delay, attempt + 1, e.getMessage());
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.cheng.common.core.buffer;
+
+/**
+ * 可排空的寫入緩衝介面
+ * 各模組的寫回（write-behind）緩衝實作此介面，服務停止時由 ShutdownManager 統一排空，避免遺失尚未落地的資料
+ *
+ * @author cheng
+ */
+public interface FlushableBuffer {
+
+    /**
+     * 取得緩衝名稱（用於日誌）
+     *
+     * @return 緩衝名稱
+     */
+    String getName();
+
+    /**
+     * 立即將緩衝中的資料寫入資料庫
+     *
+     * @return 本次寫入的筆數
+     */
+    int flush();
+}
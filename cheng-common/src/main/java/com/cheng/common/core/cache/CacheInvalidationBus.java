@@ -0,0 +1,151 @@
+package com.cheng.common.core.cache;
+
+import com.cheng.common.utils.uuid.IdUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 本機快取失效廣播
+ * <p>
+ * 各節點的本機快取以 Redis key 前綴（如 {@code login_tokens:}）註冊失效處理。
+ * 資料異動時呼叫 {@link #invalidate}：本節點立即清除，再透過 Redis pub/sub 通知其他節點清除。
+ * 自己發出的訊息會被略過；訊息遺失時由各本機快取自身的 TTL 兜底。
+ *
+ * @author cheng
+ */
+@Slf4j
+@Component
+public class CacheInvalidationBus implements MessageListener {
+
+    /**
+     * pub/sub 頻道
+     */
+    public static final String CHANNEL = "cache_invalidation";
+
+    /**
+     * 訊息欄位分隔（節點ID、前綴、鍵）
+     */
+    private static final String SEPARATOR = "\n";
+
+    /**
+     * 本節點識別，用於略過自己發出的訊息
+     */
+    private final String nodeId = IdUtils.fastSimpleUUID();
+
+    /**
+     * 失效處理（前綴 → 處理函式，參數為去除前綴的鍵，null 表示全部）
+     */
+    private final Map<String, Consumer<String>> handlers = new ConcurrentHashMap<>();
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * 註冊本機快取的失效處理
+     *
+     * @param prefix  Redis key 前綴
+     * @param handler 失效處理，參數為去除前綴的鍵，null 表示清除全部
+     */
+    public void register(String prefix, Consumer<String> handler) {
+        handlers.merge(prefix, handler, Consumer::andThen);
+    }
+
+    /**
+     * 清除各節點指定鍵的本機快取
+     *
+     * @param prefix Redis key 前綴
+     * @param key    去除前綴的鍵
+     */
+    public void invalidate(String prefix, String key) {
+        dispatch(prefix, key);
+        publish(prefix, key);
+    }
+
+    /**
+     * 清除各節點指定前綴的全部本機快取
+     *
+     * @param prefix Redis key 前綴
+     */
+    public void invalidateAll(String prefix) {
+        invalidate(prefix, null);
+    }
+
+    /**
+     * 依完整 Redis key 清除對應的本機快取（快取監控頁面刪除單一 key 時使用）
+     *
+     * @param redisKey 完整 Redis key
+     */
+    public void invalidateKey(String redisKey) {
+        for (String prefix : handlers.keySet()) {
+            if (redisKey.startsWith(prefix)) {
+                // key 恰為前綴時視為清除全部，本機與遠端節點的處理一致
+                String key = redisKey.substring(prefix.length());
+                invalidate(prefix, key.isEmpty() ? null : key);
+            }
+        }
+    }
+
+    /**
+     * 清除各節點全部已註冊的本機快取
+     */
+    public void invalidateEverything() {
+        invalidate("", null);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(SEPARATOR, -1);
+        if (parts.length != 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        dispatch(parts[1], parts[2].isEmpty() ? null : parts[2]);
+    }
+
+    private void dispatch(String prefix, String key) {
+        if (prefix.isEmpty()) {
+            handlers.values().forEach(handler -> apply(handler, null));
+            return;
+        }
+        Consumer<String> handler = handlers.get(prefix);
+        if (handler != null) {
+            apply(handler, key);
+        }
+    }
+
+    private void apply(Consumer<String> handler, String key) {
+        try {
+            handler.accept(key);
+        } catch (Exception e) {
+            log.warn("本機快取失效處理失敗: {}", e.getMessage());
+        }
+    }
+
+    private void publish(String prefix, String key) {
+        try {
+            stringRedisTemplate.convertAndSend(CHANNEL, nodeId + SEPARATOR + prefix + SEPARATOR + (key != null ? key : ""));
+        } catch (Exception e) {
+            // 其他節點的本機快取仍會在 TTL 到期後失效
+            log.warn("發送快取失效通知失敗: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.cheng.common.core.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 本機近端快取（near-cache）
+ * <p>
+ * 放在 Redis 等遠端快取之前，保存已反序列化的物件，命中時只需一次 Map 查詢：
+ * - 每筆項目有固定存活時間，跨節點失效訊息遺失時由 TTL 兜底
+ * - 筆數達上限時先清除過期項目，仍超過時整批清空（快取內容可隨時重新載入）
+ * - 以世代計數避免「載入期間剛好被清除」時把舊值寫回快取
+ * - TTL 或筆數上限小於等於 0 時停用，每次都直接呼叫 loader
+ *
+ * @param <V> 快取值類型
+ * @author cheng
+ */
+public class NearCache<V> {
+
+    private final ConcurrentHashMap<String, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final long ttlNanos;
+
+    /**
+     * 失效世代，每次清除時遞增
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+
+    /**
+     * @param maxSize 筆數上限
+     * @param ttl     存活時間
+     * @param unit    存活時間單位
+     */
+    public NearCache(int maxSize, long ttl, TimeUnit unit) {
+        this.maxSize = maxSize;
+        this.ttlNanos = unit.toNanos(ttl);
+    }
+
+    /**
+     * 是否啟用
+     */
+    public boolean isEnabled() {
+        return maxSize > 0 && ttlNanos > 0;
+    }
+
+    /**
+     * 取得快取值，未命中或已過期時以 loader 載入（loader 回傳 null 時不快取）
+     *
+     * @param key    鍵
+     * @param loader 載入函式
+     * @return 快取值
+     */
+    public V get(String key, Function<String, V> loader) {
+        if (!isEnabled()) {
+            return loader.apply(key);
+        }
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.expiresAt() - System.nanoTime() > 0) {
+            hits.increment();
+            return entry.value();
+        }
+        misses.increment();
+        long loadGeneration = generation.get();
+        V value = loader.apply(key);
+        if (value != null) {
+            ensureCapacity();
+            // 與 invalidate 的 remove 互斥於同一個 bin：清除若已發生，世代必已遞增
+            entries.compute(key, (k, old) -> generation.get() == loadGeneration ? newEntry(value) : old);
+        }
+        return value;
+    }
+
+    /**
+     * 直接寫入快取值（本節點剛寫入遠端快取時使用）
+     *
+     * @param key   鍵
+     * @param value 值
+     */
+    public void put(String key, V value) {
+        if (!isEnabled() || value == null) {
+            return;
+        }
+        ensureCapacity();
+        entries.put(key, newEntry(value));
+    }
+
+    /**
+     * 清除單一鍵，key 為 null 時清除全部
+     *
+     * @param key 鍵
+     */
+    public void invalidate(String key) {
+        generation.incrementAndGet();
+        invalidations.increment();
+        if (key == null) {
+            entries.clear();
+        } else {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * 清除符合條件的項目
+     *
+     * @param predicate 條件
+     */
+    public void invalidateIf(Predicate<V> predicate) {
+        generation.incrementAndGet();
+        invalidations.increment();
+        entries.values().removeIf(entry -> predicate.test(entry.value()));
+    }
+
+    /**
+     * 取得快取統計
+     *
+     * @return 統計資料
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", isEnabled());
+        stats.put("size", entries.size());
+        stats.put("maxSize", maxSize);
+        stats.put("ttlSeconds", TimeUnit.NANOSECONDS.toSeconds(ttlNanos));
+        stats.put("hitCount", hitCount);
+        stats.put("missCount", missCount);
+        stats.put("hitRate", hitCount + missCount == 0 ? 0D : (double) hitCount / (hitCount + missCount));
+        stats.put("invalidationCount", invalidations.sum());
+        return stats;
+    }
+
+    private Entry<V> newEntry(V value) {
+        return new Entry<>(value, System.nanoTime() + ttlNanos);
+    }
+
+    private void ensureCapacity() {
+        if (entries.size() < maxSize) {
+            return;
+        }
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> entry.expiresAt() - now <= 0);
+        if (entries.size() >= maxSize) {
+            entries.clear();
+        }
+    }
+}
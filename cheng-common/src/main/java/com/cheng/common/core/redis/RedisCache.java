@@ -2,12 +2,19 @@ package com.cheng.common.core.redis;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.BoundSetOperations;
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -21,6 +28,16 @@ import java.util.concurrent.TimeUnit;
 @SuppressWarnings(value = {"unchecked", "rawtypes"})
 @Component
 public class RedisCache {
+    /**
+     * SCAN 每次迭代建議回傳的筆數，以及依前綴批次刪除時每次 DEL 的筆數
+     */
+    private static final int SCAN_BATCH_SIZE = 500;
+
+    /**
+     * 批次讀取時每個 MGET 的鍵數上限
+     */
+    private static final int MGET_BATCH_SIZE = 500;
+
     @Autowired
     public RedisTemplate redisTemplate;
 
@@ -46,6 +63,20 @@ public class RedisCache {
         redisTemplate.opsForValue().set(key, value, timeout, timeUnit);
     }
 
+    /**
+     * 鍵不存在時才暫存物件（SET NX），可用於去重或搶佔
+     *
+     * @param key      暫存的鍵值
+     * @param value    暫存的值
+     * @param timeout  時間
+     * @param timeUnit 時間顆粒度
+     * @return true=暫存成功；false=鍵已存在
+     */
+    public <T> boolean setCacheObjectIfAbsent(final String key, final T value, final long timeout, final TimeUnit timeUnit) {
+        Boolean result = redisTemplate.opsForValue().setIfAbsent(key, value, timeout, timeUnit);
+        return Boolean.TRUE.equals(result);
+    }
+
     /**
      * 設定有效時間
      *
@@ -233,13 +264,146 @@ public class RedisCache {
         return redisTemplate.opsForHash().delete(key, hKey) > 0;
     }
 
+    /**
+     * 批次取得暫存的基本物件
+     * <p>
+     * 鍵依 {@link #MGET_BATCH_SIZE} 分段為多個 MGET，並以 pipeline 一次送出，只需一次網路往返
+     *
+     * @param keys 暫存鍵值
+     * @return 與鍵值順序相同的數據，鍵不存在時該位置為 null
+     */
+    public <T> List<T> getMultiCacheObject(final Collection<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> keyList = new ArrayList<>(keys);
+        List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            public Object execute(RedisOperations operations) {
+                for (int from = 0; from < keyList.size(); from += MGET_BATCH_SIZE) {
+                    operations.opsForValue().multiGet(keyList.subList(from, Math.min(from + MGET_BATCH_SIZE, keyList.size())));
+                }
+                return null;
+            }
+        });
+        List<T> values = new ArrayList<>(keyList.size());
+        for (Object result : results) {
+            values.addAll((List<T>) result);
+        }
+        return values;
+    }
+
+    /**
+     * 加入有序集合成員，成員已存在時更新分數
+     *
+     * @param key    Redis鍵
+     * @param member 成員
+     * @param score  分數
+     */
+    public <T> void addCacheZSetValue(final String key, final T member, final double score) {
+        redisTemplate.opsForZSet().add(key, member, score);
+    }
+
+    /**
+     * 移除有序集合成員
+     *
+     * @param key     Redis鍵
+     * @param members 成員
+     * @return 移除筆數
+     */
+    public long deleteCacheZSetValue(final String key, final Object... members) {
+        Long count = redisTemplate.opsForZSet().remove(key, members);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * 移除分數介於 min 與 max（含）之間的有序集合成員
+     *
+     * @param key Redis鍵
+     * @param min 最小分數
+     * @param max 最大分數
+     * @return 移除筆數
+     */
+    public long deleteCacheZSetRangeByScore(final String key, final double min, final double max) {
+        Long count = redisTemplate.opsForZSet().removeRangeByScore(key, min, max);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * 取得有序集合成員數
+     *
+     * @param key Redis鍵
+     * @return 成員數
+     */
+    public long getCacheZSetSize(final String key) {
+        Long size = redisTemplate.opsForZSet().zCard(key);
+        return size == null ? 0 : size;
+    }
+
+    /**
+     * 依分數由高到低取得有序集合的一段成員
+     *
+     * @param key   Redis鍵
+     * @param start 起始位置（從 0 開始）
+     * @param end   結束位置（含）
+     * @return 成員列表
+     */
+    public <T> List<T> getCacheZSetReverseRange(final String key, final long start, final long end) {
+        Set<T> members = redisTemplate.opsForZSet().reverseRange(key, start, end);
+        return members == null ? Collections.emptyList() : new ArrayList<>(members);
+    }
+
+    /**
+     * 以 SCAN 游標迭代取得符合樣式的鍵，不會像 KEYS 一樣長時間阻塞 Redis
+     *
+     * @param pattern 樣式，如 {@code sys_dict:*}
+     * @return 鍵集合
+     */
+    public Set<String> scanKeys(final String pattern) {
+        Set<String> keys = new HashSet<>();
+        try (Cursor<String> cursor = redisTemplate.scan(scanOptions(pattern))) {
+            cursor.forEachRemaining(keys::add);
+        }
+        return keys;
+    }
+
+    /**
+     * 以 SCAN 游標迭代刪除符合樣式的鍵，每 {@link #SCAN_BATCH_SIZE} 筆送出一次 DEL
+     *
+     * @param pattern 樣式，如 {@code sys_dict:*}
+     * @return 刪除筆數
+     */
+    public long deleteByPattern(final String pattern) {
+        long deleted = 0;
+        List<String> batch = new ArrayList<>(SCAN_BATCH_SIZE);
+        try (Cursor<String> cursor = redisTemplate.scan(scanOptions(pattern))) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() >= SCAN_BATCH_SIZE) {
+                    deleted += redisTemplate.delete(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            deleted += redisTemplate.delete(batch);
+        }
+        return deleted;
+    }
+
     /**
      * 取得暫存的基本物件列表
+     * <p>
+     * 內部以 SCAN 迭代，新程式請直接使用 {@link #scanKeys} 或 {@link #deleteByPattern}
      *
      * @param pattern 字串前綴
      * @return 物件列表
      */
     public Collection<String> keys(final String pattern) {
-        return redisTemplate.keys(pattern);
+        return scanKeys(pattern);
+    }
+
+    private static ScanOptions scanOptions(final String pattern) {
+        return ScanOptions.scanOptions().match(pattern).count(SCAN_BATCH_SIZE).build();
     }
 }
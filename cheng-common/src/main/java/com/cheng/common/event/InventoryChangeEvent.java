@@ -0,0 +1,26 @@
+package com.cheng.common.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 庫存異動事件
+ * <p>
+ * 物品新增、修改、刪除與匯入完成後發布，供掃描碼等快取失效使用
+ *
+ * @author cheng
+ */
+@Data
+@AllArgsConstructor
+public class InventoryChangeEvent {
+
+    /**
+     * 物品ID（批次操作時為 null）
+     */
+    private Long itemId;
+
+    /**
+     * 異動來源（如 importItems、deleteInvItem）
+     */
+    private String source;
+}
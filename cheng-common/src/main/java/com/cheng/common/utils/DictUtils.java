@@ -2,15 +2,27 @@ package com.cheng.common.utils;
 
 import com.alibaba.fastjson2.JSONArray;
 import com.cheng.common.constant.CacheConstants;
+import com.cheng.common.core.cache.CacheInvalidationBus;
+import com.cheng.common.core.cache.NearCache;
 import com.cheng.common.core.domain.entity.SysDictData;
 import com.cheng.common.core.redis.RedisCache;
 import com.cheng.common.utils.spring.SpringUtils;
 
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 字典工具類
+ * <p>
+ * 字典以 Redis 分發，讀取走本機登錄表：每個字典類型保存不可變的「值 → 標籤」與「標籤 → 值」對照，
+ * 單一值轉換只需一次 Map 查詢。字典異動時經 {@link CacheInvalidationBus} 通知各節點清除本機項目，
+ * 下次讀取再從 Redis 載入；訊息遺失時由本機項目的存活時間兜底。
  *
  * @author cheng
  */
@@ -20,6 +32,65 @@ public class DictUtils {
      */
     public static final String SEPARATOR = ",";
 
+    /**
+     * 本機登錄表的字典類型數上限
+     */
+    private static final int LOCAL_MAX_SIZE = 2048;
+
+    /**
+     * 本機登錄表項目存活分鐘數
+     */
+    private static final long LOCAL_TTL_MINUTES = 10;
+
+    /**
+     * 本機字典登錄表（字典類型 → 對照）
+     */
+    private static final NearCache<DictEntry> LOCAL_DICTS = new NearCache<>(LOCAL_MAX_SIZE, LOCAL_TTL_MINUTES, TimeUnit.MINUTES);
+
+    /**
+     * Redis 中沒有的字典類型，同樣快取以免重複查詢
+     */
+    private static final DictEntry MISSING = new DictEntry(null);
+
+    /**
+     * 單一字典類型的不可變對照
+     */
+    private static final class DictEntry {
+        /**
+         * 依排序的字典數據，Redis 中沒有時為 null
+         */
+        private final List<SysDictData> datas;
+        private final Map<String, String> labelByValue;
+        private final Map<String, String> valueByLabel;
+        private final String values;
+        private final String labels;
+
+        private DictEntry(List<SysDictData> datas) {
+            this.datas = datas != null ? Collections.unmodifiableList(new ArrayList<>(datas)) : null;
+            Map<String, String> labelMap = new HashMap<>();
+            Map<String, String> valueMap = new HashMap<>();
+            StringJoiner valueJoiner = new StringJoiner(SEPARATOR);
+            StringJoiner labelJoiner = new StringJoiner(SEPARATOR);
+            if (datas != null) {
+                for (SysDictData dict : datas) {
+                    // 與逐筆比對相同：重複時以排序在前者為準
+                    if (dict.getDictValue() != null) {
+                        labelMap.putIfAbsent(dict.getDictValue(), dict.getDictLabel());
+                    }
+                    if (dict.getDictLabel() != null) {
+                        valueMap.putIfAbsent(dict.getDictLabel(), dict.getDictValue());
+                    }
+                    valueJoiner.add(String.valueOf(dict.getDictValue()));
+                    labelJoiner.add(String.valueOf(dict.getDictLabel()));
+                }
+            }
+            this.labelByValue = Collections.unmodifiableMap(labelMap);
+            this.valueByLabel = Collections.unmodifiableMap(valueMap);
+            this.values = valueJoiner.toString();
+            this.labels = labelJoiner.toString();
+        }
+    }
+
     /**
      * 設定字典暫存
      *
@@ -28,6 +99,24 @@ public class DictUtils {
      */
     public static void setDictCache(String key, List<SysDictData> dictDatas) {
         SpringUtils.getBean(RedisCache.class).setCacheObject(getCacheKey(key), dictDatas);
+        SpringUtils.getBean(CacheInvalidationBus.class).invalidate(CacheConstants.SYS_DICT_KEY, key);
+        LOCAL_DICTS.put(key, dictDatas != null ? new DictEntry(dictDatas) : MISSING);
+    }
+
+    /**
+     * 批次設定字典暫存（啟動或重置時使用），全部寫入 Redis 後只發送一次跨節點失效通知
+     *
+     * @param dictDataMap 字典類型 → 字典數據列表
+     */
+    public static void setDictCaches(Map<String, List<SysDictData>> dictDataMap) {
+        RedisCache redisCache = SpringUtils.getBean(RedisCache.class);
+        for (Map.Entry<String, List<SysDictData>> entry : dictDataMap.entrySet()) {
+            redisCache.setCacheObject(getCacheKey(entry.getKey()), entry.getValue());
+        }
+        SpringUtils.getBean(CacheInvalidationBus.class).invalidateAll(CacheConstants.SYS_DICT_KEY);
+        for (Map.Entry<String, List<SysDictData>> entry : dictDataMap.entrySet()) {
+            LOCAL_DICTS.put(entry.getKey(), new DictEntry(entry.getValue()));
+        }
     }
 
     /**
@@ -37,11 +126,7 @@ public class DictUtils {
      * @return dictDatas 字典數據列表
      */
     public static List<SysDictData> getDictCache(String key) {
-        JSONArray arrayCache = SpringUtils.getBean(RedisCache.class).getCacheObject(getCacheKey(key));
-        if (StringUtils.isNotNull(arrayCache)) {
-            return arrayCache.toList(SysDictData.class);
-        }
-        return null;
+        return getDictEntry(key).datas;
     }
 
     /**
@@ -81,25 +166,18 @@ public class DictUtils {
      * @return 字典標籤
      */
     public static String getDictLabel(String dictType, String dictValue, String separator) {
-        StringBuilder propertyString = new StringBuilder();
-        List<SysDictData> datas = getDictCache(dictType);
-        if (StringUtils.isNull(datas)) {
+        DictEntry entry = getDictEntry(dictType);
+        if (entry.datas == null) {
             return StringUtils.EMPTY;
         }
-        if (StringUtils.containsAny(separator, dictValue)) {
-            for (SysDictData dict : datas) {
-                for (String value : dictValue.split(separator)) {
-                    if (value.equals(dict.getDictValue())) {
-                        propertyString.append(dict.getDictLabel()).append(separator);
-                        break;
-                    }
-                }
-            }
-        } else {
-            for (SysDictData dict : datas) {
-                if (dictValue.equals(dict.getDictValue())) {
-                    return dict.getDictLabel();
-                }
+        if (!StringUtils.containsAny(separator, dictValue)) {
+            return StringUtils.defaultString(entry.labelByValue.get(dictValue));
+        }
+        List<String> values = Arrays.asList(dictValue.split(separator));
+        StringBuilder propertyString = new StringBuilder();
+        for (SysDictData dict : entry.datas) {
+            if (values.contains(dict.getDictValue())) {
+                propertyString.append(dict.getDictLabel()).append(separator);
             }
         }
         return StringUtils.stripEnd(propertyString.toString(), separator);
@@ -114,25 +192,18 @@ public class DictUtils {
      * @return 字典值
      */
     public static String getDictValue(String dictType, String dictLabel, String separator) {
-        StringBuilder propertyString = new StringBuilder();
-        List<SysDictData> datas = getDictCache(dictType);
-        if (StringUtils.isNull(datas)) {
+        DictEntry entry = getDictEntry(dictType);
+        if (entry.datas == null) {
             return StringUtils.EMPTY;
         }
-        if (StringUtils.containsAny(separator, dictLabel)) {
-            for (SysDictData dict : datas) {
-                for (String label : dictLabel.split(separator)) {
-                    if (label.equals(dict.getDictLabel())) {
-                        propertyString.append(dict.getDictValue()).append(separator);
-                        break;
-                    }
-                }
-            }
-        } else {
-            for (SysDictData dict : datas) {
-                if (dictLabel.equals(dict.getDictLabel())) {
-                    return dict.getDictValue();
-                }
+        if (!StringUtils.containsAny(separator, dictLabel)) {
+            return StringUtils.defaultString(entry.valueByLabel.get(dictLabel));
+        }
+        List<String> labels = Arrays.asList(dictLabel.split(separator));
+        StringBuilder propertyString = new StringBuilder();
+        for (SysDictData dict : entry.datas) {
+            if (labels.contains(dict.getDictLabel())) {
+                propertyString.append(dict.getDictValue()).append(separator);
             }
         }
         return StringUtils.stripEnd(propertyString.toString(), separator);
@@ -145,15 +216,7 @@ public class DictUtils {
      * @return 字典值
      */
     public static String getDictValues(String dictType) {
-        StringBuilder propertyString = new StringBuilder();
-        List<SysDictData> datas = getDictCache(dictType);
-        if (StringUtils.isNull(datas)) {
-            return StringUtils.EMPTY;
-        }
-        for (SysDictData dict : datas) {
-            propertyString.append(dict.getDictValue()).append(SEPARATOR);
-        }
-        return StringUtils.stripEnd(propertyString.toString(), SEPARATOR);
+        return getDictEntry(dictType).values;
     }
 
     /**
@@ -163,15 +226,7 @@ public class DictUtils {
      * @return 字典值
      */
     public static String getDictLabels(String dictType) {
-        StringBuilder propertyString = new StringBuilder();
-        List<SysDictData> datas = getDictCache(dictType);
-        if (StringUtils.isNull(datas)) {
-            return StringUtils.EMPTY;
-        }
-        for (SysDictData dict : datas) {
-            propertyString.append(dict.getDictLabel()).append(SEPARATOR);
-        }
-        return StringUtils.stripEnd(propertyString.toString(), SEPARATOR);
+        return getDictEntry(dictType).labels;
     }
 
     /**
@@ -181,14 +236,24 @@ public class DictUtils {
      */
     public static void removeDictCache(String key) {
         SpringUtils.getBean(RedisCache.class).deleteObject(getCacheKey(key));
+        SpringUtils.getBean(CacheInvalidationBus.class).invalidate(CacheConstants.SYS_DICT_KEY, key);
     }
 
     /**
      * 清除字典暫存
      */
     public static void clearDictCache() {
-        Collection<String> keys = SpringUtils.getBean(RedisCache.class).keys(CacheConstants.SYS_DICT_KEY + "*");
-        SpringUtils.getBean(RedisCache.class).deleteObject(keys);
+        SpringUtils.getBean(RedisCache.class).deleteByPattern(CacheConstants.SYS_DICT_KEY + "*");
+        SpringUtils.getBean(CacheInvalidationBus.class).invalidateAll(CacheConstants.SYS_DICT_KEY);
+    }
+
+    /**
+     * 清除本機字典登錄表（收到跨節點失效通知時呼叫，不影響 Redis）
+     *
+     * @param key 字典鍵，null 表示全部
+     */
+    public static void evictLocalDictCache(String key) {
+        LOCAL_DICTS.invalidate(key);
     }
 
     /**
@@ -200,4 +265,16 @@ public class DictUtils {
     public static String getCacheKey(String configKey) {
         return CacheConstants.SYS_DICT_KEY + configKey;
     }
+
+    private static DictEntry getDictEntry(String dictType) {
+        return LOCAL_DICTS.get(dictType, DictUtils::loadDictEntry);
+    }
+
+    private static DictEntry loadDictEntry(String dictType) {
+        JSONArray arrayCache = SpringUtils.getBean(RedisCache.class).getCacheObject(getCacheKey(dictType));
+        if (StringUtils.isNotNull(arrayCache)) {
+            return new DictEntry(arrayCache.toList(SysDictData.class));
+        }
+        return MISSING;
+    }
 }
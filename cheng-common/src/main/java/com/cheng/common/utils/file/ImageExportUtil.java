@@ -1,6 +1,8 @@
 package com.cheng.common.utils.file;
 
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.output.CloseShieldOutputStream;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.*;
@@ -8,14 +10,17 @@ import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Consumer;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 /**
  * 圖片匯出工具類
  * <p>
- * 用於將物品的圖片檔案打包成 ZIP 壓縮檔，支援分割壓縮和進度回報
+ * 用於將物品的圖片檔案打包成 ZIP 壓縮檔，支援分割壓縮和進度回報。
+ * JPEG / PNG 等已壓縮格式以不壓縮等級寫入，避免重複壓縮耗費 CPU
  *
  * @author cheng
  * @since 2025-12-07
@@ -31,18 +36,23 @@ public class ImageExportUtil {
     private static final long MAX_ZIP_SIZE = 500 * 1024 * 1024; // 500MB
 
     /**
-     * 緩衝區大小（8KB）
+     * 緩衝區大小（64KB）
      */
-    private static final int BUFFER_SIZE = 8192;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 本身已壓縮的圖片格式，寫入 ZIP 時不再重複 Deflate
+     */
+    private static final Set<String> COMPRESSED_EXTENSIONS = Set.of("jpg", "jpeg", "png", "gif", "webp");
 
     /**
      * 圖片壓縮結果
      *
-     * @param zipFiles      壓縮檔案列表（如果分割會有多個）
+     * @param entryNames    寫入外層 ZIP 的圖片壓縮檔項目名稱（如果分割會有多個）
      * @param successCount  成功壓縮的圖片數量
      * @param missingImages 缺失的圖片路徑列表
      */
-    public record ImageZipResult(List<File> zipFiles, int successCount, List<String> missingImages) {
+    public record ImageZipResult(List<String> entryNames, int successCount, List<String> missingImages) {
 
         public boolean hasMissingImages() {
             return missingImages != null && !missingImages.isEmpty();
@@ -50,12 +60,26 @@ public class ImageExportUtil {
     }
 
     /**
-     * 壓縮圖片檔案（支援分割壓縮）
+     * 待壓縮的圖片
+     *
+     * @param relativePath 相對路徑
+     * @param file         實體檔案
+     * @param size         檔案大小
+     */
+    private record ImageFile(String relativePath, File file, long size) {
+    }
+
+    /**
+     * 壓縮圖片檔案（支援分割壓縮），直接寫入外層 ZIP
+     * <p>
+     * 先依檔案大小規劃分割，每個分割檔為外層 ZIP 的一個項目（images.zip 或 images_part1.zip…），
+     * 內層 ZIP 邊產生邊寫入外層，不落地為暫存檔，外層也不需事先計算 CRC32。
+     * 已壓縮格式（JPEG / PNG 等）以 {@link Deflater#NO_COMPRESSION} 寫入，CRC32 由 ZIP 串流寫入時計算，每張圖片只讀取一次。
      *
      * @param imageRelativePaths 圖片相對路徑列表（如：書籍封面/isbn_xxx.jpg）
      * @param uploadPath         檔案上傳根路徑
-     * @param outputDir          輸出目錄（用於存放壓縮檔案）
-     * @param baseFileName       基礎檔名（如：images）
+     * @param target             外層 ZIP 輸出流（不會被關閉）
+     * @param baseName           項目基礎名稱（如：images）
      * @param progressCallback   進度回調（參數為已處理的圖片數量）
      * @return ImageZipResult 壓縮結果
      * @throws IOException IO 異常
@@ -63,117 +87,107 @@ public class ImageExportUtil {
     public static ImageZipResult zipImages(
             List<String> imageRelativePaths,
             String uploadPath,
-            File outputDir,
-            String baseFileName,
+            ZipOutputStream target,
+            String baseName,
             Consumer<Integer> progressCallback) throws IOException {
 
-        List<File> zipFiles = new ArrayList<>();
         List<String> missingImages = new ArrayList<>();
+        List<List<ImageFile>> parts = planParts(imageRelativePaths, uploadPath, missingImages);
+        List<String> entryNames = new ArrayList<>(parts.size());
         int successCount = 0;
-        int partNumber = 1;
-        int processedCount = 0;
-
-        // 確保輸出目錄存在
-        if (!outputDir.exists() && !outputDir.mkdirs()) {
-            throw new IOException("無法建立輸出目錄：" + outputDir.getAbsolutePath());
-        }
-
-        // 第一個壓縮檔
-        File currentZipFile = new File(outputDir, baseFileName + "_part" + partNumber + ".zip");
-        ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(currentZipFile));
-        zipFiles.add(currentZipFile);
+        // 空白路徑與缺失圖片已於規劃時處理
+        int processedCount = imageRelativePaths.size() - parts.stream().mapToInt(List::size).sum();
+
+        // 內層 ZIP 內容多為已壓縮的圖片，外層項目不再壓縮
+        target.setLevel(Deflater.NO_COMPRESSION);
+        for (int i = 0; i < parts.size(); i++) {
+            String entryName = parts.size() > 1 ? baseName + "_part" + (i + 1) + ".zip" : baseName + ".zip";
+            target.putNextEntry(new ZipEntry(entryName));
+            try (ZipOutputStream zos = new ZipOutputStream(
+                    new BufferedOutputStream(CloseShieldOutputStream.wrap(target), BUFFER_SIZE))) {
+                for (ImageFile image : parts.get(i)) {
+                    try {
+                        // 加入到 ZIP（保留原始檔名）
+                        String fileName = image.file().getName();
+                        addFileEntry(zos, image.file(), fileName, !isCompressedImage(fileName));
+                        successCount++;
 
-        long currentZipSize = 0;
+                        log.debug("成功壓縮圖片：{}", image.relativePath());
 
-        try {
-            for (String relativePath : imageRelativePaths) {
-                if (relativePath == null || relativePath.trim().isEmpty()) {
-                    processedCount++;
-                    if (progressCallback != null) {
-                        progressCallback.accept(processedCount);
+                    } catch (IOException e) {
+                        log.error("壓縮圖片時發生錯誤：{}", image.relativePath(), e);
+                        missingImages.add(image.relativePath());
                     }
-                    continue;
-                }
-
-                // 組成完整路徑（處理 /profile 前綴映射）
-                String fullPath = convertToAbsolutePath(uploadPath, relativePath);
-                File imageFile = new File(fullPath);
 
-                if (!imageFile.exists() || !imageFile.isFile()) {
-                    log.warn("圖片檔案不存在：{}", fullPath);
-                    missingImages.add(relativePath);
                     processedCount++;
                     if (progressCallback != null) {
                         progressCallback.accept(processedCount);
                     }
-                    continue;
-                }
-
-                long imageSize = imageFile.length();
-
-                // 檢查是否需要分割（當前 ZIP 大小 + 新圖片大小 > 最大限制）
-                if (currentZipSize + imageSize > MAX_ZIP_SIZE && successCount > 0) {
-                    // 安全關閉當前 ZIP
-                    try {
-                        zos.close();
-                    } catch (IOException e) {
-                        log.warn("關閉 ZIP part{} 時發生錯誤", partNumber, e);
-                    }
-                    log.info("圖片壓縮檔 part{} 已達大小限制，建立新檔案", partNumber);
-
-                    // 建立新的 ZIP
-                    partNumber++;
-                    currentZipFile = new File(outputDir, baseFileName + "_part" + partNumber + ".zip");
-                    zos = new ZipOutputStream(new FileOutputStream(currentZipFile));
-                    zipFiles.add(currentZipFile);
-                    currentZipSize = 0;
                 }
+            }
+            target.closeEntry();
+            entryNames.add(entryName);
+        }
+        target.setLevel(Deflater.DEFAULT_COMPRESSION);
 
-                try {
-                    // 加入到 ZIP（保留原始檔名）
-                    String fileName = imageFile.getName();
-                    ZipEntry zipEntry = new ZipEntry(fileName);
-                    zos.putNextEntry(zipEntry);
-
-                    // 寫入檔案內容
-                    try (FileInputStream fis = new FileInputStream(imageFile)) {
-                        byte[] buffer = new byte[BUFFER_SIZE];
-                        int length;
-                        while ((length = fis.read(buffer)) > 0) {
-                            zos.write(buffer, 0, length);
-                        }
-                    }
-
-                    zos.closeEntry();
-                    currentZipSize += imageSize;
-                    successCount++;
+        log.info("圖片壓縮完成 - 成功: {}, 缺失: {}, 分割檔案數: {}",
+                successCount, missingImages.size(), entryNames.size());
 
-                    log.debug("成功壓縮圖片：{}", relativePath);
+        return new ImageZipResult(entryNames, successCount, missingImages);
+    }
 
-                } catch (IOException e) {
-                    log.error("壓縮圖片時發生錯誤：{}", relativePath, e);
-                    missingImages.add(relativePath);
-                }
+    /**
+     * 將檔案加入 ZIP，檔案開啟成功後才建立項目
+     *
+     * @param zos       ZIP 輸出流
+     * @param file      檔案
+     * @param entryName 項目名稱
+     * @param compress  是否壓縮（已壓縮的內容傳 false，以不壓縮等級寫入）
+     * @throws IOException IO 異常
+     */
+    public static void addFileEntry(ZipOutputStream zos, File file, String entryName, boolean compress) throws IOException {
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            zos.setLevel(compress ? Deflater.DEFAULT_COMPRESSION : Deflater.NO_COMPRESSION);
+            zos.putNextEntry(new ZipEntry(entryName));
+            in.transferTo(zos);
+            zos.closeEntry();
+        }
+    }
 
-                processedCount++;
-                if (progressCallback != null) {
-                    progressCallback.accept(processedCount);
-                }
+    /**
+     * 檢查圖片是否存在並依大小規劃分割檔（當前分割檔大小 + 新圖片大小 > 最大限制時換下一個），至少回傳一個分割檔
+     */
+    private static List<List<ImageFile>> planParts(List<String> imageRelativePaths, String uploadPath,
+                                                   List<String> missingImages) {
+        List<List<ImageFile>> parts = new ArrayList<>();
+        List<ImageFile> current = new ArrayList<>();
+        long currentSize = 0;
+        for (String relativePath : imageRelativePaths) {
+            if (relativePath == null || relativePath.trim().isEmpty()) {
+                continue;
             }
-
-        } finally {
-            // 確保最後的 ZIP 被關閉
-            try {
-                zos.close();
-            } catch (IOException e) {
-                log.error("關閉 ZIP 輸出流時發生錯誤", e);
+            File imageFile = new File(convertToAbsolutePath(uploadPath, relativePath));
+            if (!imageFile.isFile()) {
+                log.warn("圖片檔案不存在：{}", relativePath);
+                missingImages.add(relativePath);
+                continue;
+            }
+            long size = imageFile.length();
+            if (currentSize + size > MAX_ZIP_SIZE && !current.isEmpty()) {
+                log.info("圖片壓縮檔 part{} 已達大小限制，建立新檔案", parts.size() + 1);
+                parts.add(current);
+                current = new ArrayList<>();
+                currentSize = 0;
             }
+            current.add(new ImageFile(relativePath, imageFile, size));
+            currentSize += size;
         }
+        parts.add(current);
+        return parts;
+    }
 
-        log.info("圖片壓縮完成 - 成功: {}, 缺失: {}, 分割檔案數: {}",
-                successCount, missingImages.size(), zipFiles.size());
-
-        return new ImageZipResult(zipFiles, successCount, missingImages);
+    private static boolean isCompressedImage(String fileName) {
+        return COMPRESSED_EXTENSIONS.contains(FilenameUtils.getExtension(fileName).toLowerCase());
     }
 
     /**
@@ -239,6 +253,20 @@ public class ImageExportUtil {
         }
     }
 
+    /**
+     * 檢查圖片實體檔案是否存在
+     *
+     * @param uploadPath   檔案上傳根路徑
+     * @param relativePath 資料庫中的相對路徑
+     * @return 是否存在
+     */
+    public static boolean imageExists(String uploadPath, String relativePath) {
+        if (relativePath == null || relativePath.trim().isEmpty()) {
+            return false;
+        }
+        return new File(convertToAbsolutePath(uploadPath, relativePath)).isFile();
+    }
+
     /**
      * 將資料庫存的相對路徑轉換為檔案系統的絕對路徑
      * <p>
@@ -9,6 +9,8 @@ import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.PosixFilePermission;
 import java.nio.file.attribute.PosixFilePermissions;
 import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -21,6 +23,11 @@ import java.util.zip.ZipInputStream;
 @Slf4j
 public class ImageImportUtil {
 
+    /**
+     * 依物品名稱比對圖片時嘗試的副檔名（依序）
+     */
+    private static final String[] IMAGE_EXTENSIONS = {".jpg", ".jpeg", ".png", ".gif", ".bmp", ".webp"};
+
     /**
      * 從資料庫路徑提取檔名
      * 例如：/profile/book-covers/isbn_xxx.jpg -> isbn_xxx.jpg
@@ -125,8 +132,7 @@ public class ImageImportUtil {
             return null;
         }
 
-        String[] extensions = {".jpg", ".jpeg", ".png", ".gif", ".bmp", ".webp"};
-        for (String ext : extensions) {
+        for (String ext : IMAGE_EXTENSIONS) {
             File found = findImageFile(imagesDir, itemName.trim() + ext);
             if (found != null) {
                 return found;
@@ -135,6 +141,56 @@ public class ImageImportUtil {
         return null;
     }
 
+    /**
+     * 建立目錄內的檔名索引（檔名 → 檔案），同名時保留遞迴搜尋會先找到的那一個
+     * <p>
+     * 大量匯入時以索引查詢取代每列重新遞迴掃描目錄
+     *
+     * @param imagesDir 圖片目錄
+     * @return 檔名索引
+     */
+    public static Map<String, File> indexImageFiles(File imagesDir) {
+        Map<String, File> index = new HashMap<>();
+        if (imagesDir != null && imagesDir.isDirectory()) {
+            indexFiles(imagesDir, index);
+        }
+        return index;
+    }
+
+    private static void indexFiles(File dir, Map<String, File> index) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isFile()) {
+                index.putIfAbsent(file.getName(), file);
+            } else if (file.isDirectory()) {
+                indexFiles(file, index);
+            }
+        }
+    }
+
+    /**
+     * 根據物品名稱在檔名索引中搜尋對應圖片
+     *
+     * @param imageIndex 檔名索引（{@link #indexImageFiles(File)}）
+     * @param itemName   物品名稱
+     * @return 找到的圖片檔案，未找到則返回 null
+     */
+    public static File findImageByItemName(Map<String, File> imageIndex, String itemName) {
+        if (itemName == null || itemName.trim().isEmpty()) {
+            return null;
+        }
+        for (String ext : IMAGE_EXTENSIONS) {
+            File found = imageIndex.get(itemName.trim() + ext);
+            if (found != null) {
+                return found;
+            }
+        }
+        return null;
+    }
+
     /**
      * 複製圖片到上傳路徑，並備份已存在的檔案
      *
@@ -0,0 +1,155 @@
+package com.cheng.common.utils.poi;
+
+import com.cheng.common.utils.StringUtils;
+import com.cheng.common.utils.reflect.ReflectUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Excel 欄位存取表
+ * <p>
+ * 每個類別的欄位讀取與 setter 只解析一次並編譯為 {@link MethodHandle}，
+ * 匯入匯出逐格存取時不再重複 getDeclaredField / getDeclaredMethods 與 setAccessible。
+ *
+ * @author cheng
+ */
+final class ExcelPropertyAccessor {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    /**
+     * 欄位讀取（Field → getter）
+     */
+    private static final Map<Field, MethodHandle> FIELD_GETTERS = new ConcurrentHashMap<>();
+
+    /**
+     * 依名稱讀取宣告欄位（類別 → 欄位名稱 → getter），用於 targetAttr
+     */
+    private static final ClassValue<Map<String, Optional<MethodHandle>>> DECLARED_GETTERS = new ClassValue<>() {
+        @Override
+        protected Map<String, Optional<MethodHandle>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    /**
+     * setter（類別 → 屬性名稱 → setter 與參數類型）
+     */
+    private static final ClassValue<Map<String, Optional<Setter>>> SETTERS = new ClassValue<>() {
+        @Override
+        protected Map<String, Optional<Setter>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private ExcelPropertyAccessor() {
+    }
+
+    /**
+     * 讀取欄位值
+     *
+     * @param target 物件
+     * @param field  欄位
+     * @return 欄位值
+     */
+    static Object getField(Object target, Field field) throws Exception {
+        MethodHandle getter = FIELD_GETTERS.computeIfAbsent(field, ExcelPropertyAccessor::unreflectGetter);
+        try {
+            return (Object) getter.invokeExact(target);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    /**
+     * 讀取物件類別上宣告的欄位值（不含父類別，與 getDeclaredField 一致）
+     *
+     * @param target 物件
+     * @param name   欄位名稱
+     * @return 欄位值
+     */
+    static Object getDeclaredField(Object target, String name) throws Exception {
+        Class<?> type = target.getClass();
+        Optional<MethodHandle> getter = DECLARED_GETTERS.get(type).computeIfAbsent(name, key -> {
+            try {
+                return Optional.of(unreflectGetter(type.getDeclaredField(key)));
+            } catch (NoSuchFieldException e) {
+                return Optional.empty();
+            }
+        });
+        if (getter.isEmpty()) {
+            throw new NoSuchFieldException(name);
+        }
+        try {
+            return (Object) getter.get().invokeExact(target);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    /**
+     * 呼叫 setter 寫入屬性，參數轉換規則與 {@link ReflectUtils#invokeSetter} 相同
+     *
+     * @param target       物件
+     * @param propertyName 屬性名稱（含 . 時交由 ReflectUtils 逐級處理）
+     * @param value        值
+     */
+    static void setProperty(Object target, String propertyName, Object value) throws Exception {
+        if (StringUtils.contains(propertyName, ".")) {
+            ReflectUtils.invokeSetter(target, propertyName, value);
+            return;
+        }
+        Optional<Setter> setter = SETTERS.get(target.getClass()).computeIfAbsent(propertyName,
+                key -> Optional.ofNullable(resolveSetter(target, key)));
+        if (setter.isPresent()) {
+            Setter s = setter.get();
+            try {
+                s.handle().invokeExact(target, ReflectUtils.convertArgument(value, s.parameterType()));
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new UndeclaredThrowableException(e);
+            }
+        }
+    }
+
+    private static MethodHandle unreflectGetter(Field field) {
+        try {
+            field.setAccessible(true);
+            return LOOKUP.unreflectGetter(field).asType(GETTER_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("無法存取欄位 " + field, e);
+        }
+    }
+
+    private static Setter resolveSetter(Object target, String propertyName) {
+        Method method = ReflectUtils.getAccessibleMethodByName(target, "set" + StringUtils.capitalize(propertyName), 1);
+        if (method == null) {
+            return null;
+        }
+        try {
+            return new Setter(LOOKUP.unreflect(method).asType(SETTER_TYPE), method.getParameterTypes()[0]);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("無法存取方法 " + method, e);
+        }
+    }
+
+    private record Setter(MethodHandle handle, Class<?> parameterType) {
+    }
+}
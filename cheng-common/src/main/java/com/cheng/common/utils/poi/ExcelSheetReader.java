@@ -0,0 +1,328 @@
+package com.cheng.common.utils.poi;
+
+import com.cheng.common.utils.StringUtils;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.openxml4j.opc.PackageRelationship;
+import org.apache.poi.openxml4j.opc.TargetMode;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * xlsx 串流讀取器
+ * <p>
+ * 以 XSSFReader + SAX 逐列解析工作表，不建立 Workbook 物件模型；
+ * 儲存格值的型別與 {@link ExcelUtil#getCellValue} 一致。
+ * 工作表內的圖片只先建立「列_欄 → 圖片關聯」索引，實際位元組在呼叫 {@link #getImages(int, int)} 時才讀取。
+ *
+ * @author cheng
+ */
+final class ExcelSheetReader implements Closeable {
+
+    private static final String RELATIONSHIPS_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    private final OPCPackage pkg;
+    private final XSSFReader reader;
+    private final ReadOnlySharedStringsTable sharedStrings;
+    private final StylesTable styles;
+    private final Map<Integer, Boolean> dateStyleCache = new HashMap<>();
+    private final Map<String, List<ImageRef>> imageIndex = new HashMap<>();
+
+    /**
+     * 逐列處理
+     */
+    @FunctionalInterface
+    interface RowHandler {
+        /**
+         * @param rowNum 列號（從 0 開始）
+         * @param cells  儲存格值（以欄位索引存放，無值為 null）
+         */
+        void handle(int rowNum, Object[] cells) throws Exception;
+    }
+
+    private record ImageRef(PackagePart drawingPart, String embedId) {
+    }
+
+    ExcelSheetReader(File file) throws Exception {
+        this.pkg = OPCPackage.open(file, PackageAccess.READ);
+        try {
+            this.reader = new XSSFReader(pkg);
+            this.sharedStrings = new ReadOnlySharedStringsTable(pkg);
+            this.styles = reader.getStylesTable();
+        } catch (Exception e) {
+            pkg.revert();
+            throw e;
+        }
+    }
+
+    /**
+     * 逐列讀取工作表
+     *
+     * @param sheetName 工作表名稱，空白時讀取第一個工作表
+     * @param handler   逐列處理
+     */
+    void read(String sheetName, RowHandler handler) throws Exception {
+        XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+        while (sheets.hasNext()) {
+            try (InputStream sheet = sheets.next()) {
+                if (StringUtils.isEmpty(sheetName) || sheetName.equals(sheets.getSheetName())) {
+                    indexImages(sheets.getSheetPart());
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new SheetHandler(handler));
+                    parser.parse(new InputSource(sheet));
+                    return;
+                }
+            }
+        }
+        throw new IOException("檔案sheet不存在");
+    }
+
+    /**
+     * 讀取錨定在指定儲存格的圖片
+     *
+     * @param row    列號（從 0 開始）
+     * @param column 欄號（從 0 開始）
+     * @return 圖片位元組，無圖片時為空列表
+     */
+    List<byte[]> getImages(int row, int column) throws IOException {
+        List<ImageRef> refs = imageIndex.get(row + "_" + column);
+        if (refs == null) {
+            return List.of();
+        }
+        List<byte[]> images = new ArrayList<>(refs.size());
+        for (ImageRef ref : refs) {
+            try {
+                PackageRelationship rel = ref.drawingPart().getRelationship(ref.embedId());
+                if (rel != null && rel.getTargetMode() != TargetMode.EXTERNAL) {
+                    try (InputStream is = ref.drawingPart().getRelatedPart(rel).getInputStream()) {
+                        images.add(is.readAllBytes());
+                    }
+                }
+            } catch (Exception e) {
+                throw new IOException("讀取圖片失敗：" + e.getMessage(), e);
+            }
+        }
+        return images;
+    }
+
+    @Override
+    public void close() {
+        pkg.revert();
+    }
+
+    /**
+     * 建立工作表內圖片的錨點索引（只解析 drawing XML，不讀取圖片內容）
+     */
+    private void indexImages(PackagePart sheetPart) throws Exception {
+        imageIndex.clear();
+        for (PackageRelationship rel : sheetPart.getRelationshipsByType(XSSFRelation.DRAWINGS.getRelation())) {
+            if (rel.getTargetMode() == TargetMode.EXTERNAL) {
+                continue;
+            }
+            PackagePart drawingPart = sheetPart.getRelatedPart(rel);
+            try (InputStream is = drawingPart.getInputStream()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new DrawingHandler(drawingPart));
+                parser.parse(new InputSource(is));
+            }
+        }
+    }
+
+    private boolean isDateStyle(String styleIndex) {
+        if (StringUtils.isEmpty(styleIndex) || styles == null) {
+            return false;
+        }
+        int index = Integer.parseInt(styleIndex);
+        return dateStyleCache.computeIfAbsent(index, i -> {
+            XSSFCellStyle style = styles.getStyleAt(i);
+            return style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+        });
+    }
+
+    /**
+     * 工作表 XML 解析：row / c / v / is
+     */
+    private class SheetHandler extends DefaultHandler {
+
+        private final RowHandler handler;
+        private final StringBuilder text = new StringBuilder();
+        private Object[] cells = new Object[16];
+        private int rowNum = -1;
+        private int column = -1;
+        private int lastColumn = -1;
+        private boolean hasValue;
+        private boolean collecting;
+        private String cellType;
+        private String cellStyle;
+
+        SheetHandler(RowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row" -> {
+                    String r = attributes.getValue("r");
+                    rowNum = r != null ? Integer.parseInt(r) - 1 : rowNum + 1;
+                    Arrays.fill(cells, null);
+                    lastColumn = -1;
+                    hasValue = false;
+                }
+                case "c" -> {
+                    String ref = attributes.getValue("r");
+                    column = ref != null ? new CellReference(ref).getCol() : lastColumn + 1;
+                    lastColumn = column;
+                    cellType = attributes.getValue("t");
+                    cellStyle = attributes.getValue("s");
+                    text.setLength(0);
+                }
+                case "v", "t" -> collecting = true;
+                default -> {
+                }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (collecting) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+                case "v", "t" -> collecting = false;
+                case "c" -> {
+                    Object value = cellValue(text.toString());
+                    if (value != null) {
+                        if (column >= cells.length) {
+                            cells = Arrays.copyOf(cells, Math.max(column + 1, cells.length * 2));
+                        }
+                        cells[column] = value;
+                        hasValue = true;
+                    }
+                }
+                case "row" -> {
+                    if (hasValue) {
+                        try {
+                            handler.handle(rowNum, Arrays.copyOf(cells, lastColumn + 1));
+                        } catch (RuntimeException e) {
+                            throw e;
+                        } catch (Exception e) {
+                            throw new SAXException(e);
+                        }
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+
+        private Object cellValue(String raw) {
+            if (cellType == null || "n".equals(cellType)) {
+                if (raw.isEmpty()) {
+                    return null;
+                }
+                double d = Double.parseDouble(raw);
+                if (isDateStyle(cellStyle)) {
+                    return DateUtil.getJavaDate(d);
+                }
+                return d % 1 != 0 ? new BigDecimal(Double.toString(d)) : new DecimalFormat("0").format(d);
+            }
+            return switch (cellType) {
+                case "s" -> raw.isEmpty() ? null : sharedStrings.getItemAt(Integer.parseInt(raw)).getString();
+                case "b" -> "1".equals(raw);
+                default -> raw;
+            };
+        }
+    }
+
+    /**
+     * drawing XML 解析：記錄每個圖片錨點的起始列欄與關聯 ID
+     */
+    private class DrawingHandler extends DefaultHandler {
+
+        private final PackagePart drawingPart;
+        private final StringBuilder text = new StringBuilder();
+        private boolean inFrom;
+        private int fromRow = -1;
+        private int fromCol = -1;
+        private String embedId;
+
+        DrawingHandler(PackagePart drawingPart) {
+            this.drawingPart = drawingPart;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "twoCellAnchor", "oneCellAnchor" -> {
+                    fromRow = -1;
+                    fromCol = -1;
+                    embedId = null;
+                }
+                case "from" -> inFrom = true;
+                case "row", "col" -> text.setLength(0);
+                case "blip" -> embedId = attributes.getValue(RELATIONSHIPS_NS, "embed");
+                default -> {
+                }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            text.append(ch, start, length);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "from" -> inFrom = false;
+                case "row" -> {
+                    if (inFrom) {
+                        fromRow = Integer.parseInt(text.toString().trim());
+                    }
+                }
+                case "col" -> {
+                    if (inFrom) {
+                        fromCol = Integer.parseInt(text.toString().trim());
+                    }
+                }
+                case "twoCellAnchor", "oneCellAnchor" -> {
+                    if (embedId != null && fromRow >= 0 && fromCol >= 0) {
+                        imageIndex.computeIfAbsent(fromRow + "_" + fromCol, k -> new ArrayList<>())
+                                .add(new ImageRef(drawingPart, embedId));
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+    }
+}
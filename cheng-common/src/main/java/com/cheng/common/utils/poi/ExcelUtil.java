@@ -14,13 +14,13 @@ import com.cheng.common.utils.StringUtils;
 import com.cheng.common.utils.file.FileTypeUtils;
 import com.cheng.common.utils.file.FileUtils;
 import com.cheng.common.utils.file.ImageUtils;
-import com.cheng.common.utils.reflect.ReflectUtils;
 import jakarta.servlet.http.HttpServletResponse;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.RegExUtils;
 import org.apache.commons.lang3.reflect.FieldUtils;
 import org.apache.poi.hssf.usermodel.*;
 import org.apache.poi.ooxml.POIXMLDocumentPart;
+import org.apache.poi.poifs.filesystem.FileMagic;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.ss.util.CellRangeAddressList;
@@ -32,6 +32,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
@@ -39,10 +40,13 @@ import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.text.DecimalFormat;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -67,9 +71,29 @@ public class ExcelUtil<T> {
      */
     private final Map<Integer, Double> statistics = new HashMap<>();
     /**
-     * 用於dictType屬性數據儲存，避免重複查暫存
+     * 用於dictType屬性數據儲存，避免重複查暫存（字典類型 → 字典值 → 字典標籤）
      */
-    public Map<String, String> sysDictMap = new HashMap<String, String>();
+    private final Map<String, Map<String, String>> dictLabelCache = new HashMap<>();
+    /**
+     * 匯入時的字典反查暫存（字典類型 → 字典標籤 → 字典值）
+     */
+    private final Map<String, Map<String, String>> dictValueCache = new HashMap<>();
+    /**
+     * 註解對應的資料樣式（註解實例在欄位上是唯一的，以 identity 比對即可）
+     */
+    private final Map<Excel, CellStyle> dataStyleCache = new IdentityHashMap<>();
+    /**
+     * 註解對應的表頭樣式
+     */
+    private final Map<Excel, CellStyle> headerStyleCache = new IdentityHashMap<>();
+    /**
+     * 日期格式對應的資料格式索引
+     */
+    private final Map<String, Short> dateFormatCache = new HashMap<>();
+    /**
+     * 自定義格式處理器實例
+     */
+    private final Map<Class<?>, ExcelHandlerAdapter> handlerCache = new HashMap<>();
     /**
      * 實體物件
      */
@@ -139,6 +163,22 @@ public class ExcelUtil<T> {
      * 物件的子列表屬性
      */
     private List<Field> subFields;
+    /**
+     * 串流匯出：每個工作表最多資料行數
+     */
+    private int streamMaxRowsPerSheet;
+    /**
+     * 串流匯出：目前工作表序號（從 0 開始）
+     */
+    private int streamSheetIndex;
+    /**
+     * 串流匯出：目前工作表已寫入的資料筆數
+     */
+    private int streamSheetRows;
+    /**
+     * 串流匯出：下一筆資料的行號
+     */
+    private int streamRowNum;
 
     public ExcelUtil(Class<T> clazz) {
         this.clazz = clazz;
@@ -425,29 +465,12 @@ public class ExcelUtil<T> {
             Row heard = sheet.getRow(titleNum);
             for (int i = 0; i < heard.getPhysicalNumberOfCells(); i++) {
                 Cell cell = heard.getCell(i);
-                if (StringUtils.isNotNull(cell)) {
-                    String value = this.getCellValue(heard, i).toString();
-                    cellMap.put(value, i);
-                    // 同時支援帶 * 和不帶 * 的標題格式
-                    // 例如：「物品名稱*」和「物品名稱」都能匹配到 @Excel(name = "物品名稱")
-                    if (value.endsWith("*")) {
-                        String valueWithoutAsterisk = value.substring(0, value.length() - 1);
-                        cellMap.put(valueWithoutAsterisk, i);
-                    }
-                } else {
-                    cellMap.put(null, i);
-                }
+                putHeaderCell(cellMap, StringUtils.isNotNull(cell) ? this.getCellValue(heard, i) : null, i);
             }
             // 有數據時才處理 得到類的所有field.
-            List<Object[]> fields = this.getFields();
-            Map<Integer, Object[]> fieldsMap = new HashMap<Integer, Object[]>();
-            for (Object[] objects : fields) {
-                Excel attr = (Excel) objects[1];
-                Integer column = cellMap.get(attr.name());
-                if (column != null) {
-                    fieldsMap.put(column, objects);
-                }
-            }
+            Map<Integer, Object[]> fieldsMap = getImportFieldsMap(cellMap);
+            Constructor<T> constructor = clazz.getDeclaredConstructor();
+            Map<String, List<PictureData>> sheetPictures = pictures;
             for (int i = titleNum + 1; i <= rows; i++) {
                 // 從第2行開始取數據,預設第一行是表頭.
                 Row row = sheet.getRow(i);
@@ -460,75 +483,256 @@ public class ExcelUtil<T> {
                     Object val = this.getCellValue(row, entry.getKey());
 
                     // 如果不存在實體則新建.
-                    entity = (entity == null ? clazz.getDeclaredConstructor().newInstance() : entity);
-                    // 從map中得到對應列的field.
-                    Field field = (Field) entry.getValue()[0];
-                    Excel attr = (Excel) entry.getValue()[1];
-                    // 取得類型,並根據物件類型設定值.
-                    Class<?> fieldType = field.getType();
-                    if (String.class == fieldType) {
-                        String s = Convert.toStr(val);
-                        if (s.matches("^\\d+\\.0$")) {
-                            val = StringUtils.substringBefore(s, ".0");
-                        } else {
-                            String dateFormat = field.getAnnotation(Excel.class).dateFormat();
-                            if (StringUtils.isNotEmpty(dateFormat)) {
-                                val = parseDateToStr(dateFormat, val);
-                            } else {
-                                val = Convert.toStr(val);
+                    entity = (entity == null ? constructor.newInstance() : entity);
+                    String pictureKey = row.getRowNum() + "_" + entry.getKey();
+                    setImportValue(entity, entry.getValue(), val, () -> {
+                        List<byte[]> images = new ArrayList<>();
+                        if (StringUtils.isNotEmpty(sheetPictures) && sheetPictures.get(pictureKey) != null) {
+                            for (PictureData picture : sheetPictures.get(pictureKey)) {
+                                images.add(picture.getData());
                             }
                         }
-                    } else if ((Integer.TYPE == fieldType || Integer.class == fieldType) && StringUtils.isNumeric(Convert.toStr(val))) {
-                        val = Convert.toInt(val);
-                    } else if ((Long.TYPE == fieldType || Long.class == fieldType) && StringUtils.isNumeric(Convert.toStr(val))) {
-                        val = Convert.toLong(val);
-                    } else if (Double.TYPE == fieldType || Double.class == fieldType) {
-                        val = Convert.toDouble(val);
-                    } else if (Float.TYPE == fieldType || Float.class == fieldType) {
-                        val = Convert.toFloat(val);
-                    } else if (BigDecimal.class == fieldType) {
-                        val = Convert.toBigDecimal(val);
-                    } else if (Date.class == fieldType) {
-                        if (val instanceof String) {
-                            val = DateUtils.parseDate(val);
-                        } else if (val instanceof Double) {
-                            val = DateUtil.getJavaDate((Double) val);
+                        return images;
+                    });
+                }
+                list.add(entity);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 串流匯入：逐列解析並分批交給 consumer
+     * <p>
+     * xlsx 以 XSSFReader + SAX 讀取，不建立 Workbook；圖片欄位在讀到該列時才依錨點載入。
+     * xls 不支援事件模型，沿用 {@link #importExcel(String, InputStream, int)} 後分批回呼。
+     *
+     * @param is            輸入流（會被關閉）
+     * @param titleNum      標題佔用行數
+     * @param chunkSize     每批筆數
+     * @param chunkConsumer 分批處理
+     * @return 匯入總筆數
+     */
+    public int importExcelStream(InputStream is, int titleNum, int chunkSize, Consumer<List<T>> chunkConsumer) {
+        this.type = Type.IMPORT;
+        int batchSize = Math.max(1, chunkSize);
+        Path tempFile = null;
+        try {
+            InputStream in = FileMagic.prepareToCheckMagic(is);
+            if (FileMagic.valueOf(in) != FileMagic.OOXML) {
+                List<T> list = importExcel(StringUtils.EMPTY, in, titleNum);
+                for (int i = 0; i < list.size(); i += batchSize) {
+                    chunkConsumer.accept(list.subList(i, Math.min(i + batchSize, list.size())));
+                }
+                return list.size();
+            }
+
+            tempFile = Files.createTempFile("excel-import-", ".xlsx");
+            Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            try (ExcelSheetReader reader = new ExcelSheetReader(tempFile.toFile())) {
+                Constructor<T> constructor = clazz.getDeclaredConstructor();
+                Map<String, Integer> cellMap = new HashMap<>();
+                List<Map<Integer, Object[]>> fieldsHolder = new ArrayList<>(1);
+                List<T> chunk = new ArrayList<>(batchSize);
+                int[] total = {0};
+                reader.read(StringUtils.EMPTY, (rowNum, cells) -> {
+                    if (rowNum == titleNum) {
+                        for (int i = 0; i < cells.length; i++) {
+                            putHeaderCell(cellMap, cells[i], i);
                         }
-                    } else if (Boolean.TYPE == fieldType || Boolean.class == fieldType) {
-                        val = Convert.toBool(val, false);
+                        fieldsHolder.add(getImportFieldsMap(cellMap));
+                        return;
                     }
-                    if (StringUtils.isNotNull(fieldType)) {
-                        String propertyName = field.getName();
-                        if (StringUtils.isNotEmpty(attr.targetAttr())) {
-                            propertyName = field.getName() + "." + attr.targetAttr();
-                        }
-                        if (StringUtils.isNotEmpty(attr.readConverterExp())) {
-                            val = reverseByExp(Convert.toStr(val), attr.readConverterExp(), attr.separator());
-                        } else if (StringUtils.isNotEmpty(attr.dictType())) {
-                            if (!sysDictMap.containsKey(attr.dictType() + val)) {
-                                String dictValue = reverseDictByExp(Convert.toStr(val), attr.dictType(), attr.separator());
-                                sysDictMap.put(attr.dictType() + val, dictValue);
-                            }
-                            val = sysDictMap.get(attr.dictType() + val);
-                        } else if (!attr.handler().equals(ExcelHandlerAdapter.class)) {
-                            val = dataFormatHandlerAdapter(val, attr, null);
-                        } else if (ColumnType.IMAGE == attr.cellType() && StringUtils.isNotEmpty(pictures)) {
-                            StringBuilder propertyString = new StringBuilder();
-                            List<PictureData> images = pictures.get(row.getRowNum() + "_" + entry.getKey());
-                            for (PictureData picture : images) {
-                                byte[] data = picture.getData();
-                                String fileName = FileUtils.writeImportBytes(data);
-                                propertyString.append(fileName).append(SEPARATOR);
-                            }
-                            val = StringUtils.stripEnd(propertyString.toString(), SEPARATOR);
+                    if (rowNum < titleNum || fieldsHolder.isEmpty() || fieldsHolder.get(0).isEmpty()) {
+                        return;
+                    }
+                    T entity = constructor.newInstance();
+                    for (Map.Entry<Integer, Object[]> entry : fieldsHolder.get(0).entrySet()) {
+                        int column = entry.getKey();
+                        Object val = column < cells.length && cells[column] != null ? cells[column] : "";
+                        setImportValue(entity, entry.getValue(), val, () -> reader.getImages(rowNum, column));
+                    }
+                    chunk.add(entity);
+                    total[0]++;
+                    if (chunk.size() >= batchSize) {
+                        chunkConsumer.accept(new ArrayList<>(chunk));
+                        chunk.clear();
+                    }
+                });
+                if (!chunk.isEmpty()) {
+                    chunkConsumer.accept(chunk);
+                }
+                return total[0];
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("匯入Excel異常{}", e.getMessage());
+            throw new UtilException(e.getMessage());
+        } finally {
+            IOUtils.closeQuietly(is);
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException e) {
+                    log.warn("刪除匯入暫存檔失敗：{}", tempFile);
+                }
+            }
+        }
+    }
+
+    /**
+     * 串流讀取第一個工作表的原始儲存格值（不對應實體類別）
+     * <p>
+     * 儲存格值型別與 {@link #getCellValue(Row, int)} 一致；xlsx 以 SAX 逐列讀取，xls 以 Workbook 讀取。
+     *
+     * @param is           輸入流（會被關閉）
+     * @param rowConsumer  逐列處理（列號從 0 開始，儲存格以欄位索引存放，無值為 null）
+     */
+    public static void readRows(InputStream is, BiConsumer<Integer, Object[]> rowConsumer) throws Exception {
+        Path tempFile = null;
+        try {
+            InputStream in = FileMagic.prepareToCheckMagic(is);
+            if (FileMagic.valueOf(in) != FileMagic.OOXML) {
+                try (Workbook workbook = WorkbookFactory.create(in)) {
+                    for (Row row : workbook.getSheetAt(0)) {
+                        Object[] cells = new Object[Math.max(0, row.getLastCellNum())];
+                        for (int i = 0; i < cells.length; i++) {
+                            Cell cell = row.getCell(i);
+                            cells[i] = cell == null || cell.getCellType() == CellType.BLANK ? null : readCellValue(cell);
                         }
-                        ReflectUtils.invokeSetter(entity, propertyName, val);
+                        rowConsumer.accept(row.getRowNum(), cells);
                     }
                 }
-                list.add(entity);
+                return;
+            }
+            tempFile = Files.createTempFile("excel-import-", ".xlsx");
+            Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            try (ExcelSheetReader reader = new ExcelSheetReader(tempFile.toFile())) {
+                reader.read(StringUtils.EMPTY, rowConsumer::accept);
+            }
+        } finally {
+            IOUtils.closeQuietly(is);
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException e) {
+                    log.warn("刪除匯入暫存檔失敗：{}", tempFile);
+                }
             }
         }
-        return list;
+    }
+
+    /**
+     * 記錄表頭欄位位置，同時支援帶 * 和不帶 * 的標題格式
+     * <p>
+     * 例如：「物品名稱*」和「物品名稱」都能匹配到 @Excel(name = "物品名稱")
+     */
+    private void putHeaderCell(Map<String, Integer> cellMap, Object cellValue, int column) {
+        if (StringUtils.isNotNull(cellValue)) {
+            String value = cellValue.toString();
+            cellMap.put(value, column);
+            if (value.endsWith("*")) {
+                String valueWithoutAsterisk = value.substring(0, value.length() - 1);
+                cellMap.put(valueWithoutAsterisk, column);
+            }
+        } else {
+            cellMap.put(null, column);
+        }
+    }
+
+    /**
+     * 依表頭對應匯入欄位（欄位序號 → 欄位與註解）
+     */
+    private Map<Integer, Object[]> getImportFieldsMap(Map<String, Integer> cellMap) {
+        List<Object[]> fields = this.getFields();
+        Map<Integer, Object[]> fieldsMap = new HashMap<Integer, Object[]>();
+        for (Object[] objects : fields) {
+            Excel attr = (Excel) objects[1];
+            Integer column = cellMap.get(attr.name());
+            if (column != null) {
+                fieldsMap.put(column, objects);
+            }
+        }
+        return fieldsMap;
+    }
+
+    /**
+     * 轉換儲存格值並寫入實體屬性
+     *
+     * @param entity 實體
+     * @param field  欄位與註解
+     * @param val    儲存格值
+     * @param images 儲存格錨定的圖片（僅圖片欄位會讀取）
+     */
+    private void setImportValue(T entity, Object[] field, Object val, ImageSupplier images) throws Exception {
+        Field f = (Field) field[0];
+        Excel attr = (Excel) field[1];
+        // 取得類型,並根據物件類型設定值.
+        Class<?> fieldType = f.getType();
+        if (String.class == fieldType) {
+            String s = Convert.toStr(val);
+            if (s.matches("^\\d+\\.0$")) {
+                val = StringUtils.substringBefore(s, ".0");
+            } else {
+                String dateFormat = attr.dateFormat();
+                if (StringUtils.isNotEmpty(dateFormat)) {
+                    val = parseDateToStr(dateFormat, val);
+                } else {
+                    val = Convert.toStr(val);
+                }
+            }
+        } else if ((Integer.TYPE == fieldType || Integer.class == fieldType) && StringUtils.isNumeric(Convert.toStr(val))) {
+            val = Convert.toInt(val);
+        } else if ((Long.TYPE == fieldType || Long.class == fieldType) && StringUtils.isNumeric(Convert.toStr(val))) {
+            val = Convert.toLong(val);
+        } else if (Double.TYPE == fieldType || Double.class == fieldType) {
+            val = Convert.toDouble(val);
+        } else if (Float.TYPE == fieldType || Float.class == fieldType) {
+            val = Convert.toFloat(val);
+        } else if (BigDecimal.class == fieldType) {
+            val = Convert.toBigDecimal(val);
+        } else if (Date.class == fieldType) {
+            if (val instanceof String) {
+                val = DateUtils.parseDate(val);
+            } else if (val instanceof Double) {
+                val = DateUtil.getJavaDate((Double) val);
+            }
+        } else if (Boolean.TYPE == fieldType || Boolean.class == fieldType) {
+            val = Convert.toBool(val, false);
+        }
+        String propertyName = f.getName();
+        if (StringUtils.isNotEmpty(attr.targetAttr())) {
+            propertyName = f.getName() + "." + attr.targetAttr();
+        }
+        if (StringUtils.isNotEmpty(attr.readConverterExp())) {
+            val = reverseByExp(Convert.toStr(val), attr.readConverterExp(), attr.separator());
+        } else if (StringUtils.isNotEmpty(attr.dictType())) {
+            String dictLabel = Convert.toStr(val);
+            val = dictValueCache.computeIfAbsent(attr.dictType(), k -> new HashMap<>())
+                    .computeIfAbsent(dictLabel, k -> reverseDictByExp(dictLabel, attr.dictType(), attr.separator()));
+        } else if (!attr.handler().equals(ExcelHandlerAdapter.class)) {
+            val = dataFormatHandlerAdapter(val, attr, null);
+        } else if (ColumnType.IMAGE == attr.cellType()) {
+            List<byte[]> data = images.get();
+            if (!data.isEmpty()) {
+                StringBuilder propertyString = new StringBuilder();
+                for (byte[] image : data) {
+                    String fileName = FileUtils.writeImportBytes(image);
+                    propertyString.append(fileName).append(SEPARATOR);
+                }
+                val = StringUtils.stripEnd(propertyString.toString(), SEPARATOR);
+            }
+        }
+        ExcelPropertyAccessor.setProperty(entity, propertyName, val);
+    }
+
+    /**
+     * 儲存格圖片來源（延遲載入）
+     */
+    @FunctionalInterface
+    private interface ImageSupplier {
+        List<byte[]> get() throws IOException;
     }
 
     /**
@@ -581,6 +785,29 @@ public class ExcelUtil<T> {
         exportExcel(response);
     }
 
+    /**
+     * 串流匯出到回應輸出流
+     * <p>
+     * 不建立資料列表：rowSource 取得逐筆寫入的 consumer 後自行查詢（例如 MyBatis ResultHandler），
+     * 每筆資料直接寫入 SXSSF 視窗，記憶體用量與總筆數無關。
+     *
+     * @param response  返回數據
+     * @param sheetName 工作表的名稱
+     * @param rowSource 資料來源，將每筆資料交給傳入的 consumer
+     */
+    public void exportExcelStream(HttpServletResponse response, String sheetName, Consumer<Consumer<T>> rowSource) {
+        response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        response.setCharacterEncoding("utf-8");
+        startStream(sheetName, StringUtils.EMPTY, 0);
+        try {
+            rowSource.accept(this::writeRow);
+            finishStream(response.getOutputStream());
+        } catch (Exception e) {
+            abortStream();
+            log.error("匯出Excel異常{}", e.getMessage());
+        }
+    }
+
     /**
      * 對list資料來源將其裡面的數據匯入到excel表單
      *
@@ -670,21 +897,7 @@ public class ExcelUtil<T> {
             createSheet(sheetNo, index);
 
             // 產生一行
-            Row row = sheet.createRow(rownum);
-            int column = 0;
-            // 寫入各個欄位的列頭名稱
-            for (Object[] os : fields) {
-                Field field = (Field) os[0];
-                Excel excel = (Excel) os[1];
-                if (Collection.class.isAssignableFrom(field.getType())) {
-                    for (Field subField : subFields) {
-                        Excel subExcel = subField.getAnnotation(Excel.class);
-                        this.createHeadCell(subExcel, row, column++);
-                    }
-                } else {
-                    this.createHeadCell(excel, row, column++);
-                }
-            }
+            Row row = createHeadRow();
             if (Type.EXPORT.equals(type)) {
                 fillExcelData(index, row);
                 addStatisticsRow();
@@ -692,60 +905,160 @@ public class ExcelUtil<T> {
         }
     }
 
+    /**
+     * 寫入各個欄位的列頭名稱
+     *
+     * @return 列頭行
+     */
+    private Row createHeadRow() {
+        Row row = sheet.createRow(rownum);
+        int column = 0;
+        for (Object[] os : fields) {
+            Field field = (Field) os[0];
+            Excel excel = (Excel) os[1];
+            if (Collection.class.isAssignableFrom(field.getType())) {
+                for (Field subField : subFields) {
+                    Excel subExcel = subField.getAnnotation(Excel.class);
+                    this.createHeadCell(subExcel, row, column++);
+                }
+            } else {
+                this.createHeadCell(excel, row, column++);
+            }
+        }
+        return row;
+    }
+
+    /**
+     * 串流匯出：建立工作簿與第一個工作表
+     * <p>
+     * 不持有資料列表，呼叫端逐筆呼叫 {@link #writeRow(Object)}，最後以 {@link #finishStream(OutputStream)} 輸出。
+     * SXSSF 只在記憶體保留固定行數視窗，適合大量資料（例如 MyBatis ResultHandler 逐列回呼）。
+     *
+     * @param sheetName       工作表名稱（後續工作表為 sheetName + 序號）
+     * @param title           標題
+     * @param maxRowsPerSheet 每個工作表最多資料行數，超過時自動換頁
+     */
+    public void startStream(String sheetName, String title, int maxRowsPerSheet) {
+        init(null, sheetName, title, Type.EXPORT);
+        this.streamMaxRowsPerSheet = maxRowsPerSheet > 0 ? Math.min(maxRowsPerSheet, sheetSize - rownum - 2) : sheetSize - rownum - 2;
+        this.streamSheetIndex = 0;
+        this.streamSheetRows = 0;
+        createHeadRow();
+        this.streamRowNum = rownum + 1;
+    }
+
+    /**
+     * 串流匯出：寫入一筆資料，目前工作表已滿時換到新的工作表
+     *
+     * @param vo 資料
+     */
+    public void writeRow(T vo) {
+        if (streamSheetRows >= streamMaxRowsPerSheet) {
+            addStatisticsRow();
+            streamSheetIndex++;
+            createSheet(streamSheetIndex + 1, streamSheetIndex);
+            createHeadRow();
+            streamRowNum = rownum + 1;
+            streamSheetRows = 0;
+        }
+        streamRowNum += fillRow(vo, streamRowNum);
+        streamSheetRows++;
+    }
+
+    /**
+     * 串流匯出：寫入統計行並輸出工作簿，完成後釋放暫存檔
+     *
+     * @param out 輸出流（不會被關閉）
+     */
+    public void finishStream(OutputStream out) throws IOException {
+        try {
+            addStatisticsRow();
+            wb.write(out);
+        } finally {
+            IOUtils.closeQuietly(wb);
+        }
+    }
+
+    /**
+     * 串流匯出：中途失敗時放棄輸出並釋放工作簿
+     */
+    public void abortStream() {
+        IOUtils.closeQuietly(wb);
+    }
+
+    /**
+     * 串流匯出：已寫入的工作表數
+     *
+     * @return 工作表數
+     */
+    public int getStreamSheetCount() {
+        return streamSheetIndex + 1;
+    }
+
     /**
      * 填充excel數據
      *
      * @param index 序號
      * @param row   單元格行
      */
-    @SuppressWarnings("unchecked")
     public void fillExcelData(int index, Row row) {
         int startNo = index * sheetSize;
         int endNo = Math.min(startNo + sheetSize, list.size());
         int currentRowNum = rownum + 1; // 從標題行後開始
 
         for (int i = startNo; i < endNo; i++) {
-            row = sheet.createRow(currentRowNum);
-            T vo = (T) list.get(i);
-            int column = 0;
-            int maxSubListSize = getCurrentMaxSubListSize(vo);
-            for (Object[] os : fields) {
-                Field field = (Field) os[0];
-                Excel excel = (Excel) os[1];
-                if (Collection.class.isAssignableFrom(field.getType())) {
-                    try {
-                        Collection<?> subList = (Collection<?>) getTargetValue(vo, field, excel);
-                        if (subList != null && !subList.isEmpty()) {
-                            int subIndex = 0;
-                            for (Object subVo : subList) {
-                                Row subRow = sheet.getRow(currentRowNum + subIndex);
-                                if (subRow == null) {
-                                    subRow = sheet.createRow(currentRowNum + subIndex);
-                                }
-
-                                int subColumn = column;
-                                for (Field subField : subFields) {
-                                    Excel subExcel = subField.getAnnotation(Excel.class);
-                                    addCell(subExcel, subRow, (T) subVo, subField, subColumn++);
-                                }
-                                subIndex++;
+            currentRowNum += fillRow(list.get(i), currentRowNum);
+        }
+    }
+
+    /**
+     * 填充單筆資料
+     *
+     * @param vo            資料
+     * @param currentRowNum 起始行號
+     * @return 佔用的行數（含子列表展開）
+     */
+    @SuppressWarnings("unchecked")
+    private int fillRow(T vo, int currentRowNum) {
+        Row row = sheet.createRow(currentRowNum);
+        int column = 0;
+        int maxSubListSize = getCurrentMaxSubListSize(vo);
+        for (Object[] os : fields) {
+            Field field = (Field) os[0];
+            Excel excel = (Excel) os[1];
+            if (Collection.class.isAssignableFrom(field.getType())) {
+                try {
+                    Collection<?> subList = (Collection<?>) getTargetValue(vo, field, excel);
+                    if (subList != null && !subList.isEmpty()) {
+                        int subIndex = 0;
+                        for (Object subVo : subList) {
+                            Row subRow = sheet.getRow(currentRowNum + subIndex);
+                            if (subRow == null) {
+                                subRow = sheet.createRow(currentRowNum + subIndex);
                             }
-                            column += subFields.size();
+
+                            int subColumn = column;
+                            for (Field subField : subFields) {
+                                Excel subExcel = subField.getAnnotation(Excel.class);
+                                addCell(subExcel, subRow, (T) subVo, subField, subColumn++);
+                            }
+                            subIndex++;
                         }
-                    } catch (Exception e) {
-                        log.error("填充集合數據失敗", e);
+                        column += subFields.size();
                     }
-                } else {
-                    // 建立單元格並設定值
-                    addCell(excel, row, vo, field, column);
-                    if (maxSubListSize > 1 && excel.needMerge()) {
-                        sheet.addMergedRegion(new CellRangeAddress(currentRowNum, currentRowNum + maxSubListSize - 1, column, column));
-                    }
-                    column++;
+                } catch (Exception e) {
+                    log.error("填充集合數據失敗", e);
+                }
+            } else {
+                // 建立單元格並設定值
+                addCell(excel, row, vo, field, column);
+                if (maxSubListSize > 1 && excel.needMerge()) {
+                    sheet.addMergedRegion(new CellRangeAddress(currentRowNum, currentRowNum + maxSubListSize - 1, column, column));
                 }
+                column++;
             }
-            currentRowNum += maxSubListSize;
         }
+        return maxSubListSize;
     }
 
     /**
@@ -929,10 +1242,11 @@ public class ExcelUtil<T> {
         // 寫入列訊息
         cell.setCellValue(attr.name());
         setDataValidation(attr, row, column);
-        cell.setCellStyle(styles.get(StringUtils.format("header_{}_{}", attr.headerColor(), attr.headerBackgroundColor())));
+        cell.setCellStyle(headerStyleCache.computeIfAbsent(attr,
+                a -> styles.get(StringUtils.format("header_{}_{}", a.headerColor(), a.headerBackgroundColor()))));
         if (isSubList()) {
             // 填充預設樣式，防止合併單元格樣式失效
-            sheet.setDefaultColumnStyle(column, styles.get(StringUtils.format("data_{}_{}_{}_{}_{}", attr.align(), attr.color(), attr.backgroundColor(), attr.cellType(), attr.wrapText())));
+            sheet.setDefaultColumnStyle(column, getDataStyle(attr));
             if (attr.needMerge()) {
                 sheet.addMergedRegion(new CellRangeAddress(rownum - 1, rownum, column, column));
             }
@@ -940,6 +1254,17 @@ public class ExcelUtil<T> {
         return cell;
     }
 
+    /**
+     * 取得註解對應的資料樣式
+     *
+     * @param attr 註解
+     * @return 樣式
+     */
+    private CellStyle getDataStyle(Excel attr) {
+        return dataStyleCache.computeIfAbsent(attr, a -> styles.get(StringUtils.format("data_{}_{}_{}_{}_{}",
+                a.align(), a.color(), a.backgroundColor(), a.cellType(), a.wrapText())));
+    }
+
     /**
      * 設定單元格訊息
      *
@@ -1001,12 +1326,8 @@ public class ExcelUtil<T> {
         if (StringUtils.isNotEmpty(attr.prompt()) || attr.combo().length > 0 || attr.comboReadDict()) {
             String[] comboArray = attr.combo();
             if (attr.comboReadDict()) {
-                if (!sysDictMap.containsKey("combo_" + attr.dictType())) {
-                    String labels = DictUtils.getDictLabels(attr.dictType());
-                    sysDictMap.put("combo_" + attr.dictType(), labels);
-                }
-                String val = sysDictMap.get("combo_" + attr.dictType());
-                comboArray = StringUtils.split(val, DictUtils.SEPARATOR);
+                // 字典標籤字串已於字典登錄時預先組好，直接取用
+                comboArray = StringUtils.split(DictUtils.getDictLabels(attr.dictType()), DictUtils.SEPARATOR);
             }
             if (comboArray.length > 15 || StringUtils.join(comboArray).length() > 255) {
                 // 如果下拉數大於15或字串長度大於255，則使用一個新sheet儲存，避免產生的模板下拉值取得不到
@@ -1036,7 +1357,7 @@ public class ExcelUtil<T> {
                         sheet.addMergedRegion(new CellRangeAddress(subMergedFirstRowNum, subMergedLastRowNum, column, column));
                     }
                 }
-                cell.setCellStyle(styles.get(StringUtils.format("data_{}_{}_{}_{}_{}", attr.align(), attr.color(), attr.backgroundColor(), attr.cellType(), attr.wrapText())));
+                cell.setCellStyle(getDataStyle(attr));
 
                 // 用於讀取物件中的屬性
                 Object value = getTargetValue(vo, field, attr);
@@ -1045,16 +1366,15 @@ public class ExcelUtil<T> {
                 String separator = attr.separator();
                 String dictType = attr.dictType();
                 if (StringUtils.isNotEmpty(dateFormat) && StringUtils.isNotNull(value)) {
-                    cell.getCellStyle().setDataFormat(this.wb.getCreationHelper().createDataFormat().getFormat(dateFormat));
+                    cell.getCellStyle().setDataFormat(dateFormatCache.computeIfAbsent(dateFormat,
+                            format -> this.wb.getCreationHelper().createDataFormat().getFormat(format)));
                     cell.setCellValue(parseDateToStr(dateFormat, value));
                 } else if (StringUtils.isNotEmpty(readConverterExp) && StringUtils.isNotNull(value)) {
                     cell.setCellValue(convertByExp(Convert.toStr(value), readConverterExp, separator));
                 } else if (StringUtils.isNotEmpty(dictType) && StringUtils.isNotNull(value)) {
-                    if (!sysDictMap.containsKey(dictType + value)) {
-                        String lable = convertDictByExp(Convert.toStr(value), dictType, separator);
-                        sysDictMap.put(dictType + value, lable);
-                    }
-                    cell.setCellValue(sysDictMap.get(dictType + value));
+                    String dictValue = Convert.toStr(value);
+                    cell.setCellValue(dictLabelCache.computeIfAbsent(dictType, k -> new HashMap<>())
+                            .computeIfAbsent(dictValue, k -> convertDictByExp(dictValue, dictType, separator)));
                 } else if (value instanceof BigDecimal && -1 != attr.scale()) {
                     cell.setCellValue((((BigDecimal) value).setScale(attr.scale(), attr.roundingMode())).doubleValue());
                 } else if (!attr.handler().equals(ExcelHandlerAdapter.class)) {
@@ -1171,9 +1491,12 @@ public class ExcelUtil<T> {
      */
     public String dataFormatHandlerAdapter(Object value, Excel excel, Cell cell) {
         try {
-            Object instance = excel.handler().getDeclaredConstructor().newInstance();
-            Method formatMethod = excel.handler().getMethod("format", Object.class, String[].class, Cell.class, Workbook.class);
-            value = formatMethod.invoke(instance, value, excel.args(), cell, this.wb);
+            ExcelHandlerAdapter adapter = handlerCache.get(excel.handler());
+            if (adapter == null) {
+                adapter = (ExcelHandlerAdapter) excel.handler().getDeclaredConstructor().newInstance();
+                handlerCache.put(excel.handler(), adapter);
+            }
+            value = adapter.format(value, excel.args(), cell, this.wb);
         } catch (Exception e) {
             log.error("不能格式化數據 {}, ERR:{}", excel.handler(), e.getMessage());
         }
@@ -1249,8 +1572,7 @@ public class ExcelUtil<T> {
      * @return 最終的屬性值
      */
     private Object getTargetValue(T vo, Field field, Excel excel) throws Exception {
-        field.setAccessible(true);
-        Object o = field.get(vo);
+        Object o = ExcelPropertyAccessor.getField(vo, field);
         if (StringUtils.isNotEmpty(excel.targetAttr())) {
             String target = excel.targetAttr();
             if (target.contains(".")) {
@@ -1274,10 +1596,7 @@ public class ExcelUtil<T> {
      */
     private Object getValue(Object o, String name) throws Exception {
         if (StringUtils.isNotNull(o) && StringUtils.isNotEmpty(name)) {
-            Class<?> clazz = o.getClass();
-            Field field = clazz.getDeclaredField(name);
-            field.setAccessible(true);
-            o = field.get(o);
+            o = ExcelPropertyAccessor.getDeclaredField(o, name);
         }
         return o;
     }
@@ -1375,6 +1694,9 @@ public class ExcelUtil<T> {
         this.sheet = wb.createSheet();
         wb.setSheetName(0, sheetName);
         this.styles = createStyles(wb);
+        this.dataStyleCache.clear();
+        this.headerStyleCache.clear();
+        this.dateFormatCache.clear();
     }
 
     /**
@@ -1403,9 +1725,18 @@ public class ExcelUtil<T> {
         if (row == null) {
             return null;
         }
+        return readCellValue(row.getCell(column));
+    }
+
+    /**
+     * 取得單元格值（數值依格式轉為日期、BigDecimal 或整數字串）
+     *
+     * @param cell 單元格
+     * @return 單元格值，單元格不存在時為空字串
+     */
+    private static Object readCellValue(Cell cell) {
         Object val = "";
         try {
-            Cell cell = row.getCell(column);
             if (StringUtils.isNotNull(cell)) {
                 if (cell.getCellType() == CellType.NUMERIC || cell.getCellType() == CellType.FORMULA) {
                     val = cell.getNumericCellValue();
@@ -136,30 +136,7 @@ public class ReflectUtils {
             // 類型轉換（將參數數據類型轉換為目標方法參數類型）
             Class<?>[] cs = method.getParameterTypes();
             for (int i = 0; i < cs.length; i++) {
-                if (args[i] != null && !args[i].getClass().equals(cs[i])) {
-                    if (cs[i] == String.class) {
-                        args[i] = Convert.toStr(args[i]);
-                        if (StringUtils.endsWith((String) args[i], ".0")) {
-                            args[i] = StringUtils.substringBefore((String) args[i], ".0");
-                        }
-                    } else if (cs[i] == Integer.class) {
-                        args[i] = Convert.toInt(args[i]);
-                    } else if (cs[i] == Long.class) {
-                        args[i] = Convert.toLong(args[i]);
-                    } else if (cs[i] == Double.class) {
-                        args[i] = Convert.toDouble(args[i]);
-                    } else if (cs[i] == Float.class) {
-                        args[i] = Convert.toFloat(args[i]);
-                    } else if (cs[i] == Date.class) {
-                        if (args[i] instanceof String) {
-                            args[i] = DateUtils.parseDate(args[i]);
-                        } else {
-                            args[i] = DateUtil.getJavaDate((Double) args[i]);
-                        }
-                    } else if (cs[i] == boolean.class || cs[i] == Boolean.class) {
-                        args[i] = Convert.toBool(args[i]);
-                    }
-                }
+                args[i] = convertArgument(args[i], cs[i]);
             }
             return (E) method.invoke(obj, args);
         } catch (Exception e) {
@@ -168,6 +145,36 @@ public class ReflectUtils {
         }
     }
 
+    /**
+     * 將參數轉換為目標方法參數類型（與 invokeMethodByName 的轉換規則一致）
+     *
+     * @param arg  參數
+     * @param type 目標參數類型
+     * @return 轉換後的參數
+     */
+    public static Object convertArgument(Object arg, Class<?> type) {
+        if (arg == null || arg.getClass().equals(type)) {
+            return arg;
+        }
+        if (type == String.class) {
+            String str = Convert.toStr(arg);
+            return StringUtils.endsWith(str, ".0") ? StringUtils.substringBefore(str, ".0") : str;
+        } else if (type == Integer.class) {
+            return Convert.toInt(arg);
+        } else if (type == Long.class) {
+            return Convert.toLong(arg);
+        } else if (type == Double.class) {
+            return Convert.toDouble(arg);
+        } else if (type == Float.class) {
+            return Convert.toFloat(arg);
+        } else if (type == Date.class) {
+            return arg instanceof String ? DateUtils.parseDate(arg) : DateUtil.getJavaDate((Double) arg);
+        } else if (type == boolean.class || type == Boolean.class) {
+            return Convert.toBool(arg);
+        }
+        return arg;
+    }
+
     /**
      * 循環向上轉型, 取得物件的DeclaredField, 並強制設定為可訪問.
      * 如向上轉型到Object仍無法找到, 返回null.
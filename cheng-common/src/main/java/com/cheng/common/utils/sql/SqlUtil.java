@@ -21,6 +21,10 @@ public class SqlUtil {
      * 僅支援字母、數字、底線、空格、逗號、小數點（支援多個欄位排序）
      */
     public static String SQL_PATTERN = "[a-zA-Z0-9_ ,.]+";
+    /**
+     * 全文索引 ngram 分詞長度（MySQL ngram_token_size 預設值）
+     */
+    public static final int FULLTEXT_TOKEN_SIZE = 2;
 
     /**
      * 檢查字串，防止注入绕過
@@ -56,4 +60,27 @@ public class SqlUtil {
             }
         }
     }
+
+    /**
+     * 將關鍵字轉為全文索引 BOOLEAN MODE 的片語查詢
+     * <p>
+     * 取關鍵字中最長的連續字母 / 數字片段包成片語：凡是 like '%keyword%' 命中的資料必定也命中此片語，
+     * 因此可用全文索引先縮小範圍，再由 like 複核確保結果不變。
+     * 片段長度不足一個 ngram 分詞時回傳 null，由呼叫端直接以 like 比對。
+     *
+     * @param keyword 關鍵字
+     * @return 片語查詢字串，無法使用全文索引時為 null
+     */
+    public static String toFulltextPhrase(String keyword) {
+        if (StringUtils.isBlank(keyword)) {
+            return null;
+        }
+        String longest = "";
+        for (String segment : keyword.split("[^\\p{L}\\p{N}]+")) {
+            if (segment.length() > longest.length()) {
+                longest = segment;
+            }
+        }
+        return longest.length() < FULLTEXT_TOKEN_SIZE ? null : "\"" + longest + "\"";
+    }
 }
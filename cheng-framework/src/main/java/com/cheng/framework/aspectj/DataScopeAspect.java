@@ -10,13 +10,17 @@ import com.cheng.common.core.text.Convert;
 import com.cheng.common.utils.SecurityUtils;
 import com.cheng.common.utils.StringUtils;
 import com.cheng.framework.security.context.PermissionContextHolder;
+import com.cheng.system.service.impl.SysDataScopeCache;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * 數據過濾處理
@@ -56,6 +60,9 @@ public class DataScopeAspect {
      */
     public static final String DATA_SCOPE = "dataScope";
 
+    @Autowired
+    private SysDataScopeCache dataScopeCache;
+
     @Before("@annotation(controllerDataScope)")
     public void doBefore(JoinPoint point, DataScope controllerDataScope) throws Throwable {
         clearDataScope(point);
@@ -64,20 +71,51 @@ public class DataScopeAspect {
 
     /**
      * 數據範圍過濾
+     * <p>
+     * 同一登入會話的角色在登入時即已固定，SQL 片段依 token、權限字串與別名快取；
+     * 角色或部門異動時由 {@link SysDataScopeCache} 清除。
      *
      * @param joinPoint  切點
+     * @param loginUser  登入使用者
+     * @param deptAlias  部門別名
+     * @param userAlias  使用者別名
+     * @param permission 權限字串
+     */
+    public void dataScopeFilter(JoinPoint joinPoint, LoginUser loginUser, String deptAlias, String userAlias, String permission) {
+        SysUser user = loginUser.getUser();
+        String sqlString;
+        if (StringUtils.isEmpty(loginUser.getToken())) {
+            sqlString = buildDataScopeSql(user, deptAlias, userAlias, permission);
+        } else {
+            String cacheKey = loginUser.getToken() + "|" + permission + "|" + deptAlias + "|" + userAlias;
+            sqlString = dataScopeCache.getFragment(cacheKey, key -> buildDataScopeSql(user, deptAlias, userAlias, permission));
+        }
+
+        if (StringUtils.isNotBlank(sqlString)) {
+            Object params = joinPoint.getArgs()[0];
+            if (StringUtils.isNotNull(params) && params instanceof BaseEntity) {
+                BaseEntity baseEntity = (BaseEntity) params;
+                baseEntity.getParams().put(DATA_SCOPE, sqlString);
+            }
+        }
+    }
+
+    /**
+     * 產生數據範圍 SQL 片段；自定與部門及以下直接展開為部門ID清單，不再使用子查詢
+     *
      * @param user       使用者
      * @param deptAlias  部門別名
      * @param userAlias  使用者別名
      * @param permission 權限字串
+     * @return SQL 片段，無需過濾時為空字串
      */
-    public static void dataScopeFilter(JoinPoint joinPoint, SysUser user, String deptAlias, String userAlias, String permission) {
+    private String buildDataScopeSql(SysUser user, String deptAlias, String userAlias, String permission) {
         StringBuilder sqlString = new StringBuilder();
         List<String> conditions = new ArrayList<String>();
-        List<String> scopeCustomIds = new ArrayList<String>();
+        List<Long> scopeCustomIds = new ArrayList<Long>();
         user.getRoles().forEach(role -> {
             if (DATA_SCOPE_CUSTOM.equals(role.getDataScope()) && StringUtils.equals(role.getStatus(), UserConstants.ROLE_NORMAL) && StringUtils.containsAny(role.getPermissions(), Convert.toStrArray(permission))) {
-                scopeCustomIds.add(Convert.toStr(role.getRoleId()));
+                scopeCustomIds.add(role.getRoleId());
             }
         });
 
@@ -94,16 +132,13 @@ public class DataScopeAspect {
                 conditions.add(dataScope);
                 break;
             } else if (DATA_SCOPE_CUSTOM.equals(dataScope)) {
-                if (scopeCustomIds.size() > 1) {
-                    // 多個自定數據權限使用in查詢，避免多次拼接。
-                    sqlString.append(StringUtils.format(" OR {}.dept_id IN ( SELECT dept_id FROM sys_role_dept WHERE role_id in ({}) ) ", deptAlias, String.join(",", scopeCustomIds)));
-                } else {
-                    sqlString.append(StringUtils.format(" OR {}.dept_id IN ( SELECT dept_id FROM sys_role_dept WHERE role_id = {} ) ", deptAlias, role.getRoleId()));
-                }
+                // 多個自定數據權限合併為一個 in 清單，避免多次拼接。
+                List<Long> roleIds = scopeCustomIds.size() > 1 ? scopeCustomIds : List.of(role.getRoleId());
+                sqlString.append(deptIdIn(deptAlias, dataScopeCache.getRoleDeptIds(roleIds)));
             } else if (DATA_SCOPE_DEPT.equals(dataScope)) {
                 sqlString.append(StringUtils.format(" OR {}.dept_id = {} ", deptAlias, user.getDeptId()));
             } else if (DATA_SCOPE_DEPT_AND_CHILD.equals(dataScope)) {
-                sqlString.append(StringUtils.format(" OR {}.dept_id IN ( SELECT dept_id FROM sys_dept WHERE dept_id = {} or find_in_set( {} , ancestors ) )", deptAlias, user.getDeptId(), user.getDeptId()));
+                sqlString.append(deptIdIn(deptAlias, dataScopeCache.getDeptAndChildIds(user.getDeptId())));
             } else if (DATA_SCOPE_SELF.equals(dataScope)) {
                 if (StringUtils.isNotBlank(userAlias)) {
                     sqlString.append(StringUtils.format(" OR {}.user_id = {} ", userAlias, user.getUserId()));
@@ -120,13 +155,21 @@ public class DataScopeAspect {
             sqlString.append(StringUtils.format(" OR {}.dept_id = 0 ", deptAlias));
         }
 
-        if (StringUtils.isNotBlank(sqlString.toString())) {
-            Object params = joinPoint.getArgs()[0];
-            if (StringUtils.isNotNull(params) && params instanceof BaseEntity) {
-                BaseEntity baseEntity = (BaseEntity) params;
-                baseEntity.getParams().put(DATA_SCOPE, " AND (" + sqlString.substring(4) + ")");
-            }
+        if (StringUtils.isBlank(sqlString.toString())) {
+            return "";
+        }
+        return " AND (" + sqlString.substring(4) + ")";
+    }
+
+    /**
+     * 部門ID清單條件，清單為空時不查詢任何數據
+     */
+    private static String deptIdIn(String deptAlias, long[] deptIds) {
+        if (deptIds.length == 0) {
+            return StringUtils.format(" OR {}.dept_id = 0 ", deptAlias);
         }
+        String ids = Arrays.stream(deptIds).mapToObj(String::valueOf).collect(Collectors.joining(","));
+        return StringUtils.format(" OR {}.dept_id IN ( {} ) ", deptAlias, ids);
     }
 
     protected void handleDataScope(final JoinPoint joinPoint, DataScope controllerDataScope) {
@@ -137,7 +180,7 @@ public class DataScopeAspect {
             // 如果是超級管理員，則不過濾數據
             if (StringUtils.isNotNull(currentUser) && !currentUser.isAdmin()) {
                 String permission = StringUtils.defaultIfEmpty(controllerDataScope.permission(), PermissionContextHolder.getContext());
-                dataScopeFilter(joinPoint, currentUser, controllerDataScope.deptAlias(), controllerDataScope.userAlias(), permission);
+                dataScopeFilter(joinPoint, loginUser, controllerDataScope.deptAlias(), controllerDataScope.userAlias(), permission);
             }
         }
     }
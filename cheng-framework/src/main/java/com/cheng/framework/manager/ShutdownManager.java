@@ -1,11 +1,19 @@
 package com.cheng.framework.manager;
 
+import com.cheng.common.core.buffer.FlushableBuffer;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * 確認服務停止時能關閉後台執行緒
+ * <p>
+ * 會寫入緩衝的執行緒池須以 {@code @DependsOn("shutdownManager")} 宣告，讓執行緒池先於本元件銷毀，
+ * 確保進行中的任務結束後才排空寫入緩衝。
  *
  * @author cheng
  */
@@ -13,11 +21,29 @@ import org.springframework.stereotype.Component;
 @Component
 public class ShutdownManager {
 
+    @Autowired(required = false)
+    private List<FlushableBuffer> flushableBuffers = Collections.emptyList();
+
     @PreDestroy
     public void destroy() {
+        flushBuffers();
         shutdownAsyncManager();
     }
 
+    /**
+     * 排空各模組的寫入緩衝
+     */
+    private void flushBuffers() {
+        for (FlushableBuffer buffer : flushableBuffers) {
+            try {
+                int count = buffer.flush();
+                log.info("====排空寫入緩衝 {}，寫入 {} 筆====", buffer.getName(), count);
+            } catch (Exception e) {
+                log.error("排空寫入緩衝 {} 失敗", buffer.getName(), e);
+            }
+        }
+    }
+
     /**
      * 停止非同步執行任務
      */
@@ -2,10 +2,14 @@ package com.cheng.framework.web.service;
 
 import com.cheng.common.constant.CacheConstants;
 import com.cheng.common.constant.Constants;
+import com.cheng.common.core.cache.CacheInvalidationBus;
+import com.cheng.common.core.cache.NearCache;
+import com.cheng.common.core.domain.entity.SysUser;
 import com.cheng.common.core.domain.model.LoginUser;
 import com.cheng.common.core.redis.RedisCache;
 import com.cheng.common.utils.ServletUtils;
 import com.cheng.common.utils.StringUtils;
+import com.cheng.common.utils.bean.BeanUtils;
 import com.cheng.common.utils.ip.AddressUtils;
 import com.cheng.common.utils.ip.IpUtils;
 import com.cheng.common.utils.uuid.IdUtils;
@@ -13,6 +17,7 @@ import eu.bitwalker.useragentutils.UserAgent;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,7 +25,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -51,9 +58,32 @@ public class TokenService {
 
     private static final Long MILLIS_MINUTE_TWENTY = 20 * 60 * 1000L;
 
+    // 本機快取的登入使用者存活秒數（0 表示停用）
+    @Value("${token.near-cache.ttl-seconds:10}")
+    private int nearCacheTtlSeconds;
+
+    // 本機快取的登入使用者筆數上限
+    @Value("${token.near-cache.max-size:10000}")
+    private int nearCacheMaxSize;
+
     @Autowired
     private RedisCache redisCache;
 
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    /**
+     * 已反序列化的登入使用者（uuid → LoginUser），命中時不需讀取 Redis
+     */
+    private NearCache<LoginUser> loginUserCache;
+
+    @PostConstruct
+    public void init() {
+        loginUserCache = new NearCache<>(nearCacheMaxSize, nearCacheTtlSeconds, TimeUnit.SECONDS);
+        cacheInvalidationBus.register(CacheConstants.LOGIN_TOKEN_KEY, loginUserCache::invalidate);
+        rebuildOnlineIndexIfAbsent();
+    }
+
     /**
      * 取得使用者身份訊息
      *
@@ -67,8 +97,15 @@ public class TokenService {
                 Claims claims = parseToken(token);
                 // 解析對應的權限以及使用者訊息
                 String uuid = (String) claims.get(Constants.LOGIN_USER_KEY);
-                String userKey = getTokenKey(uuid);
-                return redisCache.getCacheObject(userKey);
+                LoginUser loginUser = loginUserCache.get(uuid, key -> redisCache.getCacheObject(getTokenKey(key)));
+                if (loginUser != null && loginUser.getExpireTime() != null
+                        && loginUser.getExpireTime() < System.currentTimeMillis()) {
+                    // Redis 中的令牌已過期，本機快取不得延長其壽命
+                    loginUserCache.invalidate(uuid);
+                    return null;
+                }
+                // 快取中的物件為各請求共用，回傳副本，避免請求中的修改（如重新整理有效期）影響快取
+                return loginUser != null ? copyOf(loginUser) : null;
             } catch (Exception e) {
                 log.error("取得使用者訊息異常'{}'", e.getMessage());
             }
@@ -92,6 +129,8 @@ public class TokenService {
         if (StringUtils.isNotEmpty(token)) {
             String userKey = getTokenKey(token);
             redisCache.deleteObject(userKey);
+            redisCache.deleteCacheZSetValue(CacheConstants.LOGIN_TOKEN_INDEX_KEY, token);
+            cacheInvalidationBus.invalidate(CacheConstants.LOGIN_TOKEN_KEY, token);
         }
     }
 
@@ -106,6 +145,8 @@ public class TokenService {
         loginUser.setToken(token);
         setUserAgent(loginUser);
         refreshToken(loginUser);
+        // 登入時順帶清除線上索引中已到期的 token
+        redisCache.deleteCacheZSetRangeByScore(CacheConstants.LOGIN_TOKEN_INDEX_KEY, 0, System.currentTimeMillis());
 
         Map<String, Object> claims = new HashMap<>();
         claims.put(Constants.LOGIN_USER_KEY, token);
@@ -137,6 +178,105 @@ public class TokenService {
         // 根據uuid將loginUser暫存
         String userKey = getTokenKey(loginUser.getToken());
         redisCache.setCacheObject(userKey, loginUser, expireTime, TimeUnit.MINUTES);
+        redisCache.addCacheZSetValue(CacheConstants.LOGIN_TOKEN_INDEX_KEY, loginUser.getToken(), loginUser.getExpireTime());
+        // 其他節點捨棄舊資料，本節點直接換成最新的物件
+        cacheInvalidationBus.invalidate(CacheConstants.LOGIN_TOKEN_KEY, loginUser.getToken());
+        loginUserCache.put(loginUser.getToken(), copyOf(loginUser));
+    }
+
+    /**
+     * 複製登入使用者（SysUser 一併複製），本機快取只保存不對外流出的副本
+     *
+     * @param source 登入使用者
+     * @return 副本
+     */
+    private static LoginUser copyOf(LoginUser source) {
+        LoginUser copy = new LoginUser();
+        BeanUtils.copyBeanProp(copy, source);
+        if (source.getUser() != null) {
+            SysUser user = new SysUser();
+            BeanUtils.copyBeanProp(user, source.getUser());
+            copy.setUser(user);
+        }
+        return copy;
+    }
+
+    /**
+     * 取得登入使用者本機快取統計
+     *
+     * @return 統計資料
+     */
+    public Map<String, Object> getLoginUserCacheStats() {
+        return loginUserCache.getStats();
+    }
+
+    /**
+     * 取得線上 token 數（先清除索引中已到期的 token）
+     *
+     * @return 線上 token 數
+     */
+    public long getOnlineTokenCount() {
+        redisCache.deleteCacheZSetRangeByScore(CacheConstants.LOGIN_TOKEN_INDEX_KEY, 0, System.currentTimeMillis());
+        return redisCache.getCacheZSetSize(CacheConstants.LOGIN_TOKEN_INDEX_KEY);
+    }
+
+    /**
+     * 依到期時間由晚到早取得線上索引中的一段 token
+     *
+     * @param start 起始位置（從 0 開始）
+     * @param end   結束位置（含），-1 表示到最後
+     * @return token 列表
+     */
+    public List<String> getOnlineTokens(long start, long end) {
+        return redisCache.getCacheZSetReverseRange(CacheConstants.LOGIN_TOKEN_INDEX_KEY, start, end);
+    }
+
+    /**
+     * 以一次 pipeline 批次讀取多個 token 的登入使用者，Redis 中已不存在的 token 會從線上索引移除
+     *
+     * @param tokens token 列表
+     * @return 登入使用者列表（依 token 順序，不含已失效者）
+     */
+    public List<LoginUser> getLoginUsers(List<String> tokens) {
+        List<String> keys = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            keys.add(getTokenKey(token));
+        }
+        List<LoginUser> values = redisCache.getMultiCacheObject(keys);
+        List<LoginUser> loginUsers = new ArrayList<>(values.size());
+        List<String> missing = new ArrayList<>();
+        for (int i = 0; i < values.size(); i++) {
+            if (values.get(i) != null) {
+                loginUsers.add(values.get(i));
+            } else {
+                missing.add(tokens.get(i));
+            }
+        }
+        if (!missing.isEmpty()) {
+            redisCache.deleteCacheZSetValue(CacheConstants.LOGIN_TOKEN_INDEX_KEY, missing.toArray());
+        }
+        return loginUsers;
+    }
+
+    /**
+     * 線上索引不存在時（首次部署或被快取監控清除），以 SCAN 從現有 token 重建
+     */
+    private void rebuildOnlineIndexIfAbsent() {
+        try {
+            if (Boolean.TRUE.equals(redisCache.hasKey(CacheConstants.LOGIN_TOKEN_INDEX_KEY))) {
+                return;
+            }
+            List<String> keys = new ArrayList<>(redisCache.scanKeys(CacheConstants.LOGIN_TOKEN_KEY + "*"));
+            List<LoginUser> values = redisCache.getMultiCacheObject(keys);
+            for (LoginUser loginUser : values) {
+                if (loginUser != null && loginUser.getExpireTime() != null) {
+                    redisCache.addCacheZSetValue(CacheConstants.LOGIN_TOKEN_INDEX_KEY, loginUser.getToken(), loginUser.getExpireTime());
+                }
+            }
+            log.info("重建線上使用者索引，共 {} 筆", keys.size());
+        } catch (Exception e) {
+            log.warn("重建線上使用者索引失敗: {}", e.getMessage());
+        }
     }
 
     /**
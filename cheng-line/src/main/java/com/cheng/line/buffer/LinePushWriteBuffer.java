@@ -0,0 +1,195 @@
+package com.cheng.line.buffer;
+
+import com.cheng.common.core.buffer.BatchWriteBuffer;
+import com.cheng.line.config.LineProperties;
+import com.cheng.line.domain.LinePushDetail;
+import com.cheng.line.domain.LineUser;
+import com.cheng.line.mapper.LinePushDetailMapper;
+import com.cheng.line.mapper.LineUserMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * LINE 推播寫回緩衝
+ * <p>
+ * 標籤推播時每位收件者原本需要 insertDetail、updateStatus、updateLastInteractionTime、incrementMessagesSent
+ * 四次資料庫往返。此緩衝將推播明細與使用者發送計數先收集於記憶體，再以批次方式寫入：
+ * - 推播明細：多列 INSERT，寫入前以單次 IN 查詢補齊顯示名稱
+ * - 發送計數：以 UPDATE ... CASE 一次累加多位使用者的差量
+ * <p>
+ * 觸發時機：累積達 writeBatchSize 筆、每 writeFlushIntervalMillis 毫秒定時、推播任務結束、服務停止（ShutdownManager）。
+ * 明細佇列與計數表皆有容量上限，滿載時由寫入端同步排空，確保記憶體用量有界。
+ * <p>
+ * 批次寫入失敗時依 writeRetryTimes 指數退避重試；仍失敗則保留該批（明細留待下次寫入優先重試、計數差量併回計數表），
+ * 並停止本次排空，資料庫恢復後由下一次寫入補上，不捨棄任何資料。
+ *
+ * @author cheng
+ */
+@Slf4j
+@Component
+public class LinePushWriteBuffer extends BatchWriteBuffer<LinePushDetail> {
+
+    private @Resource LinePushDetailMapper linePushDetailMapper;
+    private @Resource LineUserMapper lineUserMapper;
+    private @Resource LineProperties lineProperties;
+    private @Resource ScheduledExecutorService scheduledExecutorService;
+
+    /**
+     * 待寫入的發送計數差量
+     * Key: LINE 使用者 ID
+     * Value: 累計增加的發送數
+     */
+    private final ConcurrentHashMap<String, Integer> sentDeltas = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        LineProperties.Push push = lineProperties.getPush();
+        start(push.getWriteBufferCapacity(), push.getWriteFlushIntervalMillis(), scheduledExecutorService);
+    }
+
+    /**
+     * 加入一筆推播明細
+     *
+     * @param detail 推播明細（顯示名稱可為空，寫入前批次補齊）
+     */
+    public void addDetail(LinePushDetail detail) {
+        enqueue(detail);
+    }
+
+    /**
+     * 批次加入推播明細
+     *
+     * @param detailList 推播明細列表
+     */
+    public void addDetails(Collection<LinePushDetail> detailList) {
+        for (LinePushDetail detail : detailList) {
+            addDetail(detail);
+        }
+    }
+
+    /**
+     * 累加使用者發送計數
+     *
+     * @param lineUserId LINE 使用者 ID
+     */
+    public void incrementMessagesSent(String lineUserId) {
+        sentDeltas.merge(lineUserId, 1, Integer::sum);
+        if (sentDeltas.size() >= lineProperties.getPush().getWriteBufferCapacity()) {
+            flush();
+        }
+    }
+
+    /**
+     * 批次累加使用者發送計數
+     *
+     * @param lineUserIds LINE 使用者 ID 列表
+     */
+    public void incrementMessagesSent(Collection<String> lineUserIds) {
+        for (String lineUserId : lineUserIds) {
+            incrementMessagesSent(lineUserId);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "LinePushWriteBuffer";
+    }
+
+    @Override
+    protected int getBatchSize() {
+        return lineProperties.getPush().getWriteBatchSize();
+    }
+
+    @Override
+    protected int getRetryTimes() {
+        return lineProperties.getPush().getWriteRetryTimes();
+    }
+
+    @Override
+    protected long getRetryBaseDelayMillis() {
+        return lineProperties.getPush().getWriteRetryBaseDelayMillis();
+    }
+
+    @Override
+    protected void writeBatch(List<LinePushDetail> chunk) {
+        fillDisplayNames(chunk);
+        linePushDetailMapper.upsertBatch(chunk);
+    }
+
+    @Override
+    protected int flushOthers() {
+        return flushCounters();
+    }
+
+    private int flushCounters() {
+        if (sentDeltas.isEmpty()) {
+            return 0;
+        }
+        int batchSize = lineProperties.getPush().getWriteBatchSize();
+        Map<String, Integer> chunk = new HashMap<>(batchSize * 2);
+        int written = 0;
+        for (String lineUserId : sentDeltas.keySet()) {
+            // remove 為原子操作，與 merge 併發時不會遺失差量
+            Integer delta = sentDeltas.remove(lineUserId);
+            if (delta == null) {
+                continue;
+            }
+            chunk.put(lineUserId, delta);
+            if (chunk.size() >= batchSize) {
+                if (!writeCounters(chunk)) {
+                    return written;
+                }
+                written += chunk.size();
+                chunk = new HashMap<>(batchSize * 2);
+            }
+        }
+        if (!chunk.isEmpty() && writeCounters(chunk)) {
+            written += chunk.size();
+        }
+        return written;
+    }
+
+    private boolean writeCounters(Map<String, Integer> chunk) {
+        if (writeWithRetry("使用者發送計數", () -> lineUserMapper.incrementMessagesSentByDelta(chunk))) {
+            return true;
+        }
+        // 差量併回計數表，待下次寫入
+        chunk.forEach((lineUserId, delta) -> sentDeltas.merge(lineUserId, delta, Integer::sum));
+        log.error("使用者發送計數批次寫入失敗，保留 {} 筆待下次寫入", chunk.size());
+        return false;
+    }
+
+    /**
+     * 以單次 IN 查詢補齊缺少的顯示名稱
+     */
+    private void fillDisplayNames(List<LinePushDetail> chunk) {
+        List<String> missing = new ArrayList<>();
+        for (LinePushDetail detail : chunk) {
+            if (detail.getLineDisplayName() == null) {
+                missing.add(detail.getLineUserId());
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        Map<String, String> displayNames = new HashMap<>(missing.size() * 2);
+        for (LineUser lineUser : lineUserMapper.selectDisplayNamesByLineUserIds(missing)) {
+            displayNames.put(lineUser.getLineUserId(), lineUser.getLineDisplayName());
+        }
+        for (LinePushDetail detail : chunk) {
+            if (detail.getLineDisplayName() == null) {
+                detail.setLineDisplayName(displayNames.get(detail.getLineUserId()));
+            }
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.cheng.line.client;
 
 import com.linecorp.bot.messaging.client.MessagingApiClient;
+import com.linecorp.bot.parser.LineSignatureValidator;
+import com.linecorp.bot.parser.WebhookParser;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -16,6 +19,7 @@ import java.util.concurrent.ConcurrentHashMap;
  * - 執行緒安全（使用 ConcurrentHashMap）
  * - 支援多頻道（不同 Access Token）
  * - 提供清除機制（當頻道刪除或 Token 更新時）
+ * - 同時快取 Webhook 簽名驗證器與解析器，避免每次 Webhook 請求重建
  *
  * @author cheng
  */
@@ -30,6 +34,13 @@ public class LineClientFactory {
      */
     private final ConcurrentHashMap<String, MessagingApiClient> clientCache = new ConcurrentHashMap<>();
 
+    /**
+     * Webhook 解析器快取
+     * Key: Channel Secret
+     * Value: WebhookParser 實例（內含 LineSignatureValidator）
+     */
+    private final ConcurrentHashMap<String, WebhookParser> parserCache = new ConcurrentHashMap<>();
+
     /**
      * 取得 MessagingApiClient
      * 如果快取中存在則復用，否則建立新的並加入快取
@@ -65,6 +76,34 @@ public class LineClientFactory {
         }
     }
 
+    /**
+     * 取得 Webhook 解析器（含簽名驗證）
+     * 如果快取中存在則復用，否則建立新的並加入快取
+     *
+     * @param channelSecret Channel Secret
+     * @return WebhookParser 實例
+     */
+    public WebhookParser getWebhookParser(String channelSecret) {
+        if (channelSecret == null || channelSecret.trim().isEmpty()) {
+            throw new IllegalArgumentException("Channel Secret 不能為空");
+        }
+
+        return parserCache.computeIfAbsent(channelSecret, secret ->
+                new WebhookParser(new LineSignatureValidator(secret.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    /**
+     * 移除特定 Channel Secret 的 Webhook 解析器
+     * 當頻道被刪除或 Channel Secret 更新時應呼叫此方法
+     *
+     * @param channelSecret Channel Secret
+     */
+    public void removeWebhookParser(String channelSecret) {
+        if (channelSecret != null) {
+            parserCache.remove(channelSecret);
+        }
+    }
+
     /**
      * 清除所有 Client 快取
      * 謹慎使用，會影響所有頻道
@@ -72,6 +111,7 @@ public class LineClientFactory {
     public void clearAll() {
         int size = clientCache.size();
         clientCache.clear();
+        parserCache.clear();
         log.warn("清除所有 MessagingApiClient 快取，共 {} 個", size);
     }
 
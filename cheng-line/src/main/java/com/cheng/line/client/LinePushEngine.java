@@ -0,0 +1,447 @@
+package com.cheng.line.client;
+
+import com.cheng.line.config.LineProperties;
+import com.cheng.line.domain.LineConfig;
+import com.cheng.line.enums.LineApiLimit;
+import com.cheng.line.enums.PushDetailStatus;
+import com.cheng.line.service.ILineConfigService;
+import com.linecorp.bot.messaging.client.MessagingApiClient;
+import com.linecorp.bot.messaging.model.Message;
+import com.linecorp.bot.messaging.model.MulticastRequest;
+import com.linecorp.bot.messaging.model.PushMessageRequest;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * LINE 逐人推播引擎
+ * <p>
+ * 取代原本「逐人同步 pushMessage(...).get() + Thread.sleep 重試」的序列迴圈：
+ * - 每個頻道以 Semaphore 限制同時進行中（in-flight）的請求數
+ * - 每個頻道以 {@link LineRateLimiter} 控制每秒請求數，超量時改為排程延後送出
+ * - 失敗重試以排程器延後重送，不佔用工作執行緒；同一收件者重試沿用相同 X-Line-Retry-Key，避免重複送達
+ * - 每個頻道累計吞吐量與延遲統計，供推播進度查詢
+ * - 非個人化訊息可改用 {@link #multicastInBatches} 以 Multicast 每批最多 500 人送出
+ * <p>
+ * 呼叫端執行緒僅負責派發並等待全部結果，逐人（或逐批）結果以回呼通知呼叫端。
+ *
+ * @author cheng
+ */
+@Slf4j
+@Component
+public class LinePushEngine {
+
+    private @Resource ILineConfigService lineConfigService;
+    private @Resource LineProperties lineProperties;
+    private @Resource ScheduledExecutorService scheduledExecutorService;
+
+    @Resource(name = "threadPoolTaskExecutor")
+    private Executor callbackExecutor;
+
+    /**
+     * 頻道狀態快取
+     * Key: configId
+     * Value: 頻道限流器、併發許可與統計
+     */
+    private final ConcurrentHashMap<Integer, ChannelContext> channels = new ConcurrentHashMap<>();
+
+    /**
+     * 逐人推播
+     * 阻塞至所有收件者皆有最終結果（成功、封鎖或重試用盡）為止
+     *
+     * @param config     頻道設定
+     * @param userIds    收件者 LINE 使用者 ID
+     * @param messageFor 依收件者產生訊息（個人化變數於此替換）
+     * @param listener   逐人結果回呼（於回呼執行緒池中呼叫，需執行緒安全）
+     * @return 是否全部完成；派發執行緒被中斷時回傳 false
+     */
+    public boolean pushToEach(LineConfig config, Collection<String> userIds, Function<String, Message> messageFor,
+                              Consumer<PushOutcome> listener) {
+        if (userIds.isEmpty()) {
+            return true;
+        }
+        ChannelContext channel = getChannel(config.getConfigId());
+        MessagingApiClient client = lineConfigService.getMessagingClient(config.getConfigId());
+        CountDownLatch done = new CountDownLatch(userIds.size());
+
+        try {
+            for (String userId : userIds) {
+                channel.permits.acquire();
+                new PushAttempt(channel, client, List.of(userId), messageFor.apply(userId), false, done,
+                        (status, retryCount, errorMessage) ->
+                                listener.accept(new PushOutcome(userId, status, retryCount, errorMessage))
+                ).dispatch();
+            }
+            done.await();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("逐人推播派發被中斷：configId={}, 尚未完成 {} 人", config.getConfigId(), done.getCount());
+            return false;
+        }
+    }
+
+    /**
+     * Multicast 分批推播
+     * 依 {@link LineApiLimit#MULTICAST_MAX_RECIPIENTS} 切批，阻塞至所有批次皆有最終結果為止
+     * <p>
+     * Multicast 不回報個別收件者結果（封鎖者由 LINE 平台略過），因此批次成功即視為該批全部成功。
+     *
+     * @param config   頻道設定
+     * @param userIds  收件者 LINE 使用者 ID
+     * @param message  訊息（所有收件者內容相同）
+     * @param listener 逐批結果回呼（於回呼執行緒池中呼叫，需執行緒安全）
+     * @return 是否全部完成；派發執行緒被中斷時回傳 false
+     */
+    public boolean multicastInBatches(LineConfig config, Collection<String> userIds, Message message,
+                                      Consumer<BatchOutcome> listener) {
+        if (userIds.isEmpty()) {
+            return true;
+        }
+        ChannelContext channel = getChannel(config.getConfigId());
+        MessagingApiClient client = lineConfigService.getMessagingClient(config.getConfigId());
+        List<List<String>> batches = partition(userIds, LineApiLimit.MULTICAST_MAX_RECIPIENTS.getValue());
+        CountDownLatch done = new CountDownLatch(batches.size());
+
+        try {
+            for (List<String> batch : batches) {
+                channel.permits.acquire();
+                new PushAttempt(channel, client, batch, message, true, done,
+                        (status, retryCount, errorMessage) ->
+                                listener.accept(new BatchOutcome(batch, status, retryCount, errorMessage))
+                ).dispatch();
+            }
+            done.await();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Multicast 派發被中斷：configId={}, 尚未完成 {} 批", config.getConfigId(), done.getCount());
+            return false;
+        }
+    }
+
+    /**
+     * 取得頻道推播統計
+     *
+     * @param configId 頻道設定 ID
+     * @return 統計快照，頻道尚未推播過時回傳 null
+     */
+    public ChannelStats getChannelStats(Integer configId) {
+        ChannelContext channel = channels.get(configId);
+        return channel != null ? channel.snapshot() : null;
+    }
+
+    private ChannelContext getChannel(Integer configId) {
+        return channels.computeIfAbsent(configId, id -> {
+            LineProperties.Push push = lineProperties.getPush();
+            log.info("建立頻道推播狀態：configId={}, concurrency={}, requestsPerSecond={}",
+                    id, push.getConcurrency(), push.getRequestsPerSecond());
+            return new ChannelContext(push.getConcurrency(), push.getRequestsPerSecond(),
+                    LineApiLimit.MULTICAST_REQUESTS_PER_SECOND.getValue());
+        });
+    }
+
+    /**
+     * 將收件者依批次大小切分
+     */
+    private static List<List<String>> partition(Collection<String> userIds, int batchSize) {
+        List<List<String>> batches = new ArrayList<>((userIds.size() + batchSize - 1) / batchSize);
+        List<String> current = new ArrayList<>(Math.min(batchSize, userIds.size()));
+        for (String userId : userIds) {
+            current.add(userId);
+            if (current.size() == batchSize) {
+                batches.add(current);
+                current = new ArrayList<>(batchSize);
+            }
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+        return batches;
+    }
+
+    /**
+     * 判斷是否為使用者封鎖錯誤
+     */
+    private static boolean isBlockedError(String message) {
+        String msg = message.toLowerCase();
+        return msg.contains("block") || msg.contains("can't send messages")
+                || msg.contains("cannot send messages");
+    }
+
+    /**
+     * 判斷是否為 Retry Key 已被接受（先前請求實際上已送達）
+     */
+    private static boolean isAlreadyAccepted(String message) {
+        return message.toLowerCase().contains("already accepted");
+    }
+
+    /**
+     * 提取錯誤訊息
+     */
+    private static String extractErrorMessage(Throwable e) {
+        Throwable cause = e;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        if (cause.getMessage() != null) {
+            return cause.getMessage();
+        }
+        return e.getMessage() != null ? e.getMessage() : "未知錯誤";
+    }
+
+    /**
+     * 推播嘗試完成回呼
+     */
+    @FunctionalInterface
+    private interface Completion {
+        void complete(PushDetailStatus status, int retryCount, String errorMessage);
+    }
+
+    /**
+     * 單次 API 請求的推播嘗試（含重試）
+     * Push 時 recipients 僅有一人；Multicast 時為一個批次
+     */
+    private final class PushAttempt {
+
+        private final ChannelContext channel;
+        private final MessagingApiClient client;
+        private final List<String> recipients;
+        private final Message message;
+        private final boolean multicast;
+        private final CountDownLatch done;
+        private final Completion completion;
+        private final UUID retryKey = UUID.randomUUID();
+        private int attempt;
+        private long sendNanos;
+
+        private PushAttempt(ChannelContext channel, MessagingApiClient client, List<String> recipients,
+                            Message message, boolean multicast, CountDownLatch done, Completion completion) {
+            this.channel = channel;
+            this.client = client;
+            this.recipients = recipients;
+            this.message = message;
+            this.multicast = multicast;
+            this.done = done;
+            this.completion = completion;
+        }
+
+        /**
+         * 依限流器預約結果立即送出或排程延後送出
+         */
+        private void dispatch() {
+            LineRateLimiter limiter = multicast ? channel.multicastRateLimiter : channel.rateLimiter;
+            long delayMillis = limiter.reserve();
+            if (delayMillis > 0) {
+                scheduledExecutorService.schedule(this::send, delayMillis, TimeUnit.MILLISECONDS);
+            } else {
+                send();
+            }
+        }
+
+        private void send() {
+            sendNanos = System.nanoTime();
+            channel.inFlight.incrementAndGet();
+            CompletableFuture<?> future;
+            try {
+                if (multicast) {
+                    MulticastRequest request = new MulticastRequest(
+                            Collections.singletonList(message),
+                            recipients,
+                            false,
+                            null
+                    );
+                    future = client.multicast(retryKey, request);
+                } else {
+                    PushMessageRequest request = new PushMessageRequest(
+                            recipients.getFirst(),
+                            Collections.singletonList(message),
+                            false,
+                            null
+                    );
+                    future = client.pushMessage(retryKey, request);
+                }
+            } catch (Exception e) {
+                onComplete(e);
+                return;
+            }
+            future.whenCompleteAsync((result, error) -> onComplete(error), callbackExecutor);
+        }
+
+        private void onComplete(Throwable error) {
+            channel.inFlight.decrementAndGet();
+            channel.record(System.nanoTime() - sendNanos, error == null);
+
+            if (error == null) {
+                finish(PushDetailStatus.SUCCESS, null);
+                return;
+            }
+
+            String errorMessage = extractErrorMessage(error);
+            if (isAlreadyAccepted(errorMessage)) {
+                finish(PushDetailStatus.SUCCESS, null);
+                return;
+            }
+            if (!multicast && isBlockedError(errorMessage)) {
+                log.info("使用者已封鎖：userId={}", recipients.getFirst());
+                finish(PushDetailStatus.BLOCKED, errorMessage);
+                return;
+            }
+
+            LineProperties.Push push = lineProperties.getPush();
+            if (attempt < push.getMaxRetry()) {
+                long backoffMillis = push.getRetryBaseDelayMillis() << attempt;
+                attempt++;
+                channel.retries.increment();
+                scheduledExecutorService.schedule(this::dispatch, backoffMillis, TimeUnit.MILLISECONDS);
+                return;
+            }
+
+            log.warn("推播失敗（已重試 {} 次）：recipients={}, first={}, error={}",
+                    attempt, recipients.size(), recipients.getFirst(), errorMessage);
+            finish(PushDetailStatus.FAILED, errorMessage);
+        }
+
+        private void finish(PushDetailStatus status, String errorMessage) {
+            try {
+                completion.complete(status, attempt, errorMessage);
+            } catch (Exception e) {
+                log.error("推播結果回呼失敗：recipients={}, first={}", recipients.size(), recipients.getFirst(), e);
+            } finally {
+                channel.permits.release();
+                done.countDown();
+            }
+        }
+    }
+
+    /**
+     * 頻道推播狀態
+     */
+    private static final class ChannelContext {
+
+        /**
+         * 吞吐量統計視窗（奈秒）
+         */
+        private static final long THROUGHPUT_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+        /**
+         * 延遲 EWMA 平滑係數
+         */
+        private static final double LATENCY_ALPHA = 0.2;
+
+        private final Semaphore permits;
+        private final int concurrency;
+        private final LineRateLimiter rateLimiter;
+        private final LineRateLimiter multicastRateLimiter;
+        private final AtomicInteger inFlight = new AtomicInteger(0);
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+
+        private long windowStartNanos = System.nanoTime();
+        private long windowCount;
+        private double throughputPerSecond;
+        private double avgLatencyMillis;
+        private long maxLatencyMillis;
+
+        private ChannelContext(int concurrency, int requestsPerSecond, int multicastRequestsPerSecond) {
+            this.concurrency = Math.max(1, concurrency);
+            this.permits = new Semaphore(this.concurrency);
+            this.rateLimiter = new LineRateLimiter(requestsPerSecond);
+            this.multicastRateLimiter = new LineRateLimiter(multicastRequestsPerSecond);
+        }
+
+        private synchronized void record(long latencyNanos, boolean success) {
+            completed.increment();
+            if (!success) {
+                failures.increment();
+            }
+
+            long latencyMillis = TimeUnit.NANOSECONDS.toMillis(latencyNanos);
+            avgLatencyMillis = avgLatencyMillis == 0
+                    ? latencyMillis
+                    : LATENCY_ALPHA * latencyMillis + (1 - LATENCY_ALPHA) * avgLatencyMillis;
+            maxLatencyMillis = Math.max(maxLatencyMillis, latencyMillis);
+
+            windowCount++;
+            long now = System.nanoTime();
+            long elapsed = now - windowStartNanos;
+            if (elapsed >= THROUGHPUT_WINDOW_NANOS) {
+                throughputPerSecond = (double) windowCount * TimeUnit.SECONDS.toNanos(1) / elapsed;
+                windowStartNanos = now;
+                windowCount = 0;
+            }
+        }
+
+        private synchronized ChannelStats snapshot() {
+            return new ChannelStats(
+                    concurrency,
+                    rateLimiter.getPermitsPerSecond(),
+                    inFlight.get(),
+                    completed.sum(),
+                    failures.sum(),
+                    retries.sum(),
+                    Math.round(throughputPerSecond * 10) / 10.0,
+                    Math.round(avgLatencyMillis),
+                    maxLatencyMillis
+            );
+        }
+    }
+
+    /**
+     * 單一收件者推播結果
+     *
+     * @param userId       LINE 使用者 ID
+     * @param status       最終狀態（SUCCESS/BLOCKED/FAILED）
+     * @param retryCount   重試次數
+     * @param errorMessage 錯誤訊息（成功時為 null）
+     */
+    public record PushOutcome(String userId, PushDetailStatus status, int retryCount, String errorMessage) {
+    }
+
+    /**
+     * Multicast 批次推播結果
+     *
+     * @param userIds      批次內收件者 LINE 使用者 ID
+     * @param status       最終狀態（SUCCESS/FAILED）
+     * @param retryCount   重試次數
+     * @param errorMessage 錯誤訊息（成功時為 null）
+     */
+    public record BatchOutcome(List<String> userIds, PushDetailStatus status, int retryCount, String errorMessage) {
+    }
+
+    /**
+     * 頻道推播統計快照
+     *
+     * @param concurrency         同時進行中請求上限
+     * @param requestsPerSecond   每秒請求上限
+     * @param inFlight            目前進行中的請求數
+     * @param completed           累計完成的 API 請求數（含重試）
+     * @param failures            累計失敗的 API 請求數
+     * @param retries             累計排程重試次數
+     * @param throughputPerSecond 最近一個統計視窗的每秒請求數
+     * @param avgLatencyMillis    API 延遲（EWMA，毫秒）
+     * @param maxLatencyMillis    最大 API 延遲（毫秒）
+     */
+    public record ChannelStats(int concurrency, int requestsPerSecond, int inFlight, long completed, long failures,
+                               long retries, double throughputPerSecond, long avgLatencyMillis,
+                               long maxLatencyMillis) {
+    }
+}
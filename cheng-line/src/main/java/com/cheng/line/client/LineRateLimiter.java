@@ -0,0 +1,86 @@
+package com.cheng.line.client;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LINE API Token Bucket 限流器
+ * <p>
+ * 以預約（reservation）方式運作：呼叫 {@link #reserve()} 會立即扣除一個 token，
+ * 並回傳呼叫端需延後多久才能真正送出請求。呼叫端應以排程器延後執行，
+ * 而不是在工作執行緒上 sleep。
+ * <p>
+ * 特性：
+ * - 桶容量等於每秒速率，允許短暫突發
+ * - token 不足時允許預支，等待時間依欠額計算
+ * - 執行緒安全（synchronized，臨界區僅為數個算術運算）
+ *
+ * @author cheng
+ */
+public class LineRateLimiter {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * 每秒補充的 token 數
+     */
+    private final int permitsPerSecond;
+
+    /**
+     * 桶容量
+     */
+    private final double capacity;
+
+    /**
+     * 目前可用 token 數（負值代表已被預支）
+     */
+    private double storedPermits;
+
+    /**
+     * 上次補充 token 的時間（nanoTime）
+     */
+    private long lastRefillNanos;
+
+    public LineRateLimiter(int permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond 必須大於 0");
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.capacity = permitsPerSecond;
+        this.storedPermits = permitsPerSecond;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * 預約一個 token
+     *
+     * @return 需延後的毫秒數，0 表示可立即送出
+     */
+    public synchronized long reserve() {
+        long now = System.nanoTime();
+        refill(now);
+        storedPermits -= 1;
+        if (storedPermits >= 0) {
+            return 0L;
+        }
+        double waitNanos = -storedPermits * NANOS_PER_SECOND / permitsPerSecond;
+        return (long) Math.ceil(waitNanos / 1_000_000d);
+    }
+
+    /**
+     * 取得每秒速率
+     *
+     * @return 每秒 token 數
+     */
+    public int getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    private void refill(long now) {
+        long elapsed = now - lastRefillNanos;
+        if (elapsed <= 0) {
+            return;
+        }
+        storedPermits = Math.min(capacity, storedPermits + (double) elapsed * permitsPerSecond / NANOS_PER_SECOND);
+        lastRefillNanos = now;
+    }
+}
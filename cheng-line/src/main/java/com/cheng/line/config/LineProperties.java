@@ -1,5 +1,6 @@
 package com.cheng.line.config;
 
+import com.cheng.line.enums.LineApiLimit;
 import lombok.Data;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -26,6 +27,16 @@ public class LineProperties {
      */
     private Webhook webhook = new Webhook();
 
+    /**
+     * 標籤推播引擎設定
+     */
+    private Push push = new Push();
+
+    /**
+     * 頻道設定快取設定
+     */
+    private ConfigCache configCache = new ConfigCache();
+
     /**
      * Webhook 設定
      */
@@ -37,6 +48,124 @@ public class LineProperties {
          * 範例：<a href="https://api.ap-domain.com">api.ap-domain.com</a>
          */
         private String baseUrl = "http://localhost:8080";
+
+        /**
+         * 事件處理執行緒數（依使用者分流，同一使用者的事件固定由同一執行緒依序處理）
+         */
+        private int workerThreads = 8;
+
+        /**
+         * 每個處理執行緒的事件佇列長度
+         */
+        private int queueCapacity = 500;
+
+        /**
+         * 佇列滿時等待空位的時間（毫秒），逾時即拒收並回應 503 讓 LINE 重送
+         */
+        private long enqueueTimeoutMillis = 200L;
+
+        /**
+         * webhookEventId 去重保留時間（分鐘），涵蓋 LINE 重送的時間範圍
+         */
+        private long dedupTtlMinutes = 1440;
+
+        /**
+         * 事件處理中佔用的保留時間（秒），處理完成或失敗即釋放；節點異常終止時逾時後可由 LINE 重送處理
+         */
+        private long claimTtlSeconds = 300;
+
+        /**
+         * 停止服務時等待佇列中事件處理完畢的時間（秒）
+         */
+        private long shutdownAwaitSeconds = 20;
+    }
+
+    /**
+     * 標籤推播引擎設定
+     */
+    @Data
+    public static class Push {
+        /**
+         * 同時執行中的標籤推播任務數（推播任務執行緒池大小）
+         */
+        private int maxConcurrentTasks = 3;
+
+        /**
+         * 等待執行的標籤推播任務佇列長度，超過時拒絕新任務
+         */
+        private int taskQueueCapacity = 10;
+
+        /**
+         * 推播進度同步至訊息記錄（line_message_log）的間隔（毫秒），同時作為任務心跳
+         */
+        private long progressSyncIntervalMillis = 5000;
+
+        /**
+         * 是否自動續傳中斷（心跳逾時）的標籤推播任務
+         */
+        private boolean resumeEnabled = true;
+
+        /**
+         * 每個頻道同時進行中（in-flight）的推播請求數
+         */
+        private int concurrency = 32;
+
+        /**
+         * 每個頻道每秒最多送出的推播請求數（Token Bucket 補充速率）
+         * 預設為 LINE Push API 上限的一半，保留額度給單人推播與回覆
+         */
+        private int requestsPerSecond = LineApiLimit.PUSH_REQUESTS_PER_SECOND.getValue() / 2;
+
+        /**
+         * 單一收件者失敗時的最大重試次數（封鎖錯誤不重試）
+         */
+        private int maxRetry = 3;
+
+        /**
+         * 重試基準延遲（毫秒），第 n 次重試延遲為 base * 2^(n-1)
+         */
+        private long retryBaseDelayMillis = 1000L;
+
+        /**
+         * 推播明細與訊息計數寫回緩衝：達到此筆數即批次寫入
+         */
+        private int writeBatchSize = 500;
+
+        /**
+         * 推播明細與訊息計數寫回緩衝：定時寫入間隔（毫秒）
+         */
+        private long writeFlushIntervalMillis = 1000L;
+
+        /**
+         * 推播明細寫回緩衝容量上限，滿載時由寫入端同步排空
+         */
+        private int writeBufferCapacity = 20000;
+
+        /**
+         * 推播明細與訊息計數寫回緩衝：批次寫入失敗時的重試次數，仍失敗則保留至下次寫入
+         */
+        private int writeRetryTimes = 3;
+
+        /**
+         * 推播明細與訊息計數寫回緩衝：重試基準延遲（毫秒），第 n 次重試延遲為 base * 2^(n-1)
+         */
+        private long writeRetryBaseDelayMillis = 200L;
+    }
+
+    /**
+     * 頻道設定快取設定
+     */
+    @Data
+    public static class ConfigCache {
+        /**
+         * 是否啟用頻道設定本地快取
+         */
+        private boolean enabled = true;
+
+        /**
+         * 快取存活時間（秒），本機異動會立即失效，此值為其他節點異動時的最長延遲；0 表示不過期
+         */
+        private long ttlSeconds = 300;
     }
 
     /**
@@ -0,0 +1,41 @@
+package com.cheng.line.config;
+
+import com.cheng.framework.config.TraceTaskDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * LINE 標籤推播任務執行緒池設定
+ * <p>
+ * 與共用的 threadPoolTaskExecutor 隔離：
+ * - 以虛擬執行緒執行，推播任務大部分時間在等待 API 回應，不佔用平台執行緒
+ * - 執行緒數即同時進行的推播任務上限，佇列滿時直接拒絕（AbortPolicy），不回落到呼叫端執行
+ * - 停止服務時中斷進行中的推播任務：任務保留 SENDING 狀態與推播明細，重啟後由續傳機制接手未送出的收件者
+ * - 依賴 ShutdownManager：Spring 依相反順序銷毀，執行緒池先中斷並等待推播任務收尾，ShutdownManager 才排空寫回緩衝
+ *
+ * @author cheng
+ */
+@Configuration
+public class LinePushExecutorConfig {
+
+    @Bean(name = "linePushTaskExecutor")
+    @DependsOn("shutdownManager")
+    public ThreadPoolTaskExecutor linePushTaskExecutor(LineProperties lineProperties) {
+        LineProperties.Push push = lineProperties.getPush();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(push.getMaxConcurrentTasks());
+        executor.setMaxPoolSize(push.getMaxConcurrentTasks());
+        executor.setQueueCapacity(push.getTaskQueueCapacity());
+        executor.setThreadFactory(Thread.ofVirtual().name("line-push-", 1).factory());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setTaskDecorator(new TraceTaskDecorator());
+        // 停止服務時中斷推播任務（shutdownNow），等待其同步已完成的計數後，寫回緩衝才由 ShutdownManager 排空
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
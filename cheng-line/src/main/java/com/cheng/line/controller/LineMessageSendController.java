@@ -190,6 +190,18 @@ public class LineMessageSendController extends BaseController {
         return AjaxResult.success(progress);
     }
 
+    /**
+     * 查詢標籤推播任務佇列狀態
+     */
+    @PreAuthorize("@ss.hasPermi('" + PermConstants.Line.Message.SEND + "')")
+    @GetMapping("/task/stats")
+    public AjaxResult getTaskStats() {
+        AjaxResult ajax = AjaxResult.success();
+        ajax.put("activeCount", lineMessageSendService.getActiveTaskCount());
+        ajax.put("queuedCount", lineMessageSendService.getQueuedTaskCount());
+        return ajax;
+    }
+
     /**
      * 標籤推播預覽（預計發送人數）
      */
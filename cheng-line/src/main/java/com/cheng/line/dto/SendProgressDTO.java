@@ -20,7 +20,7 @@ public class SendProgressDTO {
     private String taskId;
 
     /**
-     * 任務狀態：PENDING/SENDING/DONE/ERROR
+     * 任務狀態：QUEUED/SENDING/DONE/ERROR/INTERRUPTED
      */
     private String status;
 
@@ -59,4 +59,49 @@ public class SendProgressDTO {
      * 對應的訊息記錄 ID
      */
     private Long messageId;
+
+    /**
+     * 發送頻道設定 ID
+     */
+    private Integer configId;
+
+    /**
+     * 本任務平均每秒完成人數
+     */
+    private double throughputPerSecond;
+
+    /**
+     * 頻道目前進行中（in-flight）的推播請求數
+     */
+    private int inFlight;
+
+    /**
+     * 頻道同時進行中請求上限
+     */
+    private int concurrency;
+
+    /**
+     * 頻道每秒請求上限
+     */
+    private int rateLimitPerSecond;
+
+    /**
+     * 頻道最近一秒的 API 請求吞吐量
+     */
+    private double channelThroughputPerSecond;
+
+    /**
+     * 頻道 API 平均延遲（毫秒）
+     */
+    private long avgLatencyMillis;
+
+    /**
+     * 頻道 API 最大延遲（毫秒）
+     */
+    private long maxLatencyMillis;
+
+    /**
+     * 頻道累計排程重試次數
+     */
+    private long retryCount;
 }
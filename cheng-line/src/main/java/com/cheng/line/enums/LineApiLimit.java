@@ -50,6 +50,16 @@ public enum LineApiLimit {
      */
     MULTICAST_MAX_RECIPIENTS(500, "Multicast 最大接收者數量"),
 
+    /**
+     * Push API 每秒請求上限（每頻道）
+     */
+    PUSH_REQUESTS_PER_SECOND(2000, "Push API 每秒請求上限"),
+
+    /**
+     * Multicast API 每秒請求上限（每頻道）
+     */
+    MULTICAST_REQUESTS_PER_SECOND(200, "Multicast API 每秒請求上限"),
+
     /**
      * Narrowcast 最大接收者數量
      */
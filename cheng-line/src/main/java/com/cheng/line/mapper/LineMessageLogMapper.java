@@ -1,6 +1,7 @@
 package com.cheng.line.mapper;
 
 import com.cheng.line.domain.LineMessageLog;
+import org.apache.ibatis.annotations.Param;
 
 import java.util.List;
 
@@ -90,4 +91,25 @@ public interface LineMessageLogMapper {
      * @return 失敗數量
      */
     int countFailedMessagesByConfigId(Integer configId);
+
+    /**
+     * 查詢尚未完成的標籤推播訊息記錄（send_status = SENDING）
+     *
+     * @return 訊息記錄集合
+     */
+    List<LineMessageLog> selectUnfinishedTagMessageLogs();
+
+    /**
+     * 認領心跳逾時的推播任務（以 line_request_id 比對並置換），確保多節點下僅一個節點續傳
+     *
+     * @param messageId         訊息ID
+     * @param expectedRequestId 目前的任務 ID（可為 null）
+     * @param newRequestId      新的任務 ID
+     * @param staleSeconds      心跳逾時秒數
+     * @return 認領成功回傳 1
+     */
+    int claimMessageLog(@Param("messageId") Long messageId,
+                        @Param("expectedRequestId") String expectedRequestId,
+                        @Param("newRequestId") String newRequestId,
+                        @Param("staleSeconds") long staleSeconds);
 }
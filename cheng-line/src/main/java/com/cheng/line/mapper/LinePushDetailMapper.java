@@ -4,6 +4,7 @@ import com.cheng.line.domain.LinePushDetail;
 import org.apache.ibatis.annotations.Param;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * LINE 逐人推播明細 Mapper 介面
@@ -21,12 +22,21 @@ public interface LinePushDetailMapper {
     int insertDetail(LinePushDetail detail);
 
     /**
-     * 批次新增推播明細
+     * 批次寫入推播明細（同一訊息同一使用者已存在時覆寫狀態）
      *
      * @param details 推播明細列表
      * @return 結果
      */
-    int insertBatch(@Param("details") List<LinePushDetail> details);
+    int upsertBatch(@Param("details") List<LinePushDetail> details);
+
+    /**
+     * 批次新增待發送明細（已存在者略過），作為推播任務的續傳名單
+     *
+     * @param messageId   訊息日誌 ID
+     * @param lineUserIds LINE 使用者 ID 列表
+     * @return 結果
+     */
+    int insertPendingBatch(@Param("messageId") Long messageId, @Param("lineUserIds") List<String> lineUserIds);
 
     /**
      * 根據訊息日誌 ID 查詢明細列表
@@ -45,6 +55,24 @@ public interface LinePushDetailMapper {
      */
     int countByMessageIdAndStatus(@Param("messageId") Long messageId, @Param("status") String status);
 
+    /**
+     * 依狀態分組統計指定訊息日誌 ID 的明細數量
+     *
+     * @param messageId 訊息日誌 ID
+     * @return 統計結果（status, cnt）
+     */
+    List<Map<String, Object>> countGroupByStatus(Long messageId);
+
+    /**
+     * 查詢指定訊息日誌 ID 中符合狀態的 LINE 使用者 ID
+     *
+     * @param messageId 訊息日誌 ID
+     * @param statuses  狀態代碼列表
+     * @return LINE 使用者 ID 列表
+     */
+    List<String> selectUserIdsByMessageIdAndStatuses(@Param("messageId") Long messageId,
+                                                     @Param("statuses") List<String> statuses);
+
     /**
      * 更新推播明細狀態
      *
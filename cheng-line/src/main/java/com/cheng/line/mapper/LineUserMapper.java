@@ -203,4 +203,20 @@ public interface LineUserMapper {
      * @return 存在的 LINE 使用者 ID 列表
      */
     List<String> selectExistingLineUserIds(@Param("lineUserIds") List<String> lineUserIds);
+
+    /**
+     * 批次查詢使用者顯示名稱
+     *
+     * @param lineUserIds LINE 使用者 ID 列表
+     * @return 僅含 lineUserId 與 lineDisplayName 的使用者列表
+     */
+    List<LineUser> selectDisplayNamesByLineUserIds(@Param("lineUserIds") List<String> lineUserIds);
+
+    /**
+     * 批次累加發送訊息數（UPDATE ... CASE）
+     *
+     * @param deltas Key: LINE 使用者 ID，Value: 累加數量
+     * @return 結果
+     */
+    int incrementMessagesSentByDelta(@Param("deltas") Map<String, Integer> deltas);
 }
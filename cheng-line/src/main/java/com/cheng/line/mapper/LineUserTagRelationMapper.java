@@ -3,7 +3,9 @@ package com.cheng.line.mapper;
 import com.cheng.line.domain.LineUserTagRelation;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * LINE 使用者標籤關聯 Mapper 介面
@@ -110,6 +112,14 @@ public interface LineUserTagRelationMapper {
      */
     int countUsersByTagId(Long tagId);
 
+    /**
+     * 批次統計多個標籤的使用者數量
+     *
+     * @param tagIds 標籤ID列表
+     * @return 每列包含 tag_id、cnt（無關聯的標籤不會出現）
+     */
+    List<Map<String, Object>> countUsersByTagIds(@Param("tagIds") Collection<Long> tagIds);
+
     /**
      * 批次刪除關聯
      *
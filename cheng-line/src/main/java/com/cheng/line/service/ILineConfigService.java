@@ -3,6 +3,8 @@ package com.cheng.line.service;
 import com.cheng.line.domain.LineConfig;
 import com.cheng.line.enums.ChannelType;
 import com.cheng.line.vo.ConnectionTestVO;
+import com.linecorp.bot.messaging.client.MessagingApiClient;
+import com.linecorp.bot.parser.WebhookParser;
 
 import java.util.List;
 
@@ -47,6 +49,29 @@ public interface ILineConfigService {
      */
     LineConfig selectDefaultLineConfig();
 
+    /**
+     * 取得頻道的 Webhook 解析器（含簽名驗證器）
+     *
+     * @param botBasicId Bot Basic ID（例如：@322okyxf）
+     * @return WebhookParser，頻道不存在時為 null
+     */
+    WebhookParser getWebhookParser(String botBasicId);
+
+    /**
+     * 取得頻道的 MessagingApiClient，與頻道設定一同快取
+     *
+     * @param configId 設定ID
+     * @return MessagingApiClient
+     */
+    MessagingApiClient getMessagingClient(Integer configId);
+
+    /**
+     * 取得頻道設定快取統計（命中、未命中、移除次數）
+     *
+     * @return 統計資料
+     */
+    Map<String, Object> getConfigCacheStats();
+
     /**
      * 查詢 LINE 頻道設定列表
      *
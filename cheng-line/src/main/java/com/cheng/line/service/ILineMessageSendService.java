@@ -106,4 +106,11 @@ public interface ILineMessageSendService {
      * @return 進行中任務數
      */
     int getActiveTaskCount();
+
+    /**
+     * 取得等待執行的標籤推播任務數量（推播任務執行緒池佇列深度）
+     *
+     * @return 佇列中任務數
+     */
+    int getQueuedTaskCount();
 }
@@ -109,6 +109,14 @@ public interface ILineUserTagRelationService {
      */
     int countUsersByTagId(Long tagId);
 
+    /**
+     * 批次統計多個標籤的使用者數量
+     *
+     * @param tagIds 標籤ID列表
+     * @return 標籤ID → 使用者數量（無關聯的標籤為 0）
+     */
+    Map<Long, Integer> countUsersByTagIds(List<Long> tagIds);
+
     /**
      * 批次刪除關聯
      *
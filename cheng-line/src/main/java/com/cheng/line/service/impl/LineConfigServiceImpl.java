@@ -17,15 +17,24 @@ import com.linecorp.bot.messaging.client.MessagingApiClient;
 import com.linecorp.bot.messaging.model.SetWebhookEndpointRequest;
 import com.linecorp.bot.messaging.model.TestWebhookEndpointRequest;
 import com.linecorp.bot.messaging.model.TestWebhookEndpointResponse;
+import com.linecorp.bot.parser.WebhookParser;
 import jakarta.annotation.Resource;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.net.URI;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * LINE 頻道設定 服務層實作
@@ -43,6 +52,38 @@ public class LineConfigServiceImpl implements ILineConfigService {
     private final LineProperties lineProperties;
     private final LineClientFactory lineClientFactory;
 
+    /**
+     * 頻道設定快取
+     * Key: configId
+     * Value: 頻道設定與預先建立的 MessagingApiClient / WebhookParser
+     */
+    private final ConcurrentHashMap<Integer, ChannelEntry> configCache = new ConcurrentHashMap<>();
+
+    /**
+     * Bot Basic ID → configId 對照
+     */
+    private final ConcurrentHashMap<String, Integer> botBasicIdIndex = new ConcurrentHashMap<>();
+
+    /**
+     * 預設頻道 configId，null 表示尚未載入
+     */
+    private volatile Integer defaultConfigId;
+
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder cacheEvictions = new LongAdder();
+
+    /**
+     * 快取項目
+     *
+     * @param config   頻道設定（不對外暴露，讀取時回傳複本）
+     * @param client   MessagingApiClient
+     * @param parser   WebhookParser（含簽名驗證器）
+     * @param loadedAt 載入時間（毫秒）
+     */
+    private record ChannelEntry(LineConfig config, MessagingApiClient client, WebhookParser parser, long loadedAt) {
+    }
+
     /**
      * 查詢 LINE 頻道設定
      *
@@ -51,7 +92,8 @@ public class LineConfigServiceImpl implements ILineConfigService {
      */
     @Override
     public LineConfig selectLineConfigById(Integer configId) {
-        return lineConfigMapper.selectLineConfigById(configId);
+        ChannelEntry entry = getEntry(configId);
+        return entry != null ? copyOf(entry.config()) : null;
     }
 
     /**
@@ -73,7 +115,8 @@ public class LineConfigServiceImpl implements ILineConfigService {
      */
     @Override
     public LineConfig selectLineConfigByBotBasicId(String botBasicId) {
-        return lineConfigMapper.selectLineConfigByBotBasicId(botBasicId);
+        ChannelEntry entry = getEntryByBotBasicId(botBasicId);
+        return entry != null ? copyOf(entry.config()) : null;
     }
 
     /**
@@ -83,7 +126,71 @@ public class LineConfigServiceImpl implements ILineConfigService {
      */
     @Override
     public LineConfig selectDefaultLineConfig() {
-        return lineConfigMapper.selectDefaultLineConfig();
+        Integer configId = defaultConfigId;
+        if (configId != null) {
+            ChannelEntry entry = getEntry(configId);
+            if (entry != null && YesNo.YES.equals(entry.config().getIsDefault())) {
+                return copyOf(entry.config());
+            }
+        }
+        LineConfig config = lineConfigMapper.selectDefaultLineConfig();
+        if (config != null && config.getConfigId() != null) {
+            cacheMisses.increment();
+            putEntry(config);
+            defaultConfigId = config.getConfigId();
+            // 快取保存的是查詢結果本身，回傳副本避免呼叫端修改快取內容
+            return copyOf(config);
+        }
+        return config;
+    }
+
+    /**
+     * 取得頻道的 Webhook 解析器（含簽名驗證器），與頻道設定一同快取
+     *
+     * @param botBasicId Bot Basic ID
+     * @return WebhookParser，頻道不存在時為 null
+     */
+    @Override
+    public WebhookParser getWebhookParser(String botBasicId) {
+        ChannelEntry entry = getEntryByBotBasicId(botBasicId);
+        return entry != null ? entry.parser() : null;
+    }
+
+    /**
+     * 取得頻道的 MessagingApiClient，與頻道設定一同快取
+     *
+     * @param configId 設定ID
+     * @return MessagingApiClient
+     */
+    @Override
+    public MessagingApiClient getMessagingClient(Integer configId) {
+        ChannelEntry entry = getEntry(configId);
+        if (entry == null) {
+            throw new ServiceException("頻道設定不存在");
+        }
+        if (entry.client() == null) {
+            throw new ServiceException("頻道未設定 Channel Access Token");
+        }
+        return entry.client();
+    }
+
+    /**
+     * 取得頻道設定快取統計
+     *
+     * @return 統計資料
+     */
+    @Override
+    public Map<String, Object> getConfigCacheStats() {
+        long hits = cacheHits.sum();
+        long misses = cacheMisses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", configCache.size());
+        stats.put("hitCount", hits);
+        stats.put("missCount", misses);
+        stats.put("hitRate", hits + misses == 0 ? 0D : (double) hits / (hits + misses));
+        stats.put("evictionCount", cacheEvictions.sum());
+        stats.put("ttlSeconds", lineProperties.getConfigCache().getTtlSeconds());
+        return stats;
     }
 
     /**
@@ -144,6 +251,7 @@ public class LineConfigServiceImpl implements ILineConfigService {
         // 如果設定為預設頻道，需要先清除其他頻道的預設狀態
         if (YesNo.YES.equals(lineConfig.getIsDefault())) {
             lineConfigMapper.clearDefaultStatus();
+            evictAll();
         }
 
         // 設定初始狀態
@@ -183,6 +291,10 @@ public class LineConfigServiceImpl implements ILineConfigService {
         if (!oldConfig.getChannelAccessToken().equals(lineConfig.getChannelAccessToken())) {
             lineClientFactory.removeClient(oldConfig.getChannelAccessToken());
         }
+        // 如果 Channel Secret 有變更，清除舊的 Webhook 解析器快取
+        if (!Objects.equals(oldConfig.getChannelSecret(), lineConfig.getChannelSecret())) {
+            lineClientFactory.removeWebhookParser(oldConfig.getChannelSecret());
+        }
 
         // 如果頻道類型有變更，檢查新的類型是否唯一
         if (!oldConfig.getChannelType().equals(lineConfig.getChannelType())) {
@@ -197,6 +309,7 @@ public class LineConfigServiceImpl implements ILineConfigService {
         // 如果設定為預設頻道，需要先清除其他頻道的預設狀態
         if (YesNo.YES.equals(lineConfig.getIsDefault())) {
             lineConfigMapper.clearDefaultStatus();
+            evictAll();
         }
 
         // 重新產生 Webhook URL（因為可能更新了 webhookBaseUrl 或 botBasicId）
@@ -211,7 +324,9 @@ public class LineConfigServiceImpl implements ILineConfigService {
 
         lineConfig.setWebhookUrl(webhookUrl);
 
-        return lineConfigMapper.updateLineConfig(lineConfig);
+        int rows = lineConfigMapper.updateLineConfig(lineConfig);
+        evictConfig(lineConfig.getConfigId());
+        return rows;
     }
 
     /**
@@ -231,9 +346,14 @@ public class LineConfigServiceImpl implements ILineConfigService {
             // 清除對應的 Client 快取
             if (config != null) {
                 lineClientFactory.removeClient(config.getChannelAccessToken());
+                lineClientFactory.removeWebhookParser(config.getChannelSecret());
             }
         }
-        return lineConfigMapper.deleteLineConfigByIds(configIds);
+        int rows = lineConfigMapper.deleteLineConfigByIds(configIds);
+        for (Integer configId : configIds) {
+            evictConfig(configId);
+        }
+        return rows;
     }
 
     /**
@@ -251,8 +371,11 @@ public class LineConfigServiceImpl implements ILineConfigService {
         // 清除對應的 Client 快取
         if (config != null) {
             lineClientFactory.removeClient(config.getChannelAccessToken());
+            lineClientFactory.removeWebhookParser(config.getChannelSecret());
         }
-        return lineConfigMapper.deleteLineConfigById(configId);
+        int rows = lineConfigMapper.deleteLineConfigById(configId);
+        evictConfig(configId);
+        return rows;
     }
 
     /**
@@ -292,7 +415,7 @@ public class LineConfigServiceImpl implements ILineConfigService {
 
         try {
             // 取得 LINE Messaging API Client（復用快取）
-            MessagingApiClient client = lineClientFactory.getClient(config.getChannelAccessToken());
+            MessagingApiClient client = getMessagingClient(config.getConfigId());
 
             // 1. API 連線測試
             try {
@@ -370,6 +493,7 @@ public class LineConfigServiceImpl implements ILineConfigService {
                 config.setBotDisplayName(botInfo.displayName());
                 config.setBotPictureUrl(botInfo.pictureUrl() != null ? botInfo.pictureUrl().toString() : null);
                 lineConfigMapper.updateLineConfig(config);
+                evictConfig(configId);
 
                 log.info("Bot 資訊取得成功並已儲存：userId={}, displayName={}",
                         botInfo.userId(), botInfo.displayName());
@@ -396,6 +520,7 @@ public class LineConfigServiceImpl implements ILineConfigService {
             int updateCount = lineConfigMapper.updateWebhookStatus(configId, Status.DISABLE.getCode());
             log.warn("Webhook 測試失敗，已更新資料庫狀態為未驗證（configId={}，更新筆數={}）", configId, updateCount);
         }
+        evictConfig(configId);
         log.info("=== Webhook 狀態更新完成 ===");
 
         return ConnectionTestVO.builder()
@@ -424,7 +549,7 @@ public class LineConfigServiceImpl implements ILineConfigService {
 
         try {
             // 取得 LINE Messaging API Client（復用快取）
-            MessagingApiClient client = lineClientFactory.getClient(config.getChannelAccessToken());
+            MessagingApiClient client = getMessagingClient(config.getConfigId());
 
             // 測試 Webhook 端點
             TestWebhookEndpointRequest request = new TestWebhookEndpointRequest(URI.create(config.getWebhookUrl()));
@@ -435,6 +560,7 @@ public class LineConfigServiceImpl implements ILineConfigService {
                 // 更新 Webhook 狀態為已驗證
                 config.setWebhookStatus(Status.ENABLE);
                 lineConfigMapper.updateLineConfig(config);
+                evictConfig(configId);
 
                 log.info("Webhook 測試成功：endpoint={}, statusCode={}",
                         config.getWebhookUrl(), testResult.statusCode());
@@ -469,7 +595,9 @@ public class LineConfigServiceImpl implements ILineConfigService {
         config.setConfigId(configId);
         config.setWebhookUrl(webhookUrl);
         config.setWebhookStatus(Status.DISABLE); // 更新 URL 後重置驗證狀態
-        return lineConfigMapper.updateLineConfig(config);
+        int rows = lineConfigMapper.updateLineConfig(config);
+        evictConfig(configId);
+        return rows;
     }
 
     /**
@@ -484,7 +612,9 @@ public class LineConfigServiceImpl implements ILineConfigService {
         // 先清除其他頻道的預設狀態
         lineConfigMapper.clearDefaultStatus();
         // 設定當前頻道為預設
-        return lineConfigMapper.setDefaultChannel(configId);
+        int rows = lineConfigMapper.setDefaultChannel(configId);
+        evictAll();
+        return rows;
     }
 
     /**
@@ -719,7 +849,7 @@ public class LineConfigServiceImpl implements ILineConfigService {
         }
 
         // 4. 取得 MessagingApiClient（復用快取）
-        MessagingApiClient client = lineClientFactory.getClient(config.getChannelAccessToken());
+        MessagingApiClient client = getMessagingClient(config.getConfigId());
 
         try {
             // 5. 呼叫 LINE API 設定 Webhook URL
@@ -732,6 +862,7 @@ public class LineConfigServiceImpl implements ILineConfigService {
             // 6. 更新資料庫狀態為成功
             config.setWebhookStatus(Status.ENABLE);
             lineConfigMapper.updateLineConfig(config);
+            evictConfig(configId);
 
         } catch (ExecutionException | InterruptedException e) {
             log.error("設定 LINE Webhook 端點失敗", e);
@@ -739,6 +870,7 @@ public class LineConfigServiceImpl implements ILineConfigService {
             // 更新資料庫狀態為失敗
             config.setWebhookStatus(Status.DISABLE);
             lineConfigMapper.updateLineConfig(config);
+            evictConfig(configId);
 
             String errorMsg = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
             throw new ServiceException("設定 Webhook 失敗：" + errorMsg);
@@ -781,6 +913,7 @@ public class LineConfigServiceImpl implements ILineConfigService {
                 if (config != null) {
                     config.setWebhookStatus(Status.ENABLE);
                     lineConfigMapper.updateLineConfig(config);
+                    evictConfig(configId);
                     log.info("已更新資料庫 Webhook 狀態為成功（configId={}）", configId);
                 }
             }
@@ -794,6 +927,7 @@ public class LineConfigServiceImpl implements ILineConfigService {
                 if (config != null) {
                     config.setWebhookStatus(Status.DISABLE);
                     lineConfigMapper.updateLineConfig(config);
+                    evictConfig(configId);
                 }
             }
 
@@ -801,4 +935,113 @@ public class LineConfigServiceImpl implements ILineConfigService {
             throw new ServiceException("設定 Webhook 失敗：" + errorMsg);
         }
     }
+
+    // ==================== 頻道設定快取 ====================
+
+    private ChannelEntry getEntry(Integer configId) {
+        if (configId == null) {
+            return null;
+        }
+        if (lineProperties.getConfigCache().isEnabled()) {
+            ChannelEntry entry = configCache.get(configId);
+            if (entry != null && !isExpired(entry)) {
+                cacheHits.increment();
+                return entry;
+            }
+        }
+        cacheMisses.increment();
+        LineConfig config = lineConfigMapper.selectLineConfigById(configId);
+        return config != null ? putEntry(config) : null;
+    }
+
+    private ChannelEntry getEntryByBotBasicId(String botBasicId) {
+        if (StringUtils.isEmpty(botBasicId)) {
+            return null;
+        }
+        if (lineProperties.getConfigCache().isEnabled()) {
+            Integer configId = botBasicIdIndex.get(botBasicId);
+            ChannelEntry entry = configId != null ? configCache.get(configId) : null;
+            if (entry != null && !isExpired(entry) && botBasicId.equals(entry.config().getBotBasicId())) {
+                cacheHits.increment();
+                return entry;
+            }
+        }
+        cacheMisses.increment();
+        LineConfig config = lineConfigMapper.selectLineConfigByBotBasicId(botBasicId);
+        return config != null ? putEntry(config) : null;
+    }
+
+    private ChannelEntry putEntry(LineConfig config) {
+        MessagingApiClient client = StringUtils.isNotEmpty(config.getChannelAccessToken())
+                ? lineClientFactory.getClient(config.getChannelAccessToken()) : null;
+        WebhookParser parser = StringUtils.isNotEmpty(config.getChannelSecret())
+                ? lineClientFactory.getWebhookParser(config.getChannelSecret()) : null;
+        ChannelEntry entry = new ChannelEntry(config, client, parser, System.currentTimeMillis());
+        if (lineProperties.getConfigCache().isEnabled() && config.getConfigId() != null) {
+            configCache.put(config.getConfigId(), entry);
+            if (StringUtils.isNotEmpty(config.getBotBasicId())) {
+                botBasicIdIndex.put(config.getBotBasicId(), config.getConfigId());
+            }
+        }
+        return entry;
+    }
+
+    private boolean isExpired(ChannelEntry entry) {
+        long ttlMillis = lineProperties.getConfigCache().getTtlSeconds() * 1000L;
+        return ttlMillis > 0 && System.currentTimeMillis() - entry.loadedAt() > ttlMillis;
+    }
+
+    /**
+     * 移除單一頻道的快取；於交易中呼叫時，提交後再移除一次，避免提交前被舊資料回填
+     */
+    private void evictConfig(Integer configId) {
+        if (configId == null) {
+            return;
+        }
+        removeEntry(configId);
+        runAfterCommit(() -> removeEntry(configId));
+    }
+
+    /**
+     * 清除全部頻道快取（預設頻道異動時使用）
+     */
+    private void evictAll() {
+        clearEntries();
+        runAfterCommit(this::clearEntries);
+    }
+
+    private void removeEntry(Integer configId) {
+        ChannelEntry removed = configCache.remove(configId);
+        if (removed != null) {
+            cacheEvictions.increment();
+            botBasicIdIndex.values().removeIf(configId::equals);
+        }
+        if (configId.equals(defaultConfigId)) {
+            defaultConfigId = null;
+        }
+    }
+
+    private void clearEntries() {
+        cacheEvictions.add(configCache.size());
+        configCache.clear();
+        botBasicIdIndex.clear();
+        defaultConfigId = null;
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    private static LineConfig copyOf(LineConfig source) {
+        LineConfig copy = new LineConfig();
+        BeanUtils.copyProperties(source, copy);
+        return copy;
+    }
 }
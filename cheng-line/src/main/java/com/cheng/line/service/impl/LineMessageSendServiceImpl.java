@@ -3,11 +3,14 @@ package com.cheng.line.service.impl;
 import com.cheng.common.exception.ServiceException;
 import com.cheng.common.utils.JacksonUtil;
 import com.cheng.common.utils.StringUtils;
-import com.cheng.line.client.LineClientFactory;
+import com.cheng.line.buffer.LinePushWriteBuffer;
+import com.cheng.line.client.LinePushEngine;
+import com.cheng.line.config.LineProperties;
 import com.cheng.line.domain.LineConfig;
 import com.cheng.line.domain.LineMessageLog;
 import com.cheng.line.domain.LineMessageTemplate;
 import com.cheng.line.domain.LinePushDetail;
+import com.cheng.line.domain.LineUser;
 import com.cheng.line.dto.SendMessageDTO;
 import com.cheng.line.dto.SendProgressDTO;
 import com.cheng.line.enums.ContentType;
@@ -31,17 +34,24 @@ import com.linecorp.bot.messaging.client.MessagingApiClient;
 import com.linecorp.bot.messaging.model.*;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.net.URI;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * LINE 訊息發送服務實作（擴充版）
@@ -53,29 +63,37 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class LineMessageSendServiceImpl implements ILineMessageSendService {
 
     private @Resource LineMessageLogMapper lineMessageLogMapper;
-    private @Resource LinePushDetailMapper linePushDetailMapper;
     private @Resource LineUserMapper lineUserMapper;
     private @Resource ILineConfigService lineConfigService;
     private @Resource ILineUserService lineUserService;
     private @Resource ILineMessageTemplateService templateService;
     private @Resource ILineTagResolveService lineTagResolveService;
-    private @Resource LineClientFactory lineClientFactory;
+    private @Resource LinePushEngine linePushEngine;
+    private @Resource LinePushWriteBuffer linePushWriteBuffer;
+    private @Resource LinePushDetailMapper linePushDetailMapper;
+    private @Resource LineProperties lineProperties;
     private @Resource FlexMessageParser flexMessageParser;
     private @Resource TemplateVariableEngine variableEngine;
     private @Resource ScheduledExecutorService scheduledExecutorService;
 
-    /** 最大同時進行的非同步推播任務數 */
-    private static final int MAX_CONCURRENT_TASKS = 3;
+    @Resource(name = "linePushTaskExecutor")
+    private ThreadPoolTaskExecutor linePushTaskExecutor;
 
     /** 進度清除延遲（分鐘） */
     private static final int PROGRESS_CLEANUP_DELAY_MINUTES = 30;
 
+    /** 中斷任務掃描間隔（秒） */
+    private static final int RESUME_SCAN_INTERVAL_SECONDS = 60;
+
+    /** 任務心跳逾時下限（毫秒），逾時的 SENDING 任務視為中斷 */
+    private static final long MIN_STALE_MILLIS = 30_000L;
+
+    /** 使用者層級變數，出現時訊息需逐人推播 */
+    private static final Set<String> USER_VARIABLES = Set.of("nickname", "displayName", "lineUserId");
+
     /** 推播進度追蹤 Map */
     private final ConcurrentHashMap<String, SendProgressDTO> progressMap = new ConcurrentHashMap<>();
 
-    /** 進行中的非同步推播任務計數器 */
-    private final AtomicInteger activeTaskCount = new AtomicInteger(0);
-
     @Override
     @Transactional
     public Long sendMessage(SendMessageDTO dto) {
@@ -605,7 +623,7 @@ public class LineMessageSendServiceImpl implements ILineMessageSendService {
             }
         }
 
-        String content = variableEngine.parse(template.getContent(), variables);
+        String content = variableEngine.parse(template.getContent(), variables, preservedUserVariables(dto, variables));
 
         // 根據範本類型設定對應欄位
         ContentType msgType = ContentType.fromCode(template.getMsgType());
@@ -704,17 +722,23 @@ public class LineMessageSendServiceImpl implements ILineMessageSendService {
         MessageType messageType = MessageType.fromCode(dto.getMessageType());
         TargetType targetType = determineTargetType(dto);
 
+        // TAG 模式：解析一次目標使用者，記錄人數與推播共用同一份名單
+        Set<String> tagTargets = targetType == TargetType.TAG
+                ? lineTagResolveService.resolveTargets(dto.getTargetTagIds(), dto.getTargetTagGroupIds())
+                : Set.of();
+
         // 建立訊息記錄
-        LineMessageLog messageLog = createMessageLog(dto, config, messageType, contentType, targetType, message);
+        LineMessageLog messageLog = createMessageLog(dto, config, messageType, contentType, targetType, message,
+                tagTargets);
         lineMessageLogMapper.insertLineMessageLog(messageLog);
 
         // TAG 模式：非同步逐人推播
         if (targetType == TargetType.TAG) {
-            return doSendTag(dto, message, messageLog, config);
+            return doSendTag(message, messageLog, config, tagTargets);
         }
 
         try {
-            MessagingApiClient client = lineClientFactory.getClient(config.getChannelAccessToken());
+            MessagingApiClient client = lineConfigService.getMessagingClient(config.getConfigId());
             messageLog.setSendStatus(SendStatus.SENDING);
             lineMessageLogMapper.updateLineMessageLog(messageLog);
 
@@ -751,21 +775,21 @@ public class LineMessageSendServiceImpl implements ILineMessageSendService {
     }
 
     /**
-     * TAG 模式：非同步逐人推播
-     * 立即回傳 messageId，背景以 @Async 執行逐人發送
+     * TAG 模式：非同步推播
+     * 立即回傳 messageId，交易提交後由 linePushTaskExecutor 執行發送；
+     * 非個人化訊息以 Multicast 分批送出，含使用者變數的訊息維持逐人推播
+     *
+     * @param targetUserIds 已解析的目標使用者
      */
-    private Long doSendTag(SendMessageDTO dto, Message message, LineMessageLog messageLog, LineConfig config) {
-        // 並發限制檢查
-        if (activeTaskCount.get() >= MAX_CONCURRENT_TASKS) {
+    private Long doSendTag(Message message, LineMessageLog messageLog, LineConfig config, Set<String> targetUserIds) {
+        // 並發限制檢查（執行緒池與佇列皆滿時拒絕）
+        if (isTaskExecutorSaturated()) {
             messageLog.setSendStatus(SendStatus.FAILED);
             messageLog.setErrorMessage("推播任務已滿，請稍後再試");
             lineMessageLogMapper.updateLineMessageLog(messageLog);
             throw new ServiceException("推播任務已滿，請稍後再試");
         }
 
-        // 解析目標使用者
-        Set<String> targetUserIds = lineTagResolveService.resolveTargets(
-                dto.getTargetTagIds(), dto.getTargetTagGroupIds());
         if (targetUserIds.isEmpty()) {
             messageLog.setSendStatus(SendStatus.SUCCESS);
             messageLog.setSuccessCount(0);
@@ -783,203 +807,437 @@ public class LineMessageSendServiceImpl implements ILineMessageSendService {
 
         // 建立任務 ID 並初始化進度
         String taskId = UUID.randomUUID().toString();
+        initProgress(taskId, messageLog.getMessageId(), config.getConfigId(), targetUserIds.size(), 0, 0);
+
+        // 將 taskId 暫存到 messageLog 的 lineRequestId 欄位
+        messageLog.setLineRequestId(taskId);
+        lineMessageLogMapper.updateLineMessageLog(messageLog);
+
+        // 交易提交後再交給推播任務執行緒池，避免背景執行緒讀寫尚未提交的訊息記錄
+        boolean personalized = messageLog.getMessageType() == MessageType.PUSH;
+        Long messageId = messageLog.getMessageId();
+        Runnable task = () -> runTagTask(config, targetUserIds, message, personalized, messageId, taskId, false);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submitTagTask(task, messageId, taskId);
+                }
+            });
+        } else {
+            submitTagTask(task, messageId, taskId);
+        }
+
+        return messageId;
+    }
+
+    /**
+     * 啟動標籤推播任務的背景維護
+     * - 定期將執行中任務的進度同步至訊息記錄，同時作為任務存活的心跳（update_time）
+     * - 定期掃描心跳逾時的 SENDING 任務並續傳（服務重啟或其他節點當機後接手）
+     * 使用 ApplicationReadyEvent 確保在應用完全啟動（包括 Flyway 執行完畢）後才執行
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startTagTaskMaintenance() {
+        LineProperties.Push push = lineProperties.getPush();
+        long syncInterval = push.getProgressSyncIntervalMillis();
+        scheduledExecutorService.scheduleWithFixedDelay(this::syncActiveTaskStats,
+                syncInterval, syncInterval, TimeUnit.MILLISECONDS);
+        if (push.isResumeEnabled()) {
+            scheduledExecutorService.scheduleWithFixedDelay(this::resumeUnfinishedTagTasks,
+                    0, RESUME_SCAN_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 續傳中斷的標籤推播任務
+     * <p>
+     * 推播明細（line_push_detail）在任務開始時即寫入全部收件者的 PENDING 記錄，
+     * 發送結果透過寫回緩衝批次覆寫，等同逐批 checkpoint。續傳時僅重送 PENDING/FAILED 的收件者，
+     * SUCCESS/BLOCKED 不會重送；中斷前已送出但尚未落地的最後一批可能重送（at-least-once）。
+     */
+    private void resumeUnfinishedTagTasks() {
+        try {
+            long staleMillis = Math.max(MIN_STALE_MILLIS, lineProperties.getPush().getProgressSyncIntervalMillis() * 6);
+            for (LineMessageLog messageLog : lineMessageLogMapper.selectUnfinishedTagMessageLogs()) {
+                if (isTaskExecutorSaturated()) {
+                    return;
+                }
+                resumeTagTask(messageLog, staleMillis);
+            }
+        } catch (Exception e) {
+            log.error("續傳標籤推播任務失敗", e);
+        }
+    }
+
+    /**
+     * 續傳單一標籤推播任務
+     */
+    private void resumeTagTask(LineMessageLog messageLog, long staleMillis) {
+        Long messageId = messageLog.getMessageId();
+        String taskId = UUID.randomUUID().toString();
+
+        // 僅認領心跳逾時的任務，多節點部署時也只會由一個節點續傳
+        int claimed = lineMessageLogMapper.claimMessageLog(
+                messageId, messageLog.getLineRequestId(), taskId, staleMillis / 1000);
+        if (claimed == 0) {
+            return;
+        }
+
+        LineConfig config = lineConfigService.selectLineConfigById(messageLog.getConfigId());
+        Message message = JacksonUtil.decodeFromJson(messageLog.getMessageContent(), Message.class);
+        if (config == null || message == null) {
+            markTaskFailed(messageId, taskId, "續傳失敗：頻道設定或訊息內容無法還原");
+            return;
+        }
+
+        // 由推播明細還原進度
+        Map<String, Integer> statusCounts = new HashMap<>();
+        for (Map<String, Object> row : linePushDetailMapper.countGroupByStatus(messageId)) {
+            statusCounts.put(String.valueOf(row.get("status")), ((Number) row.get("cnt")).intValue());
+        }
+        if (statusCounts.isEmpty()) {
+            markTaskFailed(messageId, taskId, "推播中斷且無可續傳的收件者名單");
+            return;
+        }
+        List<String> remaining = linePushDetailMapper.selectUserIdsByMessageIdAndStatuses(messageId,
+                List.of(PushDetailStatus.PENDING.getCode(), PushDetailStatus.FAILED.getCode()));
+        int success = statusCounts.getOrDefault(PushDetailStatus.SUCCESS.getCode(), 0);
+        int blocked = statusCounts.getOrDefault(PushDetailStatus.BLOCKED.getCode(), 0);
+        int total = success + blocked + remaining.size();
+
+        log.info("續傳標籤推播任務：messageId={}, total={}, remaining={}, taskId={}",
+                messageId, total, remaining.size(), taskId);
+        initProgress(taskId, messageId, config.getConfigId(), total, success, blocked);
+
+        boolean personalized = messageLog.getMessageType() == MessageType.PUSH;
+        Set<String> userIds = new LinkedHashSet<>(remaining);
+        try {
+            linePushTaskExecutor.execute(
+                    () -> runTagTask(config, userIds, message, personalized, messageId, taskId, true));
+        } catch (RejectedExecutionException e) {
+            // 維持 SENDING，心跳逾時後由下次掃描重新認領
+            progressMap.remove(taskId);
+            log.warn("續傳任務被拒絕（執行緒池已滿），稍後重試：messageId={}", messageId);
+        }
+    }
+
+    /**
+     * 初始化任務進度
+     */
+    private void initProgress(String taskId, Long messageId, Integer configId, int total, int success, int failed) {
         SendProgressDTO progress = new SendProgressDTO();
         progress.setTaskId(taskId);
-        progress.setStatus("SENDING");
-        progress.setTotal(targetUserIds.size());
-        progress.setSent(0);
-        progress.setSuccess(0);
-        progress.setFailed(0);
+        progress.setStatus("QUEUED");
+        progress.setTotal(total);
+        progress.setSent(success + failed);
+        progress.setSuccess(success);
+        progress.setFailed(failed);
         progress.setStartTime(new Date());
-        progress.setMessageId(messageLog.getMessageId());
+        progress.setMessageId(messageId);
+        progress.setConfigId(configId);
         progressMap.put(taskId, progress);
+    }
 
-        // 非同步執行逐人發送
-        doSendAsync(config.getChannelAccessToken(), targetUserIds, message,
-                messageLog.getMessageId(), taskId);
-
-        // 將 taskId 暫存到 messageLog 的 lineRequestId 欄位
-        messageLog.setLineRequestId(taskId);
-        lineMessageLogMapper.updateLineMessageLog(messageLog);
+    /**
+     * 推播任務執行緒池是否已滿（執行中與等待中皆達上限）
+     */
+    private boolean isTaskExecutorSaturated() {
+        ThreadPoolExecutor executor = linePushTaskExecutor.getThreadPoolExecutor();
+        return executor.getActiveCount() >= executor.getMaximumPoolSize()
+                && executor.getQueue().remainingCapacity() == 0;
+    }
 
-        return messageLog.getMessageId();
+    /**
+     * 提交標籤推播任務，被拒絕時將訊息記錄標記為失敗
+     */
+    private void submitTagTask(Runnable task, Long messageId, String taskId) {
+        try {
+            linePushTaskExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.warn("標籤推播任務被拒絕（執行緒池已滿）：taskId={}, messageId={}", taskId, messageId);
+            markTaskFailed(messageId, taskId, "推播任務已滿，請稍後再試");
+            scheduleProgressCleanup(taskId);
+        }
     }
 
     /**
-     * 非同步逐人推播執行
+     * 標籤推播任務執行（於 linePushTaskExecutor 執行緒）
+     *
+     * @param resumed 是否為續傳任務（續傳時收件者名單已存在於推播明細）
      */
-    @Async("threadPoolTaskExecutor")
-    public void doSendAsync(String channelAccessToken, Set<String> userIds, Message message,
-                            Long messageId, String taskId) {
-        activeTaskCount.incrementAndGet();
+    private void runTagTask(LineConfig config, Set<String> userIds, Message message, boolean personalized,
+                            Long messageId, String taskId, boolean resumed) {
+        SendProgressDTO startProgress = progressMap.get(taskId);
+        if (startProgress != null) {
+            startProgress.setStatus("SENDING");
+        }
         try {
-            MessagingApiClient client = lineClientFactory.getClient(channelAccessToken);
-            sendPushToEach(client, userIds, message, messageId, taskId);
+            if (!resumed) {
+                savePendingDetails(messageId, userIds);
+            }
+            sendToTargets(config, userIds, message, personalized, messageId, taskId);
         } catch (Exception e) {
             log.error("非同步標籤推播執行失敗：taskId={}, messageId={}", taskId, messageId, e);
-            SendProgressDTO progress = progressMap.get(taskId);
-            if (progress != null) {
-                progress.setStatus("ERROR");
-            }
-            // 更新 MessageLog 為失敗
-            LineMessageLog failLog = new LineMessageLog();
-            failLog.setMessageId(messageId);
-            failLog.setSendStatus(SendStatus.FAILED);
-            failLog.setErrorMessage("非同步執行失敗：" + e.getMessage());
-            lineMessageLogMapper.updateLineMessageLog(failLog);
+            markTaskFailed(messageId, taskId, "非同步執行失敗：" + e.getMessage());
         } finally {
-            activeTaskCount.decrementAndGet();
-            // 排程清除進度資料
-            scheduledExecutorService.schedule(
-                    () -> progressMap.remove(taskId),
-                    PROGRESS_CLEANUP_DELAY_MINUTES, TimeUnit.MINUTES);
+            scheduleProgressCleanup(taskId);
         }
     }
 
     /**
-     * 逐人推播發送引擎
+     * 寫入全部收件者的 PENDING 明細，作為中斷後續傳的名單
      */
-    private void sendPushToEach(MessagingApiClient client, Set<String> userIds,
-                                Message message, Long messageId, String taskId) {
-        int total = userIds.size();
-        AtomicInteger sent = new AtomicInteger(0);
-        AtomicInteger successCount = new AtomicInteger(0);
-        AtomicInteger failCount = new AtomicInteger(0);
-        long startMillis = System.currentTimeMillis();
-
+    private void savePendingDetails(Long messageId, Set<String> userIds) {
+        int batchSize = lineProperties.getPush().getWriteBatchSize();
+        List<String> chunk = new ArrayList<>(batchSize);
         for (String userId : userIds) {
-            boolean success = pushWithRetry(client, userId, message, messageId);
-            sent.incrementAndGet();
-            if (success) {
-                successCount.incrementAndGet();
-            } else {
-                failCount.incrementAndGet();
+            chunk.add(userId);
+            if (chunk.size() >= batchSize) {
+                linePushDetailMapper.insertPendingBatch(messageId, chunk);
+                chunk.clear();
             }
+        }
+        if (!chunk.isEmpty()) {
+            linePushDetailMapper.insertPendingBatch(messageId, chunk);
+        }
+    }
+
+    /**
+     * 將標籤推播任務標記為失敗
+     */
+    private void markTaskFailed(Long messageId, String taskId, String errorMessage) {
+        SendProgressDTO progress = progressMap.get(taskId);
+        if (progress != null) {
+            progress.setStatus("ERROR");
+        }
+        // 更新 MessageLog 為失敗
+        LineMessageLog failLog = new LineMessageLog();
+        failLog.setMessageId(messageId);
+        failLog.setSendStatus(SendStatus.FAILED);
+        failLog.setErrorMessage(errorMessage);
+        lineMessageLogMapper.updateLineMessageLog(failLog);
+    }
+
+    /**
+     * 排程清除進度資料
+     */
+    private void scheduleProgressCleanup(String taskId) {
+        scheduledExecutorService.schedule(
+                () -> progressMap.remove(taskId),
+                PROGRESS_CLEANUP_DELAY_MINUTES, TimeUnit.MINUTES);
+    }
 
-            // 更新進度
-            updateProgress(taskId, total, sent.get(), successCount.get(), failCount.get(), startMillis);
+    /**
+     * 標籤推播發送
+     * 由 {@link LinePushEngine} 依頻道併發數與速率限制平行送出：
+     * - 個人化訊息：逐人 Push，依收件者替換使用者層級變數，逐人結果於回呼中記錄
+     * - 非個人化訊息：Multicast 每批最多 500 人，批次結果以批次寫入明細
+     * 進度計數由任務進度（續傳時為已完成數）起算；派發被中斷時保留 SENDING 狀態供下次啟動續傳
+     */
+    private void sendToTargets(LineConfig config, Set<String> userIds, Message message, boolean personalized,
+                               Long messageId, String taskId) {
+        SendProgressDTO progress = progressMap.get(taskId);
+        int total = progress != null ? progress.getTotal() : userIds.size();
+        AtomicInteger successCount = new AtomicInteger(progress != null ? progress.getSuccess() : 0);
+        AtomicInteger failCount = new AtomicInteger(progress != null ? progress.getFailed() : 0);
+        AtomicInteger sent = new AtomicInteger(successCount.get() + failCount.get());
+        int baseline = sent.get();
+        long startMillis = System.currentTimeMillis();
+
+        boolean completed;
+        if (personalized) {
+            completed = linePushEngine.pushToEach(config, userIds, personalizedMessages(message, userIds), outcome -> {
+                savePushDetail(messageId, outcome);
+                if (outcome.status() == PushDetailStatus.SUCCESS) {
+                    successCount.incrementAndGet();
+                } else {
+                    failCount.incrementAndGet();
+                }
+                int sentNow = sent.incrementAndGet();
+
+                // 更新進度
+                updateProgress(taskId, total, sentNow, baseline, successCount.get(), failCount.get(), startMillis);
+            });
+        } else {
+            log.info("標籤推播改用 Multicast 分批：messageId={}, total={}", messageId, userIds.size());
+            completed = linePushEngine.multicastInBatches(config, userIds, message, outcome -> {
+                saveBatchDetails(messageId, outcome);
+                int batchSize = outcome.userIds().size();
+                if (outcome.status() == PushDetailStatus.SUCCESS) {
+                    successCount.addAndGet(batchSize);
+                } else {
+                    failCount.addAndGet(batchSize);
+                }
+                int sentNow = sent.addAndGet(batchSize);
+
+                // 更新進度
+                updateProgress(taskId, total, sentNow, baseline, successCount.get(), failCount.get(), startMillis);
+            });
+        }
+
+        if (!completed) {
+            // 服務停止中（執行緒池中斷任務）：暫時清除中斷旗標，讓收尾的資料庫寫入不受影響
+            boolean interrupted = Thread.interrupted();
+            try {
+                // 僅同步已完成的明細與計數，保留 SENDING 狀態待下次啟動續傳
+                linePushWriteBuffer.flush();
+                updateMessageLogStats(messageId, successCount.get(), failCount.get(), null);
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (progress != null) {
+                progress.setStatus("INTERRUPTED");
+            }
+            log.warn("標籤推播中斷，待重啟後續傳：messageId={}, sent={}/{}", messageId, sent.get(), total);
+            return;
         }
 
+        // 推播明細與使用者統計落地後再更新聚合統計
+        linePushWriteBuffer.flush();
+
         // 更新 LineMessageLog 聚合統計
-        updateMessageLogStats(messageId, successCount.get(), failCount.get());
+        updateMessageLogStats(messageId, successCount.get(), failCount.get(), SendStatus.SUCCESS);
 
         // 標記任務完成
-        SendProgressDTO progress = progressMap.get(taskId);
         if (progress != null) {
             progress.setStatus("DONE");
             progress.setEstimatedRemainingSeconds(0);
         }
 
-        log.info("標籤推播完成：messageId={}, total={}, success={}, failed={}",
-                messageId, total, successCount.get(), failCount.get());
+        log.info("標籤推播完成：messageId={}, total={}, success={}, failed={}, elapsed={}ms",
+                messageId, total, successCount.get(), failCount.get(), System.currentTimeMillis() - startMillis);
     }
 
-    /** 最大重試次數 */
-    private static final int MAX_RETRY_COUNT = 3;
-
     /**
-     * 帶重試的推播發送
-     * 最多重試 3 次，指數退避 1s/2s/4s
-     * 封鎖錯誤不重試
-     *
-     * @return 是否成功
+     * 記錄單一收件者的推播結果（寫入緩衝，批次落地）
      */
-    private boolean pushWithRetry(MessagingApiClient client, String userId,
-                                  Message message, Long messageId) {
+    private void savePushDetail(Long messageId, LinePushEngine.PushOutcome outcome) {
         LinePushDetail detail = new LinePushDetail();
         detail.setMessageId(messageId);
-        detail.setLineUserId(userId);
-        detail.setStatus(PushDetailStatus.PENDING);
-        detail.setRetryCount(0);
+        detail.setLineUserId(outcome.userId());
+        detail.setStatus(outcome.status());
+        detail.setRetryCount(outcome.retryCount());
+        detail.setErrorMessage(outcome.errorMessage());
+        detail.setSendTime(new Date());
+        linePushWriteBuffer.addDetail(detail);
 
-        // 嘗試取得使用者顯示名稱
-        var lineUser = lineUserMapper.selectLineUserByLineUserId(userId);
-        if (lineUser != null) {
-            detail.setLineDisplayName(lineUser.getLineDisplayName());
+        // 更新使用者訊息統計
+        if (outcome.status() == PushDetailStatus.SUCCESS) {
+            linePushWriteBuffer.incrementMessagesSent(outcome.userId());
         }
-        linePushDetailMapper.insertDetail(detail);
+    }
 
-        String lastError = null;
-        for (int attempt = 0; attempt <= MAX_RETRY_COUNT; attempt++) {
-            try {
-                PushMessageRequest request = new PushMessageRequest(
-                        userId,
-                        Collections.singletonList(message),
-                        false,
-                        null
-                );
-                client.pushMessage(UUID.randomUUID(), request).get();
+    /**
+     * 記錄 Multicast 批次的推播結果（寫入緩衝，批次落地）
+     */
+    private void saveBatchDetails(Long messageId, LinePushEngine.BatchOutcome outcome) {
+        Date sendTime = new Date();
+        List<LinePushDetail> details = new ArrayList<>(outcome.userIds().size());
+        for (String userId : outcome.userIds()) {
+            LinePushDetail detail = new LinePushDetail();
+            detail.setMessageId(messageId);
+            detail.setLineUserId(userId);
+            detail.setStatus(outcome.status());
+            detail.setRetryCount(outcome.retryCount());
+            detail.setErrorMessage(outcome.errorMessage());
+            detail.setSendTime(sendTime);
+            details.add(detail);
+        }
+        linePushWriteBuffer.addDetails(details);
+
+        // 更新使用者訊息統計
+        if (outcome.status() == PushDetailStatus.SUCCESS) {
+            linePushWriteBuffer.incrementMessagesSent(outcome.userIds());
+        }
+    }
 
-                // 成功
-                detail.setStatus(PushDetailStatus.SUCCESS);
-                detail.setRetryCount(attempt);
-                detail.setSendTime(new Date());
-                linePushDetailMapper.updateStatus(detail);
+    /**
+     * 依收件者替換使用者層級變數
+     * TAG 推播的訊息內容保留 nickname、displayName、lineUserId 變數，
+     * 逐人推播時以批次查詢的顯示名稱替換後還原為訊息
+     *
+     * @param message 含使用者層級變數的訊息
+     * @param userIds 收件者 LINE 使用者 ID
+     * @return 依收件者 ID 產生訊息的函式
+     */
+    private Function<String, Message> personalizedMessages(Message message, Set<String> userIds) {
+        String json = JacksonUtil.encodeToJson(message);
+        if (json == null || !variableEngine.hasVariables(json)) {
+            return userId -> message;
+        }
 
-                // 更新使用者訊息統計
-                lineUserService.incrementMessageCount(userId, true);
-                return true;
+        int batchSize = lineProperties.getPush().getWriteBatchSize();
+        Map<String, String> displayNames = new HashMap<>(userIds.size() * 2);
+        List<String> chunk = new ArrayList<>(batchSize);
+        for (String userId : userIds) {
+            chunk.add(userId);
+            if (chunk.size() >= batchSize) {
+                putDisplayNames(chunk, displayNames);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            putDisplayNames(chunk, displayNames);
+        }
 
-            } catch (Exception e) {
-                lastError = extractErrorMessage(e);
-
-                // 檢查是否為封鎖錯誤
-                if (isBlockedError(e)) {
-                    detail.setStatus(PushDetailStatus.BLOCKED);
-                    detail.setRetryCount(attempt);
-                    detail.setErrorMessage(lastError);
-                    detail.setSendTime(new Date());
-                    linePushDetailMapper.updateStatus(detail);
-                    log.info("使用者已封鎖：userId={}", userId);
-                    return false;
-                }
+        return userId -> {
+            Map<String, String> variables = new HashMap<>();
+            String displayName = displayNames.get(userId);
+            if (displayName != null) {
+                // 變數位於 JSON 字串內，替換值需先跳脫
+                String escaped = jsonStringContent(displayName);
+                variables.put("nickname", escaped);
+                variables.put("displayName", escaped);
+            }
+            variables.put("lineUserId", jsonStringContent(userId));
+            Message rendered = JacksonUtil.decodeFromJson(variableEngine.parse(json, variables), Message.class);
+            return rendered != null ? rendered : message;
+        };
+    }
 
-                // 非封鎖錯誤且未達最大重試次數，等待後重試
-                if (attempt < MAX_RETRY_COUNT) {
-                    long waitMs = (long) Math.pow(2, attempt) * 1000L; // 1s, 2s, 4s
-                    try {
-                        Thread.sleep(waitMs);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
-                }
+    private void putDisplayNames(List<String> userIds, Map<String, String> displayNames) {
+        for (LineUser lineUser : lineUserMapper.selectDisplayNamesByLineUserIds(userIds)) {
+            if (lineUser.getLineDisplayName() != null) {
+                displayNames.put(lineUser.getLineUserId(), lineUser.getLineDisplayName());
             }
         }
-
-        // 所有重試都失敗
-        detail.setStatus(PushDetailStatus.FAILED);
-        detail.setRetryCount(MAX_RETRY_COUNT);
-        detail.setErrorMessage(lastError);
-        detail.setSendTime(new Date());
-        linePushDetailMapper.updateStatus(detail);
-        log.warn("推播失敗（已重試 {} 次）：userId={}, error={}", MAX_RETRY_COUNT, userId, lastError);
-        return false;
     }
 
     /**
-     * 判斷是否為使用者封鎖錯誤
+     * 取得字串以 JSON 跳脫後的內容（不含前後引號）
      */
-    private boolean isBlockedError(Exception e) {
-        String msg = extractErrorMessage(e).toLowerCase();
-        return msg.contains("block") || msg.contains("can't send messages")
-                || msg.contains("cannot send messages");
+    private static String jsonStringContent(String value) {
+        String encoded = JacksonUtil.encodeToJson(value);
+        return encoded.substring(1, encoded.length() - 1);
     }
 
     /**
-     * 提取錯誤訊息
+     * 判斷訊息替換變數後是否仍留有使用者層級變數（需逐人推播）
+     * templateVariables 已指定值的變數不算；非個人化的訊息對所有收件者內容相同，可改用 Multicast 分批送出
      */
-    private String extractErrorMessage(Exception e) {
-        if (e.getCause() != null) {
-            return e.getCause().getMessage() != null ? e.getCause().getMessage() : e.getMessage();
+    private boolean isPersonalized(Message message) {
+        String json = JacksonUtil.encodeToJson(message);
+        if (!variableEngine.hasVariables(json)) {
+            return false;
         }
-        return e.getMessage() != null ? e.getMessage() : "未知錯誤";
+        for (String name : variableEngine.extractVariableNames(json)) {
+            if (USER_VARIABLES.contains(name)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
-     * 更新推播進度
+     * 更新推播進度（僅更新記憶體中的計數，頻道統計於查詢時補齊）
+     *
+     * @param baseline 本次執行前已完成的人數（續傳時不計入吞吐量）
      */
-    private void updateProgress(String taskId, int total, int sent, int success, int failed, long startMillis) {
+    private void updateProgress(String taskId, int total, int sent, int baseline, int success, int failed,
+                                long startMillis) {
         SendProgressDTO progress = progressMap.get(taskId);
         if (progress == null) {
             return;
@@ -988,35 +1246,80 @@ public class LineMessageSendServiceImpl implements ILineMessageSendService {
         progress.setSuccess(success);
         progress.setFailed(failed);
 
-        // 計算預估剩餘秒數
-        if (sent > 0) {
-            long elapsed = System.currentTimeMillis() - startMillis;
-            double avgPerUser = (double) elapsed / sent;
-            int remaining = total - sent;
-            progress.setEstimatedRemainingSeconds((int) (avgPerUser * remaining / 1000));
+        // 計算吞吐量與預估剩餘秒數
+        int sentThisRun = sent - baseline;
+        if (sentThisRun > 0) {
+            long elapsed = Math.max(1, System.currentTimeMillis() - startMillis);
+            double perSecond = sentThisRun * 1000d / elapsed;
+            progress.setThroughputPerSecond(Math.round(perSecond * 10) / 10.0);
+            progress.setEstimatedRemainingSeconds((int) ((total - sent) / perSecond));
+        }
+    }
+
+    /**
+     * 定期將本節點執行中任務的進度同步至 LineMessageLog（不變更狀態，並刷新心跳）
+     */
+    private void syncActiveTaskStats() {
+        try {
+            boolean flushed = false;
+            for (SendProgressDTO progress : progressMap.values()) {
+                if (!"QUEUED".equals(progress.getStatus()) && !"SENDING".equals(progress.getStatus())) {
+                    continue;
+                }
+                if (!flushed) {
+                    // 明細先落地，確保訊息記錄的計數不超前推播明細
+                    linePushWriteBuffer.flush();
+                    flushed = true;
+                }
+                updateMessageLogStats(progress.getMessageId(), progress.getSuccess(), progress.getFailed(), null);
+            }
+        } catch (Exception e) {
+            log.warn("推播進度同步失敗：{}", e.getMessage());
         }
     }
 
     /**
      * 更新 LineMessageLog 聚合統計
+     *
+     * @param sendStatus 發送狀態，null 表示不變更
      */
-    private void updateMessageLogStats(Long messageId, int successCount, int failCount) {
+    private void updateMessageLogStats(Long messageId, int successCount, int failCount, SendStatus sendStatus) {
         LineMessageLog updateLog = new LineMessageLog();
         updateLog.setMessageId(messageId);
         updateLog.setSuccessCount(successCount);
         updateLog.setFailCount(failCount);
-        updateLog.setSendStatus(SendStatus.SUCCESS);
+        updateLog.setSendStatus(sendStatus);
         lineMessageLogMapper.updateLineMessageLog(updateLog);
     }
 
     @Override
     public SendProgressDTO getProgress(String taskId) {
-        return progressMap.get(taskId);
+        SendProgressDTO progress = progressMap.get(taskId);
+        if (progress == null) {
+            return null;
+        }
+        // 頻道層級統計（查詢時補齊，避免每筆回呼都讀取頻道統計）
+        LinePushEngine.ChannelStats stats = linePushEngine.getChannelStats(progress.getConfigId());
+        if (stats != null) {
+            progress.setInFlight(stats.inFlight());
+            progress.setConcurrency(stats.concurrency());
+            progress.setRateLimitPerSecond(stats.requestsPerSecond());
+            progress.setChannelThroughputPerSecond(stats.throughputPerSecond());
+            progress.setAvgLatencyMillis(stats.avgLatencyMillis());
+            progress.setMaxLatencyMillis(stats.maxLatencyMillis());
+            progress.setRetryCount(stats.retries());
+        }
+        return progress;
     }
 
     @Override
     public int getActiveTaskCount() {
-        return activeTaskCount.get();
+        return linePushTaskExecutor.getActiveCount();
+    }
+
+    @Override
+    public int getQueuedTaskCount() {
+        return linePushTaskExecutor.getThreadPoolExecutor().getQueue().size();
     }
 
     private void sendPush(MessagingApiClient client, String userId, Message message, Boolean notificationDisabled)
@@ -1089,10 +1392,12 @@ public class LineMessageSendServiceImpl implements ILineMessageSendService {
 
     /**
      * 建立訊息記錄
+     *
+     * @param tagTargets TAG 模式已解析的目標使用者（其他模式不使用）
      */
     private LineMessageLog createMessageLog(SendMessageDTO dto, LineConfig config,
                                             MessageType messageType, ContentType contentType,
-                                            TargetType targetType, Message message) {
+                                            TargetType targetType, Message message, Set<String> tagTargets) {
         LineMessageLog log = new LineMessageLog();
         log.setConfigId(config.getConfigId());
         log.setMessageType(messageType);
@@ -1111,10 +1416,9 @@ public class LineMessageSendServiceImpl implements ILineMessageSendService {
                 log.setTargetCount(dto.getTargetLineUserIds().size());
             }
             case TAG -> {
-                // TAG 模式下先解析目標人數
-                Set<String> targets = lineTagResolveService.resolveTargets(
-                        dto.getTargetTagIds(), dto.getTargetTagGroupIds());
-                log.setTargetCount(targets.size());
+                // 非個人化訊息以 Multicast 分批送出，記錄實際發送方式供續傳時沿用
+                log.setMessageType(isPersonalized(message) ? MessageType.PUSH : MessageType.MULTICAST);
+                log.setTargetCount(tagTargets.size());
                 // 記錄第一個 tagId（相容既有 targetTagId 欄位）
                 if (dto.getTargetTagIds() != null && !dto.getTargetTagIds().isEmpty()) {
                     log.setTargetTagId(dto.getTargetTagIds().getFirst());
@@ -1132,9 +1436,7 @@ public class LineMessageSendServiceImpl implements ILineMessageSendService {
      */
     private TargetType determineTargetType(SendMessageDTO dto) {
         // 優先檢測標籤推播
-        boolean hasTagIds = dto.getTargetTagIds() != null && !dto.getTargetTagIds().isEmpty();
-        boolean hasTagGroupIds = dto.getTargetTagGroupIds() != null && !dto.getTargetTagGroupIds().isEmpty();
-        if (hasTagIds || hasTagGroupIds) {
+        if (isTagTarget(dto)) {
             return TargetType.TAG;
         }
 
@@ -1158,14 +1460,22 @@ public class LineMessageSendServiceImpl implements ILineMessageSendService {
             }
             case MULTIPLE -> {
                 if (dto.getTargetLineUserIds() != null) {
-                    dto.getTargetLineUserIds().forEach(userId ->
-                            lineUserService.incrementMessageCount(userId, true));
+                    linePushWriteBuffer.incrementMessagesSent(dto.getTargetLineUserIds());
                 }
             }
             // ALL 不更新個別使用者統計
         }
     }
 
+    /**
+     * 是否為標籤推播（帶有 targetTagIds 或 targetTagGroupIds）
+     */
+    private boolean isTagTarget(SendMessageDTO dto) {
+        boolean hasTagIds = dto.getTargetTagIds() != null && !dto.getTargetTagIds().isEmpty();
+        boolean hasTagGroupIds = dto.getTargetTagGroupIds() != null && !dto.getTargetTagGroupIds().isEmpty();
+        return hasTagIds || hasTagGroupIds;
+    }
+
     /**
      * 處理變數替換
      */
@@ -1189,7 +1499,19 @@ public class LineMessageSendServiceImpl implements ILineMessageSendService {
             }
         }
 
-        return variableEngine.parse(content, variables);
+        return variableEngine.parse(content, variables, preservedUserVariables(dto, variables));
+    }
+
+    /**
+     * TAG 推播時保留未指定值的使用者層級變數，於逐人推播時依收件者替換
+     */
+    private Set<String> preservedUserVariables(SendMessageDTO dto, Map<String, String> variables) {
+        if (!isTagTarget(dto)) {
+            return Set.of();
+        }
+        Set<String> preserved = new HashSet<>(USER_VARIABLES);
+        preserved.removeAll(variables.keySet());
+        return preserved;
     }
 
     /**
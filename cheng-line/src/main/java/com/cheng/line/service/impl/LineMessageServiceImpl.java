@@ -3,7 +3,6 @@ package com.cheng.line.service.impl;
 import com.cheng.common.exception.ServiceException;
 import com.cheng.common.utils.JacksonUtil;
 import com.cheng.common.utils.StringUtils;
-import com.cheng.line.client.LineClientFactory;
 import com.cheng.line.domain.LineConfig;
 import com.cheng.line.domain.LineMessageLog;
 import com.cheng.line.dto.BroadcastMessageDTO;
@@ -48,7 +47,6 @@ public class LineMessageServiceImpl implements ILineMessageService {
     private @Resource LineUserMapper lineUserMapper;
     private @Resource ILineConfigService lineConfigService;
     private @Resource ILineUserService lineUserService;
-    private @Resource LineClientFactory lineClientFactory;
 
     /**
      * 查詢推播訊息記錄
@@ -109,7 +107,7 @@ public class LineMessageServiceImpl implements ILineMessageService {
 
         // 發送訊息
         try {
-            MessagingApiClient client = lineClientFactory.getClient(config.getChannelAccessToken());
+            MessagingApiClient client = lineConfigService.getMessagingClient(config.getConfigId());
 
             PushMessageRequest request = new PushMessageRequest(
                     pushMessageDTO.getTargetLineUserId(),
@@ -200,7 +198,7 @@ public class LineMessageServiceImpl implements ILineMessageService {
 
         // 發送訊息
         try {
-            MessagingApiClient client = lineClientFactory.getClient(config.getChannelAccessToken());
+            MessagingApiClient client = lineConfigService.getMessagingClient(config.getConfigId());
 
             PushMessageRequest request = new PushMessageRequest(
                     targetLineUserId,
@@ -282,7 +280,7 @@ public class LineMessageServiceImpl implements ILineMessageService {
 
         // 發送訊息
         try {
-            MessagingApiClient client = lineClientFactory.getClient(config.getChannelAccessToken());
+            MessagingApiClient client = lineConfigService.getMessagingClient(config.getConfigId());
 
             MulticastRequest request = new MulticastRequest(
                     Collections.singletonList(message),
@@ -364,7 +362,7 @@ public class LineMessageServiceImpl implements ILineMessageService {
 
         // 發送訊息
         try {
-            MessagingApiClient client = lineClientFactory.getClient(config.getChannelAccessToken());
+            MessagingApiClient client = lineConfigService.getMessagingClient(config.getConfigId());
 
             BroadcastRequest request = new BroadcastRequest(
                     Collections.singletonList(message),
@@ -436,7 +434,7 @@ public class LineMessageServiceImpl implements ILineMessageService {
 
         // 發送訊息
         try {
-            MessagingApiClient client = lineClientFactory.getClient(config.getChannelAccessToken());
+            MessagingApiClient client = lineConfigService.getMessagingClient(config.getConfigId());
 
             ReplyMessageRequest request = new ReplyMessageRequest(
                     replyMessageDTO.getReplyToken(),
@@ -529,7 +527,7 @@ public class LineMessageServiceImpl implements ILineMessageService {
 
         try {
             // 取得 Messaging API Client（復用快取）
-            MessagingApiClient client = lineClientFactory.getClient(config.getChannelAccessToken());
+            MessagingApiClient client = lineConfigService.getMessagingClient(config.getConfigId());
 
             // 根據訊息類型發送
             switch (messageType) {
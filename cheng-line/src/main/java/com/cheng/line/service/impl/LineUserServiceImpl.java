@@ -1,8 +1,9 @@
 package com.cheng.line.service.impl;
 
+import com.cheng.common.core.text.Convert;
 import com.cheng.common.exception.ServiceException;
 import com.cheng.common.utils.StringUtils;
-import com.cheng.line.client.LineClientFactory;
+import com.cheng.common.utils.poi.ExcelUtil;
 import com.cheng.line.domain.LineConfig;
 import com.cheng.line.domain.LineUser;
 import com.cheng.line.domain.LineUserTagRelation;
@@ -24,7 +25,6 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.BufferedReader;
-import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
@@ -47,7 +47,6 @@ public class LineUserServiceImpl implements ILineUserService {
 
     private @Resource LineUserMapper lineUserMapper;
     private @Resource ILineConfigService lineConfigService;
-    private @Resource LineClientFactory lineClientFactory;
     private @Resource ILineUserTagRelationService lineUserTagRelationService;
 
     /**
@@ -365,7 +364,7 @@ public class LineUserServiceImpl implements ILineUserService {
 
         try {
             // 取得 LINE Messaging API Client（復用快取）
-            MessagingApiClient client = lineClientFactory.getClient(config.getChannelAccessToken());
+            MessagingApiClient client = lineConfigService.getMessagingClient(config.getConfigId());
 
             // 取得使用者個人資料
             UserProfileResponse profile = client.getProfile(lineUserId).get().body();
@@ -499,7 +498,7 @@ public class LineUserServiceImpl implements ILineUserService {
             }
             
             // 取得 LINE Messaging API Client（復用快取）
-            MessagingApiClient client = lineClientFactory.getClient(config.getChannelAccessToken());
+            MessagingApiClient client = lineConfigService.getMessagingClient(config.getConfigId());
 
             // 逐個處理 LINE User ID
             for (int i = 0; i < lineUserIds.size(); i++) {
@@ -611,25 +610,19 @@ public class LineUserServiceImpl implements ILineUserService {
     }
 
     /**
-     * 從 Excel 讀取
+     * 從 Excel 讀取（xlsx 以 SAX 逐列串流，不載入整個工作簿）
      */
     private List<String> readFromExcel(MultipartFile file) throws Exception {
         List<String> result = new ArrayList<>();
-        try (InputStream is = file.getInputStream();
-             org.apache.poi.ss.usermodel.Workbook workbook = org.apache.poi.ss.usermodel.WorkbookFactory.create(is)) {
-
-            org.apache.poi.ss.usermodel.Sheet sheet = workbook.getSheetAt(0);
-            for (org.apache.poi.ss.usermodel.Row row : sheet) {
-                if (row.getRowNum() == 0) continue; // 跳過標題行
-                org.apache.poi.ss.usermodel.Cell cell = row.getCell(0);
-                if (cell != null) {
-                    String value = cell.getStringCellValue();
-                    if (StringUtils.isNotEmpty(value)) {
-                        result.add(value.trim());
-                    }
-                }
+        ExcelUtil.readRows(file.getInputStream(), (rowNum, cells) -> {
+            if (rowNum == 0 || cells.length == 0) {
+                return; // 跳過標題行
             }
-        }
+            String value = Convert.toStr(cells[0]);
+            if (StringUtils.isNotEmpty(value)) {
+                result.add(value.trim());
+            }
+        });
         return result;
     }
 
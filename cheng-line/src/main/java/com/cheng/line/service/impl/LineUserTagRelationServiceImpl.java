@@ -6,6 +6,7 @@ import com.cheng.line.mapper.LineUserTagRelationMapper;
 import com.cheng.line.service.ILineUserTagRelationService;
 import com.cheng.system.domain.SysTag;
 import com.cheng.system.mapper.SysTagMapper;
+import com.cheng.system.service.impl.TagBitmapIndexService;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
@@ -29,6 +30,7 @@ public class LineUserTagRelationServiceImpl implements ILineUserTagRelationServi
     private final LineUserTagRelationMapper lineUserTagRelationMapper;
     private final LineUserMapper lineUserMapper;
     private final SysTagMapper sysTagMapper;
+    private final TagBitmapIndexService tagBitmapIndexService;
 
     @Override
     public List<LineUserTagRelation> selectByLineUserId(String lineUserId) {
@@ -61,6 +63,9 @@ public class LineUserTagRelationServiceImpl implements ILineUserTagRelationServi
         relation.setCreateBy(createBy);
 
         int result = lineUserTagRelationMapper.insertLineUserTagRelation(relation);
+        if (result > 0) {
+            tagBitmapIndexService.line().add(lineUserId, tagId);
+        }
         log.info("為使用者 {} 貼標 {}，結果：{}", lineUserId, tagId, result > 0 ? "成功" : "失敗");
         return result;
     }
@@ -83,6 +88,7 @@ public class LineUserTagRelationServiceImpl implements ILineUserTagRelationServi
         }
 
         int result = lineUserTagRelationMapper.batchInsertLineUserTagRelation(relations);
+        tagBitmapIndexService.line().addAll(lineUserIds, tagId);
         log.info("批次為 {} 個使用者貼標 {}，成功：{}", lineUserIds.size(), tagId, result);
         return result;
     }
@@ -104,6 +110,9 @@ public class LineUserTagRelationServiceImpl implements ILineUserTagRelationServi
         }
 
         int result = lineUserTagRelationMapper.batchInsertLineUserTagRelation(relations);
+        for (Long tagId : tagIds) {
+            tagBitmapIndexService.line().add(lineUserId, tagId);
+        }
         log.info("為使用者 {} 批次貼 {} 個標籤，成功：{}", lineUserId, tagIds.size(), result);
         return result;
     }
@@ -127,6 +136,9 @@ public class LineUserTagRelationServiceImpl implements ILineUserTagRelationServi
         }
 
         int result = lineUserTagRelationMapper.batchInsertLineUserTagRelation(relations);
+        for (Long tagId : tagIds) {
+            tagBitmapIndexService.line().addAll(lineUserIds, tagId);
+        }
         log.info("批次為 {} 個使用者貼 {} 個標籤，成功：{}", lineUserIds.size(), tagIds.size(), result);
         return result;
     }
@@ -135,6 +147,7 @@ public class LineUserTagRelationServiceImpl implements ILineUserTagRelationServi
     @Transactional(rollbackFor = Exception.class)
     public int unbindTag(String lineUserId, Long tagId) {
         int result = lineUserTagRelationMapper.deleteByUserIdAndTagId(lineUserId, tagId);
+        tagBitmapIndexService.line().remove(lineUserId, tagId);
         log.info("移除使用者 {} 的標籤 {}，結果：{}", lineUserId, tagId, result > 0 ? "成功" : "無記錄");
         return result;
     }
@@ -143,6 +156,7 @@ public class LineUserTagRelationServiceImpl implements ILineUserTagRelationServi
     @Transactional(rollbackFor = Exception.class)
     public int unbindAllTags(String lineUserId) {
         int result = lineUserTagRelationMapper.deleteByLineUserId(lineUserId);
+        tagBitmapIndexService.line().removeKey(lineUserId);
         log.info("移除使用者 {} 的所有標籤，共 {} 個", lineUserId, result);
         return result;
     }
@@ -151,6 +165,7 @@ public class LineUserTagRelationServiceImpl implements ILineUserTagRelationServi
     @Transactional(rollbackFor = Exception.class)
     public int unbindAllUsers(Long tagId) {
         int result = lineUserTagRelationMapper.deleteByTagId(tagId);
+        tagBitmapIndexService.line().removeTag(tagId);
         log.info("移除標籤 {} 的所有使用者關聯，共 {} 個", tagId, result);
         return result;
     }
@@ -160,9 +175,24 @@ public class LineUserTagRelationServiceImpl implements ILineUserTagRelationServi
         return lineUserTagRelationMapper.countUsersByTagId(tagId);
     }
 
+    @Override
+    public Map<Long, Integer> countUsersByTagIds(List<Long> tagIds) {
+        Map<Long, Integer> result = new HashMap<>();
+        if (tagIds == null || tagIds.isEmpty()) {
+            return result;
+        }
+        tagIds.forEach(tagId -> result.put(tagId, 0));
+        for (Map<String, Object> row : lineUserTagRelationMapper.countUsersByTagIds(tagIds)) {
+            result.put(((Number) row.get("tag_id")).longValue(), ((Number) row.get("cnt")).intValue());
+        }
+        return result;
+    }
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public int deleteByIds(Long[] ids) {
+        // 僅有關聯 ID，無法得知異動的使用者與標籤，改為整體重新載入
+        tagBitmapIndexService.line().invalidate();
         return lineUserTagRelationMapper.deleteLineUserTagRelationByIds(ids);
     }
 
@@ -277,6 +307,9 @@ public class LineUserTagRelationServiceImpl implements ILineUserTagRelationServi
         // 4. 批次插入關聯（忽略重複）
         if (!relationsToInsert.isEmpty()) {
             int inserted = lineUserTagRelationMapper.batchInsertIgnore(relationsToInsert);
+            for (LineUserTagRelation relation : relationsToInsert) {
+                tagBitmapIndexService.line().add(relation.getLineUserId(), relation.getTagId());
+            }
             log.info("批次插入 {} 筆關聯，實際插入 {}", relationsToInsert.size(), inserted);
         }
 
@@ -7,7 +7,6 @@ import com.cheng.common.utils.StringUtils;
 import com.cheng.common.utils.JacksonUtil;
 import com.cheng.common.utils.ImageResizeUtil;
 import com.cheng.common.utils.dto.ApiResponse;
-import com.cheng.line.client.LineClientFactory;
 import com.cheng.line.domain.LineConfig;
 import com.cheng.line.domain.SysLineRichMenu;
 import com.cheng.line.enums.LineApiEndpoint;
@@ -15,6 +14,7 @@ import com.cheng.line.enums.RichMenuActionType;
 import com.cheng.line.enums.RichMenuStatus;
 import com.cheng.line.mapper.LineConfigMapper;
 import com.cheng.line.mapper.SysLineRichMenuMapper;
+import com.cheng.line.service.ILineConfigService;
 import com.cheng.line.service.ISysLineRichMenuService;
 import com.cheng.line.service.ISysLineRichMenuAliasService;
 import com.cheng.line.domain.SysLineRichMenuAlias;
@@ -63,7 +63,7 @@ public class SysLineRichMenuServiceImpl implements ISysLineRichMenuService {
     private LineConfigMapper lineConfigMapper;
 
     @Resource
-    private LineClientFactory lineClientFactory;
+    private ILineConfigService lineConfigService;
 
     @Resource
     @Lazy
@@ -411,7 +411,7 @@ public class SysLineRichMenuServiceImpl implements ISysLineRichMenuService {
 
         try {
             // 取得 MessagingApiClient
-            MessagingApiClient client = lineClientFactory.getClient(config.getChannelAccessToken());
+            MessagingApiClient client = lineConfigService.getMessagingClient(config.getConfigId());
 
             // 判斷是首次發布還是重新發布
             boolean isRepublish = menu.isPublished();
@@ -471,7 +471,7 @@ public class SysLineRichMenuServiceImpl implements ISysLineRichMenuService {
 
         try {
             // 取得 MessagingApiClient
-            MessagingApiClient client = lineClientFactory.getClient(config.getChannelAccessToken());
+            MessagingApiClient client = lineConfigService.getMessagingClient(config.getConfigId());
 
             log.info("上傳 Rich Menu 圖片，richMenuId: {}，大小：{} bytes", menu.getRichMenuId(), imageBytes.length);
 
@@ -522,7 +522,7 @@ public class SysLineRichMenuServiceImpl implements ISysLineRichMenuService {
 
             // 步驟 2：呼叫 LINE API 設定新預設選單
             log.info("▶ 步驟 2：設定新預設選單到 LINE 平台");
-            MessagingApiClient client = lineClientFactory.getClient(config.getChannelAccessToken());
+            MessagingApiClient client = lineConfigService.getMessagingClient(config.getConfigId());
             client.setDefaultRichMenu(menu.getRichMenuId()).get();
             log.info("✓ 已在 LINE 平台設定為預設選單");
 
@@ -590,7 +590,7 @@ public class SysLineRichMenuServiceImpl implements ISysLineRichMenuService {
 
         try {
             // 取得 MessagingApiClient
-            MessagingApiClient client = lineClientFactory.getClient(config.getChannelAccessToken());
+            MessagingApiClient client = lineConfigService.getMessagingClient(config.getConfigId());
 
             // 呼叫 LINE API 刪除 Rich Menu
             client.deleteRichMenu(menu.getRichMenuId()).get();
@@ -635,7 +635,7 @@ public class SysLineRichMenuServiceImpl implements ISysLineRichMenuService {
 
         try {
             // 取得 MessagingApiClient
-            MessagingApiClient client = lineClientFactory.getClient(config.getChannelAccessToken());
+            MessagingApiClient client = lineConfigService.getMessagingClient(config.getConfigId());
 
             // 呼叫 LINE API 綁定選單到使用者
             client.linkRichMenuIdToUser(userId, richMenuId).get();
@@ -7,6 +7,7 @@ import org.springframework.stereotype.Component;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -62,6 +63,37 @@ public class TemplateVariableEngine {
         return result.toString();
     }
 
+    /**
+     * 解析範本內容，替換變數，但保留指定名稱的變數原字串（含預設值）
+     * <p>
+     * 用於需逐人替換的使用者層級變數：先替換共用變數，發送時再依收件者替換保留的變數。
+     *
+     * @param template       範本內容
+     * @param variables      變數 Map
+     * @param preservedNames 保留不替換的變數名稱
+     * @return 替換後的內容
+     */
+    public String parse(String template, Map<String, String> variables, Set<String> preservedNames) {
+        if (StringUtils.isEmpty(template)) {
+            return template;
+        }
+        Map<String, String> values = variables != null ? variables : Map.of();
+
+        StringBuffer result = new StringBuffer();
+        Matcher matcher = VARIABLE_PATTERN.matcher(template);
+
+        while (matcher.find()) {
+            String variableName = matcher.group(1).trim();
+            String replacement = preservedNames.contains(variableName)
+                    ? matcher.group()
+                    : getVariableValue(variableName, matcher.group(2), values);
+            matcher.appendReplacement(result, Matcher.quoteReplacement(replacement));
+        }
+        matcher.appendTail(result);
+
+        return result.toString();
+    }
+
     /**
      * 僅使用預設值解析範本（當沒有提供變數時）
      *
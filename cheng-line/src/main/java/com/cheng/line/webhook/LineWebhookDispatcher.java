@@ -0,0 +1,339 @@
+package com.cheng.line.webhook;
+
+import com.cheng.common.constant.CacheConstants;
+import com.cheng.common.core.buffer.FlushableBuffer;
+import com.cheng.common.core.redis.RedisCache;
+import com.cheng.framework.config.TraceTaskDecorator;
+import com.cheng.line.config.LineProperties;
+import com.linecorp.bot.webhook.model.Event;
+import com.linecorp.bot.webhook.model.GroupSource;
+import com.linecorp.bot.webhook.model.RoomSource;
+import com.linecorp.bot.webhook.model.Source;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * LINE Webhook 事件分派器
+ * <p>
+ * Webhook 請求只負責驗簽與入列，事件由背景執行緒處理，讓 LINE 平台能立即收到 200：
+ * - 依事件來源（使用者 / 群組 / 聊天室）雜湊分流到固定執行緒，同一來源的事件依序處理
+ * - 每個執行緒的佇列有上限，佇列滿時短暫等待，逾時即拒收，由呼叫端回應 503 讓 LINE 重送
+ * - 以 webhookEventId 在 Redis 去重：入列前以短期鍵佔用事件，處理成功後才寫入已處理標記，
+ *   處理失敗、拒收或停止服務時仍在佇列中的事件會釋放佔用，讓 LINE 重送時能再次處理
+ * - 停止服務時由 ShutdownManager 呼叫 {@link #flush()}，等待佇列中的事件處理完畢
+ *
+ * @author cheng
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LineWebhookDispatcher implements FlushableBuffer {
+
+    private final LineProperties lineProperties;
+    private final RedisCache redisCache;
+
+    private final TraceTaskDecorator traceTaskDecorator = new TraceTaskDecorator();
+
+    private Lane[] lanes;
+
+    /**
+     * 處理中事件的佔用鍵前綴，與已處理標記分開
+     */
+    private static final String INFLIGHT_KEY = CacheConstants.LINE_WEBHOOK_EVENT_KEY + "inflight:";
+
+    /**
+     * 是否接受新事件，停止服務時關閉
+     */
+    private volatile boolean accepting = true;
+
+    private final LongAdder acceptedCount = new LongAdder();
+    private final LongAdder duplicateCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder processedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final AtomicLong maxQueueDelayMillis = new AtomicLong();
+
+    /**
+     * 單次請求的分派結果
+     *
+     * @param accepted  已入列事件數
+     * @param duplicate 重複（已處理過）事件數
+     * @param rejected  因佇列已滿拒收的事件數
+     */
+    public record DispatchResult(int accepted, int duplicate, int rejected) {
+    }
+
+    @PostConstruct
+    public void init() {
+        LineProperties.Webhook webhook = lineProperties.getWebhook();
+        int threads = Math.max(1, webhook.getWorkerThreads());
+        lanes = new Lane[threads];
+        for (int i = 0; i < threads; i++) {
+            lanes[i] = new Lane(i, Math.max(1, webhook.getQueueCapacity()));
+        }
+        log.info("LINE Webhook 事件分派器啟動，處理執行緒 {} 條，每條佇列長度 {}", threads, webhook.getQueueCapacity());
+    }
+
+    /**
+     * 將事件分派到背景執行緒處理
+     *
+     * @param botBasicId Bot Basic ID（用於日誌）
+     * @param events     Webhook 事件
+     * @param handler    事件處理器（於背景執行緒執行）
+     * @return 分派結果，rejected 大於 0 時呼叫端應回應非 2xx 讓 LINE 重送
+     */
+    public DispatchResult dispatch(String botBasicId, List<Event> events, Consumer<Event> handler) {
+        int accepted = 0;
+        int duplicate = 0;
+        int rejected = 0;
+        // 同一來源已有事件被拒收時，後續事件一併拒收，確保重送時仍依序處理
+        Set<String> rejectedKeys = new HashSet<>();
+
+        for (Event event : events) {
+            String eventId = event.webhookEventId();
+            String orderingKey = orderingKey(botBasicId, event);
+
+            if (rejectedKeys.contains(orderingKey)) {
+                rejected++;
+                continue;
+            }
+            if (!claim(eventId)) {
+                duplicate++;
+                log.debug("[Webhook] 重複事件略過: {}", eventId);
+                continue;
+            }
+
+            Runnable task = traceTaskDecorator.decorate(() -> handler.accept(event));
+            if (accepting && laneOf(orderingKey).offer(eventId, task)) {
+                accepted++;
+            } else {
+                release(eventId);
+                rejectedKeys.add(orderingKey);
+                rejected++;
+            }
+        }
+
+        acceptedCount.add(accepted);
+        duplicateCount.add(duplicate);
+        rejectedCount.add(rejected);
+        if (rejected > 0) {
+            log.warn("[Webhook] 事件佇列已滿，拒收 {} 個事件（botBasicId={}），等待 LINE 重送", rejected, botBasicId);
+        }
+        return new DispatchResult(accepted, duplicate, rejected);
+    }
+
+    /**
+     * 取得分派器統計
+     *
+     * @return 統計資料
+     */
+    public Map<String, Object> getStats() {
+        int queued = 0;
+        int maxDepth = 0;
+        for (Lane lane : lanes) {
+            int depth = lane.queue.size();
+            queued += depth;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("workerThreads", lanes.length);
+        stats.put("queueCapacity", lineProperties.getWebhook().getQueueCapacity());
+        stats.put("queuedCount", queued);
+        stats.put("maxLaneDepth", maxDepth);
+        stats.put("acceptedCount", acceptedCount.sum());
+        stats.put("duplicateCount", duplicateCount.sum());
+        stats.put("rejectedCount", rejectedCount.sum());
+        stats.put("processedCount", processedCount.sum());
+        stats.put("failedCount", failedCount.sum());
+        stats.put("maxQueueDelayMillis", maxQueueDelayMillis.get());
+        return stats;
+    }
+
+    @Override
+    public String getName() {
+        return "LINE Webhook 事件佇列";
+    }
+
+    /**
+     * 停止接收新事件，並等待佇列中的事件處理完畢；逾時仍未處理的事件釋放佔用，由 LINE 重送
+     *
+     * @return 停止時仍在佇列中的事件數
+     */
+    @Override
+    public int flush() {
+        accepting = false;
+        int pending = 0;
+        for (Lane lane : lanes) {
+            pending += lane.queue.size();
+            lane.running = false;
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(lineProperties.getWebhook().getShutdownAwaitSeconds());
+        for (Lane lane : lanes) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            try {
+                lane.thread.join(Math.max(1, remaining));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        for (Lane lane : lanes) {
+            List<QueuedTask> unprocessed = new ArrayList<>();
+            lane.queue.drainTo(unprocessed);
+            if (!unprocessed.isEmpty()) {
+                unprocessed.forEach(queued -> release(queued.eventId()));
+                log.warn("[Webhook] 停止服務逾時，執行緒 {} 尚有 {} 個事件未處理，已釋放佔用等待 LINE 重送",
+                        lane.index, unprocessed.size());
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * 以 Redis SET NX 短期佔用事件 ID，已處理或處理中的事件視為重複；
+     * Redis 不可用時視為未處理（寧可重複處理也不遺漏）
+     */
+    private boolean claim(String eventId) {
+        if (eventId == null) {
+            return true;
+        }
+        try {
+            if (!redisCache.setCacheObjectIfAbsent(INFLIGHT_KEY + eventId, 1,
+                    lineProperties.getWebhook().getClaimTtlSeconds(), TimeUnit.SECONDS)) {
+                return false;
+            }
+            if (Boolean.TRUE.equals(redisCache.hasKey(CacheConstants.LINE_WEBHOOK_EVENT_KEY + eventId))) {
+                release(eventId);
+                return false;
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("[Webhook] 事件去重檢查失敗，照常處理: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * 事件處理成功後寫入已處理標記，再釋放佔用
+     */
+    private void complete(String eventId) {
+        if (eventId == null) {
+            return;
+        }
+        try {
+            redisCache.setCacheObject(CacheConstants.LINE_WEBHOOK_EVENT_KEY + eventId, 1,
+                    (int) lineProperties.getWebhook().getDedupTtlMinutes(), TimeUnit.MINUTES);
+        } catch (Exception e) {
+            log.warn("[Webhook] 寫入事件已處理標記失敗: {}", e.getMessage());
+        }
+        release(eventId);
+    }
+
+    /**
+     * 拒收、處理失敗或停止服務時釋放佔用，讓 LINE 重送的事件能再次入列
+     */
+    private void release(String eventId) {
+        if (eventId == null) {
+            return;
+        }
+        try {
+            redisCache.deleteObject(INFLIGHT_KEY + eventId);
+        } catch (Exception e) {
+            log.warn("[Webhook] 釋放事件 ID 失敗: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 排序鍵：使用者 → 群組 → 聊天室，皆無時以頻道為單位
+     */
+    private String orderingKey(String botBasicId, Event event) {
+        Source source = event.source();
+        if (source != null) {
+            if (source.userId() != null) {
+                return source.userId();
+            }
+            if (source instanceof GroupSource groupSource) {
+                return groupSource.groupId();
+            }
+            if (source instanceof RoomSource roomSource) {
+                return roomSource.roomId();
+            }
+        }
+        return botBasicId;
+    }
+
+    private Lane laneOf(String orderingKey) {
+        return lanes[Math.floorMod(orderingKey == null ? 0 : orderingKey.hashCode(), lanes.length)];
+    }
+
+    /**
+     * 單一處理執行緒與其佇列
+     */
+    private final class Lane implements Runnable {
+
+        private final int index;
+        private final BlockingQueue<QueuedTask> queue;
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        private Lane(int index, int capacity) {
+            this.index = index;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.thread = Thread.ofVirtual().name("line-webhook-" + index).start(this);
+        }
+
+        private boolean offer(String eventId, Runnable task) {
+            try {
+                return queue.offer(new QueuedTask(eventId, task, System.currentTimeMillis()),
+                        lineProperties.getWebhook().getEnqueueTimeoutMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        @Override
+        public void run() {
+            while (running || !queue.isEmpty()) {
+                QueuedTask queued;
+                try {
+                    queued = queue.poll(500, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (queued == null) {
+                    continue;
+                }
+                maxQueueDelayMillis.accumulateAndGet(System.currentTimeMillis() - queued.enqueuedAt(), Math::max);
+                try {
+                    queued.task().run();
+                    complete(queued.eventId());
+                    processedCount.increment();
+                } catch (Exception e) {
+                    release(queued.eventId());
+                    failedCount.increment();
+                    log.error("[Webhook] 事件處理失敗", e);
+                }
+            }
+        }
+    }
+
+    private record QueuedTask(String eventId, Runnable task, long enqueuedAt) {
+    }
+}
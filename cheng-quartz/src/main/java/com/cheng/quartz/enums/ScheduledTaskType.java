@@ -121,6 +121,18 @@ public enum ScheduledTaskType {
             "CSV 商品匯入任務（預設使用內建 classpath:import/prostaff-products.csv）"
     ),
 
+    INV_COUNTER_RECONCILE(
+            "inv_counter_reconcile",
+            "庫存統計計數校正",
+            "由資料庫重新彙總庫存、借出、異動與掃描統計計數，修正累加計數的偏差",
+            "invCounterTask",
+            "reconcile",
+            List.of(),
+            "0 0 3 * * ?",
+            "資料處理",
+            "每日庫存統計計數校正任務"
+    ),
+
     // ==================== LINE 推播任務 ====================
 
     LINE_TAG_PUSH(
@@ -0,0 +1,45 @@
+package com.cheng.quartz.task;
+
+import com.cheng.system.service.IInvCounterService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 庫存統計計數校正定時任務
+ * <p>
+ * 由資料庫重新彙總庫存、借出、異動與掃描計數，修正累加過程中遺漏的異動
+ * <p>
+ * <b>Quartz 設定範例：</b>
+ * <pre>
+ * Bean名稱: invCounterTask
+ * 方法名稱: reconcile
+ * 參數: (無需參數)
+ * </pre>
+ *
+ * @author cheng
+ */
+@Slf4j
+@Component("invCounterTask")
+@RequiredArgsConstructor
+public class InvCounterTask {
+
+    private final IInvCounterService invCounterService;
+
+    /**
+     * 校正庫存統計計數
+     * <p>
+     * <b>執行頻率建議：</b>每日離峰時段執行一次
+     */
+    public void reconcile() {
+        log.info("開始執行庫存統計計數校正任務");
+        Map<String, Long> drift = invCounterService.reconcile();
+        if (drift.isEmpty()) {
+            log.info("庫存統計計數校正完成，計數與資料庫一致");
+        } else {
+            log.warn("庫存統計計數校正完成，共修正 {} 項：{}", drift.size(), drift);
+        }
+    }
+}
@@ -2,10 +2,9 @@ package com.cheng.quartz.task;
 
 import com.alibaba.fastjson2.JSON;
 import com.alibaba.fastjson2.JSONObject;
-import com.cheng.line.domain.LineUserTagRelation;
 import com.cheng.line.dto.SendMessageDTO;
 import com.cheng.line.service.ILineMessageSendService;
-import com.cheng.line.service.ILineUserTagRelationService;
+import com.cheng.line.service.ILineTagResolveService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
@@ -22,7 +21,7 @@ import java.util.stream.Collectors;
  * <b>核心特色：</b>
  * <ul>
  *   <li>支援透過 tagIds 指定多個標籤（取聯集）</li>
- *   <li>支援透過 tagGroupIds 指定標籤群組（由群組運算邏輯解析）</li>
+ *   <li>支援透過 tagGroupIds 指定標籤群組（依群組 AND/OR 運算規則解析）</li>
  *   <li>使用範本發送訊息，支援排程一次性或重複推播</li>
  * </ul>
  * <p>
@@ -45,7 +44,7 @@ public class LineScheduledPushTask {
     private ILineMessageSendService lineMessageSendService;
 
     @Resource
-    private ILineUserTagRelationService lineUserTagRelationService;
+    private ILineTagResolveService lineTagResolveService;
 
     /**
      * 執行標籤推播任務
@@ -118,33 +117,11 @@ public class LineScheduledPushTask {
      * @return 去重後的目標使用者 LINE User ID 集合
      */
     private Set<String> resolveTargetUsers(String tagIdsStr, String tagGroupIdsStr) {
-        Set<String> targetUserIds = new HashSet<>();
-
-        // 解析標籤 ID 對應的使用者
-        if (!isBlank(tagIdsStr)) {
-            List<Long> tagIds = parseCommaSeparatedIds(tagIdsStr);
-            for (Long tagId : tagIds) {
-                List<LineUserTagRelation> relations = lineUserTagRelationService.selectByTagId(tagId);
-                for (LineUserTagRelation relation : relations) {
-                    targetUserIds.add(relation.getLineUserId());
-                }
-            }
-            log.info("透過標籤 {} 解析到 {} 位使用者", tagIdsStr, targetUserIds.size());
-        }
-
-        // 解析標籤群組 ID 對應的使用者
-        // 注意：標籤群組的 AND/OR 邏輯由 TagGroupCalcService 處理，
-        // 此處暫時以群組內的所有標籤取聯集方式查詢
-        if (!isBlank(tagGroupIdsStr)) {
-            List<Long> tagGroupIds = parseCommaSeparatedIds(tagGroupIdsStr);
-            log.info("標籤群組 {} 的使用者解析將由 TagGroupCalcService 處理（待後續整合）", tagGroupIdsStr);
-            // TODO: 整合 TagGroupCalcService 解析群組內使用者
-            // 目前 TagGroupCalcService 在 cheng-system 模組，
-            // 其 executeLineGroupCalc() 只更新計數，不回傳使用者列表。
-            // 後續 Task 會擴充此功能。
-        }
+        List<Long> tagIds = isBlank(tagIdsStr) ? List.of() : parseCommaSeparatedIds(tagIdsStr);
+        List<Long> tagGroupIds = isBlank(tagGroupIdsStr) ? List.of() : parseCommaSeparatedIds(tagGroupIdsStr);
 
-        return targetUserIds;
+        // 標籤聯集與群組 AND/OR 運算統一交由標籤解析服務，以批次查詢載入群組與明細
+        return lineTagResolveService.resolveTargets(tagIds, tagGroupIds);
     }
 
     /**
@@ -2,12 +2,15 @@ package com.cheng.shop.config;
 
 import com.cheng.common.exception.ServiceException;
 import com.cheng.shop.enums.LogisticsSubTypeMode;
+import com.cheng.system.domain.SysConfigSnapshot;
 import com.cheng.system.service.ISysConfigService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -15,6 +18,10 @@ import java.util.Optional;
  * <p>
  * 提供型別安全的設定存取方法，封裝 {@link ISysConfigService}
  * </p>
+ * <p>
+ * 讀取本機參數快照 {@link SysConfigSnapshot}，數值與布林值在快照建立時已解析，預設值也只解析一次，
+ * 結帳等高頻路徑讀取設定時不需存取 Redis，也不建立新物件
+ * </p>
  *
  * @author cheng
  */
@@ -23,6 +30,29 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class ShopConfigService {
 
+    /**
+     * 預先解析的數值預設值（預設值非數值的 key 不在其中）
+     */
+    private static final Map<ShopConfigKey, BigDecimal> DEFAULT_DECIMALS = new EnumMap<>(ShopConfigKey.class);
+
+    /**
+     * 預先解析的整數預設值（預設值非整數的 key 不在其中）
+     */
+    private static final Map<ShopConfigKey, Integer> DEFAULT_INTEGERS = new EnumMap<>(ShopConfigKey.class);
+
+    static {
+        for (ShopConfigKey key : ShopConfigKey.values()) {
+            BigDecimal decimal = SysConfigSnapshot.parseDecimal(key.getDefaultValue());
+            if (decimal != null) {
+                DEFAULT_DECIMALS.put(key, decimal);
+            }
+            Integer integer = SysConfigSnapshot.parseInteger(key.getDefaultValue());
+            if (integer != null) {
+                DEFAULT_INTEGERS.put(key, integer);
+            }
+        }
+    }
+
     private final ISysConfigService sysConfigService;
 
     // ==================== 通用取值方法 ====================
@@ -34,11 +64,8 @@ public class ShopConfigService {
      * @return 設定值，若未設定則返回預設值
      */
     public String getString(ShopConfigKey key) {
-        String value = sysConfigService.selectConfigByKey(key.getCode());
-        if (value == null || value.isBlank()) {
-            return key.getDefaultValue();
-        }
-        return value.trim();
+        String value = sysConfigService.getConfigSnapshot().getString(key.getCode());
+        return value != null ? value : key.getDefaultValue();
     }
 
     /**
@@ -64,17 +91,17 @@ public class ShopConfigService {
      * @return 設定值，解析失敗返回預設值
      */
     public BigDecimal getBigDecimal(ShopConfigKey key) {
-        String value = getString(key);
-        if (value.isBlank()) {
-            value = key.getDefaultValue();
+        SysConfigSnapshot snapshot = sysConfigService.getConfigSnapshot();
+        BigDecimal value = snapshot.getBigDecimal(key.getCode());
+        if (value != null) {
+            return value;
         }
-        try {
-            return new BigDecimal(value);
-        } catch (NumberFormatException e) {
-            log.warn("設定 {} 值無效：{}，使用預設值：{}",
-                    key.getCode(), value, key.getDefaultValue());
-            return new BigDecimal(key.getDefaultValue());
+        warnIfInvalid(snapshot, key);
+        BigDecimal defaultValue = DEFAULT_DECIMALS.get(key);
+        if (defaultValue == null) {
+            throw new NumberFormatException("設定 " + key.getCode() + " 的預設值不是數值：" + key.getDefaultValue());
         }
+        return defaultValue;
     }
 
     /**
@@ -84,17 +111,17 @@ public class ShopConfigService {
      * @return 設定值，解析失敗返回預設值
      */
     public int getInt(ShopConfigKey key) {
-        String value = getString(key);
-        if (value.isBlank()) {
-            value = key.getDefaultValue();
+        SysConfigSnapshot snapshot = sysConfigService.getConfigSnapshot();
+        Integer value = snapshot.getInteger(key.getCode());
+        if (value != null) {
+            return value;
         }
-        try {
-            return Integer.parseInt(value);
-        } catch (NumberFormatException e) {
-            log.warn("設定 {} 值無效：{}，使用預設值：{}",
-                    key.getCode(), value, key.getDefaultValue());
-            return Integer.parseInt(key.getDefaultValue());
+        warnIfInvalid(snapshot, key);
+        Integer defaultValue = DEFAULT_INTEGERS.get(key);
+        if (defaultValue == null) {
+            throw new NumberFormatException("設定 " + key.getCode() + " 的預設值不是整數：" + key.getDefaultValue());
         }
+        return defaultValue;
     }
 
     /**
@@ -107,8 +134,8 @@ public class ShopConfigService {
      * @return 設定值
      */
     public boolean getBoolean(ShopConfigKey key) {
-        String value = getString(key);
-        return "1".equals(value) || "true".equalsIgnoreCase(value) || "yes".equalsIgnoreCase(value);
+        Boolean value = sysConfigService.getConfigSnapshot().getBoolean(key.getCode());
+        return value != null ? value : SysConfigSnapshot.parseBoolean(key.getDefaultValue());
     }
 
     /**
@@ -118,11 +145,17 @@ public class ShopConfigService {
      * @return Optional 包裝的值，未設定或為空時返回 empty
      */
     public Optional<String> getOptional(ShopConfigKey key) {
-        String value = sysConfigService.selectConfigByKey(key.getCode());
-        if (value == null || value.isBlank()) {
-            return Optional.empty();
+        return Optional.ofNullable(sysConfigService.getConfigSnapshot().getString(key.getCode()));
+    }
+
+    /**
+     * 設定有值但無法解析時記錄警告（未設定時直接使用預設值，不記錄）
+     */
+    private void warnIfInvalid(SysConfigSnapshot snapshot, ShopConfigKey key) {
+        String value = snapshot.getString(key.getCode());
+        if (value != null) {
+            log.warn("設定 {} 值無效：{}，使用預設值：{}", key.getCode(), value, key.getDefaultValue());
         }
-        return Optional.of(value.trim());
     }
 
     // ==================== 功能開關便捷方法 ====================
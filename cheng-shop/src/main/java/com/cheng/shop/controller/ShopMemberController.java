@@ -7,6 +7,7 @@ import com.cheng.common.core.page.TableDataInfo;
 import com.cheng.common.constant.PermConstants;
 import com.cheng.common.enums.BusinessType;
 import com.cheng.shop.domain.ShopMember;
+import com.cheng.shop.security.MemberTokenService;
 import com.cheng.shop.service.IShopMemberService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -26,6 +27,7 @@ import java.util.List;
 public class ShopMemberController extends BaseController {
 
     private final IShopMemberService memberService;
+    private final MemberTokenService memberTokenService;
 
     /**
      * 查詢會員列表
@@ -38,6 +40,15 @@ public class ShopMemberController extends BaseController {
         return getDataTable(list);
     }
 
+    /**
+     * 查詢線上會員 token 數
+     */
+    @PreAuthorize("@ss.hasPermi('" + PermConstants.Shop.Member.LIST + "')")
+    @GetMapping("/online/count")
+    public AjaxResult onlineCount() {
+        return success(memberTokenService.getOnlineTokenCount());
+    }
+
     /**
      * 查詢會員詳情
      */
@@ -2,16 +2,21 @@ package com.cheng.shop.security;
 
 import com.cheng.common.constant.CacheConstants;
 import com.cheng.common.constant.Constants;
+import com.cheng.common.core.cache.CacheInvalidationBus;
+import com.cheng.common.core.cache.NearCache;
 import com.cheng.common.core.redis.RedisCache;
 import com.cheng.common.utils.ServletUtils;
 import com.cheng.common.utils.StringUtils;
+import com.cheng.common.utils.bean.BeanUtils;
 import com.cheng.common.utils.ip.AddressUtils;
 import com.cheng.common.utils.ip.IpUtils;
 import com.cheng.common.utils.uuid.IdUtils;
+import com.cheng.shop.domain.ShopMember;
 import eu.bitwalker.useragentutils.UserAgent;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,15 +50,44 @@ public class MemberTokenService {
     protected static final long MILLIS_MINUTE = 60 * MILLIS_SECOND;
     private static final Long MILLIS_MINUTE_TWENTY = 20 * 60 * 1000L;
 
+    @Value("${member-token.near-cache.ttl-seconds:10}")
+    private int nearCacheTtlSeconds;
+
+    @Value("${member-token.near-cache.max-size:10000}")
+    private int nearCacheMaxSize;
+
     @Autowired
     private RedisCache redisCache;
 
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    /**
+     * 已通過密碼變更檢查的登入會員（uuid → ShopMemberLoginUser），命中時不需讀取 Redis
+     */
+    private NearCache<ShopMemberLoginUser> loginUserCache;
+
+    @PostConstruct
+    public void init() {
+        loginUserCache = new NearCache<>(nearCacheMaxSize, nearCacheTtlSeconds, TimeUnit.SECONDS);
+        cacheInvalidationBus.register(CacheConstants.MEMBER_LOGIN_TOKEN_KEY, loginUserCache::invalidate);
+        // 密碼變更時捨棄該會員所有已快取的 token，下次請求重新執行失效檢查
+        cacheInvalidationBus.register(CacheConstants.MEMBER_PWD_CHANGED_KEY, memberId -> {
+            if (memberId == null) {
+                loginUserCache.invalidate(null);
+            } else {
+                loginUserCache.invalidateIf(user -> memberId.equals(String.valueOf(user.getMemberId())));
+            }
+        });
+    }
+
     /**
      * 取得登入會員資訊
      * <p>
      * 包含密碼變更後的 JWT 強制失效檢查：
      * 若 Redis 中存在 {@code member_pwd_changed:{memberId}} 且時間戳晚於 token 建立時間，
      * 表示密碼已變更，此 token 應被視為無效。
+     * 通過檢查的會員資訊保存在本機快取，密碼變更、登出與重新整理時跨節點清除。
      */
     public ShopMemberLoginUser getLoginUser(HttpServletRequest request) {
         String token = getToken(request);
@@ -61,15 +95,14 @@ public class MemberTokenService {
             try {
                 Claims claims = parseToken(token);
                 String uuid = (String) claims.get(Constants.LOGIN_USER_KEY);
-                String userKey = getTokenKey(uuid);
-                ShopMemberLoginUser loginUser = redisCache.getCacheObject(userKey);
-
-                // 密碼變更後的 JWT 強制失效檢查
-                if (loginUser != null && isTokenInvalidatedByPasswordChange(loginUser, userKey)) {
+                ShopMemberLoginUser loginUser = loginUserCache.get(uuid, this::loadLoginUser);
+                if (loginUser != null && loginUser.getExpireTime() != null
+                        && loginUser.getExpireTime() < System.currentTimeMillis()) {
+                    loginUserCache.invalidate(uuid);
                     return null;
                 }
-
-                return loginUser;
+                // 快取中的物件為各請求共用，回傳副本，避免請求中的修改（如重新整理有效期）影響快取
+                return loginUser != null ? copyOf(loginUser) : null;
             } catch (Exception e) {
                 log.error("取得會員資訊異常'{}'", e.getMessage());
             }
@@ -77,6 +110,20 @@ public class MemberTokenService {
         return null;
     }
 
+    /**
+     * 從 Redis 讀取會員資訊並執行密碼變更檢查，已失效時回傳 null
+     */
+    private ShopMemberLoginUser loadLoginUser(String uuid) {
+        String userKey = getTokenKey(uuid);
+        ShopMemberLoginUser loginUser = redisCache.getCacheObject(userKey);
+
+        // 密碼變更後的 JWT 強制失效檢查
+        if (loginUser != null && isTokenInvalidatedByPasswordChange(loginUser, userKey)) {
+            return null;
+        }
+        return loginUser;
+    }
+
     /**
      * 檢查 token 是否因密碼變更而失效
      * <p>
@@ -92,6 +139,7 @@ public class MemberTokenService {
             log.info("會員 {} 的 token 因密碼變更而失效（loginTime={}, pwdChanged={}）",
                     loginUser.getMemberId(), loginUser.getLoginTime(), pwdChangedTime);
             redisCache.deleteObject(userKey);
+            redisCache.deleteCacheZSetValue(CacheConstants.MEMBER_LOGIN_TOKEN_INDEX_KEY, loginUser.getToken());
             return true;
         }
         return false;
@@ -113,6 +161,8 @@ public class MemberTokenService {
         if (StringUtils.isNotEmpty(token)) {
             String userKey = getTokenKey(token);
             redisCache.deleteObject(userKey);
+            redisCache.deleteCacheZSetValue(CacheConstants.MEMBER_LOGIN_TOKEN_INDEX_KEY, token);
+            cacheInvalidationBus.invalidate(CacheConstants.MEMBER_LOGIN_TOKEN_KEY, token);
         }
     }
 
@@ -124,6 +174,8 @@ public class MemberTokenService {
         loginUser.setToken(token);
         setUserAgent(loginUser);
         refreshToken(loginUser);
+        // 登入時順帶清除線上索引中已到期的 token
+        redisCache.deleteCacheZSetRangeByScore(CacheConstants.MEMBER_LOGIN_TOKEN_INDEX_KEY, 0, System.currentTimeMillis());
 
         Map<String, Object> claims = new HashMap<>();
         claims.put(Constants.LOGIN_USER_KEY, token);
@@ -150,6 +202,34 @@ public class MemberTokenService {
         loginUser.setExpireTime(loginUser.getLoginTime() + expireTime * MILLIS_MINUTE);
         String userKey = getTokenKey(loginUser.getToken());
         redisCache.setCacheObject(userKey, loginUser, expireTime, TimeUnit.MINUTES);
+        redisCache.addCacheZSetValue(CacheConstants.MEMBER_LOGIN_TOKEN_INDEX_KEY, loginUser.getToken(), loginUser.getExpireTime());
+        cacheInvalidationBus.invalidate(CacheConstants.MEMBER_LOGIN_TOKEN_KEY, loginUser.getToken());
+        loginUserCache.put(loginUser.getToken(), copyOf(loginUser));
+    }
+
+    /**
+     * 複製登入會員（ShopMember 一併複製），本機快取只保存不對外流出的副本
+     *
+     * @param source 登入會員
+     * @return 副本
+     */
+    private static ShopMemberLoginUser copyOf(ShopMemberLoginUser source) {
+        ShopMemberLoginUser copy = new ShopMemberLoginUser();
+        BeanUtils.copyBeanProp(copy, source);
+        if (source.getMember() != null) {
+            ShopMember member = new ShopMember();
+            BeanUtils.copyBeanProp(member, source.getMember());
+            copy.setMember(member);
+        }
+        return copy;
+    }
+
+    /**
+     * 取得線上會員 token 數（先清除索引中已到期的 token）
+     */
+    public long getOnlineTokenCount() {
+        redisCache.deleteCacheZSetRangeByScore(CacheConstants.MEMBER_LOGIN_TOKEN_INDEX_KEY, 0, System.currentTimeMillis());
+        return redisCache.getCacheZSetSize(CacheConstants.MEMBER_LOGIN_TOKEN_INDEX_KEY);
     }
 
     /**
@@ -1,6 +1,7 @@
 package com.cheng.shop.service;
 
 import com.cheng.common.constant.CacheConstants;
+import com.cheng.common.core.cache.CacheInvalidationBus;
 import com.cheng.common.core.redis.RedisCache;
 import com.cheng.common.exception.ServiceException;
 import com.cheng.common.utils.SecurityUtils;
@@ -46,6 +47,7 @@ public class ShopPasswordResetService {
     private final ShopConfigService configService;
     private final ShopPasswordPolicyService passwordPolicyService;
     private final RedisCache redisCache;
+    private final CacheInvalidationBus cacheInvalidationBus;
 
     private static final SecureRandom SECURE_RANDOM = new SecureRandom();
 
@@ -199,6 +201,7 @@ public class ShopPasswordResetService {
         // 7. 寫入 Redis，供 JWT 失效檢查（TTL = token 最長壽命 7 天）
         String pwdChangedKey = CacheConstants.MEMBER_PWD_CHANGED_KEY + member.getMemberId();
         redisCache.setCacheObject(pwdChangedKey, now.getTime(), PWD_CHANGED_TTL_DAYS, TimeUnit.DAYS);
+        cacheInvalidationBus.invalidate(CacheConstants.MEMBER_PWD_CHANGED_KEY, String.valueOf(member.getMemberId()));
 
         // 8. 寄送密碼變更通知 email
         mailService.sendPasswordChangedNotification(resetRecord.getEmail(), ipAddress, userAgent);
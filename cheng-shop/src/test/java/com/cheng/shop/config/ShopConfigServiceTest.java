@@ -0,0 +1,83 @@
+package com.cheng.shop.config;
+
+import com.cheng.common.exception.ServiceException;
+import com.cheng.system.domain.SysConfig;
+import com.cheng.system.domain.SysConfigSnapshot;
+import com.cheng.system.service.ISysConfigService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link ShopConfigService} 讀取參數快照的單元測試。
+ */
+@ExtendWith(MockitoExtension.class)
+class ShopConfigServiceTest {
+
+    @Mock
+    private ISysConfigService sysConfigService;
+
+    @InjectMocks
+    private ShopConfigService shopConfig;
+
+    @Test
+    @DisplayName("數值與布林值直接取自快照，多次讀取回傳同一個已解析的物件")
+    void readsParsedValues() {
+        givenConfigs("shop.logistics.home_delivery_fee", " 120 ",
+                "shop.logistics.cvs_store_expire_minutes", "45",
+                "shop.gift.enabled", "Yes");
+
+        BigDecimal fee = shopConfig.getHomeDeliveryFee();
+        assertThat(fee).isEqualByComparingTo("120");
+        assertThat(shopConfig.getHomeDeliveryFee()).isSameAs(fee);
+        assertThat(shopConfig.getCvsStoreExpireMinutes()).isEqualTo(45);
+        assertThat(shopConfig.isGiftEnabled()).isTrue();
+    }
+
+    @Test
+    @DisplayName("未設定、空白或無法解析時使用預設值")
+    void fallsBackToDefaults() {
+        givenConfigs("shop.logistics.home_delivery_fee", "   ",
+                "shop.logistics.cvs_fee", "abc",
+                "shop.logistics.cvs_store_expire_minutes", "1.5");
+
+        assertThat(shopConfig.getHomeDeliveryFee()).isEqualByComparingTo("100");
+        assertThat(shopConfig.getCvsFee()).isEqualByComparingTo("60");
+        assertThat(shopConfig.getCvsStoreExpireMinutes()).isEqualTo(30);
+        assertThat(shopConfig.isGiftEnabled()).isFalse();
+        assertThat(shopConfig.getEcpayMode()).isEqualTo("test");
+        assertThat(shopConfig.getOptional(ShopConfigKey.LOGISTICS_HOME_DELIVERY_FEE)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("必填設定未設定時拋出異常")
+    void requiredStringMissing() {
+        givenConfigs("shop.ecpay.merchant_id", " ");
+
+        assertThatThrownBy(() -> shopConfig.getEcpayMerchantId())
+                .isInstanceOf(ServiceException.class)
+                .hasMessageContaining("shop.ecpay.merchant_id");
+    }
+
+    private void givenConfigs(String... keyValues) {
+        List<SysConfig> configs = new ArrayList<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            SysConfig config = new SysConfig();
+            config.setConfigKey(keyValues[i]);
+            config.setConfigValue(keyValues[i + 1]);
+            configs.add(config);
+        }
+        when(sysConfigService.getConfigSnapshot()).thenReturn(new SysConfigSnapshot(1L, configs));
+    }
+}
@@ -0,0 +1,122 @@
+package com.cheng.system.buffer;
+
+import com.cheng.common.core.buffer.BatchWriteBuffer;
+import com.cheng.system.domain.InvScanLog;
+import com.cheng.system.mapper.InvScanLogMapper;
+import com.cheng.system.service.IInvCounterService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * 掃描記錄寫回緩衝
+ * <p>
+ * 手持裝置連續掃描時，每次掃描原本都要同步寫入一筆 inv_scan_log。
+ * 此緩衝將掃描記錄先收集於記憶體，再以多列 INSERT 批次寫入，寫入後依掃描類型與結果彙總累加掃描統計計數。
+ * <p>
+ * 觸發時機：累積達 writeBatchSize 筆、每 flushIntervalMillis 毫秒定時、服務停止（ShutdownManager）。
+ * 佇列有容量上限，滿載時由寫入端同步排空，確保記憶體用量有界。
+ * <p>
+ * 批次寫入失敗時依 retryTimes 指數退避重試；仍失敗則保留該批並停止本次排空，下次寫入時優先重試，不捨棄掃描記錄。
+ *
+ * @author cheng
+ */
+@Component
+public class InvScanLogWriteBuffer extends BatchWriteBuffer<InvScanLog> {
+
+    private @Resource InvScanLogMapper invScanLogMapper;
+    private @Resource IInvCounterService invCounterService;
+    private @Resource ScheduledExecutorService scheduledExecutorService;
+
+    /**
+     * 每批寫入筆數
+     */
+    @Value("${inventory.scan-log.write-batch-size:200}")
+    private int writeBatchSize;
+
+    /**
+     * 緩衝容量上限
+     */
+    @Value("${inventory.scan-log.write-buffer-capacity:10000}")
+    private int writeBufferCapacity;
+
+    /**
+     * 定時寫入間隔（毫秒）
+     */
+    @Value("${inventory.scan-log.flush-interval-millis:1000}")
+    private long flushIntervalMillis;
+
+    /**
+     * 批次寫入失敗時的重試次數
+     */
+    @Value("${inventory.scan-log.retry-times:3}")
+    private int retryTimes;
+
+    /**
+     * 重試基準延遲（毫秒），第 n 次重試延遲為 base * 2^(n-1)
+     */
+    @Value("${inventory.scan-log.retry-base-delay-millis:200}")
+    private long retryBaseDelayMillis;
+
+    @PostConstruct
+    public void init() {
+        start(writeBufferCapacity, flushIntervalMillis, scheduledExecutorService);
+    }
+
+    /**
+     * 加入一筆掃描記錄
+     *
+     * @param scanLog 掃描記錄
+     */
+    public void add(InvScanLog scanLog) {
+        enqueue(scanLog);
+    }
+
+    @Override
+    public String getName() {
+        return "InvScanLogWriteBuffer";
+    }
+
+    @Override
+    protected int getBatchSize() {
+        return writeBatchSize;
+    }
+
+    @Override
+    protected int getRetryTimes() {
+        return retryTimes;
+    }
+
+    @Override
+    protected long getRetryBaseDelayMillis() {
+        return retryBaseDelayMillis;
+    }
+
+    @Override
+    protected void writeBatch(List<InvScanLog> chunk) {
+        invScanLogMapper.insertInvScanLogBatch(chunk);
+    }
+
+    /**
+     * 寫入成功後依（掃描類型, 掃描結果）彙總，每組只累加一次掃描統計
+     *
+     * @param chunk 已寫入的掃描記錄
+     */
+    @Override
+    protected void afterWrite(List<InvScanLog> chunk) {
+        Map<ScanGroup, Long> counts = new HashMap<>();
+        for (InvScanLog scanLog : chunk) {
+            counts.merge(new ScanGroup(scanLog.getScanType(), scanLog.getScanResult()), 1L, Long::sum);
+        }
+        counts.forEach((group, count) -> invCounterService.recordScan(group.scanType(), group.scanResult(), count));
+    }
+
+    private record ScanGroup(String scanType, String scanResult) {
+    }
+}
@@ -196,6 +196,11 @@ public class InvItem extends BaseEntity {
      */
     private transient Long tagId;
 
+    /**
+     * 通用關鍵字（查詢條件用，同時模糊比對品名、編碼、條碼、品牌、型號與供應商）
+     */
+    private transient String keyword;
+
     public InvItem() {
     }
 
@@ -0,0 +1,171 @@
+package com.cheng.system.domain;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 參數設定快照
+ * <p>
+ * 建立時一次載入全部參數，並預先解析數值與布林值；快照建立後不再變動，可跨執行緒共用。
+ * 讀取只需一次 Map 查詢，不建立新物件。參數異動時整份快照捨棄重建，由版本號區分先後。
+ *
+ * @author cheng
+ */
+public final class SysConfigSnapshot {
+
+    /**
+     * 快照版本（每次參數異動遞增）
+     */
+    private final long version;
+
+    /**
+     * 載入時間（System.nanoTime）
+     */
+    private final long loadedAt;
+
+    private final Map<String, Value> values;
+
+    /**
+     * 單一參數的原始值與預先解析的結果
+     *
+     * @param raw        原始值
+     * @param text       去除前後空白後的值，空白時為 null
+     * @param decimal    數值，非數值時為 null
+     * @param integer    整數，非整數時為 null
+     * @param booleanVal 布林值（1 / true / yes 為 true），空白時為 null
+     */
+    private record Value(String raw, String text, BigDecimal decimal, Integer integer, Boolean booleanVal) {
+    }
+
+    public SysConfigSnapshot(long version, List<SysConfig> configs) {
+        this.version = version;
+        this.loadedAt = System.nanoTime();
+        Map<String, Value> map = new HashMap<>(Math.max(16, configs.size() * 2));
+        for (SysConfig config : configs) {
+            map.put(config.getConfigKey(), parse(config.getConfigValue()));
+        }
+        this.values = Collections.unmodifiableMap(map);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getLoadedAt() {
+        return loadedAt;
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * 取得原始參數值
+     *
+     * @param configKey 參數鍵
+     * @return 參數值，不存在時為 null
+     */
+    public String getRaw(String configKey) {
+        Value value = values.get(configKey);
+        return value != null ? value.raw() : null;
+    }
+
+    /**
+     * 取得去除前後空白的參數值
+     *
+     * @param configKey 參數鍵
+     * @return 參數值，不存在或空白時為 null
+     */
+    public String getString(String configKey) {
+        Value value = values.get(configKey);
+        return value != null ? value.text() : null;
+    }
+
+    /**
+     * 取得數值參數
+     *
+     * @param configKey 參數鍵
+     * @return 數值，不存在、空白或無法解析時為 null
+     */
+    public BigDecimal getBigDecimal(String configKey) {
+        Value value = values.get(configKey);
+        return value != null ? value.decimal() : null;
+    }
+
+    /**
+     * 取得整數參數
+     *
+     * @param configKey 參數鍵
+     * @return 整數，不存在、空白或無法解析時為 null
+     */
+    public Integer getInteger(String configKey) {
+        Value value = values.get(configKey);
+        return value != null ? value.integer() : null;
+    }
+
+    /**
+     * 取得布林參數（1 / true / yes 為 true，不分大小寫）
+     *
+     * @param configKey 參數鍵
+     * @return 布林值，不存在或空白時為 null
+     */
+    public Boolean getBoolean(String configKey) {
+        Value value = values.get(configKey);
+        return value != null ? value.booleanVal() : null;
+    }
+
+    private static Value parse(String raw) {
+        String text = raw != null && !raw.isBlank() ? raw.trim() : null;
+        if (text == null) {
+            return new Value(raw, null, null, null, null);
+        }
+        return new Value(raw, text, parseDecimal(text), parseInteger(text), parseBoolean(text));
+    }
+
+    /**
+     * 解析數值，失敗時回傳 null
+     *
+     * @param text 字串
+     * @return 數值
+     */
+    public static BigDecimal parseDecimal(String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        try {
+            return new BigDecimal(text.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 解析整數，失敗時回傳 null
+     *
+     * @param text 字串
+     * @return 整數
+     */
+    public static Integer parseInteger(String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(text.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 解析布林值（1 / true / yes 為 true）
+     *
+     * @param text 字串
+     * @return 布林值
+     */
+    public static boolean parseBoolean(String text) {
+        return "1".equals(text) || "true".equalsIgnoreCase(text) || "yes".equalsIgnoreCase(text);
+    }
+}
@@ -412,7 +412,7 @@ public class InvItemWithStockDTO implements Serializable {
     private String tagName;
 
     /**
-     * 通用關鍵字（同時模糊比對 item_name / item_code / barcode）
+     * 通用關鍵字（同時模糊比對品名、編碼、條碼、品牌、型號與供應商）
      */
     private String keyword;
 }
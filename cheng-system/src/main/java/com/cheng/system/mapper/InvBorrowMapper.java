@@ -2,9 +2,11 @@ package com.cheng.system.mapper;
 
 import com.cheng.system.domain.InvBorrow;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 借出記錄 數據層
@@ -36,6 +38,14 @@ public interface InvBorrowMapper {
      */
     List<InvBorrow> selectInvBorrowList(InvBorrow invBorrow);
 
+    /**
+     * 串流查詢借出記錄列表（逐列回呼，不將結果集載入記憶體）
+     *
+     * @param invBorrow 借出記錄
+     * @param handler 逐列處理器
+     */
+    void streamInvBorrowList(InvBorrow invBorrow, ResultHandler<InvBorrow> handler);
+
     /**
      * 查詢逾期借出記錄列表
      *
@@ -126,6 +136,27 @@ public interface InvBorrowMapper {
      */
     int countTodayBorrows();
 
+    /**
+     * 依狀態分組統計借出記錄數量
+     *
+     * @return 各狀態筆數（status, count）
+     */
+    List<Map<String, Object>> selectBorrowStatusCounts();
+
+    /**
+     * 統計逾期未還的借出記錄數量
+     *
+     * @return 逾期筆數
+     */
+    int countOverdueBorrows();
+
+    /**
+     * 查詢借出中記錄的預計歸還時間
+     *
+     * @return 借出中記錄（borrowId, expectedReturn）
+     */
+    List<Map<String, Object>> selectBorrowedDueList();
+
     /**
      * 檢查物品是否有未完成的借出記錄
      * 未完成狀態包括：待審核(0)、已借出(1)、部分歸還(4)、逾期(5)
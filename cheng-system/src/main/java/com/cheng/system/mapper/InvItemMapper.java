@@ -4,7 +4,9 @@ import com.cheng.system.domain.InvItem;
 import com.cheng.system.dto.InvItemWithStockDTO;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.session.ResultHandler;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -54,6 +56,22 @@ public interface InvItemMapper {
      */
     InvItem selectInvItemByQrCode(String qrCode);
 
+    /**
+     * 根據條碼查詢未刪除物品的ID（掃描碼快取使用）
+     *
+     * @param barcode 條碼
+     * @return 物品ID，查無時為 null
+     */
+    Long selectActiveItemIdByBarcode(String barcode);
+
+    /**
+     * 根據QR碼查詢未刪除物品的ID（掃描碼快取使用）
+     *
+     * @param qrCode QR碼
+     * @return 物品ID，查無時為 null
+     */
+    Long selectActiveItemIdByQrCode(String qrCode);
+
     /**
      * 根據 ISBN 查詢物品資訊
      *
@@ -116,6 +134,22 @@ public interface InvItemMapper {
      */
     List<InvItemWithStockDTO> selectItemWithStockList(InvItemWithStockDTO dto);
 
+    /**
+     * 統計物品與庫存整合列表筆數
+     *
+     * @param dto 查詢條件
+     * @return 筆數
+     */
+    int countItemWithStock(InvItemWithStockDTO dto);
+
+    /**
+     * 串流查詢物品與庫存整合列表（逐列回呼，不將結果集載入記憶體）
+     *
+     * @param dto     查詢條件
+     * @param handler 逐列處理器
+     */
+    void streamItemWithStockList(InvItemWithStockDTO dto, ResultHandler<InvItemWithStockDTO> handler);
+
     /**
      * 根據物品ID查詢物品與庫存整合資訊
      *
@@ -208,4 +242,35 @@ public interface InvItemMapper {
      * @return 存在的物品編碼與 ID 對應列表
      */
     List<Map<String, Object>> selectExistingItemCodes(@Param("itemCodes") List<String> itemCodes);
+
+    /**
+     * 查詢匯入比對用的物品鍵值（ID、編碼、名稱、分類）
+     *
+     * @return 物品鍵值列表
+     */
+    List<InvItem> selectImportKeyList();
+
+    /**
+     * 依物品編碼批次查詢物品ID
+     *
+     * @param itemCodes 物品編碼集合
+     * @return 物品（僅含 ID 與編碼）
+     */
+    List<InvItem> selectItemIdsByItemCodes(@Param("itemCodes") Collection<String> itemCodes);
+
+    /**
+     * 批次新增物品（單一多列 INSERT，編碼重複時改為更新）
+     *
+     * @param items 物品列表
+     * @return 影響行數
+     */
+    int insertInvItemBatch(@Param("items") List<InvItem> items);
+
+    /**
+     * 批次更新物品（以 item_id 命中既有資料，只覆寫有值的欄位）
+     *
+     * @param items 物品列表（item_id、item_code、item_name、category_id 必填）
+     * @return 影響行數
+     */
+    int upsertInvItemBatch(@Param("items") List<InvItem> items);
 }
@@ -1,16 +1,40 @@
 package com.cheng.system.mapper;
 
 import com.cheng.system.domain.InvScanLog;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
+
 import java.util.List;
+import java.util.Map;
 
 public interface InvScanLogMapper {
     /**
      * 查詢掃描記錄列表
      */
     List<InvScanLog> selectInvScanLogList(InvScanLog invScanLog);
+
+    /**
+     * 串流查詢掃描記錄列表（逐列回呼，不將結果集載入記憶體）
+     */
+    void streamInvScanLogList(InvScanLog invScanLog, ResultHandler<InvScanLog> handler);
     
     /**
      * 新增掃描記錄
      */
     int insertInvScanLog(InvScanLog log);
+
+    /**
+     * 批次新增掃描記錄
+     *
+     * @param logs 掃描記錄列表
+     * @return 新增筆數
+     */
+    int insertInvScanLogBatch(@Param("logs") List<InvScanLog> logs);
+
+    /**
+     * 依掃描類型與結果分組統計掃描記錄數量
+     *
+     * @return 各組筆數（scan_type, scan_result, count）
+     */
+    List<Map<String, Object>> selectScanTypeResultCounts();
 }
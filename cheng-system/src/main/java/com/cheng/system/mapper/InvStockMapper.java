@@ -3,8 +3,10 @@ package com.cheng.system.mapper;
 import com.cheng.system.domain.InvStock;
 import com.cheng.system.dto.InvStockStatisticsDTO;
 import org.apache.ibatis.annotations.*;
+import org.apache.ibatis.session.ResultHandler;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 庫存 數據層
@@ -36,6 +38,14 @@ public interface InvStockMapper {
      */
     List<InvStock> selectInvStockList(InvStock invStock);
 
+    /**
+     * 串流查詢庫存列表（逐列回呼，不將結果集載入記憶體）
+     *
+     * @param invStock 庫存
+     * @param handler 逐列處理器
+     */
+    void streamInvStockList(InvStock invStock, ResultHandler<InvStock> handler);
+
     /**
      * 查詢低庫存列表
      *
@@ -64,6 +74,13 @@ public interface InvStockMapper {
     })
     List<InvStockStatisticsDTO> selectStockStatistics();
 
+    /**
+     * 彙總庫存報表統計（品項數、總數量、可用數量、低庫存與無庫存品項數）
+     *
+     * @return 統計結果
+     */
+    Map<String, Object> selectStockReportSummary();
+
     /**
      * 新增庫存
      *
@@ -194,4 +211,12 @@ public interface InvStockMapper {
      * @return 結果
      */
     int deleteInvStockByStockIds(Long[] stockIds);
+
+    /**
+     * 批次建立庫存（物品已有庫存時略過）
+     *
+     * @param stocks 庫存列表
+     * @return 影響行數
+     */
+    int insertInvStockBatch(@Param("stocks") List<InvStock> stocks);
 }
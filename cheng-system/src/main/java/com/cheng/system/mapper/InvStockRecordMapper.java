@@ -1,8 +1,12 @@
 package com.cheng.system.mapper;
 
 import com.cheng.system.domain.InvStockRecord;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
 
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 庫存異動記錄 數據層
@@ -26,6 +30,14 @@ public interface InvStockRecordMapper {
      */
     List<InvStockRecord> selectInvStockRecordList(InvStockRecord invStockRecord);
 
+    /**
+     * 串流查詢庫存異動記錄列表（逐列回呼，不將結果集載入記憶體）
+     *
+     * @param invStockRecord 庫存異動記錄
+     * @param handler 逐列處理器
+     */
+    void streamInvStockRecordList(InvStockRecord invStockRecord, ResultHandler<InvStockRecord> handler);
+
     /**
      * 根據物品ID查詢庫存異動記錄
      *
@@ -81,4 +93,36 @@ public interface InvStockRecordMapper {
      * @return 刪除記錄數
      */
     int deleteInvStockRecordByItemId(Long itemId);
+
+    /**
+     * 批次新增庫存異動記錄
+     *
+     * @param records 庫存異動記錄列表
+     * @return 結果
+     */
+    int insertInvStockRecordBatch(@Param("records") List<InvStockRecord> records);
+
+    /**
+     * 依異動類型分組統計異動記錄數量
+     *
+     * @return 各類型筆數（record_type, count）
+     */
+    List<Map<String, Object>> selectRecordTypeCounts();
+
+    /**
+     * 依異動類型分組統計指定物品的異動記錄數量
+     *
+     * @param itemId 物品ID
+     * @return 各類型筆數（record_type, count）
+     */
+    List<Map<String, Object>> selectRecordTypeCountsByItemId(Long itemId);
+
+    /**
+     * 統計指定時間區間內的異動記錄數量
+     *
+     * @param beginTime 開始時間（含）
+     * @param endTime   結束時間（不含）
+     * @return 筆數
+     */
+    int countRecordsByTimeRange(@Param("beginTime") Date beginTime, @Param("endTime") Date endTime);
 }
@@ -36,6 +36,13 @@ public interface SysDeptMapper {
      */
     SysDept selectDeptById(Long deptId);
 
+    /**
+     * 查詢全部部門的ID與祖級列表（含已刪除，數據權限快取計算子部門使用）
+     *
+     * @return 部門列表
+     */
+    List<SysDept> selectDeptAncestorsAll();
+
     /**
      * 根據ID查詢所有子部門
      *
@@ -34,6 +34,13 @@ public interface SysRoleDeptMapper {
      */
     int selectCountRoleDeptByDeptId(Long deptId);
 
+    /**
+     * 查詢全部角色部門關聯（數據權限快取使用）
+     *
+     * @return 角色部門關聯列表
+     */
+    List<SysRoleDept> selectRoleDeptAll();
+
     /**
      * 批次新增角色部門訊息
      *
@@ -3,6 +3,7 @@ package com.cheng.system.mapper;
 import com.cheng.system.domain.SysTagGroupDetail;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -20,6 +21,14 @@ public interface SysTagGroupDetailMapper {
      */
     List<SysTagGroupDetail> selectByGroupId(Long groupId);
 
+    /**
+     * 批次查詢多個群組的明細（含標籤名稱與顏色）
+     *
+     * @param groupIds 群組ID列表
+     * @return 明細列表（依群組、順序排列）
+     */
+    List<SysTagGroupDetail> selectByGroupIds(@Param("groupIds") Collection<Long> groupIds);
+
     /**
      * 批次新增群組明細
      *
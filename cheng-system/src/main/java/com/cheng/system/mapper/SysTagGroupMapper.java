@@ -3,6 +3,7 @@ package com.cheng.system.mapper;
 import com.cheng.system.domain.SysTagGroup;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -28,6 +29,14 @@ public interface SysTagGroupMapper {
      */
     SysTagGroup selectSysTagGroupById(Long groupId);
 
+    /**
+     * 批次查詢標籤群組
+     *
+     * @param groupIds 群組ID列表
+     * @return 標籤群組集合
+     */
+    List<SysTagGroup> selectSysTagGroupByIds(@Param("groupIds") Collection<Long> groupIds);
+
     /**
      * 根據群組代碼查詢
      *
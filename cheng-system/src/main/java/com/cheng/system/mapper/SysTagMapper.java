@@ -3,6 +3,7 @@ package com.cheng.system.mapper;
 import com.cheng.system.domain.SysTag;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -20,6 +21,14 @@ public interface SysTagMapper {
      */
     SysTag selectSysTagByTagId(Long tagId);
 
+    /**
+     * 批次查詢標籤
+     *
+     * @param tagIds 標籤ID列表
+     * @return 標籤集合
+     */
+    List<SysTag> selectByTagIds(@Param("tagIds") Collection<Long> tagIds);
+
     /**
      * 根據標籤代碼查詢標籤
      *
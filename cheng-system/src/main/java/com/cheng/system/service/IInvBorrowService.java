@@ -3,6 +3,7 @@ package com.cheng.system.service;
 import com.cheng.system.domain.InvBorrow;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 借出記錄 服務層
@@ -34,6 +35,14 @@ public interface IInvBorrowService {
      */
     List<InvBorrow> selectInvBorrowList(InvBorrow invBorrow);
 
+    /**
+     * 串流查詢借出記錄列表，逐筆交給 consumer 處理（用於大量匯出）
+     *
+     * @param invBorrow 借出記錄
+     * @param consumer 逐筆處理
+     */
+    void streamInvBorrowList(InvBorrow invBorrow, Consumer<InvBorrow> consumer);
+
     /**
      * 查詢逾期借出記錄列表
      *
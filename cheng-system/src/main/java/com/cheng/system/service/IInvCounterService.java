@@ -0,0 +1,118 @@
+package com.cheng.system.service;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * 庫存統計計數器 服務層
+ * <p>
+ * 於物品、庫存、借出與掃描異動時累加計數，報表與儀表板直接讀取計數結果；
+ * 無法得知增量的批次異動（匯入）標記為失效，下次讀取時重新彙總。
+ *
+ * @author cheng
+ */
+public interface IInvCounterService {
+
+    String TOTAL_ITEMS = "totalItems";
+    String TOTAL_QUANTITY = "totalQuantity";
+    String AVAILABLE_QUANTITY = "availableQuantity";
+    String LOW_STOCK_ITEMS = "lowStockItems";
+    String OUT_OF_STOCK_ITEMS = "outOfStockItems";
+    String BORROW_PREFIX = "borrow:";
+    String RECORD_PREFIX = "record:";
+    String SCAN_PREFIX = "scan:";
+
+    /**
+     * 單一物品對庫存彙總的貢獻
+     *
+     * @param minStock      最低庫存
+     * @param totalQuantity 總數量
+     * @param availableQty  可用數量
+     */
+    record ItemState(Integer minStock, int totalQuantity, int availableQty) {
+    }
+
+    /**
+     * 庫存數量異動
+     *
+     * @param minStock       最低庫存
+     * @param beforeTotal    異動前總數量
+     * @param afterTotal     異動後總數量
+     * @param availableDelta 可用數量變化
+     */
+    void recordStockChange(Integer minStock, int beforeTotal, int afterTotal, int availableDelta);
+
+    /**
+     * 物品新增、刪除或最低庫存變更
+     *
+     * @param before 異動前狀態（新增時為 null）
+     * @param after  異動後狀態（刪除時為 null）
+     */
+    void recordItemChange(ItemState before, ItemState after);
+
+    /**
+     * 新增庫存異動記錄
+     *
+     * @param recordType 異動類型
+     */
+    void recordStockRecord(String recordType);
+
+    /**
+     * 刪除庫存異動記錄
+     *
+     * @param countsByType 異動類型 → 刪除筆數
+     */
+    void recordStockRecordsRemoved(Map<String, Long> countsByType);
+
+    /**
+     * 借出記錄狀態轉換
+     *
+     * @param borrowId       借出記錄ID
+     * @param fromStatus     原狀態（新增時為 null）
+     * @param toStatus       新狀態（刪除時為 null）
+     * @param expectedReturn 預計歸還時間
+     */
+    void recordBorrowTransition(Long borrowId, String fromStatus, String toStatus, Date expectedReturn);
+
+    /**
+     * 新增掃描記錄
+     *
+     * @param scanType   掃描類型
+     * @param scanResult 掃描結果
+     * @param count      新增筆數
+     */
+    void recordScan(String scanType, String scanResult, long count);
+
+    /**
+     * 標記計數失效，下次讀取時重新彙總
+     */
+    void markStale();
+
+    /**
+     * 取得所有計數（失效時先重新彙總）
+     *
+     * @return 計數名稱 → 數值
+     */
+    Map<String, Long> getCounters();
+
+    /**
+     * 取得逾期未還的借出記錄數量
+     *
+     * @return 逾期筆數
+     */
+    long countOverdueBorrows();
+
+    /**
+     * 取得今日庫存異動記錄數量
+     *
+     * @return 今日筆數
+     */
+    long countTodayRecords();
+
+    /**
+     * 由資料庫重新彙總所有計數並覆寫
+     *
+     * @return 與原計數不一致的項目（計數名稱 → 校正差值）
+     */
+    Map<String, Long> reconcile();
+}
@@ -10,6 +10,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 物品資訊 服務層
@@ -65,13 +66,20 @@ public interface IInvItemService {
     List<InvItem> selectLowStockItemList();
 
     /**
-     * 掃描條碼或QR碼取得物品資訊
+     * 掃描條碼或QR碼取得物品與庫存資訊（含庫存狀態與價值）
      *
      * @param scanCode 掃描內容
      * @param scanType 掃描類型（1條碼 2QR碼）
-     * @return 物品資訊
+     * @return 物品與庫存資訊，查無物品時為 null
+     */
+    InvItemWithStockDTO scanItemWithStock(String scanCode, String scanType);
+
+    /**
+     * 取得掃描碼快取統計
+     *
+     * @return 統計資料
      */
-    InvItem scanItemByCode(String scanCode, String scanType);
+    Map<String, Object> getScanCacheStats();
 
     /**
      * 新增物品資訊
@@ -0,0 +1,38 @@
+package com.cheng.system.service;
+
+import java.util.Map;
+
+/**
+ * 庫存報表統計 服務層
+ *
+ * @author cheng
+ */
+public interface IInvReportService {
+    /**
+     * 取得庫存統計（品項數、總數量、低庫存與無庫存品項數）
+     *
+     * @return 統計資料
+     */
+    Map<String, Object> getStockStatistics();
+
+    /**
+     * 取得借出統計（各狀態筆數與逾期筆數）
+     *
+     * @return 統計資料
+     */
+    Map<String, Object> getBorrowStatistics();
+
+    /**
+     * 取得庫存異動統計（各類型筆數與今日筆數）
+     *
+     * @return 統計資料
+     */
+    Map<String, Object> getMovementStatistics();
+
+    /**
+     * 取得掃描統計（成功 / 失敗與各掃描類型筆數）
+     *
+     * @return 統計資料
+     */
+    Map<String, Object> getScanStatistics();
+}
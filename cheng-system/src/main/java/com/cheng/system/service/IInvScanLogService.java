@@ -2,15 +2,26 @@ package com.cheng.system.service;
 
 import com.cheng.system.domain.InvScanLog;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface IInvScanLogService {
     /**
      * 查詢掃描記錄列表
      */
     List<InvScanLog> selectInvScanLogList(InvScanLog invScanLog);
+
+    /**
+     * 串流查詢掃描記錄列表，逐筆交給 consumer 處理
+     */
+    void streamInvScanLogList(InvScanLog invScanLog, Consumer<InvScanLog> consumer);
     
     /**
      * 新增掃描記錄
      */
     int insertInvScanLog(InvScanLog log);
+
+    /**
+     * 非同步新增掃描記錄（加入寫回緩衝，批次寫入）
+     */
+    void submitInvScanLog(InvScanLog log);
 }
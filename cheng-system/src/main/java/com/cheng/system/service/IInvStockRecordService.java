@@ -1,6 +1,7 @@
 package com.cheng.system.service;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import com.cheng.system.domain.InvStockRecord;
 
@@ -27,6 +28,14 @@ public interface IInvStockRecordService {
      */
     List<InvStockRecord> selectInvStockRecordList(InvStockRecord invStockRecord);
 
+    /**
+     * 串流查詢庫存異動記錄列表，逐筆交給 consumer 處理（用於大量匯出）
+     *
+     * @param invStockRecord 庫存異動記錄
+     * @param consumer 逐筆處理
+     */
+    void streamInvStockRecordList(InvStockRecord invStockRecord, Consumer<InvStockRecord> consumer);
+
     /**
      * 新增庫存異動記錄
      *
@@ -4,6 +4,7 @@ import com.cheng.system.domain.InvStock;
 import com.cheng.system.dto.InvStockStatisticsDTO;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 庫存 服務層
@@ -35,6 +36,14 @@ public interface IInvStockService {
      */
     List<InvStock> selectInvStockList(InvStock invStock);
 
+    /**
+     * 串流查詢庫存列表，逐筆交給 consumer 處理（用於大量匯出）
+     *
+     * @param invStock 庫存
+     * @param consumer 逐筆處理
+     */
+    void streamInvStockList(InvStock invStock, Consumer<InvStock> consumer);
+
     /**
      * 查詢低庫存列表
      *
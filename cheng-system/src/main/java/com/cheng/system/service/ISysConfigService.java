@@ -1,6 +1,7 @@
 package com.cheng.system.service;
 
 import com.cheng.system.domain.SysConfig;
+import com.cheng.system.domain.SysConfigSnapshot;
 
 import java.util.List;
 
@@ -26,6 +27,13 @@ public interface ISysConfigService {
      */
     String selectConfigByKey(String configKey);
 
+    /**
+     * 取得本機參數快照（已預先解析數值與布林值，適合高頻讀取）
+     *
+     * @return 參數快照
+     */
+    SysConfigSnapshot getConfigSnapshot();
+
     /**
      * 取得驗證碼開關
      *
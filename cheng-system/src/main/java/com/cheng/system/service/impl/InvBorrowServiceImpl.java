@@ -15,12 +15,14 @@ import com.cheng.system.mapper.InvItemMapper;
 import com.cheng.system.mapper.InvReturnMapper;
 import com.cheng.system.mapper.InvStockMapper;
 import com.cheng.system.service.IInvBorrowService;
+import com.cheng.system.service.IInvCounterService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 借出記錄Service業務層處理
@@ -43,6 +45,9 @@ public class InvBorrowServiceImpl implements IInvBorrowService {
     @Autowired
     private InvItemMapper invItemMapper;
 
+    @Autowired
+    private IInvCounterService invCounterService;
+
     /**
      * 查詢借出記錄
      *
@@ -76,6 +81,17 @@ public class InvBorrowServiceImpl implements IInvBorrowService {
         return invBorrowMapper.selectInvBorrowList(invBorrow);
     }
 
+    /**
+     * 串流查詢借出記錄列表，逐筆交給 consumer 處理（用於大量匯出）
+     *
+     * @param invBorrow 借出記錄
+     * @param consumer 逐筆處理
+     */
+    @Override
+    public void streamInvBorrowList(InvBorrow invBorrow, Consumer<InvBorrow> consumer) {
+        invBorrowMapper.streamInvBorrowList(invBorrow, context -> consumer.accept(context.getResultObject()));
+    }
+
     /**
      * 查詢逾期借出記錄列表
      *
@@ -118,7 +134,10 @@ public class InvBorrowServiceImpl implements IInvBorrowService {
     @Override
     public int insertInvBorrow(InvBorrow invBorrow) {
         invBorrow.setCreateTime(DateUtils.getNowDate());
-        return invBorrowMapper.insertInvBorrow(invBorrow);
+        int result = invBorrowMapper.insertInvBorrow(invBorrow);
+        String status = invBorrow.getStatus() != null ? invBorrow.getStatus() : BorrowStatus.PENDING.getCode();
+        invCounterService.recordBorrowTransition(invBorrow.getBorrowId(), null, status, invBorrow.getExpectedReturn());
+        return result;
     }
 
     /**
@@ -159,18 +178,24 @@ public class InvBorrowServiceImpl implements IInvBorrowService {
                 // 更新庫存
                 InvStock stock = invStockMapper.selectInvStockByItemId(oldBorrow.getItemId());
                 if (stock != null) {
+                    int beforeTotal = stock.getTotalQuantity();
+                    int beforeAvailable = stock.getAvailableQty();
                     // 可用數量 = 原可用數量 - 數量差異（增加借出則減少可用，減少借出則增加可用）
                     stock.setAvailableQty(stock.getAvailableQty() - quantityDiff);
                     // 借出數量 = 原借出數量 + 數量差異
                     stock.setBorrowedQty(stock.getBorrowedQty() + quantityDiff);
                     stock.setUpdateTime(DateUtils.getNowDate());
-                    invStockMapper.updateInvStock(stock);
+                    updateStock(stock, beforeTotal, beforeAvailable);
                 }
             }
         }
 
         invBorrow.setUpdateTime(DateUtils.getNowDate());
-        return invBorrowMapper.updateInvBorrow(invBorrow);
+        int result = invBorrowMapper.updateInvBorrow(invBorrow);
+        invCounterService.recordBorrowTransition(oldBorrow.getBorrowId(), oldBorrow.getStatus(),
+                invBorrow.getStatus() != null ? invBorrow.getStatus() : oldBorrow.getStatus(),
+                invBorrow.getExpectedReturn() != null ? invBorrow.getExpectedReturn() : oldBorrow.getExpectedReturn());
+        return result;
     }
 
     /**
@@ -201,7 +226,10 @@ public class InvBorrowServiceImpl implements IInvBorrowService {
         invBorrow.setCreateTime(DateUtils.getNowDate());
 
         // 新增借出記錄（不扣減庫存，等待審核）
-        return invBorrowMapper.insertInvBorrow(invBorrow);
+        int result = invBorrowMapper.insertInvBorrow(invBorrow);
+        invCounterService.recordBorrowTransition(invBorrow.getBorrowId(), null, invBorrow.getStatus(),
+                invBorrow.getExpectedReturn());
+        return result;
     }
 
     /**
@@ -246,6 +274,7 @@ public class InvBorrowServiceImpl implements IInvBorrowService {
         }
 
         // 更新借出記錄
+        String fromStatus = borrow.getStatus();
         borrow.setReturnQuantity(borrow.getReturnQuantity() + returnQuantity);
         borrow.setActualReturn(DateUtils.getNowDate());
         borrow.setUpdateTime(DateUtils.getNowDate());
@@ -262,6 +291,8 @@ public class InvBorrowServiceImpl implements IInvBorrowService {
         // 更新庫存
         InvStock stock = invStockMapper.selectInvStockByItemId(borrow.getItemId());
         if (stock != null) {
+            int beforeTotal = stock.getTotalQuantity();
+            int beforeAvailable = stock.getAvailableQty();
             // 減少借出數量
             stock.setBorrowedQty(stock.getBorrowedQty() - returnQuantity);
 
@@ -292,7 +323,7 @@ public class InvBorrowServiceImpl implements IInvBorrowService {
             }
 
             stock.setUpdateTime(DateUtils.getNowDate());
-            invStockMapper.updateInvStock(stock);
+            updateStock(stock, beforeTotal, beforeAvailable);
         }
 
         // 建立歸還記錄
@@ -340,6 +371,7 @@ public class InvBorrowServiceImpl implements IInvBorrowService {
         // 儲存歸還記錄
         invReturnMapper.insertInvReturn(invReturn);
 
+        invCounterService.recordBorrowTransition(borrowId, fromStatus, borrow.getStatus(), borrow.getExpectedReturn());
         return result;
     }
 
@@ -377,6 +409,8 @@ public class InvBorrowServiceImpl implements IInvBorrowService {
         borrow.setUpdateTime(DateUtils.getNowDate());
 
         InvStock stock = invStockMapper.selectInvStockByItemId(borrow.getItemId());
+        int beforeTotal = stock != null ? stock.getTotalQuantity() : 0;
+        int beforeAvailable = stock != null ? stock.getAvailableQty() : 0;
         if (isApproved) {
             // 更新庫存
             if (stock != null) {
@@ -403,7 +437,7 @@ public class InvBorrowServiceImpl implements IInvBorrowService {
                 }
                 
                 stock.setUpdateTime(DateUtils.getNowDate());
-                invStockMapper.updateInvStock(stock);
+                updateStock(stock, beforeTotal, beforeAvailable);
             }
 
             // 設定為已借出狀態
@@ -417,7 +451,7 @@ public class InvBorrowServiceImpl implements IInvBorrowService {
                     stock.setReservedQty(stock.getReservedQty() - borrow.getQuantity());
                     stock.setAvailableQty(stock.getAvailableQty() + borrow.getQuantity());
                     stock.setUpdateTime(DateUtils.getNowDate());
-                    invStockMapper.updateInvStock(stock);
+                    updateStock(stock, beforeTotal, beforeAvailable);
                     
                     // 更新預約狀態為已拒絕
                     borrow.setReserveStatus(ReserveStatus.REJECTED.getCode());
@@ -428,7 +462,10 @@ public class InvBorrowServiceImpl implements IInvBorrowService {
             borrow.setStatusEnum(BorrowStatus.REJECTED);
         }
 
-        return invBorrowMapper.updateInvBorrow(borrow);
+        int result = invBorrowMapper.updateInvBorrow(borrow);
+        invCounterService.recordBorrowTransition(borrowId, BorrowStatus.PENDING.getCode(), borrow.getStatus(),
+                borrow.getExpectedReturn());
+        return result;
     }
 
     /**
@@ -447,23 +484,26 @@ public class InvBorrowServiceImpl implements IInvBorrowService {
             if (borrow != null) {
                 InvStock stock = invStockMapper.selectInvStockByItemId(borrow.getItemId());
                 if (stock != null) {
+                    int beforeTotal = stock.getTotalQuantity();
+                    int beforeAvailable = stock.getAvailableQty();
                     // 判斷記錄類型並恢復庫存
                     if (borrow.getReserveStatus() != null && borrow.getReserveStatus() == 1 && borrow.isPending()) {
                         // 待審核的預約記錄：恢復預留的庫存
                         stock.setReservedQty(stock.getReservedQty() - borrow.getQuantity());
                         stock.setAvailableQty(stock.getAvailableQty() + borrow.getQuantity());
                         stock.setUpdateTime(DateUtils.getNowDate());
-                        invStockMapper.updateInvStock(stock);
+                        updateStock(stock, beforeTotal, beforeAvailable);
                     } else if (borrow.needsReturn()) {
                         // 已借出、部分歸還、逾期的記錄：恢復借出數量
                         int remainingQty = borrow.getQuantity() - borrow.getReturnQuantity();
                         stock.setAvailableQty(stock.getAvailableQty() + remainingQty);
                         stock.setBorrowedQty(stock.getBorrowedQty() - remainingQty);
                         stock.setUpdateTime(DateUtils.getNowDate());
-                        invStockMapper.updateInvStock(stock);
+                        updateStock(stock, beforeTotal, beforeAvailable);
                     }
                     // 待審核的一般借出記錄和已拒絕的記錄不需要恢復（沒有扣減過庫存）
                 }
+                invCounterService.recordBorrowTransition(borrowId, borrow.getStatus(), null, null);
             }
         }
 
@@ -478,7 +518,12 @@ public class InvBorrowServiceImpl implements IInvBorrowService {
      */
     @Override
     public int deleteInvBorrowByBorrowId(Long borrowId) {
-        return invBorrowMapper.deleteInvBorrowByBorrowId(borrowId);
+        InvBorrow borrow = invBorrowMapper.selectInvBorrowByBorrowId(borrowId);
+        int result = invBorrowMapper.deleteInvBorrowByBorrowId(borrowId);
+        if (result > 0 && borrow != null) {
+            invCounterService.recordBorrowTransition(borrowId, borrow.getStatus(), null, null);
+        }
+        return result;
     }
 
     /**
@@ -523,4 +568,17 @@ public class InvBorrowServiceImpl implements IInvBorrowService {
         InvStock stock = invStockMapper.selectInvStockByItemId(itemId);
         return stock != null && stock.getAvailableQty() >= quantity;
     }
+
+    /**
+     * 更新庫存並累加統計計數
+     *
+     * @param stock           異動後的庫存
+     * @param beforeTotal     異動前總數量
+     * @param beforeAvailable 異動前可用數量
+     */
+    private void updateStock(InvStock stock, int beforeTotal, int beforeAvailable) {
+        invStockMapper.updateInvStock(stock);
+        invCounterService.recordStockChange(stock.getMinStock(), beforeTotal, stock.getTotalQuantity(),
+                stock.getAvailableQty() - beforeAvailable);
+    }
 }
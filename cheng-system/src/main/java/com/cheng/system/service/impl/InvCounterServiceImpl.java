@@ -0,0 +1,587 @@
+package com.cheng.system.service.impl;
+
+import com.cheng.common.constant.CacheConstants;
+import com.cheng.system.domain.enums.BorrowStatus;
+import com.cheng.system.mapper.InvBorrowMapper;
+import com.cheng.system.mapper.InvScanLogMapper;
+import com.cheng.system.mapper.InvStockMapper;
+import com.cheng.system.mapper.InvStockRecordMapper;
+import com.cheng.system.service.IInvCounterService;
+import jakarta.annotation.Resource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 庫存統計計數器 服務層實現
+ * <p>
+ * 計數存於 Redis：
+ * - inv_counters（Hash）：庫存彙總、各借出狀態、各異動類型、各掃描類型 / 結果的筆數
+ * - inv_counters:borrowed_due（ZSet）：借出中記錄，score 為預計歸還時間，逾期數以 ZCOUNT 取得
+ * - inv_counters:records:yyyyMMdd：當日異動筆數
+ * <p>
+ * 增量於交易提交後以 Lua 腳本套用，不佔用資料庫鎖；Hash 中的 initialized 欄位不存在時視為失效，
+ * 讀取時先回傳現有計數，並於背景由資料庫重新彙總（尚無計數時才直接查詢資料庫）。每日排程 {@link #reconcile()} 校正遺漏的增量。
+ * <p>
+ * 重新彙總期間 inv_counters:rebuild 標記存在，套用增量的腳本同時把增量寫入 inv_counters:rebuild_log；
+ * 每組彙總查詢執行前記下日誌長度，替換計數時只重播該組查詢開始後的增量，避免覆蓋彙總期間提交的異動。
+ *
+ * @author cheng
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InvCounterServiceImpl implements IInvCounterService {
+
+    private static final String COUNTER_KEY = CacheConstants.INV_COUNTER_KEY;
+    private static final String BORROWED_DUE_KEY = CacheConstants.INV_COUNTER_KEY + ":borrowed_due";
+    private static final String TODAY_RECORDS_KEY = CacheConstants.INV_COUNTER_KEY + ":records:";
+    private static final String REBUILD_KEY = CacheConstants.INV_COUNTER_KEY + ":rebuild";
+    private static final String REBUILD_LOG_KEY = CacheConstants.INV_COUNTER_KEY + ":rebuild_log";
+    private static final String INITIALIZED = "initialized";
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    /**
+     * 重新彙總標記存活時間，節點中斷時由此自動解除
+     */
+    private static final long REBUILD_TIMEOUT_MINUTES = 10;
+
+    /**
+     * 增量分組，與重新彙總時的查詢一一對應
+     */
+    private static final String GROUP_STOCK = "stock";
+    private static final String GROUP_BORROW = "borrow";
+    private static final String GROUP_DUE = "due";
+    private static final String GROUP_RECORD = "record";
+    private static final String GROUP_TODAY = "today";
+    private static final String GROUP_SCAN = "scan";
+
+    /**
+     * 套用增量：每個操作佔 4 個參數（分組、操作、欄位、值）；
+     * 操作 h = HINCRBY 計數、z+ / z- = 借出到期 ZSet 新增 / 移除、t = 當日異動筆數 INCRBY。
+     * 重新彙總進行中時同時寫入增量日誌。
+     * KEYS：計數、借出到期、重新彙總標記、增量日誌、當日異動筆數
+     */
+    private static final RedisScript<Long> APPLY_SCRIPT = new DefaultRedisScript<>("""
+            local logging = redis.call('EXISTS', KEYS[3]) == 1
+            for i = 1, #ARGV, 4 do
+                local group, op, field, value = ARGV[i], ARGV[i + 1], ARGV[i + 2], ARGV[i + 3]
+                if op == 'h' then
+                    redis.call('HINCRBY', KEYS[1], field, value)
+                elseif op == 'z+' then
+                    redis.call('ZADD', KEYS[2], value, field)
+                elseif op == 'z-' then
+                    redis.call('ZREM', KEYS[2], field)
+                elseif op == 't' then
+                    redis.call('INCRBY', KEYS[5], value)
+                    redis.call('EXPIRE', KEYS[5], 172800)
+                end
+                if logging then
+                    redis.call('RPUSH', KEYS[4], group .. '\t' .. op .. '\t' .. field .. '\t' .. value)
+                    redis.call('EXPIRE', KEYS[4], 600)
+                end
+            end
+            return 1
+            """, Long.class);
+
+    /**
+     * 替換計數：確認重新彙總標記仍屬於自己後，重播各組查詢開始後的增量至暫存鍵，再以 RENAME 替換。
+     * KEYS：計數、借出到期、重新彙總標記、增量日誌、暫存計數、暫存借出到期、當日異動筆數
+     * ARGV：標記值、當日異動筆數、其後為（分組、查詢前日誌長度）成對參數
+     */
+    private static final RedisScript<Long> INSTALL_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[3]) ~= ARGV[1] then
+                redis.call('DEL', KEYS[5], KEYS[6])
+                return 0
+            end
+            local marks = {}
+            for i = 3, #ARGV, 2 do
+                marks[ARGV[i]] = tonumber(ARGV[i + 1])
+            end
+            local today = tonumber(ARGV[2])
+            local entries = redis.call('LRANGE', KEYS[4], 0, -1)
+            for i, entry in ipairs(entries) do
+                local group, op, field, value = string.match(entry, '^([^\t]*)\t([^\t]*)\t([^\t]*)\t(.*)$')
+                local mark = marks[group]
+                if mark and i > mark then
+                    if op == 'h' then
+                        redis.call('HINCRBY', KEYS[5], field, value)
+                    elseif op == 'z+' then
+                        redis.call('ZADD', KEYS[6], value, field)
+                    elseif op == 'z-' then
+                        redis.call('ZREM', KEYS[6], field)
+                    elseif op == 't' and field == KEYS[7] then
+                        today = today + tonumber(value)
+                    end
+                end
+            end
+            redis.call('RENAME', KEYS[5], KEYS[1])
+            if redis.call('EXISTS', KEYS[6]) == 1 then
+                redis.call('RENAME', KEYS[6], KEYS[2])
+            else
+                redis.call('DEL', KEYS[2])
+            end
+            redis.call('SET', KEYS[7], today, 'EX', 172800)
+            redis.call('DEL', KEYS[3], KEYS[4])
+            return 1
+            """, Long.class);
+
+    private final InvStockMapper invStockMapper;
+    private final InvBorrowMapper invBorrowMapper;
+    private final InvStockRecordMapper invStockRecordMapper;
+    private final InvScanLogMapper invScanLogMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 同一節點同時只執行一次重新彙總
+     */
+    private final ReentrantLock reconcileLock = new ReentrantLock();
+
+    /**
+     * 讀取時發現失效的背景重新彙總執行緒池
+     */
+    @Resource(name = "threadPoolTaskExecutor")
+    private Executor reconcileExecutor;
+
+    @Override
+    public void recordStockChange(Integer minStock, int beforeTotal, int afterTotal, int availableDelta) {
+        int min = minStock == null ? 0 : minStock;
+        Ops ops = new Ops();
+        ops.increment(GROUP_STOCK, TOTAL_QUANTITY, (long) afterTotal - beforeTotal);
+        ops.increment(GROUP_STOCK, AVAILABLE_QUANTITY, availableDelta);
+        ops.increment(GROUP_STOCK, LOW_STOCK_ITEMS, isLowStock(afterTotal, min) - isLowStock(beforeTotal, min));
+        ops.increment(GROUP_STOCK, OUT_OF_STOCK_ITEMS, isOutOfStock(afterTotal) - isOutOfStock(beforeTotal));
+        afterCommit(ops);
+    }
+
+    @Override
+    public void recordItemChange(ItemState before, ItemState after) {
+        Ops ops = new Ops();
+        ops.increment(GROUP_STOCK, TOTAL_ITEMS, presence(after) - presence(before));
+        ops.increment(GROUP_STOCK, TOTAL_QUANTITY, (long) totalOf(after) - totalOf(before));
+        ops.increment(GROUP_STOCK, AVAILABLE_QUANTITY, (long) availableOf(after) - availableOf(before));
+        ops.increment(GROUP_STOCK, LOW_STOCK_ITEMS, lowStockOf(after) - lowStockOf(before));
+        ops.increment(GROUP_STOCK, OUT_OF_STOCK_ITEMS, outOfStockOf(after) - outOfStockOf(before));
+        afterCommit(ops);
+    }
+
+    @Override
+    public void recordStockRecord(String recordType) {
+        Ops ops = new Ops();
+        ops.increment(GROUP_RECORD, RECORD_PREFIX + recordType, 1L);
+        ops.add(GROUP_TODAY, "t", todayRecordsKey(LocalDate.now()), "1");
+        afterCommit(ops);
+    }
+
+    @Override
+    public void recordStockRecordsRemoved(Map<String, Long> countsByType) {
+        Ops ops = new Ops();
+        countsByType.forEach((recordType, count) -> ops.increment(GROUP_RECORD, RECORD_PREFIX + recordType, -count));
+        afterCommit(ops);
+    }
+
+    @Override
+    public void recordBorrowTransition(Long borrowId, String fromStatus, String toStatus, Date expectedReturn) {
+        Ops ops = new Ops();
+        if (!Objects.equals(fromStatus, toStatus)) {
+            if (fromStatus != null) {
+                ops.increment(GROUP_BORROW, BORROW_PREFIX + fromStatus, -1L);
+            }
+            if (toStatus != null) {
+                ops.increment(GROUP_BORROW, BORROW_PREFIX + toStatus, 1L);
+            }
+        }
+        if (borrowId != null) {
+            if (BorrowStatus.BORROWED.getCode().equals(toStatus) && expectedReturn != null) {
+                ops.add(GROUP_DUE, "z+", borrowId.toString(), String.valueOf(expectedReturn.getTime()));
+            } else {
+                ops.add(GROUP_DUE, "z-", borrowId.toString(), "0");
+            }
+        }
+        afterCommit(ops);
+    }
+
+    @Override
+    public void recordScan(String scanType, String scanResult, long count) {
+        Ops ops = new Ops();
+        ops.increment(GROUP_SCAN, scanField(scanType, scanResult), count);
+        afterCommit(ops);
+    }
+
+    @Override
+    public void markStale() {
+        afterCommit(() -> stringRedisTemplate.opsForHash().delete(COUNTER_KEY, INITIALIZED));
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<Object, Object> entries;
+        try {
+            entries = stringRedisTemplate.opsForHash().entries(COUNTER_KEY);
+            if (!entries.containsKey(INITIALIZED)) {
+                // 計數已失效：背景重新彙總，本次先回傳現有計數，不阻塞讀取
+                reconcileInBackground();
+                if (entries.isEmpty()) {
+                    // 尚無任何計數（首次啟動或計數鍵遺失），本次直接查詢資料庫
+                    return loadCounters(null);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("讀取庫存統計計數失敗，改由資料庫彙總: {}", e.getMessage());
+            return loadCounters(null);
+        }
+        Map<String, Long> counters = new TreeMap<>();
+        entries.forEach((field, value) -> {
+            if (!INITIALIZED.equals(field)) {
+                counters.put(field.toString(), parseLong(value));
+            }
+        });
+        return counters;
+    }
+
+    @Override
+    public long countOverdueBorrows() {
+        try {
+            Long count = stringRedisTemplate.opsForZSet().count(BORROWED_DUE_KEY, Double.NEGATIVE_INFINITY,
+                    System.currentTimeMillis() - 1);
+            return count == null ? 0L : count;
+        } catch (Exception e) {
+            log.warn("讀取逾期借出計數失敗，改由資料庫查詢: {}", e.getMessage());
+            return invBorrowMapper.countOverdueBorrows();
+        }
+    }
+
+    @Override
+    public long countTodayRecords() {
+        try {
+            return parseLong(stringRedisTemplate.opsForValue().get(todayRecordsKey(LocalDate.now())));
+        } catch (Exception e) {
+            log.warn("讀取今日異動計數失敗，改由資料庫查詢: {}", e.getMessage());
+            return countRecordsOn(LocalDate.now());
+        }
+    }
+
+    @Override
+    public Map<String, Long> reconcile() {
+        reconcileLock.lock();
+        try {
+            Map<String, Long> drift = doReconcile();
+            if (drift == null) {
+                log.info("其他節點正在重新彙總庫存統計計數，略過本次校正");
+                return Map.of();
+            }
+            return drift;
+        } finally {
+            reconcileLock.unlock();
+        }
+    }
+
+    /**
+     * 讀取時發現失效，交由背景執行緒重新彙總；本節點已在彙總時直接返回，取得鎖後再確認一次，避免重複彙總
+     */
+    private void reconcileInBackground() {
+        if (reconcileLock.isLocked()) {
+            return;
+        }
+        try {
+            reconcileExecutor.execute(() -> {
+                if (!reconcileLock.tryLock()) {
+                    return;
+                }
+                try {
+                    if (!stringRedisTemplate.opsForHash().hasKey(COUNTER_KEY, INITIALIZED)) {
+                        doReconcile();
+                    }
+                } catch (Exception e) {
+                    log.warn("背景重新彙總庫存統計計數失敗: {}", e.getMessage());
+                } finally {
+                    reconcileLock.unlock();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("背景重新彙總庫存統計計數被拒絕，下次讀取時再試");
+        }
+    }
+
+    /**
+     * 由資料庫彙總寫入暫存鍵，重播彙總期間的增量後以 RENAME 原子替換
+     *
+     * @return 校正項目；其他節點正在重新彙總或替換前標記已逾時則回傳 null
+     */
+    private Map<String, Long> doReconcile() {
+        long start = System.currentTimeMillis();
+        String token = UUID.randomUUID().toString();
+        String suffix = ":tmp:" + token;
+        if (!Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                .setIfAbsent(REBUILD_KEY, token, REBUILD_TIMEOUT_MINUTES, TimeUnit.MINUTES))) {
+            return null;
+        }
+        try {
+            Map<String, Long> marks = new LinkedHashMap<>();
+            Map<String, Long> counters = loadCounters(marks);
+            Map<String, String> values = new LinkedHashMap<>();
+            counters.forEach((field, value) -> values.put(field, value.toString()));
+            values.put(INITIALIZED, String.valueOf(start));
+
+            mark(marks, GROUP_DUE);
+            Set<ZSetOperations.TypedTuple<String>> due = new HashSet<>();
+            for (Map<String, Object> row : invBorrowMapper.selectBorrowedDueList()) {
+                Long expected = toEpochMillis(row.get("expectedReturn"));
+                if (expected != null) {
+                    due.add(ZSetOperations.TypedTuple.of(String.valueOf(row.get("borrowId")), expected.doubleValue()));
+                }
+            }
+
+            LocalDate today = LocalDate.now();
+            mark(marks, GROUP_TODAY);
+            long todayRecords = countRecordsOn(today);
+
+            Map<String, Long> previous = new TreeMap<>();
+            stringRedisTemplate.opsForHash().entries(COUNTER_KEY).forEach((field, value) -> {
+                if (!INITIALIZED.equals(field)) {
+                    previous.put(field.toString(), parseLong(value));
+                }
+            });
+
+            stringRedisTemplate.opsForHash().putAll(COUNTER_KEY + suffix, values);
+            if (!due.isEmpty()) {
+                stringRedisTemplate.opsForZSet().add(BORROWED_DUE_KEY + suffix, due);
+            }
+            List<String> args = new ArrayList<>();
+            args.add(token);
+            args.add(String.valueOf(todayRecords));
+            marks.forEach((group, mark) -> {
+                args.add(group);
+                args.add(mark.toString());
+            });
+            Long installed = stringRedisTemplate.execute(INSTALL_SCRIPT,
+                    List.of(COUNTER_KEY, BORROWED_DUE_KEY, REBUILD_KEY, REBUILD_LOG_KEY,
+                            COUNTER_KEY + suffix, BORROWED_DUE_KEY + suffix, todayRecordsKey(today)),
+                    args.toArray());
+            if (installed == null || installed == 0) {
+                log.warn("庫存統計計數重新彙總逾時（超過 {} 分鐘），放棄本次結果", REBUILD_TIMEOUT_MINUTES);
+                return null;
+            }
+
+            Map<String, Long> drift = new TreeMap<>();
+            counters.forEach((field, value) -> {
+                long diff = value - previous.getOrDefault(field, 0L);
+                if (diff != 0) {
+                    drift.put(field, diff);
+                }
+            });
+            previous.keySet().stream()
+                    .filter(field -> !counters.containsKey(field) && previous.get(field) != 0)
+                    .forEach(field -> drift.put(field, -previous.get(field)));
+
+            log.info("庫存統計計數重新彙總完成，耗時 {} ms，校正項目: {}", System.currentTimeMillis() - start, drift);
+            return drift;
+        } catch (RuntimeException e) {
+            // 釋放自己的標記與暫存鍵，讓下一次讀取可以重試
+            try {
+                stringRedisTemplate.delete(List.of(COUNTER_KEY + suffix, BORROWED_DUE_KEY + suffix));
+                if (token.equals(stringRedisTemplate.opsForValue().get(REBUILD_KEY))) {
+                    stringRedisTemplate.delete(REBUILD_KEY);
+                }
+            } catch (Exception ignored) {
+                // 標記逾時後自動解除
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 記下查詢開始前的增量日誌長度；僅重新彙總時記錄（marks 為 null 表示直接查詢資料庫）
+     */
+    private void mark(Map<String, Long> marks, String group) {
+        if (marks != null) {
+            Long size = stringRedisTemplate.opsForList().size(REBUILD_LOG_KEY);
+            marks.put(group, size == null ? 0L : size);
+        }
+    }
+
+    /**
+     * 以 GROUP BY 彙總查詢取得所有計數
+     *
+     * @param marks 重新彙總時記錄各組查詢前的增量日誌長度，直接查詢時為 null
+     */
+    private Map<String, Long> loadCounters(Map<String, Long> marks) {
+        Map<String, Long> counters = new TreeMap<>();
+        mark(marks, GROUP_STOCK);
+        Map<String, Object> stock = invStockMapper.selectStockReportSummary();
+        for (String field : List.of(TOTAL_ITEMS, TOTAL_QUANTITY, AVAILABLE_QUANTITY, LOW_STOCK_ITEMS, OUT_OF_STOCK_ITEMS)) {
+            counters.put(field, stock == null ? 0L : parseLong(stock.get(field)));
+        }
+        mark(marks, GROUP_BORROW);
+        for (Map<String, Object> row : invBorrowMapper.selectBorrowStatusCounts()) {
+            counters.merge(BORROW_PREFIX + row.get("status"), parseLong(row.get("count")), Long::sum);
+        }
+        mark(marks, GROUP_RECORD);
+        for (Map<String, Object> row : invStockRecordMapper.selectRecordTypeCounts()) {
+            counters.merge(RECORD_PREFIX + row.get("recordType"), parseLong(row.get("count")), Long::sum);
+        }
+        mark(marks, GROUP_SCAN);
+        for (Map<String, Object> row : invScanLogMapper.selectScanTypeResultCounts()) {
+            counters.merge(scanField(String.valueOf(row.get("scanType")), String.valueOf(row.get("scanResult"))),
+                    parseLong(row.get("count")), Long::sum);
+        }
+        return counters;
+    }
+
+    private long countRecordsOn(LocalDate day) {
+        ZoneId zone = ZoneId.systemDefault();
+        return invStockRecordMapper.countRecordsByTimeRange(
+                Date.from(day.atStartOfDay(zone).toInstant()),
+                Date.from(day.plusDays(1).atStartOfDay(zone).toInstant()));
+    }
+
+    /**
+     * 交易提交後以腳本套用增量
+     */
+    private void afterCommit(Ops ops) {
+        if (ops.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> stringRedisTemplate.execute(APPLY_SCRIPT,
+                List.of(COUNTER_KEY, BORROWED_DUE_KEY, REBUILD_KEY, REBUILD_LOG_KEY, todayRecordsKey(LocalDate.now())),
+                ops.args.toArray()));
+    }
+
+    /**
+     * 交易提交後執行（無交易時立即執行）；Redis 失敗不影響業務流程，改為標記失效
+     */
+    private void afterCommit(Runnable action) {
+        Runnable safeAction = () -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                log.warn("更新庫存統計計數失敗，標記失效待重新彙總: {}", e.getMessage());
+                try {
+                    stringRedisTemplate.opsForHash().delete(COUNTER_KEY, INITIALIZED);
+                } catch (Exception ignored) {
+                    // Redis 無法連線時由每日校正任務修正
+                }
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    safeAction.run();
+                }
+            });
+        } else {
+            safeAction.run();
+        }
+    }
+
+    /**
+     * 套用增量腳本的參數
+     */
+    private static final class Ops {
+
+        private final List<String> args = new ArrayList<>();
+
+        void increment(String group, String field, long delta) {
+            if (delta != 0) {
+                add(group, "h", field, String.valueOf(delta));
+            }
+        }
+
+        void add(String group, String op, String field, String value) {
+            args.add(group);
+            args.add(op);
+            args.add(field);
+            args.add(value);
+        }
+
+        boolean isEmpty() {
+            return args.isEmpty();
+        }
+    }
+
+    private static int presence(ItemState state) {
+        return state == null ? 0 : 1;
+    }
+
+    private static int totalOf(ItemState state) {
+        return state == null ? 0 : state.totalQuantity();
+    }
+
+    private static int availableOf(ItemState state) {
+        return state == null ? 0 : state.availableQty();
+    }
+
+    private static int lowStockOf(ItemState state) {
+        return state == null ? 0 : isLowStock(state.totalQuantity(), state.minStock() == null ? 0 : state.minStock());
+    }
+
+    private static int outOfStockOf(ItemState state) {
+        return state == null ? 0 : isOutOfStock(state.totalQuantity());
+    }
+
+    private static int isLowStock(int total, int minStock) {
+        return total > 0 && total <= minStock ? 1 : 0;
+    }
+
+    private static int isOutOfStock(int total) {
+        return total <= 0 ? 1 : 0;
+    }
+
+    private static String scanField(String scanType, String scanResult) {
+        return SCAN_PREFIX + scanType + ":" + scanResult;
+    }
+
+    private static String todayRecordsKey(LocalDate day) {
+        return TODAY_RECORDS_KEY + day.format(DAY_FORMAT);
+    }
+
+    private static long parseLong(Object value) {
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        if (value == null) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(value.toString());
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    private static Long toEpochMillis(Object value) {
+        if (value instanceof Date date) {
+            return date.getTime();
+        }
+        if (value instanceof LocalDateTime dateTime) {
+            return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,421 @@
+package com.cheng.system.service.impl;
+
+import com.cheng.common.event.InventoryChangeEvent;
+import com.cheng.common.utils.DateUtils;
+import com.cheng.common.utils.SecurityUtils;
+import com.cheng.common.utils.StringUtils;
+import com.cheng.common.utils.bean.BeanValidators;
+import com.cheng.system.domain.InvCategory;
+import com.cheng.system.domain.InvItem;
+import com.cheng.system.domain.InvStock;
+import com.cheng.system.domain.InvStockRecord;
+import com.cheng.system.domain.enums.StockRecordType;
+import com.cheng.system.mapper.InvCategoryMapper;
+import com.cheng.system.mapper.InvItemMapper;
+import com.cheng.system.mapper.InvStockMapper;
+import com.cheng.system.mapper.InvStockRecordMapper;
+import com.cheng.system.service.IInvCounterService;
+import jakarta.validation.Validator;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * 物品批次匯入引擎
+ * <p>
+ * 取代逐筆查詢 / 逐筆寫入的匯入流程：
+ * - 匯入前一次載入所有物品的編碼、名稱與分類，比對在記憶體完成
+ * - Bean Validation 以平行串流執行，比對與歸併依原順序進行（檔案內重複的列合併為同一筆寫入）
+ * - 依 chunkSize 分批以多列 INSERT ... ON DUPLICATE KEY UPDATE 寫入物品、庫存與庫存異動
+ * - 每批在獨立交易（外層已有交易時為 savepoint）中執行，失敗時改為逐筆重試以定位錯誤列
+ *
+ * @author cheng
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InvItemBatchImporter {
+
+    private final InvItemMapper invItemMapper;
+    private final InvStockMapper invStockMapper;
+    private final InvStockRecordMapper invStockRecordMapper;
+    private final InvCategoryMapper invCategoryMapper;
+    private final Validator validator;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final IInvCounterService invCounterService;
+
+    /**
+     * 每批寫入筆數
+     */
+    @Getter
+    @Value("${inventory.import.chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * 匯入列
+     *
+     * @param rowNum       Excel 行號（用於錯誤訊息）
+     * @param item         新增用的物品資料（同時作為比對鍵：編碼、名稱）
+     * @param updateItem   更新既有物品時要覆寫的欄位，為 null 時沿用 item
+     * @param initialStock 新增時的初始庫存
+     */
+    public record ImportEntry(int rowNum, InvItem item, InvItem updateItem, int initialStock) {
+
+        public ImportEntry(int rowNum, InvItem item, int initialStock) {
+            this(rowNum, item, null, initialStock);
+        }
+
+        InvItem overlay() {
+            return updateItem != null ? updateItem : item;
+        }
+    }
+
+    /**
+     * 匯入選項
+     *
+     * @param updateSupport      物品已存在時是否更新
+     * @param validate           是否執行 Bean Validation
+     * @param recordInitialStock 初始庫存大於 0 時是否寫入入庫異動記錄
+     * @param operName           操作者
+     */
+    public record Options(boolean updateSupport, boolean validate, boolean recordInitialStock, String operName) {
+    }
+
+    public enum Action {
+        INSERTED, UPDATED, SKIPPED, FAILED
+    }
+
+    /**
+     * 單列匯入結果
+     *
+     * @param entry   匯入列
+     * @param action  處理結果
+     * @param itemId  寫入後的物品ID（SKIPPED / FAILED 時可能為 null）
+     * @param message 失敗原因
+     */
+    public record RowOutcome(ImportEntry entry, Action action, Long itemId, String message) {
+    }
+
+    /**
+     * 寫入單位：同一物品（既有或檔案內新增）的所有列合併為一筆寫入
+     */
+    private static final class WriteUnit {
+        private final InvItem item;
+        private final boolean insert;
+        private final int initialStock;
+        private final List<Integer> rows = new ArrayList<>();
+
+        private WriteUnit(InvItem item, boolean insert, int initialStock) {
+            this.item = item;
+            this.insert = insert;
+            this.initialStock = initialStock;
+        }
+    }
+
+    /**
+     * 載入分類名稱對照（名稱 → 分類ID），同名時取第一筆
+     *
+     * @return 分類名稱對照
+     */
+    public Map<String, Long> loadCategoryIndex() {
+        Map<String, Long> index = new HashMap<>();
+        for (InvCategory category : invCategoryMapper.selectInvCategoryList(new InvCategory())) {
+            if (StringUtils.isNotEmpty(category.getCategoryName())) {
+                index.putIfAbsent(category.getCategoryName().trim(), category.getCategoryId());
+            }
+        }
+        return index;
+    }
+
+    /**
+     * 執行批次匯入
+     *
+     * @param entries  匯入列
+     * @param options  匯入選項
+     * @param progress 每批完成後回呼（已處理列數, 總列數），可為 null
+     * @return 各列結果（與 entries 順序相同）
+     */
+    public List<RowOutcome> importItems(List<ImportEntry> entries, Options options,
+                                        BiConsumer<Integer, Integer> progress) {
+        int total = entries.size();
+        RowOutcome[] outcomes = new RowOutcome[total];
+        long start = System.currentTimeMillis();
+
+        // 1. 平行驗證
+        String[] errors = new String[total];
+        if (options.validate()) {
+            IntStream.range(0, total).parallel().forEach(i -> {
+                try {
+                    BeanValidators.validateWithException(validator, entries.get(i).item());
+                } catch (Exception e) {
+                    errors[i] = e.getMessage();
+                }
+            });
+        }
+
+        // 2. 依序比對與歸併
+        List<WriteUnit> units = classify(entries, options, errors, outcomes);
+        int done = (int) Arrays.stream(outcomes).filter(Objects::nonNull).count();
+
+        // 3. 分批寫入
+        int size = Math.max(1, chunkSize);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+        Long operatorId = currentUserId();
+        for (int from = 0; from < units.size(); from += size) {
+            List<WriteUnit> chunk = units.subList(from, Math.min(from + size, units.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> writeChunk(chunk, options, operatorId));
+                chunk.forEach(unit -> complete(unit, entries, outcomes, null));
+            } catch (Exception e) {
+                log.warn("批次寫入失敗，改為逐筆寫入（{} 筆）: {}", chunk.size(), e.getMessage());
+                for (WriteUnit unit : chunk) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> writeChunk(List.of(unit), options, operatorId));
+                        complete(unit, entries, outcomes, null);
+                    } catch (Exception ex) {
+                        complete(unit, entries, outcomes, rootMessage(ex));
+                    }
+                }
+            }
+            done += chunk.stream().mapToInt(unit -> unit.rows.size()).sum();
+            if (progress != null) {
+                progress.accept(done, total);
+            }
+        }
+
+        log.info("批次匯入完成：{} 列、{} 筆寫入，耗時 {} ms", total, units.size(), System.currentTimeMillis() - start);
+        if (!units.isEmpty()) {
+            // 批次新增 / 覆寫無法逐筆得知增量，標記統計計數失效
+            invCounterService.markStale();
+            eventPublisher.publishEvent(new InventoryChangeEvent(null, "importItems"));
+        }
+        return Arrays.asList(outcomes);
+    }
+
+    /**
+     * 比對既有物品（編碼優先，其次名稱），並將檔案內指向同一物品的列合併
+     */
+    private List<WriteUnit> classify(List<ImportEntry> entries, Options options, String[] errors, RowOutcome[] outcomes) {
+        Map<String, WriteUnit> byCode = new HashMap<>();
+        Map<String, WriteUnit> byName = new HashMap<>();
+        for (InvItem key : invItemMapper.selectImportKeyList()) {
+            WriteUnit unit = new WriteUnit(key, false, 0);
+            if (key.getItemCode() != null) {
+                byCode.putIfAbsent(key.getItemCode(), unit);
+            }
+            if (key.getItemName() != null) {
+                byName.putIfAbsent(key.getItemName().trim(), unit);
+            }
+        }
+
+        // 既有物品的更新內容（key 為比對到的既有鍵值）
+        Map<WriteUnit, WriteUnit> updates = new IdentityHashMap<>();
+        List<WriteUnit> units = new ArrayList<>();
+        Date now = DateUtils.getNowDate();
+
+        for (int i = 0; i < entries.size(); i++) {
+            ImportEntry entry = entries.get(i);
+            if (errors[i] != null) {
+                outcomes[i] = new RowOutcome(entry, Action.FAILED, null, errors[i]);
+                continue;
+            }
+            InvItem item = entry.item();
+            WriteUnit matched = null;
+            if (StringUtils.isNotEmpty(item.getItemCode())) {
+                matched = byCode.get(item.getItemCode());
+            }
+            if (matched == null && StringUtils.isNotEmpty(item.getItemName())) {
+                matched = byName.get(item.getItemName().trim());
+            }
+
+            if (matched == null) {
+                WriteUnit unit = new WriteUnit(item, true, entry.initialStock());
+                unit.rows.add(i);
+                units.add(unit);
+                index(unit, byCode, byName);
+                continue;
+            }
+            if (!options.updateSupport()) {
+                outcomes[i] = new RowOutcome(entry, Action.SKIPPED, matched.item.getItemId(), null);
+                continue;
+            }
+
+            InvItem overlay = entry.overlay();
+            overlay.setUpdateBy(options.operName());
+            overlay.setUpdateTime(now);
+            WriteUnit target = matched.insert ? matched : updates.get(matched);
+            if (target == null) {
+                target = new WriteUnit(newUpdateItem(matched.item), false, 0);
+                updates.put(matched, target);
+                units.add(target);
+            }
+            mergeNonNull(target.item, overlay);
+            target.rows.add(i);
+            // 改名 / 改編碼後，後續列以新值比對
+            if (StringUtils.isNotEmpty(overlay.getItemCode())) {
+                byCode.put(overlay.getItemCode(), matched);
+            }
+            if (StringUtils.isNotEmpty(overlay.getItemName())) {
+                byName.putIfAbsent(overlay.getItemName().trim(), matched);
+            }
+        }
+        return units;
+    }
+
+    private static void index(WriteUnit unit, Map<String, WriteUnit> byCode, Map<String, WriteUnit> byName) {
+        if (unit.item.getItemCode() != null) {
+            byCode.putIfAbsent(unit.item.getItemCode(), unit);
+        }
+        if (unit.item.getItemName() != null) {
+            byName.putIfAbsent(unit.item.getItemName().trim(), unit);
+        }
+    }
+
+    /**
+     * 以既有鍵值建立更新列（NOT NULL 欄位先帶入既有值）
+     */
+    private static InvItem newUpdateItem(InvItem key) {
+        InvItem item = new InvItem();
+        item.setItemId(key.getItemId());
+        item.setItemCode(key.getItemCode());
+        item.setItemName(key.getItemName());
+        item.setCategoryId(key.getCategoryId());
+        return item;
+    }
+
+    /**
+     * 將有值的欄位覆寫到 target（規則與 InvItemMapper.updateInvItem 相同）
+     */
+    private static void mergeNonNull(InvItem target, InvItem source) {
+        if (StringUtils.isNotEmpty(source.getItemCode())) target.setItemCode(source.getItemCode());
+        if (StringUtils.isNotEmpty(source.getItemName())) target.setItemName(source.getItemName());
+        if (source.getCategoryId() != null) target.setCategoryId(source.getCategoryId());
+        if (source.getSpecification() != null) target.setSpecification(source.getSpecification());
+        if (source.getUnit() != null) target.setUnit(source.getUnit());
+        if (source.getBrand() != null) target.setBrand(source.getBrand());
+        if (source.getModel() != null) target.setModel(source.getModel());
+        if (source.getSupplier() != null) target.setSupplier(source.getSupplier());
+        if (source.getPurchasePrice() != null) target.setPurchasePrice(source.getPurchasePrice());
+        if (source.getCurrentPrice() != null) target.setCurrentPrice(source.getCurrentPrice());
+        if (source.getMinStock() != null) target.setMinStock(source.getMinStock());
+        if (source.getMaxStock() != null) target.setMaxStock(source.getMaxStock());
+        if (source.getLocation() != null) target.setLocation(source.getLocation());
+        if (source.getDescription() != null) target.setDescription(source.getDescription());
+        if (source.getImageUrl() != null) target.setImageUrl(source.getImageUrl());
+        if (source.getBarcode() != null) target.setBarcode(source.getBarcode());
+        if (source.getQrCode() != null) target.setQrCode(source.getQrCode());
+        if (source.getStatus() != null) target.setStatus(source.getStatus());
+        if (source.getUpdateBy() != null) target.setUpdateBy(source.getUpdateBy());
+        if (source.getUpdateTime() != null) target.setUpdateTime(source.getUpdateTime());
+        if (source.getRemark() != null) target.setRemark(source.getRemark());
+    }
+
+    /**
+     * 寫入一批：物品 → 回查新物品ID → 庫存 → 初始庫存異動
+     */
+    private void writeChunk(List<WriteUnit> chunk, Options options, Long operatorId) {
+        List<InvItem> inserts = new ArrayList<>();
+        List<InvItem> updates = new ArrayList<>();
+        for (WriteUnit unit : chunk) {
+            (unit.insert ? inserts : updates).add(unit.item);
+        }
+        if (!updates.isEmpty()) {
+            invItemMapper.upsertInvItemBatch(updates);
+        }
+        if (inserts.isEmpty()) {
+            return;
+        }
+
+        invItemMapper.insertInvItemBatch(inserts);
+        Map<String, Long> ids = new HashMap<>();
+        for (InvItem key : invItemMapper.selectItemIdsByItemCodes(inserts.stream().map(InvItem::getItemCode).toList())) {
+            ids.put(key.getItemCode(), key.getItemId());
+        }
+
+        Date now = DateUtils.getNowDate();
+        List<InvStock> stocks = new ArrayList<>();
+        List<InvStockRecord> records = new ArrayList<>();
+        for (WriteUnit unit : chunk) {
+            if (!unit.insert) {
+                continue;
+            }
+            Long itemId = ids.get(unit.item.getItemCode());
+            if (itemId == null) {
+                throw new IllegalStateException("寫入後查無物品編碼：" + unit.item.getItemCode());
+            }
+            unit.item.setItemId(itemId);
+
+            InvStock stock = new InvStock();
+            stock.setItemId(itemId);
+            stock.setTotalQuantity(unit.initialStock);
+            stock.setAvailableQty(unit.initialStock);
+            stock.setBorrowedQty(0);
+            stock.setReservedQty(0);
+            stock.setDamagedQty(0);
+            stock.setLostQty(0);
+            stock.setUpdateTime(now);
+            stocks.add(stock);
+
+            if (options.recordInitialStock() && unit.initialStock > 0) {
+                InvStockRecord record = new InvStockRecord();
+                record.setItemId(itemId);
+                record.setRecordType(StockRecordType.IN.getCode());
+                record.setQuantity(unit.initialStock);
+                record.setBeforeQty(0);
+                record.setAfterQty(unit.initialStock);
+                record.setOperatorId(operatorId);
+                record.setOperatorName(options.operName());
+                record.setRecordTime(now);
+                record.setReason("初始庫存");
+                records.add(record);
+            }
+        }
+        invStockMapper.insertInvStockBatch(stocks);
+        if (!records.isEmpty()) {
+            invStockRecordMapper.insertInvStockRecordBatch(records);
+        }
+    }
+
+    /**
+     * 填入寫入單位所含各列的結果：第一列為新增 / 更新，檔案內後續重複列為更新
+     */
+    private static void complete(WriteUnit unit, List<ImportEntry> entries, RowOutcome[] outcomes, String error) {
+        for (int n = 0; n < unit.rows.size(); n++) {
+            int row = unit.rows.get(n);
+            if (error != null) {
+                outcomes[row] = new RowOutcome(entries.get(row), Action.FAILED, null, error);
+            } else {
+                Action action = unit.insert && n == 0 ? Action.INSERTED : Action.UPDATED;
+                outcomes[row] = new RowOutcome(entries.get(row), action, unit.item.getItemId(), null);
+            }
+        }
+    }
+
+    private static Long currentUserId() {
+        try {
+            return SecurityUtils.getUserId();
+        } catch (Exception e) {
+            return 1L; // 系統管理員 ID
+        }
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage() != null ? root.getMessage() : e.getMessage();
+    }
+}
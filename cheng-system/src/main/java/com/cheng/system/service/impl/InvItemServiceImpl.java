@@ -1,10 +1,10 @@
 package com.cheng.system.service.impl;
 
-import com.cheng.common.annotation.Excel;
 import com.cheng.common.constant.UserConstants;
 import com.cheng.common.enums.ScanType;
 import com.cheng.common.enums.UserStatus;
 import com.cheng.common.event.ExportProgressEvent;
+import com.cheng.common.event.InventoryChangeEvent;
 import com.cheng.common.exception.ServiceException;
 import com.cheng.common.utils.DateUtils;
 import com.cheng.common.utils.SecurityUtils;
@@ -25,7 +25,6 @@ import com.cheng.system.domain.InvStock;
 import com.cheng.system.domain.InvStockRecord;
 import com.cheng.system.domain.InvBookInfo;
 import com.cheng.system.domain.InvBorrow;
-import com.cheng.system.domain.InvCategory;
 import com.cheng.system.domain.SysTag;
 import com.cheng.system.domain.vo.ImportResult;
 import com.cheng.system.dto.InvItemImportDTO;
@@ -37,6 +36,7 @@ import com.cheng.system.domain.enums.ReserveStatus;
 import com.cheng.system.domain.enums.StockRecordType;
 import com.cheng.system.dto.InvItemWithStockDTO;
 import com.cheng.system.mapper.*;
+import com.cheng.system.service.IInvCounterService;
 import com.cheng.system.service.IInvItemService;
 import com.cheng.system.service.IInvBorrowService;
 import jakarta.servlet.http.HttpServletResponse;
@@ -44,6 +44,7 @@ import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.output.CloseShieldOutputStream;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.beans.factory.annotation.Value;
@@ -56,7 +57,6 @@ import org.springframework.web.multipart.MultipartFile;
 import jakarta.validation.Validator;
 
 import java.io.*;
-import java.lang.reflect.Field;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -64,7 +64,13 @@ import java.nio.file.Path;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
 import java.util.stream.Stream;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -90,6 +96,9 @@ public class InvItemServiceImpl implements IInvItemService {
     private final ApplicationEventPublisher eventPublisher;
     private final ISysUserService sysUserService;
     private final ISysNoticeService sysNoticeService;
+    private final InvItemBatchImporter invItemBatchImporter;
+    private final InvScanCodeCache invScanCodeCache;
+    private final IInvCounterService invCounterService;
 
     /**
      * 靜態 Map 供 Controller 傳遞 SseManager 實例
@@ -103,6 +112,12 @@ public class InvItemServiceImpl implements IInvItemService {
     @Value("${cheng.profile:/tmp/uploadPath}")
     private String uploadPath;
 
+    /**
+     * 匯入時複製圖片的執行緒數
+     */
+    @Value("${inventory.import.image-threads:4}")
+    private int importImageThreads;
+
     /**
      * 匯入任務參數儲存（taskId -> ImportTaskParams）
      */
@@ -261,30 +276,66 @@ public class InvItemServiceImpl implements IInvItemService {
     }
 
     /**
-     * 掃描條碼或QR碼取得物品資訊
+     * 掃描條碼或QR碼取得物品與庫存資訊
+     * <p>
+     * 掃描碼對應的物品ID由 {@link InvScanCodeCache} 快取，命中時只需查詢一次庫存資料；
+     * 查到的物品已不符合掃描碼（改碼或刪除）時捨棄快取重新查詢，重新查詢仍不符合時記為查無物品
      *
      * @param scanCode 掃描內容
      * @param scanType 掃描類型（1條碼 2QR碼）
-     * @return 物品資訊
+     * @return 物品與庫存資訊，查無物品時為 null
      */
     @Override
-    public InvItem scanItemByCode(String scanCode, String scanType) {
+    public InvItemWithStockDTO scanItemWithStock(String scanCode, String scanType) {
         if (StringUtils.isEmpty(scanCode)) {
             throw new ServiceException("掃描內容不能為空");
         }
-
-        InvItem item;
         ScanType type = ScanType.fromCode(scanType);
 
-        switch (type) {
-            case BARCODE -> item = invItemMapper.selectInvItemByBarcode(scanCode);
-            case QRCODE -> item = invItemMapper.selectInvItemByQrCode(scanCode);
-            default -> throw new ServiceException("未找到對應的物品資訊");
+        Long itemId = invScanCodeCache.resolve(type, scanCode, () -> selectItemIdByCode(type, scanCode));
+        InvItemWithStockDTO item = itemId != null ? invItemMapper.selectItemWithStockByItemId(itemId) : null;
+        if (itemId != null && !matchesScanCode(item, type, scanCode)) {
+            invScanCodeCache.evict(type, scanCode);
+            itemId = invScanCodeCache.resolve(type, scanCode, () -> selectItemIdByCode(type, scanCode));
+            item = itemId != null ? invItemMapper.selectItemWithStockByItemId(itemId) : null;
+            if (itemId != null && !matchesScanCode(item, type, scanCode)) {
+                // 查詢期間物品剛被修改，暫記為查無物品，避免每次掃描都重新查詢
+                invScanCodeCache.markMissing(type, scanCode);
+                item = null;
+            }
         }
 
+        if (item != null) {
+            item.calculateStockStatus();
+            item.calculateStockValue();
+        }
         return item;
     }
 
+    /**
+     * 取得掃描碼快取統計
+     *
+     * @return 統計資料
+     */
+    @Override
+    public Map<String, Object> getScanCacheStats() {
+        return invScanCodeCache.getStats();
+    }
+
+    private Long selectItemIdByCode(ScanType type, String scanCode) {
+        return switch (type) {
+            case BARCODE -> invItemMapper.selectActiveItemIdByBarcode(scanCode);
+            case QRCODE -> invItemMapper.selectActiveItemIdByQrCode(scanCode);
+        };
+    }
+
+    private static boolean matchesScanCode(InvItemWithStockDTO item, ScanType type, String scanCode) {
+        if (item == null) {
+            return false;
+        }
+        return scanCode.equals(type == ScanType.BARCODE ? item.getBarcode() : item.getQrCode());
+    }
+
     /**
      * 新增物品資訊
      *
@@ -340,7 +391,11 @@ public class InvItemServiceImpl implements IInvItemService {
                 record.setRecordTime(DateUtils.getNowDate());
                 record.setReason("初始庫存");
                 invStockRecordMapper.insertInvStockRecord(record);
+                invCounterService.recordStockRecord(StockRecordType.IN.getCode());
             }
+            invCounterService.recordItemChange(null,
+                    new IInvCounterService.ItemState(invItem.getMinStock(), initialStock, initialStock));
+            eventPublisher.publishEvent(new InventoryChangeEvent(invItem.getItemId(), "insertInvItem"));
         }
 
         return result;
@@ -356,7 +411,41 @@ public class InvItemServiceImpl implements IInvItemService {
     public int updateInvItem(InvItem invItem) {
         invItem.setUpdateTime(DateUtils.getNowDate());
         invItem.setUpdateBy(getUsername());
-        return invItemMapper.updateInvItem(invItem);
+        // 最低庫存與刪除標記影響庫存統計，先取得異動前狀態
+        InvItem oldItem = null;
+        InvStock stock = null;
+        if (invItem.getMinStock() != null || invItem.getDelFlag() != null) {
+            oldItem = invItemMapper.selectInvItemByItemId(invItem.getItemId());
+            stock = invStockMapper.selectInvStockByItemId(invItem.getItemId());
+        }
+        int result = invItemMapper.updateInvItem(invItem);
+        if (result > 0) {
+            // 條碼 / QR碼可能已變更
+            invScanCodeCache.invalidateOnCommit(invItem.getItemId());
+        }
+        if (result > 0 && oldItem != null) {
+            invCounterService.recordItemChange(counterState(oldItem.getMinStock(), oldItem.getDelFlag(), stock),
+                    counterState(invItem.getMinStock() != null ? invItem.getMinStock() : oldItem.getMinStock(),
+                            invItem.getDelFlag() != null ? invItem.getDelFlag() : oldItem.getDelFlag(), stock));
+        }
+        return result;
+    }
+
+    /**
+     * 物品對庫存統計的貢獻，已刪除的物品不計入
+     *
+     * @param minStock 最低庫存
+     * @param delFlag  刪除標記
+     * @param stock    庫存（無庫存記錄時為 null）
+     * @return 統計狀態
+     */
+    private static IInvCounterService.ItemState counterState(Integer minStock, String delFlag, InvStock stock) {
+        if (!"0".equals(delFlag)) {
+            return null;
+        }
+        int total = stock != null && stock.getTotalQuantity() != null ? stock.getTotalQuantity() : 0;
+        int available = stock != null && stock.getAvailableQty() != null ? stock.getAvailableQty() : 0;
+        return new IInvCounterService.ItemState(minStock, total, available);
     }
 
     /**
@@ -376,8 +465,13 @@ public class InvItemServiceImpl implements IInvItemService {
                 deleteImageFile(item.getImageUrl(), item.getItemName());
             }
             // 刪除庫存記錄
+            InvStock stock = invStockMapper.selectInvStockByItemId(itemId);
             invStockMapper.deleteInvStockByItemId(itemId);
+            if (item != null) {
+                invCounterService.recordItemChange(counterState(item.getMinStock(), item.getDelFlag(), stock), null);
+            }
         }
+        eventPublisher.publishEvent(new InventoryChangeEvent(null, "deleteInvItem"));
         return invItemMapper.deleteInvItemByItemIds(itemIds);
     }
 
@@ -397,7 +491,12 @@ public class InvItemServiceImpl implements IInvItemService {
             deleteImageFile(item.getImageUrl(), item.getItemName());
         }
         // 刪除庫存記錄
+        InvStock stock = invStockMapper.selectInvStockByItemId(itemId);
         invStockMapper.deleteInvStockByItemId(itemId);
+        if (item != null) {
+            invCounterService.recordItemChange(counterState(item.getMinStock(), item.getDelFlag(), stock), null);
+        }
+        eventPublisher.publishEvent(new InventoryChangeEvent(itemId, "deleteInvItem"));
         return invItemMapper.deleteInvItemByItemId(itemId);
     }
 
@@ -447,47 +546,57 @@ public class InvItemServiceImpl implements IInvItemService {
      */
     @Override
     public String importItem(List<InvItem> itemList, Boolean isUpdateSupport, String operName) {
+        return importItem(itemList, isUpdateSupport, operName, null);
+    }
+
+    /**
+     * 匯入物品資料（批次寫入）
+     *
+     * @param progress 每批完成後回呼（已處理列數, 總列數），可為 null
+     */
+    private String importItem(List<InvItem> itemList, Boolean isUpdateSupport, String operName,
+                              BiConsumer<Integer, Integer> progress) {
         if (StringUtils.isNull(itemList) || itemList.isEmpty()) {
             throw new ServiceException("匯入物品資料不能為空！");
         }
+
+        Date now = DateUtils.getNowDate();
+        List<InvItemBatchImporter.ImportEntry> entries = new ArrayList<>(itemList.size());
+        for (int i = 0; i < itemList.size(); i++) {
+            InvItem item = itemList.get(i);
+            item.setCreateBy(operName);
+            item.setCreateTime(now);
+            entries.add(new InvItemBatchImporter.ImportEntry(i + 2, item, takeInitialStock(item)));
+        }
+
+        List<InvItemBatchImporter.RowOutcome> outcomes = invItemBatchImporter.importItems(entries,
+                new InvItemBatchImporter.Options(Boolean.TRUE.equals(isUpdateSupport), true, true, operName), progress);
+
         int successNum = 0;
         int failureNum = 0;
         StringBuilder successMsg = new StringBuilder();
         StringBuilder failureMsg = new StringBuilder();
-
-        for (InvItem item : itemList) {
-            try {
-                // 驗證是否存在這個物品：優先用 itemCode，若為空則用 itemName 比對
-                InvItem existItem = null;
-                if (StringUtils.isNotEmpty(item.getItemCode())) {
-                    existItem = invItemMapper.selectInvItemByItemCode(item.getItemCode());
-                }
-                if (existItem == null && StringUtils.isNotEmpty(item.getItemName())) {
-                    existItem = invItemMapper.selectInvItemByItemName(item.getItemName().trim());
-                }
-                if (StringUtils.isNull(existItem)) {
-                    BeanValidators.validateWithException(validator, item);
-                    item.setCreateBy(operName);
-                    int insertInvItem = this.insertInvItem(item);
-                    log.info("insertInv:{}", insertInvItem);
+        for (InvItemBatchImporter.RowOutcome outcome : outcomes) {
+            String itemCode = outcome.entry().item().getItemCode();
+            switch (outcome.action()) {
+                case INSERTED -> {
                     successNum++;
-                    successMsg.append("<br/>").append(successNum).append("、物品編碼 ").append(item.getItemCode()).append(" 匯入成功");
-                } else if (isUpdateSupport) {
-                    BeanValidators.validateWithException(validator, item);
-                    item.setItemId(existItem.getItemId());
-                    item.setUpdateBy(operName);
-                    this.updateInvItem(item);
+                    successMsg.append("<br/>").append(successNum).append("、物品編碼 ").append(itemCode).append(" 匯入成功");
+                }
+                case UPDATED -> {
                     successNum++;
-                    successMsg.append("<br/>").append(successNum).append("、物品編碼 ").append(item.getItemCode()).append(" 更新成功");
-                } else {
+                    successMsg.append("<br/>").append(successNum).append("、物品編碼 ").append(itemCode).append(" 更新成功");
+                }
+                case SKIPPED -> {
                     failureNum++;
-                    failureMsg.append("<br/>").append(failureNum).append("、物品編碼 ").append(item.getItemCode()).append(" 已存在");
+                    failureMsg.append("<br/>").append(failureNum).append("、物品編碼 ").append(itemCode).append(" 已存在");
+                }
+                case FAILED -> {
+                    failureNum++;
+                    String msg = "<br/>" + failureNum + "、物品編碼 " + itemCode + " 匯入失敗：";
+                    failureMsg.append(msg).append(outcome.message());
+                    log.error("{}{}", msg, outcome.message());
                 }
-            } catch (Exception e) {
-                failureNum++;
-                String msg = "<br/>" + failureNum + "、物品編碼 " + item.getItemCode() + " 匯入失敗：";
-                failureMsg.append(msg).append(e.getMessage());
-                log.error(msg, e);
             }
         }
         if (failureNum > 0) {
@@ -499,6 +608,23 @@ public class InvItemServiceImpl implements IInvItemService {
         return successMsg.toString();
     }
 
+    /**
+     * 取出以 remark 暫存的初始庫存數量（INITIAL_STOCK:n），並清除暫存標記
+     */
+    private int takeInitialStock(InvItem item) {
+        if (item.getRemark() == null || !item.getRemark().startsWith("INITIAL_STOCK:")) {
+            return 0;
+        }
+        try {
+            int initialStock = Integer.parseInt(item.getRemark().substring("INITIAL_STOCK:".length()));
+            item.setRemark(null);
+            return initialStock;
+        } catch (NumberFormatException e) {
+            log.warn("解析初始庫存數量失敗: {}", item.getRemark());
+            return 0;
+        }
+    }
+
     /**
      * 安全刪除物品（檢查借出記錄、級聯刪除相關表）
      *
@@ -616,6 +742,10 @@ public class InvItemServiceImpl implements IInvItemService {
                 }
 
                 // 4.3 刪除庫存異動記錄
+                Map<String, Long> recordCounts = new HashMap<>();
+                for (Map<String, Object> row : invStockRecordMapper.selectRecordTypeCountsByItemId(itemId)) {
+                    recordCounts.put(String.valueOf(row.get("recordType")), ((Number) row.get("count")).longValue());
+                }
                 int recordCount = invStockRecordMapper.deleteInvStockRecordByItemId(itemId);
                 if (recordCount > 0) {
                     log.info("已刪除 {} 筆庫存異動記錄，ItemId: {}", recordCount, itemId);
@@ -629,6 +759,8 @@ public class InvItemServiceImpl implements IInvItemService {
                 // 5. 最後刪除物品本身
                 int result = invItemMapper.deleteInvItemByItemId(itemId);
                 if (result > 0) {
+                    invCounterService.recordItemChange(counterState(item.getMinStock(), item.getDelFlag(), stock), null);
+                    invCounterService.recordStockRecordsRemoved(recordCounts);
                     successCount++;
                     log.info("成功刪除物品，ItemId: {}, 物品名稱: {}", itemId, item.getItemName());
                 } else {
@@ -649,6 +781,10 @@ public class InvItemServiceImpl implements IInvItemService {
             }
         }
 
+        if (successCount > 0) {
+            eventPublisher.publishEvent(new InventoryChangeEvent(null, "deleteInvItem"));
+        }
+
         // 建立結果訊息
         StringBuilder resultMsg = new StringBuilder();
 
@@ -727,9 +863,11 @@ public class InvItemServiceImpl implements IInvItemService {
             String taskId = UUID.randomUUID().toString();
 
             // 先解析Excel檔案並保存到內存（避免異步執行時臨時文件已被刪除）
+            // xlsx 以 SAX 逐列串流解析，不建立整個工作簿的物件模型
             ExcelUtil<InvItemImportDTO> util = new ExcelUtil<>(InvItemImportDTO.class);
-            List<InvItemImportDTO> importList = util.importExcel(file.getInputStream());
-            int rowCount = importList != null ? importList.size() : 0;
+            List<InvItemImportDTO> importList = new ArrayList<>();
+            util.importExcelStream(file.getInputStream(), 0, invItemBatchImporter.getChunkSize(), importList::addAll);
+            int rowCount = importList.size();
 
             // 將任務參數和已解析的資料存入Map供後續使用
             ImportTaskParams params = new ImportTaskParams();
@@ -779,8 +917,10 @@ public class InvItemServiceImpl implements IInvItemService {
 
             pushImportProgress(taskId, 30, String.format("驗證完成，有效資料 %d 條，開始匯入...", validItemList.size()));
 
-            // 執行匯入
-            String result = importItem(validItemList, params.getUpdateSupport(), getUsername());
+            // 執行匯入（每批寫入後推送進度，匯入階段佔 30% ~ 100%）
+            String result = importItem(validItemList, params.getUpdateSupport(), getUsername(),
+                    (done, total) -> pushImportProgress(taskId, 30 + (int) ((long) done * 69 / total),
+                            String.format("已匯入 %d/%d 條資料...", done, total)));
 
             pushImportProgress(taskId, 100, "匯入完成：" + result);
 
@@ -805,6 +945,10 @@ public class InvItemServiceImpl implements IInvItemService {
         List<InvItem> validItemList = new ArrayList<>();
         int total = importList.size();
         int processed = 0;
+        int progressStep = Math.max(1, invItemBatchImporter.getChunkSize());
+
+        // 分類名稱一次載入，避免逐列查詢
+        Map<String, Long> categoryIndex = invItemBatchImporter.loadCategoryIndex();
 
         for (InvItemImportDTO importDTO : importList) {
             try {
@@ -814,25 +958,20 @@ public class InvItemServiceImpl implements IInvItemService {
                 // 驗證必填欄位
                 if (StringUtils.isEmpty(importDTO.getItemName())) {
                     pushImportProgress(taskId, -1, String.format("第 %d 行錯誤：物品名稱不能為空", importDTO.getRowNum()));
-                    continue;
+                } else {
+                    // 轉換為InvItem對象（Bean Validation 於匯入時平行執行）
+                    validItemList.add(convertImportDTOToInvItem(importDTO, params, categoryIndex));
                 }
-
-                // 轉換為InvItem對象
-                InvItem item = convertImportDTOToInvItem(importDTO, params);
-
-                // 驗證資料
-                BeanValidators.validateWithException(validator, item);
-
-                validItemList.add(item);
-
-                // 推送進度（驗證階段佔20%進度）
-                int progress = 10 + (int) ((double) processed / total * 20);
-                pushImportProgress(taskId, progress, String.format("已驗證 %d/%d 條資料...", processed + 1, total));
-
             } catch (Exception e) {
                 pushImportProgress(taskId, -1, String.format("第 %d 行錯誤：%s", importDTO.getRowNum(), e.getMessage()));
             }
             processed++;
+
+            // 推送進度（驗證階段佔20%進度，每批推送一次）
+            if (processed % progressStep == 0 || processed == total) {
+                int progress = 10 + (int) ((double) processed / total * 20);
+                pushImportProgress(taskId, progress, String.format("已驗證 %d/%d 條資料...", processed, total));
+            }
         }
 
         return validItemList;
@@ -841,11 +980,13 @@ public class InvItemServiceImpl implements IInvItemService {
     /**
      * 將ImportDTO轉換為InvItem
      *
-     * @param importDTO 匯入DTO
-     * @param params    任務參數
+     * @param importDTO     匯入DTO
+     * @param params        任務參數
+     * @param categoryIndex 分類名稱對照
      * @return InvItem對象
      */
-    private InvItem convertImportDTOToInvItem(InvItemImportDTO importDTO, ImportTaskParams params) {
+    private InvItem convertImportDTOToInvItem(InvItemImportDTO importDTO, ImportTaskParams params,
+                                              Map<String, Long> categoryIndex) {
         InvItem item = new InvItem();
 
         // 物品編碼：如果為空則自動產生
@@ -870,8 +1011,8 @@ public class InvItemServiceImpl implements IInvItemService {
             item.setCategoryId(params.getDefaultCategoryId());
         } else {
             // 根據分類名稱查找分類ID
-            InvCategory category = findCategoryByName(importDTO.getCategoryName());
-            item.setCategoryId(category != null ? category.getCategoryId() : params.getDefaultCategoryId());
+            Long categoryId = categoryIndex.get(importDTO.getCategoryName().trim());
+            item.setCategoryId(categoryId != null ? categoryId : params.getDefaultCategoryId());
         }
 
         // 單位：如果為空則使用預設單位
@@ -898,30 +1039,6 @@ public class InvItemServiceImpl implements IInvItemService {
         return item;
     }
 
-    /**
-     * 根據分類名稱查找分類
-     *
-     * @param categoryName 分類名稱
-     * @return 分類對象
-     */
-    private InvCategory findCategoryByName(String categoryName) {
-        if (StringUtils.isEmpty(categoryName)) {
-            return null;
-        }
-
-        // 使用分類名稱查詢
-        InvCategory queryParam = new InvCategory();
-        queryParam.setCategoryName(categoryName);
-        List<InvCategory> categories = invCategoryMapper.selectInvCategoryList(queryParam);
-
-        // 返回第一個匹配的分類
-        if (categories != null && !categories.isEmpty()) {
-            return categories.get(0);
-        }
-
-        return null;
-    }
-
     /**
      * 安全地取得使用者名稱
      * <p>
@@ -1421,6 +1538,11 @@ public class InvItemServiceImpl implements IInvItemService {
             borrow.setCreateTime(DateUtils.getNowDate());
 
             invBorrowMapper.insertInvBorrow(borrow);
+            // 總數量不變，只扣減可用數量
+            invCounterService.recordStockChange(item.getMinStock(), item.getTotalQuantity(), item.getTotalQuantity(),
+                    -request.getBorrowQty());
+            invCounterService.recordBorrowTransition(borrow.getBorrowId(), null, borrow.getStatus(),
+                    borrow.getExpectedReturn());
 
             // 5. 發布預約事件
             ReservationEvent event = new ReservationEvent(
@@ -1499,6 +1621,9 @@ public class InvItemServiceImpl implements IInvItemService {
             record.setCreateTime(new Date());
 
             invStockRecordMapper.insertInvStockRecord(record);
+            // 總數量不變，只恢復可用數量
+            invCounterService.recordStockChange(null, 0, 0, quantity);
+            invCounterService.recordStockRecord(StockRecordType.RESTORE_RESERVE.getCode());
 
             log.info("成功恢復物品預約數量 - itemId: {}, quantity: {}", itemId, quantity);
             return true;
@@ -1543,11 +1668,13 @@ public class InvItemServiceImpl implements IInvItemService {
             throw new ServiceException("只能取消自己的預約");
         }
 
+        String fromStatus = borrow.getStatus();
         borrow.setReserveStatus(ReserveStatus.CANCELLED.getCode());
         borrow.setStatus(BorrowStatus.CANCELLED.getCode());
         borrow.setUpdateBy(currentUserId.toString());
         borrow.setUpdateTime(DateUtils.getNowDate());
         invBorrowMapper.updateInvBorrow(borrow);
+        invCounterService.recordBorrowTransition(borrowId, fromStatus, borrow.getStatus(), null);
 
         // 5. 恢復庫存（失敗時回滾整筆交易）
         if (!restoreReservedQuantity(borrow.getItemId(), borrow.getQuantity())) {
@@ -1626,6 +1753,11 @@ public class InvItemServiceImpl implements IInvItemService {
      */
     private static final ConcurrentHashMap<String, String> EXPORT_RESULT_MAP = new ConcurrentHashMap<>();
 
+    /**
+     * 匯出 Excel 每個 sheet 最多資料行數
+     */
+    private static final int EXPORT_MAX_ROWS_PER_SHEET = 10000;
+
     /**
      * 匯出任務參數類別
      */
@@ -1662,7 +1794,7 @@ public class InvItemServiceImpl implements IInvItemService {
     public void asyncExportWithImages(String taskId) {
         log.info("========== 開始執行匯出任務 - taskId: {} ==========", taskId);
 
-        File tempDir = null;
+        File finalZipFile = null;
         try {
             // 1. 取得任務參數
             ExportTaskParams params = EXPORT_TASK_MAP.get(taskId);
@@ -1673,14 +1805,9 @@ public class InvItemServiceImpl implements IInvItemService {
             // 推送 SSE 進度
             pushExportProgress(taskId, 5, "查詢資料中");
 
-            // 2. 查詢資料
-            List<InvItemWithStockDTO> allData = invItemMapper.selectItemWithStockList(params.getQueryDto());
-            allData.forEach(item -> {
-                item.calculateStockStatus();
-                item.calculateStockValue();
-            });
-
-            int totalCount = allData.size();
+            // 2. 統計筆數
+            InvItemWithStockDTO queryDto = params.getQueryDto();
+            int totalCount = invItemMapper.countItemWithStock(queryDto);
             log.info("查詢到 {} 筆資料", totalCount);
 
             if (totalCount == 0) {
@@ -1688,95 +1815,98 @@ public class InvItemServiceImpl implements IInvItemService {
                 return;
             }
 
-            // 3. 建立臨時目錄
-            tempDir = new File(uploadPath + File.separator + "export_temp" + File.separator + taskId);
-            if (!tempDir.exists() && !tempDir.mkdirs()) {
-                throw new ServiceException("無法建立臨時目錄");
+            // 3. 建立最終 ZIP，Excel、圖片壓縮檔與報告皆直接寫入，不落地為暫存檔
+            File exportDir = new File(uploadPath + File.separator + "export_temp");
+            if (!exportDir.exists() && !exportDir.mkdirs()) {
+                throw new ServiceException("無法建立匯出目錄");
             }
+            String finalZipName = "物品匯出_" + DateUtils.dateTimeNow() + ".zip";
+            finalZipFile = new File(exportDir, finalZipName);
 
             pushExportProgress(taskId, 10, String.format("資料查詢完成，共 %d 筆", totalCount));
 
-            // 4. 匯出多 sheet Excel
-            int maxRowsPerSheet = 10000;
-            String excelFileName = "物品匯出_" + DateUtils.dateTimeNow() + ".xlsx";
-            File excelFile = new File(tempDir, excelFileName);
-
-            exportMultiSheetExcel(allData, excelFile, maxRowsPerSheet, taskId);
-
-            pushExportProgress(taskId, 50, "Excel 匯出完成");
-
-            // 5. 收集所有圖片路徑並壓縮
-            List<String> imagePaths = allData.stream()
-                    .map(InvItemWithStockDTO::getImageUrl)
-                    .filter(url -> url != null && !url.trim().isEmpty())
-                    .distinct()
-                    .toList();
-
-            log.info("需要壓縮 {} 張圖片", imagePaths.size());
-
-            ImageExportUtil.ImageZipResult imageResult =
-                    ImageExportUtil.zipImages(
-                            imagePaths,
-                            uploadPath,
-                            tempDir,
-                            "images",
-                            processed -> {
-                                int progress = 50 + (processed * 30 / imagePaths.size());
-                                pushExportProgress(taskId, progress, String.format("壓縮圖片中 (%d/%d)", processed, imagePaths.size()));
-                            }
-                    );
-
-            pushExportProgress(taskId, 80, "圖片壓縮完成");
-
-            // 6. 處理缺失圖片（寫入 Excel 的 remarks 欄位）
-            if (imageResult.hasMissingImages()) {
-                log.warn("發現 {} 張缺失圖片", imageResult.missingImages().size());
-
-                // 產生缺失圖片報告
-                String report = ImageExportUtil.createMissingImagesReport(imageResult.missingImages());
-                File reportFile = new File(tempDir, "missing_images.txt");
-                ImageExportUtil.writeTextToFile(report, reportFile.getAbsolutePath());
-
-                // 將缺失圖片資訊寫入對應物品的 remarks 欄位（需要重新產生 Excel）
-                for (InvItemWithStockDTO item : allData) {
-                    if (imageResult.missingImages().contains(item.getImageUrl())) {
-                        String missingInfo = "【圖片缺失】";
-                        if (item.getRemark() != null && !item.getRemark().trim().isEmpty()) {
-                            item.setRemark(item.getRemark() + "\n" + missingInfo);
-                        } else {
-                            item.setRemark(missingInfo);
-                        }
-                    }
-                }
+            try (ZipOutputStream zos = new ZipOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(finalZipFile), 64 * 1024))) {
 
-                // 重新匯出 Excel（包含缺失圖片標記）
-                exportMultiSheetExcel(allData, excelFile, maxRowsPerSheet, taskId);
-            }
-
-            pushExportProgress(taskId, 85, "打包最終檔案");
+                // 4. 串流寫入 Excel（逐列讀取、逐列寫入，超過每 sheet 上限自動換頁）
+                //    寫入前先檢查圖片是否存在，缺失標記直接寫進備註，不需重新產生 Excel
+                //    xlsx 本身即為 ZIP，以不壓縮等級收錄
+                String excelFileName = "物品匯出_" + DateUtils.dateTimeNow() + ".xlsx";
 
-            // 7. 將 Excel + 圖片 ZIP + 報告打包成最終 ZIP
-            String finalZipName = "物品匯出_" + DateUtils.dateTimeNow() + ".zip";
-            File finalZipFile = new File(uploadPath + File.separator + "export_temp", finalZipName);
+                Map<String, Boolean> imageExistsCache = new HashMap<>();
+                List<String> imagePaths = new ArrayList<>();
+                List<String> missingImages = new ArrayList<>();
+                int progressStep = Math.max(1, totalCount / 20);
 
-            packFinalZip(excelFile, imageResult.zipFiles(),
-                    imageResult.hasMissingImages() ? new File(tempDir, "missing_images.txt") : null,
-                    finalZipFile);
+                ExcelUtil<InvItemWithStockDTO> util = new ExcelUtil<>(InvItemWithStockDTO.class);
+                util.startStream("物品資料", "", EXPORT_MAX_ROWS_PER_SHEET);
+                try {
+                    invItemMapper.streamItemWithStockList(queryDto, context -> {
+                        InvItemWithStockDTO item = context.getResultObject();
+                        item.calculateStockStatus();
+                        item.calculateStockValue();
+                        markMissingImage(item, imageExistsCache, imagePaths, missingImages);
+                        util.writeRow(item);
+
+                        int written = context.getResultCount();
+                        if (written % progressStep == 0) {
+                            int progress = 10 + (int) ((long) written * 40 / Math.max(totalCount, written));
+                            pushExportProgress(taskId, progress, String.format("寫入 Excel 中 (%d/%d)", written, totalCount));
+                        }
+                    });
+                    zos.setLevel(Deflater.NO_COMPRESSION);
+                    zos.putNextEntry(new ZipEntry(excelFileName));
+                    util.finishStream(CloseShieldOutputStream.wrap(zos));
+                    zos.closeEntry();
+                } catch (Exception e) {
+                    util.abortStream();
+                    throw e;
+                }
 
-            pushExportProgress(taskId, 95, "清理臨時檔案");
+                log.info("Excel 串流匯出完成，共 {} 個 sheet", util.getStreamSheetCount());
+                pushExportProgress(taskId, 50, "Excel 匯出完成");
+
+                // 5. 壓縮存在的圖片（分割檔直接寫入最終 ZIP）
+                log.info("需要壓縮 {} 張圖片，缺失 {} 張", imagePaths.size(), missingImages.size());
+
+                // 進度百分比有變化才推送，避免上萬張圖片逐張發送事件
+                int[] lastProgress = {-1};
+                ImageExportUtil.ImageZipResult imageResult =
+                        ImageExportUtil.zipImages(
+                                imagePaths,
+                                uploadPath,
+                                zos,
+                                "images",
+                                processed -> {
+                                    int progress = 50 + (processed * 30 / imagePaths.size());
+                                    if (progress != lastProgress[0] || processed == imagePaths.size()) {
+                                        lastProgress[0] = progress;
+                                        pushExportProgress(taskId, progress, String.format("壓縮圖片中 (%d/%d)", processed, imagePaths.size()));
+                                    }
+                                }
+                        );
+
+                pushExportProgress(taskId, 80, "圖片壓縮完成");
+
+                // 6. 加入缺失圖片報告（含寫入 Excel 後才讀取失敗的圖片）
+                missingImages.addAll(imageResult.missingImages());
+                if (!missingImages.isEmpty()) {
+                    log.warn("發現 {} 張缺失圖片", missingImages.size());
+                    zos.setLevel(Deflater.DEFAULT_COMPRESSION);
+                    zos.putNextEntry(new ZipEntry("missing_images.txt"));
+                    zos.write(ImageExportUtil.createMissingImagesReport(missingImages).getBytes(StandardCharsets.UTF_8));
+                    zos.closeEntry();
+                }
 
-            // 8. 清理臨時檔案（保留最終 ZIP）
-            ImageExportUtil.deleteTempFile(excelFile);
-            imageResult.zipFiles().forEach(ImageExportUtil::deleteTempFile);
-            if (imageResult.hasMissingImages()) {
-                ImageExportUtil.deleteTempFile(new File(tempDir, "missing_images.txt"));
+                pushExportProgress(taskId, 90, "打包最終檔案");
             }
-            ImageExportUtil.deleteTempDirectory(tempDir);
 
-            // 9. 儲存最終結果路徑
+            log.info("最終 ZIP 打包完成: {}", finalZipFile.getName());
+
+            // 7. 儲存最終結果路徑
             EXPORT_RESULT_MAP.put(taskId, finalZipFile.getAbsolutePath());
 
-            // 10. 推送完成事件
+            // 8. 推送完成事件
             pushExportProgress(taskId, 100, "匯出完成！");
 
             log.info("========== 匯出任務完成 - taskId: {}, 檔案: {} ==========", taskId, finalZipFile.getName());
@@ -1785,10 +1915,8 @@ public class InvItemServiceImpl implements IInvItemService {
             log.error("匯出任務執行失敗 - taskId: {}", taskId, e);
             pushExportProgress(taskId, -1, "匯出失敗：" + e.getMessage());
 
-            // 清理臨時目錄
-            if (tempDir != null && tempDir.exists()) {
-                ImageExportUtil.deleteTempDirectory(tempDir);
-            }
+            // 清理未完成的匯出檔
+            ImageExportUtil.deleteTempFile(finalZipFile);
         } finally {
             // 清理任務參數
             EXPORT_TASK_MAP.remove(taskId);
@@ -1796,182 +1924,35 @@ public class InvItemServiceImpl implements IInvItemService {
     }
 
     /**
-     * 匯出多 sheet Excel
+     * 檢查物品圖片是否存在（同一路徑只檢查一次）
      * <p>
-     * 方法：將資料分批，每批匯出到臨時檔案，然後合併所有 sheet 到最終檔案
+     * 存在的圖片加入待壓縮清單；缺失時加入缺失清單，並在物品備註加上「【圖片缺失】」
      */
-    private void exportMultiSheetExcel(List<InvItemWithStockDTO> allData, File outputFile,
-                                       int maxRowsPerSheet, String taskId) throws Exception {
-        log.info("開始匯出多 sheet Excel - 總資料數: {}, 每 sheet 最多: {} 行",
-                allData.size(), maxRowsPerSheet);
-
-        // 計算需要幾個 sheet
-        int totalSheets = (int) Math.ceil((double) allData.size() / maxRowsPerSheet);
-        log.info("將匯出 {} 個 sheet", totalSheets);
-
-        // 如果資料量小，直接單 sheet 匯出
-        if (totalSheets == 1) {
-            ExcelUtil<InvItemWithStockDTO> util = new ExcelUtil<>(InvItemWithStockDTO.class);
-            // ⚠️ 不要調用 exportExcel()，它會在 finally 中關閉 Workbook
-            // 改為手動調用 init + writeSheet
-            util.init(allData, "物品資料", "", Excel.Type.EXPORT);
-            util.writeSheet();
-
-            try (Workbook wb = extractWorkbookFromExcelUtil(util);
-                 FileOutputStream fos = new FileOutputStream(outputFile)) {
-                wb.write(fos);
-            }
-
-            log.info("單 sheet Excel 匯出完成");
+    private void markMissingImage(InvItemWithStockDTO item, Map<String, Boolean> imageExistsCache,
+                                  List<String> imagePaths, List<String> missingImages) {
+        String imageUrl = item.getImageUrl();
+        if (imageUrl == null || imageUrl.trim().isEmpty()) {
             return;
         }
-
-        // 多 sheet：先匯出到臨時檔案，再合併
-        try (Workbook finalWorkbook = new XSSFWorkbook()) {
-            for (int i = 0; i < totalSheets; i++) {
-                int fromIndex = i * maxRowsPerSheet;
-                int toIndex = Math.min((i + 1) * maxRowsPerSheet, allData.size());
-                List<InvItemWithStockDTO> batchData = allData.subList(fromIndex, toIndex);
-
-                String sheetName = "物品資料" + (i + 1);
-                log.debug("匯出 sheet: {}, 資料範圍: {}-{}", sheetName, fromIndex + 1, toIndex);
-
-                // 匯出到臨時檔案
-                ExcelUtil<InvItemWithStockDTO> util = new ExcelUtil<>(InvItemWithStockDTO.class);
-                // ⚠️ 不要調用 exportExcel()，它會在 finally 中關閉 Workbook
-                // 改為手動調用 init + writeSheet
-                util.init(batchData, sheetName, "", Excel.Type.EXPORT);
-                util.writeSheet();
-
-                try (Workbook batchWb = extractWorkbookFromExcelUtil(util)) {
-                    // 複製 sheet 到最終 Workbook
-                    Sheet sourceSheet = batchWb.getSheetAt(0);
-                    Sheet targetSheet = finalWorkbook.createSheet(sheetName);
-                    copySheet(sourceSheet, targetSheet, finalWorkbook);
-                }
-            }
-
-            // 寫入最終檔案
-            try (FileOutputStream fos = new FileOutputStream(outputFile)) {
-                finalWorkbook.write(fos);
-            }
-
-            log.info("多 sheet Excel 匯出完成，共 {} 個 sheet", totalSheets);
-        }
-    }
-
-    /**
-     * 從 ExcelUtil 提取 Workbook
-     * <p>
-     * 注意：這是一個權宜之計，因為 ExcelUtil.exportExcel() 返回 AjaxResult 而非 Workbook。
-     * ExcelUtil 的設計是為了直接寫入 HttpServletResponse，不適合我們的多 sheet 合併場景。
-     * 理想情況下應該重構 ExcelUtil 或直接使用 Apache POI API，但考慮到 DTO 有大量 @Excel 註解，
-     * 目前使用反射是最經濟的方案。
-     *
-     * @param util ExcelUtil 實例
-     * @return Workbook 實例
-     */
-    private Workbook extractWorkbookFromExcelUtil(ExcelUtil<?> util) {
-        try {
-            Field wbField = util.getClass().getDeclaredField("wb");
-            wbField.setAccessible(true);
-            return (Workbook) wbField.get(util);
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            log.error("無法從 ExcelUtil 提取 Workbook，可能 ExcelUtil 內部結構已變更", e);
-            throw new RuntimeException("Excel 匯出失敗：無法取得 Workbook", e);
-        }
-    }
-
-    /**
-     * 複製整個 Sheet（包含樣式）
-     */
-    private void copySheet(Sheet sourceSheet, Sheet targetSheet, Workbook targetWorkbook) {
-        // 複製列寬
-        for (int i = 0; i < sourceSheet.getRow(0).getLastCellNum(); i++) {
-            targetSheet.setColumnWidth(i, sourceSheet.getColumnWidth(i));
-        }
-
-        // 複製所有行
-        for (int rowNum = 0; rowNum <= sourceSheet.getLastRowNum(); rowNum++) {
-            Row sourceRow = sourceSheet.getRow(rowNum);
-            if (sourceRow != null) {
-                Row targetRow = targetSheet.createRow(rowNum);
-                targetRow.setHeight(sourceRow.getHeight());
-
-                // 複製所有儲存格
-                for (int cellNum = 0; cellNum < sourceRow.getLastCellNum(); cellNum++) {
-                    Cell sourceCell = sourceRow.getCell(cellNum);
-                    if (sourceCell != null) {
-                        Cell targetCell = targetRow.createCell(cellNum);
-
-                        // 複製樣式（需要先複製到目標 Workbook）
-                        CellStyle newStyle = targetWorkbook.createCellStyle();
-                        newStyle.cloneStyleFrom(sourceCell.getCellStyle());
-                        targetCell.setCellStyle(newStyle);
-
-                        // 複製值
-                        copyCellValue(sourceCell, targetCell);
-                    }
-                }
+        Boolean exists = imageExistsCache.get(imageUrl);
+        if (exists == null) {
+            exists = ImageExportUtil.imageExists(uploadPath, imageUrl);
+            imageExistsCache.put(imageUrl, exists);
+            if (exists) {
+                imagePaths.add(imageUrl);
+            } else {
+                log.warn("圖片檔案不存在：{}", imageUrl);
+                missingImages.add(imageUrl);
             }
         }
-    }
-
-    /**
-     * 複製儲存格值
-     */
-    private void copyCellValue(Cell sourceCell, Cell targetCell) {
-        switch (sourceCell.getCellType()) {
-            case STRING:
-                targetCell.setCellValue(sourceCell.getStringCellValue());
-                break;
-            case NUMERIC:
-                if (DateUtil.isCellDateFormatted(sourceCell)) {
-                    targetCell.setCellValue(sourceCell.getDateCellValue());
-                } else {
-                    targetCell.setCellValue(sourceCell.getNumericCellValue());
-                }
-                break;
-            case BOOLEAN:
-                targetCell.setCellValue(sourceCell.getBooleanCellValue());
-                break;
-            case FORMULA:
-                targetCell.setCellFormula(sourceCell.getCellFormula());
-                break;
-            case BLANK:
-                targetCell.setBlank();
-                break;
-            default:
-                break;
-        }
-    }
-
-    /**
-     * 打包最終 ZIP
-     */
-    private void packFinalZip(File excelFile, List<File> imageZipFiles, File reportFile, File outputZip) throws Exception {
-        try (ZipOutputStream zos = new ZipOutputStream(
-                new FileOutputStream(outputZip))) {
-
-            // 1. 加入 Excel
-            addFileToZip(zos, excelFile, excelFile.getName());
-
-            // 2. 加入圖片 ZIP 檔案
-            for (int i = 0; i < imageZipFiles.size(); i++) {
-                File imageZip = imageZipFiles.get(i);
-                String entryName = imageZipFiles.size() > 1
-                        ? "images_part" + (i + 1) + ".zip"
-                        : "images.zip";
-                addFileToZip(zos, imageZip, entryName);
-            }
-
-            // 3. 加入缺失圖片報告（如果有）
-            if (reportFile != null && reportFile.exists()) {
-                addFileToZip(zos, reportFile, reportFile.getName());
+        if (!exists) {
+            String missingInfo = "【圖片缺失】";
+            if (item.getRemark() != null && !item.getRemark().trim().isEmpty()) {
+                item.setRemark(item.getRemark() + "\n" + missingInfo);
+            } else {
+                item.setRemark(missingInfo);
             }
         }
-
-        log.info("最終 ZIP 打包完成: {}", outputZip.getName());
     }
 
     /**
@@ -2160,7 +2141,9 @@ public class InvItemServiceImpl implements IInvItemService {
             result.setTotalImages(countFiles(imagesDir));
         }
 
-        // 逐筆處理
+        // 組成匯入列（編碼、名稱比對與寫入由批次匯入引擎處理）
+        List<InvItemBatchImporter.ImportEntry> entries = new ArrayList<>(dataList.size());
+        List<InvItemWithStockDTO> entryDtos = new ArrayList<>(dataList.size());
         int rowNum = 2;  // Excel 從第 2 行開始（第 1 行是標題）
         for (InvItemWithStockDTO dto : dataList) {
             try {
@@ -2168,119 +2151,168 @@ public class InvItemServiceImpl implements IInvItemService {
                 if (dto.getItemName() == null || dto.getItemName().trim().isEmpty()) {
                     result.addError(rowNum, "", "物品名稱不能為空");
                     result.setFailedRows(result.getFailedRows() + 1);
-                    rowNum++;
-                    continue;
-                }
-
-                // 檢查物品是否重複：優先用 itemCode，若為空則用 itemName 比對
-                InvItem existingItem = null;
-                if (dto.getItemCode() != null && !dto.getItemCode().trim().isEmpty()) {
-                    existingItem = invItemMapper.selectInvItemByItemCode(dto.getItemCode());
-                }
-                if (existingItem == null) {
-                    existingItem = invItemMapper.selectInvItemByItemName(dto.getItemName().trim());
-                }
-
-                Long savedItemId = null;
-
-                if (existingItem != null) {
-                    if (updateSupport != null && updateSupport) {
-                        // 更新現有資料
-                        updateItemFromDTO(existingItem, dto, defaultCategoryId, defaultUnit);
-                        invItemMapper.updateInvItem(existingItem);
-                        savedItemId = existingItem.getItemId();
-                        result.setSuccessRows(result.getSuccessRows() + 1);
-                        log.debug("更新物品: {} (編碼: {}, 名稱比對)", dto.getItemName(), existingItem.getItemCode());
-                    } else {
-                        // 跳過
-                        result.setSkippedRows(result.getSkippedRows() + 1);
-                        log.debug("跳過重複物品: {} (編碼: {}, 名稱比對)", dto.getItemName(), existingItem.getItemCode());
-                    }
                 } else {
-                    // 新增
                     InvItem newItem = createItemFromDTO(dto, defaultCategoryId, defaultUnit);
-                    invItemMapper.insertInvItem(newItem);
-
-                    // 建立庫存記錄
-                    InvStock stock = new InvStock();
-                    stock.setItemId(newItem.getItemId());
-                    stock.setTotalQuantity(dto.getTotalQuantity() != null ? dto.getTotalQuantity() : 0);
-                    stock.setAvailableQty(dto.getTotalQuantity() != null ? dto.getTotalQuantity() : 0);
-                    stock.setBorrowedQty(0);
-                    stock.setReservedQty(0);
-                    stock.setDamagedQty(0);
-                    stock.setLostQty(0);
-                    invStockMapper.insertInvStock(stock);
-
-                    savedItemId = newItem.getItemId();
-                    result.setSuccessRows(result.getSuccessRows() + 1);
-                    log.debug("新增物品: {} (編碼: {})", dto.getItemName(), dto.getItemCode());
+                    InvItem updateItem = new InvItem();
+                    updateItemFromDTO(updateItem, dto, defaultCategoryId, defaultUnit);
+                    int initialStock = dto.getTotalQuantity() != null ? dto.getTotalQuantity() : 0;
+                    entries.add(new InvItemBatchImporter.ImportEntry(rowNum, newItem, updateItem, initialStock));
+                    entryDtos.add(dto);
                 }
-
-                // 處理圖片
-                if (imagesDir != null && savedItemId != null) {
-                    if (StringUtils.isNotEmpty(dto.getImageUrl())) {
-                        // Excel 有填「圖片存放位置」，使用指定路徑匹配
-                        processImage(dto.getImageUrl(), imagesDir, result);
-                    } else {
-                        // Excel 未填圖片路徑，嘗試用物品名稱匹配圖片檔案
-                        processImageByItemName(dto.getItemName(), savedItemId, imagesDir, result);
-                    }
-                }
-
             } catch (Exception e) {
                 result.addError(rowNum, dto.getItemName(), e.getMessage());
                 result.setFailedRows(result.getFailedRows() + 1);
                 log.error("匯入第 {} 行失敗: {}", rowNum, e.getMessage(), e);
             }
-
             rowNum++;
         }
 
+        List<InvItemBatchImporter.RowOutcome> outcomes = invItemBatchImporter.importItems(entries,
+                new InvItemBatchImporter.Options(Boolean.TRUE.equals(updateSupport), false, false, getUsername()), null);
+
+        List<ImageTask> imageTasks = new ArrayList<>();
+        for (int i = 0; i < outcomes.size(); i++) {
+            InvItemBatchImporter.RowOutcome outcome = outcomes.get(i);
+            InvItemWithStockDTO dto = entryDtos.get(i);
+            switch (outcome.action()) {
+                case INSERTED, UPDATED -> {
+                    result.setSuccessRows(result.getSuccessRows() + 1);
+                    if (imagesDir != null && outcome.itemId() != null) {
+                        imageTasks.add(new ImageTask(dto.getImageUrl(), dto.getItemName(), outcome.itemId()));
+                    }
+                }
+                case SKIPPED -> {
+                    result.setSkippedRows(result.getSkippedRows() + 1);
+                    log.debug("跳過重複物品: {} (名稱比對)", dto.getItemName());
+                }
+                case FAILED -> {
+                    result.addError(outcome.entry().rowNum(), dto.getItemName(), outcome.message());
+                    result.setFailedRows(result.getFailedRows() + 1);
+                    log.error("匯入第 {} 行失敗: {}", outcome.entry().rowNum(), outcome.message());
+                }
+            }
+        }
+
+        // 處理圖片
+        if (!imageTasks.isEmpty()) {
+            processImages(imageTasks, imagesDir, result);
+        }
+
         log.info("匯入完成 - 成功: {}, 失敗: {}, 跳過: {}", result.getSuccessRows(), result.getFailedRows(), result.getSkippedRows());
         return result;
     }
 
+    /**
+     * 圖片處理任務
+     *
+     * @param imageUrl Excel 的「圖片存放位置」，為空時以物品名稱比對圖片
+     * @param itemName 物品名稱
+     * @param itemId   物品ID
+     */
+    private record ImageTask(String imageUrl, String itemName, Long itemId) {
+    }
+
+    /**
+     * 圖片處理結果
+     *
+     * @param copied      是否已複製
+     * @param overwritten 是否覆蓋（已備份）既有檔案
+     * @param missing     是否缺失 / 驗證失敗
+     * @param dbPath      需回寫到物品的圖片路徑（按名稱比對時）
+     */
+    private record ImageOutcome(boolean copied, boolean overwritten, boolean missing, String dbPath) {
+
+        static final ImageOutcome NONE = new ImageOutcome(false, false, false, null);
+        static final ImageOutcome MISSING = new ImageOutcome(false, false, true, null);
+    }
+
+    /**
+     * 在 I/O 執行緒池複製圖片，完成後於呼叫端執行緒彙整結果並回寫資料庫
+     * <p>
+     * 同一目標路徑只複製一次；資料庫更新留在呼叫端執行緒，確保與匯入在同一交易內。
+     */
+    private void processImages(List<ImageTask> tasks, File imagesDir, ImportResult result) throws InterruptedException {
+        Map<String, File> imageIndex = ImageImportUtil.indexImageFiles(imagesDir);
+        Map<String, Future<ImageOutcome>> futuresByPath = new HashMap<>();
+        List<Future<ImageOutcome>> futures = new ArrayList<>(tasks.size());
+        Set<String> countedPaths = new HashSet<>();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, importImageThreads))) {
+            for (ImageTask task : tasks) {
+                Future<ImageOutcome> future;
+                if (StringUtils.isNotEmpty(task.imageUrl())) {
+                    // Excel 有填「圖片存放位置」，使用指定路徑匹配
+                    future = futuresByPath.computeIfAbsent(task.imageUrl(),
+                            dbPath -> executor.submit(() -> processImage(dbPath, imageIndex)));
+                } else {
+                    // Excel 未填圖片路徑，嘗試用物品名稱匹配圖片檔案
+                    future = executor.submit(() -> processImageByItemName(task.itemName(), task.itemId(), imageIndex));
+                }
+                futures.add(future);
+            }
+
+            for (int i = 0; i < tasks.size(); i++) {
+                ImageOutcome outcome;
+                try {
+                    outcome = futures.get(i).get();
+                } catch (ExecutionException e) {
+                    log.error("處理圖片失敗: {}", tasks.get(i).itemName(), e.getCause());
+                    outcome = StringUtils.isNotEmpty(tasks.get(i).imageUrl()) ? ImageOutcome.MISSING : ImageOutcome.NONE;
+                }
+                if (outcome.missing()) {
+                    result.setMissingImages(result.getMissingImages() + 1);
+                }
+                if (outcome.copied()) {
+                    result.setCopiedImages(result.getCopiedImages() + 1);
+                }
+                // 多列指向同一圖片時只複製一次，覆蓋（備份）只計一次
+                if (outcome.overwritten() && countedPaths.add(tasks.get(i).imageUrl())) {
+                    result.setOverwrittenImages(result.getOverwrittenImages() + 1);
+                }
+                if (outcome.dbPath() != null) {
+                    // 更新資料庫中的圖片路徑
+                    InvItem updateItem = new InvItem();
+                    updateItem.setItemId(tasks.get(i).itemId());
+                    updateItem.setImageUrl(outcome.dbPath());
+                    invItemMapper.updateInvItem(updateItem);
+                }
+            }
+        }
+    }
+
     /**
      * 處理單張圖片
      */
-    private void processImage(String dbPath, File imagesDir, ImportResult result) {
+    private ImageOutcome processImage(String dbPath, Map<String, File> imageIndex) {
         try {
             // 提取檔名和相對路徑
             String fileName = ImageImportUtil.extractFileName(dbPath);
             String relativePath = ImageImportUtil.extractRelativePath(dbPath);
 
             if (fileName.isEmpty()) {
-                result.setMissingImages(result.getMissingImages() + 1);
-                return;
+                return ImageOutcome.MISSING;
             }
 
             // 在 imagesDir 中搜尋圖片
-            File sourceImage = ImageImportUtil.findImageFile(imagesDir, fileName);
+            File sourceImage = imageIndex.get(fileName);
             if (sourceImage == null) {
-                result.setMissingImages(result.getMissingImages() + 1);
                 log.warn("圖片未找到: {}", fileName);
-                return;
+                return ImageOutcome.MISSING;
             }
 
             // 驗證圖片
             if (!ImageImportUtil.validateImage(sourceImage, 10 * 1024 * 1024)) {
-                result.setMissingImages(result.getMissingImages() + 1);
                 log.warn("圖片驗證失敗: {}", fileName);
-                return;
+                return ImageOutcome.MISSING;
             }
 
             // 複製圖片到 uploadPath
             File backupFile = ImageImportUtil.copyImageToUploadPath(sourceImage, relativePath, uploadPath);
-
-            result.setCopiedImages(result.getCopiedImages() + 1);
-            if (backupFile != null) {
-                result.setOverwrittenImages(result.getOverwrittenImages() + 1);
-            }
+            return new ImageOutcome(true, backupFile != null, false, null);
 
         } catch (Exception e) {
-            result.setMissingImages(result.getMissingImages() + 1);
             log.error("處理圖片失敗: {}", dbPath, e);
+            return ImageOutcome.MISSING;
         }
     }
 
@@ -2288,16 +2320,16 @@ public class InvItemServiceImpl implements IInvItemService {
      * 按物品名稱匹配圖片並儲存
      * 在 imagesDir 中搜尋與物品名稱相同的圖片檔（如 物品名.jpg、物品名.png）
      */
-    private void processImageByItemName(String itemName, Long itemId, File imagesDir, ImportResult result) {
+    private ImageOutcome processImageByItemName(String itemName, Long itemId, Map<String, File> imageIndex) {
         try {
-            File sourceImage = ImageImportUtil.findImageByItemName(imagesDir, itemName);
+            File sourceImage = ImageImportUtil.findImageByItemName(imageIndex, itemName);
             if (sourceImage == null) {
-                return;
+                return ImageOutcome.NONE;
             }
 
             if (!ImageImportUtil.validateImage(sourceImage, 10 * 1024 * 1024)) {
                 log.warn("圖片驗證失敗（按名稱匹配）: {}", sourceImage.getName());
-                return;
+                return ImageOutcome.NONE;
             }
 
             // 建立相對路徑：inventory/items/{itemId}{extension}
@@ -2309,16 +2341,11 @@ public class InvItemServiceImpl implements IInvItemService {
             // 複製圖片到上傳路徑
             ImageImportUtil.copyImageToUploadPath(sourceImage, relativePath, uploadPath);
 
-            // 更新資料庫中的圖片路徑
-            InvItem updateItem = new InvItem();
-            updateItem.setItemId(itemId);
-            updateItem.setImageUrl(dbPath);
-            invItemMapper.updateInvItem(updateItem);
-
-            result.setCopiedImages(result.getCopiedImages() + 1);
             log.debug("按名稱匹配圖片成功: {} -> {}", itemName, dbPath);
+            return new ImageOutcome(true, false, false, dbPath);
         } catch (Exception e) {
             log.error("處理圖片（按名稱匹配）失敗: {}", itemName, e);
+            return ImageOutcome.NONE;
         }
     }
 
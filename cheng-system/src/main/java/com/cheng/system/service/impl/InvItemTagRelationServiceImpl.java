@@ -27,6 +27,7 @@ public class InvItemTagRelationServiceImpl implements IInvItemTagRelationService
     private final InvItemTagRelationMapper invItemTagRelationMapper;
     private final InvItemMapper invItemMapper;
     private final SysTagMapper sysTagMapper;
+    private final TagBitmapIndexService tagBitmapIndexService;
 
     @Override
     public List<InvItemTagRelation> selectByItemId(Long itemId) {
@@ -60,6 +61,7 @@ public class InvItemTagRelationServiceImpl implements IInvItemTagRelationService
 
         int result = invItemTagRelationMapper.insertInvItemTagRelation(relation);
         if (result > 0) {
+            tagBitmapIndexService.inventory().add(itemId, tagId);
             // 更新標籤的物品計數
             updateTagItemCount(tagId);
         }
@@ -85,6 +87,7 @@ public class InvItemTagRelationServiceImpl implements IInvItemTagRelationService
 
         int result = invItemTagRelationMapper.batchInsertInvItemTagRelation(relations);
         if (result > 0) {
+            tagBitmapIndexService.inventory().addAll(itemIds, tagId);
             updateTagItemCount(tagId);
         }
         log.info("批次為 {} 個物品貼標 {}，成功：{}", itemIds.size(), tagId, result);
@@ -111,6 +114,7 @@ public class InvItemTagRelationServiceImpl implements IInvItemTagRelationService
         if (result > 0) {
             // 更新所有相關標籤的物品計數
             for (Long tagId : tagIds) {
+                tagBitmapIndexService.inventory().add(itemId, tagId);
                 updateTagItemCount(tagId);
             }
         }
@@ -123,6 +127,7 @@ public class InvItemTagRelationServiceImpl implements IInvItemTagRelationService
     public int unbindTag(Long itemId, Long tagId) {
         int result = invItemTagRelationMapper.deleteByItemIdAndTagId(itemId, tagId);
         if (result > 0) {
+            tagBitmapIndexService.inventory().remove(itemId, tagId);
             updateTagItemCount(tagId);
         }
         log.info("移除物品 {} 的標籤 {}，結果：{}", itemId, tagId, result > 0 ? "成功" : "無記錄");
@@ -136,6 +141,7 @@ public class InvItemTagRelationServiceImpl implements IInvItemTagRelationService
         List<InvItemTagRelation> relations = invItemTagRelationMapper.selectByItemId(itemId);
         int result = invItemTagRelationMapper.deleteByItemId(itemId);
         if (result > 0) {
+            tagBitmapIndexService.inventory().removeKey(itemId);
             // 更新所有相關標籤的物品計數
             for (InvItemTagRelation relation : relations) {
                 updateTagItemCount(relation.getTagId());
@@ -150,6 +156,7 @@ public class InvItemTagRelationServiceImpl implements IInvItemTagRelationService
     public int unbindAllItems(Long tagId) {
         int result = invItemTagRelationMapper.deleteByTagId(tagId);
         if (result > 0) {
+            tagBitmapIndexService.inventory().removeTag(tagId);
             updateTagItemCount(tagId);
         }
         log.info("移除標籤 {} 的所有物品關聯，共 {} 個", tagId, result);
@@ -164,6 +171,8 @@ public class InvItemTagRelationServiceImpl implements IInvItemTagRelationService
     @Override
     @Transactional(rollbackFor = Exception.class)
     public int deleteByIds(Long[] ids) {
+        // 僅有關聯 ID，無法得知異動的物品與標籤，改為整體重新載入
+        tagBitmapIndexService.inventory().invalidate();
         return invItemTagRelationMapper.deleteInvItemTagRelationByIds(ids);
     }
 
@@ -287,6 +296,9 @@ public class InvItemTagRelationServiceImpl implements IInvItemTagRelationService
         // 4. 批次插入關聯（忽略重複）
         if (!relationsToInsert.isEmpty()) {
             int inserted = invItemTagRelationMapper.batchInsertIgnore(relationsToInsert);
+            for (InvItemTagRelation relation : relationsToInsert) {
+                tagBitmapIndexService.inventory().add(relation.getItemId(), relation.getTagId());
+            }
             log.info("批次插入 {} 筆關聯，實際插入 {}", relationsToInsert.size(), inserted);
         }
 
@@ -0,0 +1,98 @@
+package com.cheng.system.service.impl;
+
+import com.cheng.common.enums.ScanResult;
+import com.cheng.common.enums.ScanType;
+import com.cheng.system.domain.enums.BorrowStatus;
+import com.cheng.system.domain.enums.StockRecordType;
+import com.cheng.system.service.IInvCounterService;
+import com.cheng.system.service.IInvReportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 庫存報表統計 服務層實現
+ * <p>
+ * 統計直接讀取 {@link IInvCounterService} 維護的計數，不隨歷史資料量增加而變慢
+ *
+ * @author cheng
+ */
+@Service
+@RequiredArgsConstructor
+public class InvReportServiceImpl implements IInvReportService {
+
+    private final IInvCounterService invCounterService;
+
+    @Override
+    public Map<String, Object> getStockStatistics() {
+        Map<String, Long> counters = invCounterService.getCounters();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("totalItems", counters.getOrDefault(IInvCounterService.TOTAL_ITEMS, 0L));
+        statistics.put("totalQuantity", counters.getOrDefault(IInvCounterService.TOTAL_QUANTITY, 0L));
+        statistics.put("availableQuantity", counters.getOrDefault(IInvCounterService.AVAILABLE_QUANTITY, 0L));
+        statistics.put("lowStockItems", counters.getOrDefault(IInvCounterService.LOW_STOCK_ITEMS, 0L));
+        statistics.put("outOfStockItems", counters.getOrDefault(IInvCounterService.OUT_OF_STOCK_ITEMS, 0L));
+        return statistics;
+    }
+
+    @Override
+    public Map<String, Object> getBorrowStatistics() {
+        Map<String, Long> counters = invCounterService.getCounters();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("totalBorrows", sumByPrefix(counters, IInvCounterService.BORROW_PREFIX));
+        statistics.put("pendingBorrows", borrowCount(counters, BorrowStatus.PENDING));
+        statistics.put("approvedBorrows", borrowCount(counters, BorrowStatus.BORROWED));
+        statistics.put("returnedBorrows", borrowCount(counters, BorrowStatus.RETURNED));
+        statistics.put("overdueBorrows", invCounterService.countOverdueBorrows());
+        return statistics;
+    }
+
+    @Override
+    public Map<String, Object> getMovementStatistics() {
+        Map<String, Long> counters = invCounterService.getCounters();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("totalRecords", sumByPrefix(counters, IInvCounterService.RECORD_PREFIX));
+        statistics.put("inRecords", recordCount(counters, StockRecordType.IN));
+        statistics.put("outRecords", recordCount(counters, StockRecordType.OUT));
+        statistics.put("checkRecords", recordCount(counters, StockRecordType.CHECK));
+        statistics.put("todayRecords", invCounterService.countTodayRecords());
+        return statistics;
+    }
+
+    @Override
+    public Map<String, Object> getScanStatistics() {
+        Map<String, Long> counters = invCounterService.getCounters();
+        String prefix = IInvCounterService.SCAN_PREFIX;
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("totalScans", sumByPrefix(counters, prefix));
+        statistics.put("successScans", sumBySuffix(counters, prefix, ":" + ScanResult.SUCCESS.getCode()));
+        statistics.put("failedScans", sumBySuffix(counters, prefix, ":" + ScanResult.FAILURE.getCode()));
+        statistics.put("barcodeScans", sumByPrefix(counters, prefix + ScanType.BARCODE.getCode() + ":"));
+        statistics.put("qrcodeScans", sumByPrefix(counters, prefix + ScanType.QRCODE.getCode() + ":"));
+        return statistics;
+    }
+
+    private static long borrowCount(Map<String, Long> counters, BorrowStatus status) {
+        return counters.getOrDefault(IInvCounterService.BORROW_PREFIX + status.getCode(), 0L);
+    }
+
+    private static long recordCount(Map<String, Long> counters, StockRecordType type) {
+        return counters.getOrDefault(IInvCounterService.RECORD_PREFIX + type.getCode(), 0L);
+    }
+
+    private static long sumByPrefix(Map<String, Long> counters, String prefix) {
+        return counters.entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith(prefix))
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+    }
+
+    private static long sumBySuffix(Map<String, Long> counters, String prefix, String suffix) {
+        return counters.entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith(prefix) && entry.getKey().endsWith(suffix))
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+    }
+}
@@ -0,0 +1,205 @@
+package com.cheng.system.service.impl;
+
+import com.cheng.common.enums.ScanType;
+import com.cheng.common.event.InventoryChangeEvent;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 掃描碼快取（條碼 / QR碼 → 物品ID）
+ * <p>
+ * 手持裝置連續掃描時，每次都要以條碼或 QR碼查詢一次 inv_item。此快取保存掃描碼對應的物品ID：
+ * - 查無物品的掃描碼也會快取（負向快取），但存活時間較短
+ * - 以 LRU 限制筆數上限，超過時淘汰最久未使用的項目
+ * - 物品新增、修改、刪除時清除該物品的對照與所有負向快取；快取命中後呼叫端仍應核對物品的掃描碼，不一致時呼叫 {@link #evict}
+ * - 以世代計數避免「查詢期間剛好被清除」時把舊結果寫回快取
+ *
+ * @author cheng
+ */
+@Component
+public class InvScanCodeCache {
+
+    /**
+     * 快取筆數上限
+     */
+    @Value("${inventory.scan-cache.max-size:10000}")
+    private int maxSize;
+
+    /**
+     * 物品對照存活秒數
+     */
+    @Value("${inventory.scan-cache.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    /**
+     * 查無物品（負向快取）存活秒數
+     */
+    @Value("${inventory.scan-cache.negative-ttl-seconds:30}")
+    private long negativeTtlSeconds;
+
+    /**
+     * 掃描碼對照，Key：掃描類型:掃描碼（存取順序，供 LRU 淘汰）
+     */
+    private LinkedHashMap<String, Entry> entries;
+
+    /**
+     * 失效世代，每次清除時遞增
+     */
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * 快取項目
+     *
+     * @param itemId    物品ID，null 表示查無物品
+     * @param expiresAt 到期時間（System.nanoTime）
+     */
+    private record Entry(Long itemId, long expiresAt) {
+    }
+
+    @PostConstruct
+    public void init() {
+        int capacity = Math.max(1, maxSize);
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * 取得掃描碼對應的物品ID，未命中時以 loader 查詢並寫入快取
+     *
+     * @param type   掃描類型
+     * @param code   掃描碼
+     * @param loader 查詢物品ID（查無時回傳 null）
+     * @return 物品ID，查無物品時為 null
+     */
+    public Long resolve(ScanType type, String code, Supplier<Long> loader) {
+        String key = key(type, code);
+        long loadGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt() - System.nanoTime() > 0) {
+                hits.increment();
+                return entry.itemId();
+            }
+            misses.increment();
+            loadGeneration = generation;
+        }
+
+        Long itemId = loader.get();
+        long ttl = TimeUnit.SECONDS.toNanos(itemId != null ? ttlSeconds : negativeTtlSeconds);
+        synchronized (this) {
+            if (loadGeneration == generation) {
+                entries.put(key, new Entry(itemId, System.nanoTime() + ttl));
+            }
+        }
+        return itemId;
+    }
+
+    /**
+     * 移除單一掃描碼（命中的物品已不符合該掃描碼時使用）
+     *
+     * @param type 掃描類型
+     * @param code 掃描碼
+     */
+    public synchronized void evict(ScanType type, String code) {
+        entries.remove(key(type, code));
+    }
+
+    /**
+     * 將掃描碼記為查無物品（負向快取），用於重新查詢後物品仍不符合掃描碼時
+     *
+     * @param type 掃描類型
+     * @param code 掃描碼
+     */
+    public synchronized void markMissing(ScanType type, String code) {
+        entries.put(key(type, code), new Entry(null, System.nanoTime() + TimeUnit.SECONDS.toNanos(negativeTtlSeconds)));
+    }
+
+    /**
+     * 清除指定物品的對照與所有負向快取
+     * <p>
+     * 物品的掃描碼可能已變更，新的掃描碼也可能正被負向快取記為查無物品
+     *
+     * @param itemId 物品ID
+     */
+    public synchronized void invalidate(Long itemId) {
+        generation++;
+        entries.values().removeIf(entry -> entry.itemId() == null || entry.itemId().equals(itemId));
+    }
+
+    /**
+     * 立即清除，並於交易提交後再清除一次（無交易時只清除一次），避免提交前的查詢把舊對照寫回快取
+     *
+     * @param itemId 物品ID
+     */
+    public void invalidateOnCommit(Long itemId) {
+        invalidate(itemId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(itemId);
+                }
+            });
+        }
+    }
+
+    /**
+     * 清除全部快取
+     */
+    public synchronized void clear() {
+        generation++;
+        entries.clear();
+    }
+
+    /**
+     * 物品新增、刪除與匯入完成後清除快取（批次操作時 itemId 為 null，清除全部）
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInventoryChange(InventoryChangeEvent event) {
+        if (event.getItemId() != null) {
+            invalidate(event.getItemId());
+        } else {
+            clear();
+        }
+    }
+
+    /**
+     * 取得快取統計
+     *
+     * @return 統計資料
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("size", entries.size());
+        }
+        stats.put("maxSize", maxSize);
+        stats.put("hitCount", hitCount);
+        stats.put("missCount", missCount);
+        stats.put("hitRate", hitCount + missCount == 0 ? 0D : (double) hitCount / (hitCount + missCount));
+        return stats;
+    }
+
+    private static String key(ScanType type, String code) {
+        return type.getCode() + ":" + code;
+    }
+}
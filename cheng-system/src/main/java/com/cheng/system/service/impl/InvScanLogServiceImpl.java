@@ -1,12 +1,15 @@
 package com.cheng.system.service.impl;
 
+import com.cheng.system.buffer.InvScanLogWriteBuffer;
 import com.cheng.system.domain.InvScanLog;
 import com.cheng.system.mapper.InvScanLogMapper;
+import com.cheng.system.service.IInvCounterService;
 import com.cheng.system.service.IInvScanLogService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 掃描日誌 服務層實現
@@ -19,13 +22,33 @@ public class InvScanLogServiceImpl implements IInvScanLogService {
     @Autowired
     private InvScanLogMapper invScanLogMapper;
 
+    @Autowired
+    private IInvCounterService invCounterService;
+
+    @Autowired
+    private InvScanLogWriteBuffer invScanLogWriteBuffer;
+
     @Override
     public List<InvScanLog> selectInvScanLogList(InvScanLog invScanLog) {
         return invScanLogMapper.selectInvScanLogList(invScanLog);
     }
 
+    @Override
+    public void streamInvScanLogList(InvScanLog invScanLog, Consumer<InvScanLog> consumer) {
+        invScanLogMapper.streamInvScanLogList(invScanLog, context -> consumer.accept(context.getResultObject()));
+    }
+
     @Override
     public int insertInvScanLog(InvScanLog log) {
-        return invScanLogMapper.insertInvScanLog(log);
+        int result = invScanLogMapper.insertInvScanLog(log);
+        if (result > 0) {
+            invCounterService.recordScan(log.getScanType(), log.getScanResult(), 1L);
+        }
+        return result;
+    }
+
+    @Override
+    public void submitInvScanLog(InvScanLog log) {
+        invScanLogWriteBuffer.add(log);
     }
 }
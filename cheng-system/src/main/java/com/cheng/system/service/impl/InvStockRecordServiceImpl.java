@@ -1,6 +1,7 @@
 package com.cheng.system.service.impl;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import com.cheng.common.utils.DateUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -42,6 +43,17 @@ public class InvStockRecordServiceImpl implements IInvStockRecordService {
         return invStockRecordMapper.selectInvStockRecordList(invStockRecord);
     }
 
+    /**
+     * 串流查詢庫存異動記錄列表，逐筆交給 consumer 處理（用於大量匯出）
+     *
+     * @param invStockRecord 庫存異動記錄
+     * @param consumer 逐筆處理
+     */
+    @Override
+    public void streamInvStockRecordList(InvStockRecord invStockRecord, Consumer<InvStockRecord> consumer) {
+        invStockRecordMapper.streamInvStockRecordList(invStockRecord, context -> consumer.accept(context.getResultObject()));
+    }
+
     /**
      * 新增庫存異動記錄
      *
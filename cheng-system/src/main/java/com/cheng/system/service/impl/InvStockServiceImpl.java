@@ -8,6 +8,7 @@ import com.cheng.system.domain.InvStockRecord;
 import com.cheng.system.dto.InvStockStatisticsDTO;
 import com.cheng.system.mapper.InvStockMapper;
 import com.cheng.system.mapper.InvStockRecordMapper;
+import com.cheng.system.service.IInvCounterService;
 import com.cheng.system.service.IInvStockService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +17,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 庫存 服務層實現
@@ -32,6 +34,9 @@ public class InvStockServiceImpl implements IInvStockService {
     @Autowired
     private InvStockRecordMapper invStockRecordMapper;
 
+    @Autowired
+    private IInvCounterService invCounterService;
+
     /**
      * 查詢庫存
      *
@@ -65,6 +70,17 @@ public class InvStockServiceImpl implements IInvStockService {
         return invStockMapper.selectInvStockList(invStock);
     }
 
+    /**
+     * 串流查詢庫存列表，逐筆交給 consumer 處理（用於大量匯出）
+     *
+     * @param invStock 庫存
+     * @param consumer 逐筆處理
+     */
+    @Override
+    public void streamInvStockList(InvStock invStock, Consumer<InvStock> consumer) {
+        invStockMapper.streamInvStockList(invStock, context -> consumer.accept(context.getResultObject()));
+    }
+
     /**
      * 查詢低庫存列表
      *
@@ -154,6 +170,7 @@ public class InvStockServiceImpl implements IInvStockService {
         int result = invStockMapper.updateStockIn(itemId, quantity);
 
         if (result > 0) {
+            invCounterService.recordStockChange(stock.getMinStock(), beforeQty, afterQty, quantity);
             // 記錄庫存異動
             recordStockChange(itemId, "1", quantity, beforeQty, afterQty,
                     operatorId, SecurityUtils.getUsername(), reason);
@@ -195,6 +212,7 @@ public class InvStockServiceImpl implements IInvStockService {
         int result = invStockMapper.updateStockOut(itemId, quantity);
 
         if (result > 0) {
+            invCounterService.recordStockChange(stock.getMinStock(), beforeQty, afterQty, -quantity);
             // 記錄庫存異動
             recordStockChange(itemId, "2", -quantity, beforeQty, afterQty,
                     operatorId, SecurityUtils.getUsername(), reason);
@@ -232,6 +250,8 @@ public class InvStockServiceImpl implements IInvStockService {
         int result = invStockMapper.updateBorrowedQty(itemId, quantity);
 
         if (result > 0) {
+            invCounterService.recordStockChange(stock.getMinStock(), stock.getTotalQuantity(),
+                    stock.getTotalQuantity(), -quantity);
             // 記錄庫存異動
             recordStockChange(itemId, "3", -quantity, stock.getAvailableQty(),
                     stock.getAvailableQty() - quantity, borrowerId,
@@ -270,6 +290,8 @@ public class InvStockServiceImpl implements IInvStockService {
         int result = invStockMapper.updateReturnedQty(itemId, quantity);
 
         if (result > 0) {
+            invCounterService.recordStockChange(stock.getMinStock(), stock.getTotalQuantity(),
+                    stock.getTotalQuantity(), quantity);
             // 記錄庫存異動
             recordStockChange(itemId, "4", quantity, stock.getAvailableQty(),
                     stock.getAvailableQty() + quantity, borrowerId,
@@ -306,6 +328,7 @@ public class InvStockServiceImpl implements IInvStockService {
 
         if (difference != 0) {
             // 更新庫存為實際數量
+            int beforeAvailable = stock.getAvailableQty();
             stock.setTotalQuantity(actualQuantity);
             stock.setAvailableQty(actualQuantity - stock.getBorrowedQty() - stock.getReservedQty() - stock.getDamagedQty());
             stock.setUpdateTime(DateUtils.getNowDate());
@@ -313,6 +336,8 @@ public class InvStockServiceImpl implements IInvStockService {
             int result = invStockMapper.updateInvStock(stock);
 
             if (result > 0) {
+                invCounterService.recordStockChange(stock.getMinStock(), beforeQty, actualQuantity,
+                        stock.getAvailableQty() - beforeAvailable);
                 // 記錄庫存異動
                 recordStockChange(itemId, "5", difference, beforeQty, actualQuantity,
                         operatorId, SecurityUtils.getUsername(), reason);
@@ -342,6 +367,7 @@ public class InvStockServiceImpl implements IInvStockService {
         record.setReason(reason);
 
         invStockRecordMapper.insertInvStockRecord(record);
+        invCounterService.recordStockRecord(recordType);
     }
 
     /**
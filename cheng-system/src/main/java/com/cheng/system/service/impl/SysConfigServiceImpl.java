@@ -3,6 +3,7 @@ package com.cheng.system.service.impl;
 import com.cheng.common.annotation.DataSource;
 import com.cheng.common.constant.CacheConstants;
 import com.cheng.common.constant.UserConstants;
+import com.cheng.common.core.cache.CacheInvalidationBus;
 import com.cheng.common.core.redis.RedisCache;
 import com.cheng.common.core.text.Convert;
 import com.cheng.common.enums.DataSourceType;
@@ -10,15 +11,19 @@ import com.cheng.common.enums.SystemConfigKey;
 import com.cheng.common.exception.ServiceException;
 import com.cheng.common.utils.StringUtils;
 import com.cheng.system.domain.SysConfig;
+import com.cheng.system.domain.SysConfigSnapshot;
 import com.cheng.system.mapper.SysConfigMapper;
 import com.cheng.system.service.ISysConfigService;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
-import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 參數設定 服務層實現
@@ -32,6 +37,29 @@ public class SysConfigServiceImpl implements ISysConfigService {
     private SysConfigMapper configMapper;
     @Autowired
     private RedisCache redisCache;
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    /**
+     * 本機參數快照最長存活秒數（跨節點失效通知遺失時的兜底，0 表示只依失效通知重建）
+     */
+    @Value("${cheng.config-cache.ttl-seconds:60}")
+    private long snapshotTtlSeconds;
+
+    /**
+     * 本機參數快照
+     */
+    private volatile SysConfigSnapshot snapshot;
+
+    /**
+     * 參數版本，每次參數異動遞增；快照版本與此不同時重建
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    @PostConstruct
+    public void registerInvalidation() {
+        cacheInvalidationBus.register(CacheConstants.SYS_CONFIG_KEY, configKey -> version.incrementAndGet());
+    }
 
     /**
      * 專案啟動時，初始化參數到暫存
@@ -40,6 +68,7 @@ public class SysConfigServiceImpl implements ISysConfigService {
     @EventListener(ApplicationReadyEvent.class)
     public void init() {
         loadingConfigCache();
+        getConfigSnapshot();
     }
 
     /**
@@ -64,18 +93,41 @@ public class SysConfigServiceImpl implements ISysConfigService {
      */
     @Override
     public String selectConfigByKey(String configKey) {
-        String configValue = Convert.toStr(redisCache.getCacheObject(getCacheKey(configKey)));
-        if (StringUtils.isNotEmpty(configValue)) {
-            return configValue;
+        String configValue = getConfigSnapshot().getRaw(configKey);
+        return configValue != null ? configValue : StringUtils.EMPTY;
+    }
+
+    /**
+     * 取得本機參數快照
+     * <p>
+     * 參數異動（本節點或經 Redis pub/sub 通知的其他節點）或超過存活時間後，下次讀取時從資料庫重建
+     *
+     * @return 參數快照
+     */
+    @Override
+    public SysConfigSnapshot getConfigSnapshot() {
+        SysConfigSnapshot current = snapshot;
+        if (isFresh(current)) {
+            return current;
         }
-        SysConfig config = new SysConfig();
-        config.setConfigKey(configKey);
-        SysConfig retConfig = configMapper.selectConfig(config);
-        if (StringUtils.isNotNull(retConfig)) {
-            redisCache.setCacheObject(getCacheKey(configKey), retConfig.getConfigValue());
-            return retConfig.getConfigValue();
+        return reloadSnapshot();
+    }
+
+    private synchronized SysConfigSnapshot reloadSnapshot() {
+        SysConfigSnapshot current = snapshot;
+        if (isFresh(current)) {
+            return current;
         }
-        return StringUtils.EMPTY;
+        long loadVersion = version.get();
+        SysConfigSnapshot loaded = new SysConfigSnapshot(loadVersion, configMapper.selectConfigList(new SysConfig()));
+        // 載入期間若又有異動，版本號已不同，下次讀取會再重建
+        snapshot = loaded;
+        return loaded;
+    }
+
+    private boolean isFresh(SysConfigSnapshot current) {
+        return current != null && current.getVersion() == version.get()
+                && (snapshotTtlSeconds <= 0 || System.nanoTime() - current.getLoadedAt() < TimeUnit.SECONDS.toNanos(snapshotTtlSeconds));
     }
 
     /**
@@ -114,6 +166,7 @@ public class SysConfigServiceImpl implements ISysConfigService {
         int row = configMapper.insertConfig(config);
         if (row > 0) {
             redisCache.setCacheObject(getCacheKey(config.getConfigKey()), config.getConfigValue());
+            cacheInvalidationBus.invalidate(CacheConstants.SYS_CONFIG_KEY, config.getConfigKey());
         }
         return row;
     }
@@ -134,6 +187,7 @@ public class SysConfigServiceImpl implements ISysConfigService {
         int row = configMapper.updateConfig(config);
         if (row > 0) {
             redisCache.setCacheObject(getCacheKey(config.getConfigKey()), config.getConfigValue());
+            cacheInvalidationBus.invalidate(CacheConstants.SYS_CONFIG_KEY, config.getConfigKey());
         }
         return row;
     }
@@ -152,6 +206,7 @@ public class SysConfigServiceImpl implements ISysConfigService {
             }
             configMapper.deleteConfigById(configId);
             redisCache.deleteObject(getCacheKey(config.getConfigKey()));
+            cacheInvalidationBus.invalidate(CacheConstants.SYS_CONFIG_KEY, config.getConfigKey());
         }
     }
 
@@ -171,8 +226,8 @@ public class SysConfigServiceImpl implements ISysConfigService {
      */
     @Override
     public void clearConfigCache() {
-        Collection<String> keys = redisCache.keys(CacheConstants.SYS_CONFIG_KEY + "*");
-        redisCache.deleteObject(keys);
+        redisCache.deleteByPattern(CacheConstants.SYS_CONFIG_KEY + "*");
+        cacheInvalidationBus.invalidateAll(CacheConstants.SYS_CONFIG_KEY);
     }
 
     /**
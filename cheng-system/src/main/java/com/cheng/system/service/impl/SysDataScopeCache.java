@@ -0,0 +1,227 @@
+package com.cheng.system.service.impl;
+
+import com.cheng.common.constant.CacheConstants;
+import com.cheng.common.core.cache.CacheInvalidationBus;
+import com.cheng.common.core.cache.NearCache;
+import com.cheng.common.core.domain.entity.SysDept;
+import com.cheng.system.domain.SysRoleDept;
+import com.cheng.system.mapper.SysDeptMapper;
+import com.cheng.system.mapper.SysRoleDeptMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 數據權限快取
+ * <p>
+ * DataScopeAspect 原本對每次查詢都產生含子查詢的 SQL 片段，
+ * 「部門及以下」的 {@code find_in_set(?, ancestors)} 與「自定」的 {@code sys_role_dept} 子查詢由 MySQL 逐列計算。此快取：
+ * - 保存部門子樹（依 ancestors 計算，與 find_in_set 結果相同）與角色自定部門，供片段直接展開為 IN 清單
+ * - 保存已組好的 SQL 片段（依登入 token、權限字串與別名區分）
+ * - 角色或部門異動時，於交易提交後經 Redis pub/sub 通知各節點清除；通知遺失時由存活時間兜底
+ *
+ * @author cheng
+ */
+@Component
+public class SysDataScopeCache {
+
+    @Autowired
+    private SysDeptMapper deptMapper;
+
+    @Autowired
+    private SysRoleDeptMapper roleDeptMapper;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    /**
+     * 快取存活秒數（0 表示不快取 SQL 片段，部門與角色對照則只在異動時重建）
+     */
+    @Value("${data-scope.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    /**
+     * SQL 片段快取筆數上限
+     */
+    @Value("${data-scope.cache.max-size:10000}")
+    private int maxSize;
+
+    /**
+     * 部門與角色對照的版本，每次清除時遞增
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile Snapshot snapshot;
+
+    private NearCache<String> fragments;
+
+    /**
+     * 部門與角色對照快照
+     *
+     * @param version   版本
+     * @param loadedAt  載入時間（System.nanoTime）
+     * @param deptTree  部門ID → 本部門及所有下級部門ID（已排序）
+     * @param roleDepts 角色ID → 自定數據權限部門ID（已排序）
+     */
+    private record Snapshot(long version, long loadedAt, Map<Long, long[]> deptTree, Map<Long, long[]> roleDepts) {
+    }
+
+    @PostConstruct
+    public void init() {
+        fragments = new NearCache<>(maxSize, ttlSeconds, TimeUnit.SECONDS);
+        cacheInvalidationBus.register(CacheConstants.DATA_SCOPE_KEY, key -> invalidateLocal());
+    }
+
+    /**
+     * 取得 SQL 片段，未命中時以 builder 產生並快取
+     *
+     * @param key     快取鍵
+     * @param builder 產生 SQL 片段
+     * @return SQL 片段
+     */
+    public String getFragment(String key, Function<String, String> builder) {
+        return fragments.get(key, builder);
+    }
+
+    /**
+     * 取得本部門及所有下級部門ID
+     *
+     * @param deptId 部門ID
+     * @return 部門ID（已排序），部門不存在時為空陣列
+     */
+    public long[] getDeptAndChildIds(Long deptId) {
+        long[] ids = deptId != null ? getSnapshot().deptTree().get(deptId) : null;
+        return ids != null ? ids : new long[0];
+    }
+
+    /**
+     * 取得多個角色的自定數據權限部門ID聯集
+     *
+     * @param roleIds 角色ID
+     * @return 部門ID（已排序、不重複）
+     */
+    public long[] getRoleDeptIds(Collection<Long> roleIds) {
+        Map<Long, long[]> roleDepts = getSnapshot().roleDepts();
+        Set<Long> deptIds = new TreeSet<>();
+        for (Long roleId : roleIds) {
+            long[] ids = roleDepts.get(roleId);
+            if (ids != null) {
+                for (long id : ids) {
+                    deptIds.add(id);
+                }
+            }
+        }
+        return deptIds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * 通知各節點清除數據權限快取：立即清除一次，並於交易提交後再清除一次（無交易時只清除一次）
+     */
+    public void invalidateOnCommit() {
+        cacheInvalidationBus.invalidateAll(CacheConstants.DATA_SCOPE_KEY);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cacheInvalidationBus.invalidateAll(CacheConstants.DATA_SCOPE_KEY);
+                }
+            });
+        }
+    }
+
+    private void invalidateLocal() {
+        version.incrementAndGet();
+        fragments.invalidate(null);
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (isFresh(current)) {
+            return current;
+        }
+        return reloadSnapshot();
+    }
+
+    private synchronized Snapshot reloadSnapshot() {
+        Snapshot current = snapshot;
+        if (isFresh(current)) {
+            return current;
+        }
+        long loadVersion = version.get();
+        Snapshot loaded = new Snapshot(loadVersion, System.nanoTime(),
+                buildDeptTree(deptMapper.selectDeptAncestorsAll()), buildRoleDepts(roleDeptMapper.selectRoleDeptAll()));
+        // 載入期間若又有異動，版本號已不同，下次讀取會再重建
+        snapshot = loaded;
+        return loaded;
+    }
+
+    private boolean isFresh(Snapshot current) {
+        return current != null && current.version() == version.get()
+                && (ttlSeconds <= 0 || System.nanoTime() - current.loadedAt() < TimeUnit.SECONDS.toNanos(ttlSeconds));
+    }
+
+    /**
+     * 依 ancestors 計算每個部門的子樹，結果與 {@code dept_id = ? or find_in_set(?, ancestors)} 相同
+     *
+     * @param depts 全部部門（含ID與祖級列表）
+     * @return 部門ID → 本部門及所有下級部門ID
+     */
+    static Map<Long, long[]> buildDeptTree(List<SysDept> depts) {
+        Map<Long, Set<Long>> tree = new HashMap<>();
+        for (SysDept dept : depts) {
+            Long deptId = dept.getDeptId();
+            tree.computeIfAbsent(deptId, k -> new TreeSet<>()).add(deptId);
+            if (dept.getAncestors() == null) {
+                continue;
+            }
+            for (String ancestor : dept.getAncestors().split(",")) {
+                Long ancestorId = parseId(ancestor);
+                if (ancestorId != null) {
+                    tree.computeIfAbsent(ancestorId, k -> new TreeSet<>()).add(deptId);
+                }
+            }
+        }
+        return toArrays(tree);
+    }
+
+    /**
+     * 整理角色自定數據權限部門
+     *
+     * @param roleDepts 全部角色部門關聯
+     * @return 角色ID → 部門ID
+     */
+    static Map<Long, long[]> buildRoleDepts(List<SysRoleDept> roleDepts) {
+        Map<Long, Set<Long>> map = new HashMap<>();
+        for (SysRoleDept roleDept : roleDepts) {
+            map.computeIfAbsent(roleDept.getRoleId(), k -> new TreeSet<>()).add(roleDept.getDeptId());
+        }
+        return toArrays(map);
+    }
+
+    private static Map<Long, long[]> toArrays(Map<Long, Set<Long>> map) {
+        Map<Long, long[]> result = new HashMap<>(Math.max(16, map.size() * 2));
+        map.forEach((key, ids) -> result.put(key, ids.stream().mapToLong(Long::longValue).toArray()));
+        return Map.copyOf(result);
+    }
+
+    private static Long parseId(String text) {
+        try {
+            return Long.valueOf(text.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -35,6 +35,9 @@ public class SysDeptServiceImpl implements ISysDeptService {
     @Autowired
     private SysRoleMapper roleMapper;
 
+    @Autowired
+    private SysDataScopeCache dataScopeCache;
+
     /**
      * 查詢部門管理數據
      *
@@ -199,7 +202,9 @@ public class SysDeptServiceImpl implements ISysDeptService {
             throw new ServiceException("部門停用，不允許新增");
         }
         dept.setAncestors(info.getAncestors() + "," + dept.getParentId());
-        return deptMapper.insertDept(dept);
+        int rows = deptMapper.insertDept(dept);
+        dataScopeCache.invalidateOnCommit();
+        return rows;
     }
 
     /**
@@ -219,6 +224,7 @@ public class SysDeptServiceImpl implements ISysDeptService {
             updateDeptChildren(dept.getDeptId(), newAncestors, oldAncestors);
         }
         int result = deptMapper.updateDept(dept);
+        dataScopeCache.invalidateOnCommit();
         if (UserConstants.DEPT_NORMAL.equals(dept.getStatus()) && StringUtils.isNotEmpty(dept.getAncestors())
                 && !StringUtils.equals("0", dept.getAncestors())) {
             // 如果該部門是啟用狀態，則啟用該部門的所有上級部門
@@ -263,7 +269,9 @@ public class SysDeptServiceImpl implements ISysDeptService {
      */
     @Override
     public int deleteDeptById(Long deptId) {
-        return deptMapper.deleteDeptById(deptId);
+        int rows = deptMapper.deleteDeptById(deptId);
+        dataScopeCache.invalidateOnCommit();
+        return rows;
     }
 
     /**
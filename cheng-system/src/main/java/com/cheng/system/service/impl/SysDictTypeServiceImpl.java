@@ -1,6 +1,8 @@
 package com.cheng.system.service.impl;
 
+import com.cheng.common.constant.CacheConstants;
 import com.cheng.common.constant.UserConstants;
+import com.cheng.common.core.cache.CacheInvalidationBus;
 import com.cheng.common.core.domain.entity.SysDictData;
 import com.cheng.common.core.domain.entity.SysDictType;
 import com.cheng.common.exception.ServiceException;
@@ -9,6 +11,7 @@ import com.cheng.common.utils.StringUtils;
 import com.cheng.system.mapper.SysDictDataMapper;
 import com.cheng.system.mapper.SysDictTypeMapper;
 import com.cheng.system.service.ISysDictTypeService;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
@@ -16,6 +19,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -33,6 +37,17 @@ public class SysDictTypeServiceImpl implements ISysDictTypeService {
     @Autowired
     private SysDictDataMapper dictDataMapper;
 
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    /**
+     * 註冊本機字典登錄表的跨節點失效處理
+     */
+    @PostConstruct
+    public void registerInvalidation() {
+        cacheInvalidationBus.register(CacheConstants.SYS_DICT_KEY, DictUtils::evictLocalDictCache);
+    }
+
     /**
      * 專案啟動時，初始化字典到暫存
      * 使用 ApplicationReadyEvent 確保在應用完全啟動（包括 Flyway 執行完畢）後才執行
@@ -129,10 +144,10 @@ public class SysDictTypeServiceImpl implements ISysDictTypeService {
     public void loadingDictCache() {
         SysDictData dictData = new SysDictData();
         dictData.setStatus("0");
-        Map<String, List<SysDictData>> dictDataMap = dictDataMapper.selectDictDataList(dictData).stream().collect(Collectors.groupingBy(SysDictData::getDictType));
-        for (Map.Entry<String, List<SysDictData>> entry : dictDataMap.entrySet()) {
-            DictUtils.setDictCache(entry.getKey(), entry.getValue().stream().sorted(Comparator.comparing(SysDictData::getDictSort)).collect(Collectors.toList()));
-        }
+        Map<String, List<SysDictData>> dictDataMap = dictDataMapper.selectDictDataList(dictData).stream()
+                .sorted(Comparator.comparing(SysDictData::getDictSort))
+                .collect(Collectors.groupingBy(SysDictData::getDictType, LinkedHashMap::new, Collectors.toList()));
+        DictUtils.setDictCaches(dictDataMap);
     }
 
     /**
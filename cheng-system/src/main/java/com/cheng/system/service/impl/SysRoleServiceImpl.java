@@ -41,6 +41,9 @@ public class SysRoleServiceImpl implements ISysRoleService {
     @Autowired
     private SysRoleDeptMapper roleDeptMapper;
 
+    @Autowired
+    private SysDataScopeCache dataScopeCache;
+
     /**
      * 根據條件分頁查詢角色數據
      *
@@ -252,6 +255,7 @@ public class SysRoleServiceImpl implements ISysRoleService {
         roleMapper.updateRole(role);
         // 刪除角色與部門關聯
         roleDeptMapper.deleteRoleDeptByRoleId(role.getRoleId());
+        dataScopeCache.invalidateOnCommit();
         // 新增角色和部門訊息（數據權限）
         return insertRoleDept(role);
     }
@@ -311,6 +315,7 @@ public class SysRoleServiceImpl implements ISysRoleService {
         roleMenuMapper.deleteRoleMenuByRoleId(roleId);
         // 刪除角色與部門關聯
         roleDeptMapper.deleteRoleDeptByRoleId(roleId);
+        dataScopeCache.invalidateOnCommit();
         return roleMapper.deleteRoleById(roleId);
     }
 
@@ -335,6 +340,7 @@ public class SysRoleServiceImpl implements ISysRoleService {
         roleMenuMapper.deleteRoleMenu(roleIds);
         // 刪除角色與部門關聯
         roleDeptMapper.deleteRoleDept(roleIds);
+        dataScopeCache.invalidateOnCommit();
         return roleMapper.deleteRoleByIds(roleIds);
     }
 
@@ -26,6 +26,7 @@ public class SysTagServiceImpl implements ISysTagService {
 
     private final SysTagMapper sysTagMapper;
     private final InvItemTagRelationMapper invItemTagRelationMapper;
+    private final TagBitmapIndexService tagBitmapIndexService;
 
     @Override
     public SysTag selectSysTagByTagId(Long tagId) {
@@ -127,6 +128,7 @@ public class SysTagServiceImpl implements ISysTagService {
     public int deleteSysTagByTagId(Long tagId) {
         // 刪除標籤前，先刪除相關的關聯資料
         invItemTagRelationMapper.deleteByTagId(tagId);
+        tagBitmapIndexService.inventory().removeTag(tagId);
         // 注意：LINE 使用者標籤關聯由 cheng-line 模組負責刪除（需透過事件或直接呼叫）
         return sysTagMapper.deleteSysTagByTagId(tagId);
     }
@@ -136,6 +138,7 @@ public class SysTagServiceImpl implements ISysTagService {
     public int deleteSysTagByTagIds(Long[] tagIds) {
         for (Long tagId : tagIds) {
             invItemTagRelationMapper.deleteByTagId(tagId);
+            tagBitmapIndexService.inventory().removeTag(tagId);
         }
         return sysTagMapper.deleteSysTagByTagIds(tagIds);
     }
@@ -0,0 +1,667 @@
+package com.cheng.system.service.impl;
+
+import com.cheng.common.constant.CacheConstants;
+import com.cheng.common.core.cache.CacheInvalidationBus;
+import com.cheng.system.domain.SysTagGroup;
+import com.cheng.system.domain.SysTagGroupDetail;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 標籤成員點陣圖索引服務
+ * <p>
+ * 將 line_user_tag_relation / inv_item_tag_relation 載入記憶體，每個標籤以一個 RoaringBitmap 表示其成員：
+ * - 使用者 / 物品 ID 於索引內配發連續的整數序號（ordinal），點陣圖以序號為位元位置
+ * - 群組規則（LEFT_TO_RIGHT、OR_OF_AND）以點陣圖 AND/OR 運算求值，計數直接取 cardinality
+ * - 貼標 / 移除標籤時於交易提交後經 {@link CacheInvalidationBus} 廣播，各節點（含本節點）增量更新
+ * - 定期重建（REBUILD_INTERVAL_MINUTES）收斂訊息遺失或直接 SQL 的異動
+ * <p>
+ * 首次查詢時才同步載入；之後的重建於背景執行，期間查詢繼續使用舊快照。
+ * 重建在鎖外以串流查詢建立新快照，期間的異動會記錄下來並於切換前重放；
+ * 重建期間若索引被標記失效（版本號改變），切換後立即再重建一次。
+ *
+ * @author cheng
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TagBitmapIndexService {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    @Resource(name = "threadPoolTaskExecutor")
+    private ThreadPoolTaskExecutor threadPoolTaskExecutor;
+
+    /**
+     * 索引重建間隔（分鐘），用於收斂訊息遺失或直接 SQL 的異動
+     */
+    private static final long REBUILD_INTERVAL_MINUTES = 10;
+
+    /**
+     * 單則異動訊息最多攜帶的成員數，批次貼標時分段廣播
+     */
+    private static final int MAX_KEYS_PER_MESSAGE = 500;
+
+    private final Index<String> lineIndex = new Index<>("LINE",
+            "SELECT line_user_id, tag_id FROM line_user_tag_relation", rs -> rs.getString(1), Function.identity());
+
+    private final Index<Long> inventoryIndex = new Index<>("INVENTORY",
+            "SELECT item_id, tag_id FROM inv_item_tag_relation", rs -> rs.getLong(1), Long::valueOf);
+
+    @PostConstruct
+    public void init() {
+        lineIndex.register();
+        inventoryIndex.register();
+    }
+
+    /**
+     * 取得 LINE 使用者標籤索引（Key 為 LINE 使用者 ID）
+     */
+    public Index<String> line() {
+        return lineIndex;
+    }
+
+    /**
+     * 取得庫存物品標籤索引（Key 為物品 ID）
+     */
+    public Index<Long> inventory() {
+        return inventoryIndex;
+    }
+
+    /**
+     * 於交易提交後執行（無交易時立即執行），避免回滾的異動寫入索引
+     */
+    private static void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 群組規則：明細與運算模式
+     *
+     * @param details  群組明細
+     * @param calcMode 運算模式：LEFT_TO_RIGHT 或 OR_OF_AND
+     */
+    public record GroupRule(List<SysTagGroupDetail> details, String calcMode) {
+    }
+
+    /**
+     * 讀取關聯列的 Key 欄位
+     */
+    @FunctionalInterface
+    private interface KeyReader<K> {
+        K read(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * 索引快照：Key 與序號的雙向對照，以及每個標籤的成員點陣圖
+     */
+    private static final class Snapshot<K> {
+        private final Map<K, Integer> ordinals = new HashMap<>();
+        private final List<K> keys = new ArrayList<>();
+        private final Map<Long, RoaringBitmap> bitmaps = new HashMap<>();
+        private final long builtAt = System.currentTimeMillis();
+
+        /** 開始載入時的索引版本 */
+        private long version;
+
+        private int ordinalOf(K key) {
+            Integer ordinal = ordinals.get(key);
+            if (ordinal == null) {
+                ordinal = keys.size();
+                ordinals.put(key, ordinal);
+                keys.add(key);
+            }
+            return ordinal;
+        }
+
+        private void add(K key, Long tagId) {
+            bitmaps.computeIfAbsent(tagId, k -> new RoaringBitmap()).add(ordinalOf(key));
+        }
+
+        private void remove(K key, Long tagId) {
+            Integer ordinal = ordinals.get(key);
+            RoaringBitmap bitmap = bitmaps.get(tagId);
+            if (ordinal != null && bitmap != null) {
+                bitmap.remove(ordinal);
+            }
+        }
+
+        private void removeKey(K key) {
+            Integer ordinal = ordinals.get(key);
+            if (ordinal != null) {
+                for (RoaringBitmap bitmap : bitmaps.values()) {
+                    bitmap.remove(ordinal);
+                }
+            }
+        }
+    }
+
+    /**
+     * 單一平台的標籤成員索引
+     *
+     * @param <K> 成員 Key 類型（LINE 使用者 ID 或物品 ID）
+     */
+    public final class Index<K> {
+
+        private final String name;
+        private final String loadSql;
+        private final KeyReader<K> keyReader;
+        private final Function<String, K> keyParser;
+        private final String prefix;
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Object rebuildMonitor = new Object();
+        private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+        /** 目前快照，null 表示尚未載入 */
+        private Snapshot<K> snapshot;
+
+        /** 索引版本，標記失效時遞增；快照版本與此不同即視為過期 */
+        private long version;
+
+        /** 重建期間的異動，切換快照前重放；非重建期間為 null */
+        private List<Consumer<Snapshot<K>>> pendingOps;
+
+        private Index(String name, String loadSql, KeyReader<K> keyReader, Function<String, K> keyParser) {
+            this.name = name;
+            this.loadSql = loadSql;
+            this.keyReader = keyReader;
+            this.keyParser = keyParser;
+            this.prefix = CacheConstants.TAG_BITMAP_KEY + name + ":";
+        }
+
+        private void register() {
+            cacheInvalidationBus.register(prefix, message -> {
+                if (message == null) {
+                    markStale();
+                } else {
+                    apply(message);
+                }
+            });
+        }
+
+        // ==================== 查詢 ====================
+
+        /**
+         * 快照是否已載入；尚未載入時排入背景載入，不阻塞呼叫端
+         *
+         * @return 已載入時為 true，查詢不需等待載入
+         */
+        public boolean isReady() {
+            lock.readLock().lock();
+            try {
+                if (snapshot != null) {
+                    return true;
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            scheduleRebuild();
+            return false;
+        }
+
+        /**
+         * 依群組規則計算符合的成員數
+         *
+         * @param details  群組明細
+         * @param calcMode 運算模式：LEFT_TO_RIGHT 或 OR_OF_AND
+         * @return 符合成員數
+         */
+        public int count(List<SysTagGroupDetail> details, String calcMode) {
+            return read(current -> evaluate(current, details, calcMode).getCardinality());
+        }
+
+        /**
+         * 依群組規則取得符合的成員
+         *
+         * @param details  群組明細
+         * @param calcMode 運算模式：LEFT_TO_RIGHT 或 OR_OF_AND
+         * @param limit    最多取回筆數，小於等於 0 表示不限
+         * @return 成員 Key 列表
+         */
+        public List<K> match(List<SysTagGroupDetail> details, String calcMode, int limit) {
+            return read(current -> toKeys(current, evaluate(current, details, calcMode), limit));
+        }
+
+        /**
+         * 取得多個標籤的成員聯集
+         *
+         * @param tagIds 標籤 ID 集合
+         * @return 成員 Key 列表
+         */
+        public List<K> members(Collection<Long> tagIds) {
+            return read(current -> {
+                RoaringBitmap result = new RoaringBitmap();
+                for (Long tagId : tagIds) {
+                    result.or(bitmapOf(current, tagId));
+                }
+                return toKeys(current, result, 0);
+            });
+        }
+
+        /**
+         * 單一標籤的成員數
+         *
+         * @param tagId 標籤 ID
+         * @return 成員數
+         */
+        public int count(Long tagId) {
+            return read(current -> bitmapOf(current, tagId).getCardinality());
+        }
+
+        /**
+         * 多個標籤各自的成員數（同一份快照）
+         *
+         * @param tagIds 標籤 ID 集合
+         * @return 標籤 ID → 成員數
+         */
+        public Map<Long, Integer> counts(Collection<Long> tagIds) {
+            return read(current -> {
+                Map<Long, Integer> result = new LinkedHashMap<>();
+                for (Long tagId : tagIds) {
+                    result.put(tagId, bitmapOf(current, tagId).getCardinality());
+                }
+                return result;
+            });
+        }
+
+        /**
+         * 個別標籤與群組規則的成員聯集
+         *
+         * @param tagIds 標籤 ID 集合
+         * @param rules  群組規則
+         * @return 成員 Key 列表
+         */
+        public List<K> resolve(Collection<Long> tagIds, Collection<GroupRule> rules) {
+            return read(current -> toKeys(current, union(current, tagIds, rules), 0));
+        }
+
+        /**
+         * 個別標籤與群組規則的成員聯集數（不展開成員 Key）
+         *
+         * @param tagIds 標籤 ID 集合
+         * @param rules  群組規則
+         * @return 去重後成員數
+         */
+        public int resolveCount(Collection<Long> tagIds, Collection<GroupRule> rules) {
+            return read(current -> union(current, tagIds, rules).getCardinality());
+        }
+
+        /**
+         * 於同一份快照上以讀鎖執行查詢，確保點陣圖與序號對照一致
+         */
+        private <R> R read(Function<Snapshot<K>, R> query) {
+            Snapshot<K> current = currentSnapshot();
+            lock.readLock().lock();
+            try {
+                return query.apply(current);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private RoaringBitmap union(Snapshot<K> current, Collection<Long> tagIds, Collection<GroupRule> rules) {
+            RoaringBitmap result = new RoaringBitmap();
+            for (Long tagId : tagIds) {
+                result.or(bitmapOf(current, tagId));
+            }
+            for (GroupRule rule : rules) {
+                if (rule.details() != null && !rule.details().isEmpty()) {
+                    result.or(evaluate(current, rule.details(), rule.calcMode()));
+                }
+            }
+            return result;
+        }
+
+        private List<K> toKeys(Snapshot<K> current, RoaringBitmap bitmap, int limit) {
+            int cardinality = bitmap.getCardinality();
+            int size = limit > 0 ? Math.min(limit, cardinality) : cardinality;
+            List<K> result = new ArrayList<>(size);
+            var iterator = bitmap.getIntIterator();
+            while (iterator.hasNext() && result.size() < size) {
+                result.add(current.keys.get(iterator.next()));
+            }
+            return result;
+        }
+
+        // ==================== 增量維護 ====================
+
+        /**
+         * 成員加上標籤
+         */
+        public void add(K key, Long tagId) {
+            publish("a", tagId, List.of(key));
+        }
+
+        /**
+         * 多個成員加上同一標籤
+         */
+        public void addAll(Collection<K> keys, Long tagId) {
+            publish("a", tagId, List.copyOf(keys));
+        }
+
+        /**
+         * 成員移除標籤
+         */
+        public void remove(K key, Long tagId) {
+            publish("r", tagId, List.of(key));
+        }
+
+        /**
+         * 成員移除所有標籤
+         */
+        public void removeKey(K key) {
+            publish("k", null, List.of(key));
+        }
+
+        /**
+         * 標籤移除所有成員
+         */
+        public void removeTag(Long tagId) {
+            publish("t", tagId, List.of());
+        }
+
+        /**
+         * 使各節點的索引失效並於背景重建（用於無法得知異動內容的操作），重建完成前查詢使用舊快照
+         */
+        public void invalidate() {
+            runAfterCommit(() -> cacheInvalidationBus.invalidateAll(prefix));
+        }
+
+        /**
+         * 交易提交後廣播異動，訊息格式為「操作|標籤ID|成員1,成員2」；本節點由同一處理函式套用
+         */
+        private void publish(String op, Long tagId, List<K> keys) {
+            runAfterCommit(() -> {
+                String head = op + "|" + (tagId != null ? tagId : "") + "|";
+                if (keys.isEmpty()) {
+                    cacheInvalidationBus.invalidate(prefix, head);
+                    return;
+                }
+                for (int from = 0; from < keys.size(); from += MAX_KEYS_PER_MESSAGE) {
+                    List<K> chunk = keys.subList(from, Math.min(from + MAX_KEYS_PER_MESSAGE, keys.size()));
+                    StringJoiner joiner = new StringJoiner(",", head, "");
+                    chunk.forEach(key -> joiner.add(String.valueOf(key)));
+                    cacheInvalidationBus.invalidate(prefix, joiner.toString());
+                }
+            });
+        }
+
+        /**
+         * 套用異動訊息
+         */
+        private void apply(String message) {
+            String[] parts = message.split("\\|", 3);
+            if (parts.length != 3) {
+                log.warn("標籤點陣圖索引 [{}] 略過無法解析的異動訊息: {}", name, message);
+                return;
+            }
+            Long tagId = parts[1].isEmpty() ? null : Long.valueOf(parts[1]);
+            List<K> keys = parts[2].isEmpty() ? List.of()
+                    : Arrays.stream(parts[2].split(",")).map(keyParser).toList();
+            switch (parts[0]) {
+                case "a" -> mutate(s -> keys.forEach(key -> s.add(key, tagId)));
+                case "r" -> mutate(s -> keys.forEach(key -> s.remove(key, tagId)));
+                case "k" -> mutate(s -> keys.forEach(s::removeKey));
+                case "t" -> mutate(s -> s.bitmaps.remove(tagId));
+                default -> log.warn("標籤點陣圖索引 [{}] 略過未知的異動操作: {}", name, parts[0]);
+            }
+        }
+
+        private void mutate(Consumer<Snapshot<K>> op) {
+            lock.writeLock().lock();
+            try {
+                if (snapshot != null) {
+                    op.accept(snapshot);
+                }
+                if (pendingOps != null) {
+                    pendingOps.add(op);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * 標記目前快照過期並排入背景重建
+         */
+        private void markStale() {
+            lock.writeLock().lock();
+            try {
+                version++;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            scheduleRebuild();
+        }
+
+        // ==================== 載入 ====================
+
+        /**
+         * 取得目前快照：尚未載入時同步載入；已過期時排入背景重建，本次仍回傳舊快照
+         */
+        private Snapshot<K> currentSnapshot() {
+            Snapshot<K> current;
+            boolean fresh;
+            lock.readLock().lock();
+            try {
+                current = snapshot;
+                fresh = isFresh(current);
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (current == null) {
+                synchronized (rebuildMonitor) {
+                    lock.readLock().lock();
+                    try {
+                        current = snapshot;
+                    } finally {
+                        lock.readLock().unlock();
+                    }
+                    if (current == null) {
+                        current = rebuild();
+                        fresh = true;
+                    }
+                }
+            }
+            if (!fresh) {
+                scheduleRebuild();
+            }
+            return current;
+        }
+
+        /**
+         * 需持有讀鎖或寫鎖
+         */
+        private boolean isFresh(Snapshot<K> current) {
+            return current != null && current.version == version
+                    && System.currentTimeMillis() - current.builtAt < TimeUnit.MINUTES.toMillis(REBUILD_INTERVAL_MINUTES);
+        }
+
+        /**
+         * 於背景執行緒重建；已有重建排程時不重複排入
+         */
+        private void scheduleRebuild() {
+            if (!rebuildScheduled.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                threadPoolTaskExecutor.execute(() -> {
+                    boolean rebuilt = false;
+                    try {
+                        synchronized (rebuildMonitor) {
+                            rebuild();
+                        }
+                        rebuilt = true;
+                    } catch (Exception e) {
+                        log.warn("標籤點陣圖索引 [{}] 背景重建失敗，繼續使用舊快照: {}", name, e.getMessage());
+                    } finally {
+                        rebuildScheduled.set(false);
+                    }
+                    if (rebuilt && isStale()) {
+                        // 重建期間再次被標記失效
+                        scheduleRebuild();
+                    }
+                });
+            } catch (RuntimeException e) {
+                rebuildScheduled.set(false);
+                log.warn("標籤點陣圖索引 [{}] 無法排入背景重建: {}", name, e.getMessage());
+            }
+        }
+
+        private boolean isStale() {
+            lock.readLock().lock();
+            try {
+                return snapshot == null || snapshot.version != version;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * 重新載入快照，呼叫端需持有 rebuildMonitor
+         */
+        private Snapshot<K> rebuild() {
+            long startTime = System.currentTimeMillis();
+            long startVersion;
+            lock.writeLock().lock();
+            try {
+                pendingOps = new ArrayList<>();
+                startVersion = version;
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Snapshot<K> next = new Snapshot<>();
+            next.version = startVersion;
+            long[] rows = {0};
+            try {
+                jdbcTemplate.query(con -> {
+                    PreparedStatement ps = con.prepareStatement(loadSql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    // MySQL 串流讀取，避免一次載入全部關聯列
+                    ps.setFetchSize(Integer.MIN_VALUE);
+                    return ps;
+                }, rs -> {
+                    next.add(keyReader.read(rs), rs.getLong(2));
+                    rows[0]++;
+                });
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    pendingOps = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+            next.bitmaps.values().forEach(RoaringBitmap::runOptimize);
+
+            boolean outdated;
+            lock.writeLock().lock();
+            try {
+                pendingOps.forEach(op -> op.accept(next));
+                pendingOps = null;
+                // 載入期間被標記失效時，新快照可能缺少該次異動；仍比舊快照新，切換後由呼叫端再重建
+                outdated = startVersion != version;
+                snapshot = next;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("標籤點陣圖索引 [{}] 載入完成：關聯 {} 筆，成員 {} 個，標籤 {} 個，耗時 {}ms{}",
+                    name, rows[0], next.keys.size(), next.bitmaps.size(), System.currentTimeMillis() - startTime,
+                    outdated ? "（載入期間索引被標記失效，將再重建）" : "");
+            if (outdated) {
+                scheduleRebuild();
+            }
+            return next;
+        }
+
+        // ==================== 規則求值 ====================
+
+        private RoaringBitmap evaluate(Snapshot<K> current, List<SysTagGroupDetail> details, String calcMode) {
+            if (details == null || details.isEmpty()) {
+                return new RoaringBitmap();
+            }
+            List<SysTagGroupDetail> sorted = details.stream()
+                    .sorted(Comparator.comparingInt(SysTagGroupDetail::getGroupIndex))
+                    .toList();
+            if (SysTagGroup.CALC_MODE_OR_OF_AND.equals(calcMode)) {
+                return evaluateOrOfAnd(current, sorted);
+            }
+            return evaluateLeftToRight(current, sorted);
+        }
+
+        /**
+         * LEFT_TO_RIGHT 模式：從左到右依序運算
+         * 範例：A AND B OR C AND D → ((((A AND B) OR C) AND D))
+         */
+        private RoaringBitmap evaluateLeftToRight(Snapshot<K> current, List<SysTagGroupDetail> sorted) {
+            RoaringBitmap result = bitmapOf(current, sorted.getFirst().getTagId()).clone();
+            for (int i = 1; i < sorted.size(); i++) {
+                SysTagGroupDetail detail = sorted.get(i);
+                RoaringBitmap tagMembers = bitmapOf(current, detail.getTagId());
+                // 與 SQL 路徑一致：非 AND 一律視為 OR
+                if (SysTagGroupDetail.OPERATOR_AND.equals(detail.getOperator())) {
+                    result.and(tagMembers);
+                } else {
+                    result.or(tagMembers);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * OR_OF_AND 模式：以 OR 切段，段內為 AND
+         * 範例：A AND B OR C AND D → (A AND B) OR (C AND D)
+         */
+        private RoaringBitmap evaluateOrOfAnd(Snapshot<K> current, List<SysTagGroupDetail> sorted) {
+            RoaringBitmap result = new RoaringBitmap();
+            RoaringBitmap andGroup = bitmapOf(current, sorted.getFirst().getTagId()).clone();
+            for (int i = 1; i < sorted.size(); i++) {
+                SysTagGroupDetail detail = sorted.get(i);
+                RoaringBitmap tagMembers = bitmapOf(current, detail.getTagId());
+                if (SysTagGroupDetail.OPERATOR_OR.equals(detail.getOperator())) {
+                    result.or(andGroup);
+                    andGroup = tagMembers.clone();
+                } else {
+                    andGroup.and(tagMembers);
+                }
+            }
+            result.or(andGroup);
+            return result;
+        }
+
+        private RoaringBitmap bitmapOf(Snapshot<K> current, Long tagId) {
+            RoaringBitmap bitmap = current.bitmaps.get(tagId);
+            return bitmap != null ? bitmap : new RoaringBitmap();
+        }
+    }
+}
@@ -13,7 +13,11 @@ import java.util.stream.Collectors;
 
 /**
  * 標籤群組運算服務
- * 支援大量資料的 Keyset Pagination + Safety Cutoff 策略
+ * 求值順序：
+ * 1. 記憶體中的標籤點陣圖索引（{@link TagBitmapIndexService}），僅在快照已載入時使用
+ * 2. SQL 下推：規則編譯為單次 GROUP BY / HAVING 聚合查詢（{@link TagGroupSqlCompiler}），
+ *    用於索引尚未載入（啟動後首次運算，索引於背景載入）或索引運算失敗時，避免請求等待整份索引載入
+ * 3. 規則無法下推時，Keyset Pagination + Safety Cutoff 分頁掃描並於 Java 端逐一比對
  *
  * @author cheng
  */
@@ -24,9 +28,15 @@ public class TagGroupCalcService {
 
     private final JdbcTemplate jdbcTemplate;
     private final SysTagGroupMapper sysTagGroupMapper;
+    private final TagBitmapIndexService tagBitmapIndexService;
 
     private static final int PAGE_SIZE = 10000;
 
+    private static final String LINE_RELATION_TABLE = "line_user_tag_relation";
+    private static final String LINE_ID_COLUMN = "line_user_id";
+    private static final String INVENTORY_RELATION_TABLE = "inv_item_tag_relation";
+    private static final String INVENTORY_ID_COLUMN = "item_id";
+
     /**
      * 執行 LINE 群組運算
      */
@@ -47,6 +57,116 @@ public class TagGroupCalcService {
         String calcMode = group.getCalcMode() == null || group.getCalcMode().isEmpty()
                 ? SysTagGroup.CALC_MODE_LEFT_TO_RIGHT : group.getCalcMode();
 
+        int matchCount = countByIndex(tagBitmapIndexService.line(), details, calcMode)
+                .or(() -> countBySql(LINE_RELATION_TABLE, LINE_ID_COLUMN, details, calcMode))
+                .orElseGet(() -> scanLineGroupCount(ruleTagIds, details, calcMode));
+
+        // 更新群組的結果數量
+        sysTagGroupMapper.updateCountResult(group.getGroupId(), matchCount);
+
+        long elapsed = System.currentTimeMillis() - startTime;
+        log.info("LINE 標籤群組運算完成：{}，符合人數：{}，耗時：{}ms", group.getGroupName(), matchCount, elapsed);
+
+        return buildResult(matchCount, elapsed, null);
+    }
+
+    /**
+     * 執行庫存群組運算
+     */
+    public Map<String, Object> executeInventoryGroupCalc(SysTagGroup group) {
+        long startTime = System.currentTimeMillis();
+        log.info("開始執行庫存標籤群組運算：{}", group.getGroupName());
+
+        List<SysTagGroupDetail> details = group.getDetails();
+        if (details == null || details.isEmpty()) {
+            return buildResult(0, 0, "群組沒有設定標籤");
+        }
+
+        Set<Long> ruleTagIds = details.stream()
+                .map(SysTagGroupDetail::getTagId)
+                .collect(Collectors.toSet());
+
+        String calcMode = group.getCalcMode() == null || group.getCalcMode().isEmpty()
+                ? SysTagGroup.CALC_MODE_LEFT_TO_RIGHT : group.getCalcMode();
+
+        int matchCount = countByIndex(tagBitmapIndexService.inventory(), details, calcMode)
+                .or(() -> countBySql(INVENTORY_RELATION_TABLE, INVENTORY_ID_COLUMN, details, calcMode))
+                .orElseGet(() -> scanInventoryGroupCount(ruleTagIds, details, calcMode));
+
+        sysTagGroupMapper.updateCountResult(group.getGroupId(), matchCount);
+
+        long elapsed = System.currentTimeMillis() - startTime;
+        log.info("庫存標籤群組運算完成：{}，符合物品數：{}，耗時：{}ms", group.getGroupName(), matchCount, elapsed);
+
+        return buildResult(matchCount, elapsed, null);
+    }
+
+    /**
+     * 以標籤點陣圖索引取得符合數
+     *
+     * @return 符合數，索引尚未載入或運算失敗時為 empty
+     */
+    private Optional<Integer> countByIndex(TagBitmapIndexService.Index<?> index,
+                                           List<SysTagGroupDetail> details, String calcMode) {
+        if (!index.isReady()) {
+            log.info("標籤點陣圖索引載入中，改以資料庫運算");
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(index.count(details, calcMode));
+        } catch (Exception e) {
+            log.warn("標籤點陣圖索引不可用，改以資料庫運算：{}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 以標籤點陣圖索引取得符合的成員 ID
+     *
+     * @return 成員 ID，索引尚未載入或運算失敗時為 empty
+     */
+    private Optional<List<String>> matchByIndex(TagBitmapIndexService.Index<?> index,
+                                                List<SysTagGroupDetail> details, String calcMode, int limit) {
+        if (!index.isReady()) {
+            log.info("標籤點陣圖索引載入中，改以資料庫預覽");
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(index.match(details, calcMode, limit).stream()
+                    .map(String::valueOf)
+                    .toList());
+        } catch (Exception e) {
+            log.warn("標籤點陣圖索引不可用，改以資料庫預覽：{}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * SQL 下推：以單次 GROUP BY / HAVING 聚合查詢取得符合數
+     *
+     * @return 符合數，規則無法下推時為 empty
+     */
+    private Optional<Integer> countBySql(String table, String idColumn,
+                                         List<SysTagGroupDetail> details, String calcMode) {
+        return TagGroupSqlCompiler.compileCount(table, idColumn, details, calcMode)
+                .map(q -> jdbcTemplate.queryForObject(q.sql(), Integer.class, q.args().toArray()));
+    }
+
+    /**
+     * SQL 下推：以單次 GROUP BY / HAVING 聚合查詢取得符合的成員 ID
+     *
+     * @return 成員 ID，規則無法下推時為 empty
+     */
+    private Optional<List<String>> matchBySql(String table, String idColumn,
+                                              List<SysTagGroupDetail> details, String calcMode, int limit) {
+        return TagGroupSqlCompiler.compileMatch(table, idColumn, details, calcMode, limit)
+                .map(q -> jdbcTemplate.queryForList(q.sql(), String.class, q.args().toArray()));
+    }
+
+    /**
+     * 分頁掃描計算 LINE 群組符合人數（規則無法下推時的備援路徑）
+     */
+    private int scanLineGroupCount(Set<Long> ruleTagIds, List<SysTagGroupDetail> details, String calcMode) {
         int matchCount = 0;
         String lastUserId = null;
 
@@ -83,34 +203,13 @@ public class TagGroupCalcService {
             }
         }
 
-        // 更新群組的結果數量
-        sysTagGroupMapper.updateCountResult(group.getGroupId(), matchCount);
-
-        long elapsed = System.currentTimeMillis() - startTime;
-        log.info("LINE 標籤群組運算完成：{}，符合人數：{}，耗時：{}ms", group.getGroupName(), matchCount, elapsed);
-
-        return buildResult(matchCount, elapsed, null);
+        return matchCount;
     }
 
     /**
-     * 執行庫存群組運算
+     * 分頁掃描計算庫存群組符合物品數（規則無法下推時的備援路徑）
      */
-    public Map<String, Object> executeInventoryGroupCalc(SysTagGroup group) {
-        long startTime = System.currentTimeMillis();
-        log.info("開始執行庫存標籤群組運算：{}", group.getGroupName());
-
-        List<SysTagGroupDetail> details = group.getDetails();
-        if (details == null || details.isEmpty()) {
-            return buildResult(0, 0, "群組沒有設定標籤");
-        }
-
-        Set<Long> ruleTagIds = details.stream()
-                .map(SysTagGroupDetail::getTagId)
-                .collect(Collectors.toSet());
-
-        String calcMode = group.getCalcMode() == null || group.getCalcMode().isEmpty()
-                ? SysTagGroup.CALC_MODE_LEFT_TO_RIGHT : group.getCalcMode();
-
+    private int scanInventoryGroupCount(Set<Long> ruleTagIds, List<SysTagGroupDetail> details, String calcMode) {
         int matchCount = 0;
         Long lastItemId = null;
 
@@ -142,12 +241,7 @@ public class TagGroupCalcService {
             }
         }
 
-        sysTagGroupMapper.updateCountResult(group.getGroupId(), matchCount);
-
-        long elapsed = System.currentTimeMillis() - startTime;
-        log.info("庫存標籤群組運算完成：{}，符合物品數：{}，耗時：{}ms", group.getGroupName(), matchCount, elapsed);
-
-        return buildResult(matchCount, elapsed, null);
+        return matchCount;
     }
 
     /**
@@ -159,16 +253,32 @@ public class TagGroupCalcService {
             return buildPreviewResult(Collections.emptyList(), 0, "群組沒有設定標籤");
         }
 
+        String calcMode = group.getCalcMode() == null || group.getCalcMode().isEmpty()
+                ? SysTagGroup.CALC_MODE_LEFT_TO_RIGHT : group.getCalcMode();
+
+        boolean lineScope = SysTagGroup.SCOPE_LINE.equals(group.getPlatformScope());
+        List<String> matchedIds = lineScope
+                ? matchByIndex(tagBitmapIndexService.line(), details, calcMode, limit)
+                        .or(() -> matchBySql(LINE_RELATION_TABLE, LINE_ID_COLUMN, details, calcMode, limit))
+                        .orElseGet(() -> scanPreview(true, details, calcMode, limit))
+                : matchByIndex(tagBitmapIndexService.inventory(), details, calcMode, limit)
+                        .or(() -> matchBySql(INVENTORY_RELATION_TABLE, INVENTORY_ID_COLUMN, details, calcMode, limit))
+                        .orElseGet(() -> scanPreview(false, details, calcMode, limit));
+
+        return buildPreviewResult(matchedIds, matchedIds.size(), null);
+    }
+
+    /**
+     * 以前 limit * 10 筆關聯取樣預覽（規則無法下推時的備援路徑）
+     */
+    private List<String> scanPreview(boolean lineScope, List<SysTagGroupDetail> details, String calcMode, int limit) {
         Set<Long> ruleTagIds = details.stream()
                 .map(SysTagGroupDetail::getTagId)
                 .collect(Collectors.toSet());
 
-        String calcMode = group.getCalcMode() == null || group.getCalcMode().isEmpty()
-                ? SysTagGroup.CALC_MODE_LEFT_TO_RIGHT : group.getCalcMode();
-
         List<String> matchedIds = new ArrayList<>();
 
-        if (SysTagGroup.SCOPE_LINE.equals(group.getPlatformScope())) {
+        if (lineScope) {
             List<Map<String, Object>> pageData = fetchLineUserTagPage(ruleTagIds, null, limit * 10);
             Map<String, Set<Long>> userTagMap = groupByUser(pageData, "line_user_id");
 
@@ -190,13 +300,13 @@ public class TagGroupCalcService {
             }
         }
 
-        return buildPreviewResult(matchedIds, matchedIds.size(), null);
+        return matchedIds;
     }
 
     /**
      * 判斷使用者/物品是否符合群組規則
      */
-    private boolean isGroupMatched(Set<Long> userTagIds, List<SysTagGroupDetail> details, String calcMode) {
+    static boolean isGroupMatched(Set<Long> userTagIds, List<SysTagGroupDetail> details, String calcMode) {
         if (SysTagGroup.CALC_MODE_OR_OF_AND.equals(calcMode)) {
             return isGroupMatchedOrOfAnd(userTagIds, details);
         } else {
@@ -208,7 +318,7 @@ public class TagGroupCalcService {
      * LEFT_TO_RIGHT 模式：從左到右依序運算
      * 範例：A AND B OR C AND D → ((((A AND B) OR C) AND D))
      */
-    private boolean isGroupMatchedLeftToRight(Set<Long> userTagIds, List<SysTagGroupDetail> details) {
+    private static boolean isGroupMatchedLeftToRight(Set<Long> userTagIds, List<SysTagGroupDetail> details) {
         List<SysTagGroupDetail> sorted = details.stream()
                 .sorted(Comparator.comparingInt(SysTagGroupDetail::getGroupIndex))
                 .toList();
@@ -233,7 +343,7 @@ public class TagGroupCalcService {
      * OR_OF_AND 模式：以 OR 切段，段內為 AND
      * 範例：A AND B OR C AND D → (A AND B) OR (C AND D)
      */
-    private boolean isGroupMatchedOrOfAnd(Set<Long> userTagIds, List<SysTagGroupDetail> details) {
+    private static boolean isGroupMatchedOrOfAnd(Set<Long> userTagIds, List<SysTagGroupDetail> details) {
         List<SysTagGroupDetail> sorted = details.stream()
                 .sorted(Comparator.comparingInt(SysTagGroupDetail::getGroupIndex))
                 .toList();
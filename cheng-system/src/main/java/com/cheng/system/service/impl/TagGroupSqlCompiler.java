@@ -0,0 +1,150 @@
+package com.cheng.system.service.impl;
+
+import com.cheng.system.domain.SysTagGroup;
+import com.cheng.system.domain.SysTagGroupDetail;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * 標籤群組規則 SQL 編譯器
+ * <p>
+ * 將群組明細編譯為單次 GROUP BY / HAVING 聚合查詢，由資料庫完成規則求值：
+ * - 每個標籤條件編譯為 {@code SUM(tag_id = ?) > 0}（成員是否擁有該標籤）
+ * - LEFT_TO_RIGHT：依序巢狀，A AND B OR C → ((A AND B) OR C)
+ * - OR_OF_AND：以 OR 切段，段內為 AND，A AND B OR C AND D → (A AND B) OR (C AND D)
+ * <p>
+ * 無法下推的規則（未知運算模式 / 運算子、標籤 ID 為空、條件數超過上限）回傳 empty，由呼叫端改走 Java 路徑。
+ *
+ * @author cheng
+ */
+final class TagGroupSqlCompiler {
+
+    /**
+     * 可下推的條件數上限，避免產生過長的 HAVING 運算式
+     */
+    static final int MAX_TERMS = 64;
+
+    private TagGroupSqlCompiler() {
+    }
+
+    /**
+     * 編譯後的查詢
+     *
+     * @param sql  SQL（以 ? 為參數佔位）
+     * @param args 依序的參數
+     */
+    record CompiledQuery(String sql, List<Object> args) {
+    }
+
+    /**
+     * 編譯符合數統計查詢
+     *
+     * @param table    關聯表名稱
+     * @param idColumn 成員 ID 欄位
+     * @param details  群組明細
+     * @param calcMode 運算模式
+     * @return 編譯結果，無法下推時為 empty
+     */
+    static Optional<CompiledQuery> compileCount(String table, String idColumn,
+                                                List<SysTagGroupDetail> details, String calcMode) {
+        return compileGrouped(table, idColumn, details, calcMode)
+                .map(q -> new CompiledQuery("SELECT COUNT(*) FROM (" + q.sql() + ") t", q.args()));
+    }
+
+    /**
+     * 編譯符合成員 ID 查詢（依 ID 排序）
+     *
+     * @param table    關聯表名稱
+     * @param idColumn 成員 ID 欄位
+     * @param details  群組明細
+     * @param calcMode 運算模式
+     * @param limit    最多筆數，小於等於 0 表示不限
+     * @return 編譯結果，無法下推時為 empty
+     */
+    static Optional<CompiledQuery> compileMatch(String table, String idColumn,
+                                                List<SysTagGroupDetail> details, String calcMode, int limit) {
+        return compileGrouped(table, idColumn, details, calcMode).map(q -> {
+            if (limit <= 0) {
+                return new CompiledQuery(q.sql() + " ORDER BY " + idColumn, q.args());
+            }
+            List<Object> args = new ArrayList<>(q.args());
+            args.add(limit);
+            return new CompiledQuery(q.sql() + " ORDER BY " + idColumn + " LIMIT ?", args);
+        });
+    }
+
+    private static Optional<CompiledQuery> compileGrouped(String table, String idColumn,
+                                                          List<SysTagGroupDetail> details, String calcMode) {
+        if (details == null || details.isEmpty() || details.size() > MAX_TERMS) {
+            return Optional.empty();
+        }
+        boolean orOfAnd = SysTagGroup.CALC_MODE_OR_OF_AND.equals(calcMode);
+        if (!orOfAnd && !SysTagGroup.CALC_MODE_LEFT_TO_RIGHT.equals(calcMode)) {
+            return Optional.empty();
+        }
+        List<SysTagGroupDetail> sorted = details.stream()
+                .sorted(Comparator.comparingInt(SysTagGroupDetail::getGroupIndex))
+                .toList();
+        for (int i = 0; i < sorted.size(); i++) {
+            SysTagGroupDetail detail = sorted.get(i);
+            if (detail.getTagId() == null) {
+                return Optional.empty();
+            }
+            if (i > 0 && !SysTagGroupDetail.OPERATOR_AND.equals(detail.getOperator())
+                    && !SysTagGroupDetail.OPERATOR_OR.equals(detail.getOperator())) {
+                return Optional.empty();
+            }
+        }
+
+        List<Object> args = new ArrayList<>();
+        Set<Long> tagIds = new LinkedHashSet<>();
+        sorted.forEach(d -> tagIds.add(d.getTagId()));
+
+        StringBuilder sql = new StringBuilder("SELECT ").append(idColumn)
+                .append(" FROM ").append(table)
+                .append(" WHERE tag_id IN (");
+        int n = 0;
+        for (Long tagId : tagIds) {
+            sql.append(n++ == 0 ? "?" : ", ?");
+            args.add(tagId);
+        }
+        String having = orOfAnd ? havingOrOfAnd(sorted, args) : havingLeftToRight(sorted, args);
+        sql.append(") GROUP BY ").append(idColumn).append(" HAVING ").append(having);
+        return Optional.of(new CompiledQuery(sql.toString(), args));
+    }
+
+    /**
+     * LEFT_TO_RIGHT：((((A AND B) OR C) AND D))
+     */
+    private static String havingLeftToRight(List<SysTagGroupDetail> sorted, List<Object> args) {
+        String expr = term(sorted.getFirst(), args);
+        for (int i = 1; i < sorted.size(); i++) {
+            SysTagGroupDetail detail = sorted.get(i);
+            expr = "(" + expr + " " + detail.getOperator() + " " + term(detail, args) + ")";
+        }
+        return expr;
+    }
+
+    /**
+     * OR_OF_AND：(A AND B) OR (C AND D)
+     */
+    private static String havingOrOfAnd(List<SysTagGroupDetail> sorted, List<Object> args) {
+        StringBuilder expr = new StringBuilder("(").append(term(sorted.getFirst(), args));
+        for (int i = 1; i < sorted.size(); i++) {
+            SysTagGroupDetail detail = sorted.get(i);
+            expr.append(SysTagGroupDetail.OPERATOR_OR.equals(detail.getOperator()) ? ") OR (" : " AND ")
+                    .append(term(detail, args));
+        }
+        return expr.append(")").toString();
+    }
+
+    private static String term(SysTagGroupDetail detail, List<Object> args) {
+        args.add(detail.getTagId());
+        return "SUM(tag_id = ?) > 0";
+    }
+}